@@ -0,0 +1,79 @@
+package com.jianglei.util.bench;
+
+import com.jianglei.util.ConcurrentHashMap;
+import com.jianglei.util.HashMap;
+import com.jianglei.util.Map;
+
+/**
+ * {@link ConcurrentHashMap}混合put/get/remove的吞吐量，与用一把锁保护的{@link HashMap}对比。
+ *
+ * <p>每个线程操作自己的一段键：先对per个键依次put再get，然后remove其中一半，
+ * 每个键共2.5次操作。线程之间的键不重叠，但都落在同一张表里，所以竞争的是
+ * 表的扩容、计数和相邻的桶。结束后检查映射的大小和剩下的键。
+ *
+ * <pre>
+ *     java -cp target/classes:target/bench-classes com.jianglei.util.bench.ConcurrentHashMapBench [线程数列表] [per]
+ * </pre>
+ * 默认线程数为1,2,4,8,16，per为200000，每个线程数运行5轮，报告最后一轮。
+ * 只有在CPU核数不少于线程数的机器上，结果才能说明扩展性。
+ *
+ * Created by jianglei on 2017/4/22.
+ */
+public class ConcurrentHashMapBench {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws InterruptedException{
+        int[] threads = Throughput.parseThreads(args.length > 0 ? args[0] : "1,2,4,8,16");
+        int per = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        Throughput.header("ConcurrentHashMap put/get/remove, " + per + " keys per thread, ops/us", threads);
+        System.out.println("threads  ConcurrentHashMap  locked HashMap");
+        for(int t : threads){
+            double chm = 0, locked = 0;
+            for(int r = 0; r < ROUNDS; r++){
+                chm = run(t, per, new ConcurrentHashMap<>(), null);
+                locked = run(t, per, new HashMap<>(), new Object());
+            }
+            System.out.printf("%7d  %17.1f  %14.1f%n", t, chm, locked);
+        }
+    }
+
+    /**
+     * lock不为null时每次操作都在lock上同步
+     */
+    private static double run(int threads, int per, Map<Integer, Integer> m, Object lock) throws InterruptedException{
+        long ns = Throughput.timeNanos(threads, t -> {
+            int base = t * per;
+            for(int i = 0; i < per; i++){
+                Integer k = base + i;
+                Integer v;
+                if(lock == null){
+                    m.put(k, i);
+                    v = m.get(k);
+                }else {
+                    synchronized (lock){
+                        m.put(k, i);
+                        v = m.get(k);
+                    }
+                }
+                if(v == null)
+                    throw new AssertionError(k);
+            }
+            for(int i = 0; i < per; i += 2){
+                if(lock == null){
+                    m.remove(base + i);
+                }else {
+                    synchronized (lock){
+                        m.remove(base + i);
+                    }
+                }
+            }
+        });
+        if(m.size() != threads * per / 2)
+            throw new AssertionError(m.size());
+        for(Integer k : m.keySet())
+            if((k % per) % 2 == 0)
+                throw new AssertionError(k);
+        return threads * per * 2.5 / (ns / 1000.0);
+    }
+}
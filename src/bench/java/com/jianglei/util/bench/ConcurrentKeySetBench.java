@@ -0,0 +1,84 @@
+package com.jianglei.util.bench;
+
+import com.jianglei.util.ConcurrentHashMap;
+import com.jianglei.util.HashSet;
+import com.jianglei.util.Set;
+
+/**
+ * {@link ConcurrentHashMap#newKeySet()}作为"已见id"集合时在竞争下的耗时，
+ * 与用一把锁保护的{@link HashSet}对比。
+ *
+ * <p>id共65536个(i * 31)，每次都从空集合开始。总共4000000次操作平均分给各个线程，
+ * 每次操作随机选一个id，7/8做contains，1/8做add。报告所有线程完成所用的毫秒数。
+ *
+ * <pre>
+ *     java -cp target/classes:target/bench-classes com.jianglei.util.bench.ConcurrentKeySetBench [线程数列表]
+ * </pre>
+ * 默认线程数为1,4,8，每个线程数运行3轮，报告最后一轮。
+ * 只有在CPU核数不少于线程数的机器上，结果才能说明扩展性。
+ *
+ * Created by jianglei on 2017/4/22.
+ */
+public class ConcurrentKeySetBench {
+
+    private static final int OPS = 4000000;
+
+    private static final int ROUNDS = 3;
+
+    private static final Integer[] IDS = new Integer[1 << 16];
+
+    static {
+        for(int i = 0; i < IDS.length; i++)
+            IDS[i] = i * 31;
+    }
+
+    public static void main(String[] args) throws InterruptedException{
+        int[] threads = Throughput.parseThreads(args.length > 0 ? args[0] : "1,4,8");
+        Throughput.header("seen-id set, 7/8 contains 1/8 add, " + OPS + " ops, ms", threads);
+        System.out.println("threads  newKeySet  locked HashSet");
+        for(int t : threads){
+            long a = 0, b = 0;
+            for(int r = 0; r < ROUNDS; r++){
+                a = run(t, ConcurrentHashMap.<Integer>newKeySet(), null);
+                b = run(t, new HashSet<>(), new Object());
+            }
+            System.out.printf("%7d  %9d  %14d%n", t, a, b);
+        }
+    }
+
+    /**
+     * lock不为null时每次操作都在lock上同步
+     */
+    private static long run(int threads, Set<Integer> set, Object lock) throws InterruptedException{
+        final int ops = OPS / threads;
+        long ns = Throughput.timeNanos(threads, t -> {
+            int x = t * 7919;
+            int hits = 0;
+            for(int i = 0; i < ops; i++){
+                x = x * 1103515245 + 12345;
+                Integer id = IDS[(x >>> 8) & (IDS.length - 1)];
+                boolean contains = ((x >>> 4) & 15) < 14;
+                if(lock == null){
+                    if(contains){
+                        if(set.contains(id))
+                            hits++;
+                    }else {
+                        set.add(id);
+                    }
+                }else {
+                    synchronized (lock){
+                        if(contains){
+                            if(set.contains(id))
+                                hits++;
+                        }else {
+                            set.add(id);
+                        }
+                    }
+                }
+            }
+            if(hits > ops)
+                throw new AssertionError(hits);
+        });
+        return ns / 1000000;
+    }
+}
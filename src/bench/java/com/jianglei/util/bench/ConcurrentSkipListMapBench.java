@@ -0,0 +1,85 @@
+package com.jianglei.util.bench;
+
+import com.jianglei.util.ConcurrentSkipListMap;
+import com.jianglei.util.NavigableMap;
+import com.jianglei.util.TreeMap;
+
+/**
+ * {@link ConcurrentSkipListMap}在竞争下的吞吐量，与用一把锁保护的{@link TreeMap}对比。
+ *
+ * <p>键的范围是[0, 100000)，开始时放入其中的偶数。每个线程随机选键，
+ * 70%做get，15%做put，14%做remove，1%对[k, k + 100)的subMap遍历一次键。
+ * 锁保护的TreeMap在遍历期间一直持有锁。
+ *
+ * <pre>
+ *     java -cp target/classes:target/bench-classes com.jianglei.util.bench.ConcurrentSkipListMapBench [线程数列表] [毫秒]
+ * </pre>
+ * 默认线程数为1,2,4,8,16，每个线程数运行1500毫秒，先用4个线程预热1000毫秒，结果单位是ops/s。
+ * 只有在CPU核数不少于线程数的机器上，结果才能说明扩展性。
+ *
+ * Created by jianglei on 2017/4/22.
+ */
+public class ConcurrentSkipListMapBench {
+
+    private static final int KEYS = 100000;
+
+    private static final int SCAN = 100;
+
+    public static void main(String[] args) throws InterruptedException{
+        int[] threads = Throughput.parseThreads(args.length > 0 ? args[0] : "1,2,4,8,16");
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 1500;
+        Throughput.header("70% get / 15% put / 14% remove / 1% " + SCAN + "-key subMap scan over " +
+                          KEYS + " keys, ops/s", threads);
+
+        ConcurrentSkipListMap<Integer, Integer> skip = new ConcurrentSkipListMap<>();
+        TreeMap<Integer, Integer> tree = new TreeMap<>();
+        for(int i = 0; i < KEYS; i += 2){
+            skip.put(i, i);
+            tree.put(i, i);
+        }
+        Throughput.Op skipOp = mix(skip, null);
+        Throughput.Op lockedOp = mix(tree, new Object());
+        Throughput.opsPerMicro(4, 1000, skipOp);
+        Throughput.opsPerMicro(4, 1000, lockedOp);
+
+        System.out.println("threads   skip list  synchronized TreeMap");
+        for(int t : threads){
+            double a = Throughput.opsPerMicro(t, millis, skipOp);
+            double b = Throughput.opsPerMicro(t, millis, lockedOp);
+            System.out.printf("%7d  %,10d  %,20d%n", t, (long) (a * 1e6), (long) (b * 1e6));
+        }
+    }
+
+    /**
+     * lock不为null时每次操作都在lock上同步
+     */
+    private static Throughput.Op mix(NavigableMap<Integer, Integer> m, Object lock){
+        return r -> {
+            int k = (int) (((r >>> 32) * KEYS) >>> 32);
+            int op = (int) (((r & 0xffffffffL) * 100) >>> 32);
+            if(lock == null){
+                apply(m, k, op);
+            }else {
+                synchronized (lock){
+                    apply(m, k, op);
+                }
+            }
+        };
+    }
+
+    private static int apply(NavigableMap<Integer, Integer> m, int k, int op){
+        if(op < 70){
+            return m.get(k) == null ? 0 : 1;
+        }else if(op < 85){
+            m.put(k, k);
+        }else if(op < 99){
+            m.remove(k);
+        }else {
+            int c = 0;
+            for(Integer x : m.subMap(k, k + SCAN).keySet())
+                c++;
+            return c;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,102 @@
+package com.jianglei.util.bench;
+
+import com.jianglei.util.AbstractMap;
+import com.jianglei.util.HashMap;
+import com.jianglei.util.Map;
+import com.jianglei.util.Set;
+import com.jianglei.util.SwissHashMap;
+
+import java.util.Random;
+
+/**
+ * {@link SwissHashMap}命中和未命中的get耗时，与{@link HashMap}以及只实现了entrySet的
+ * {@link AbstractMap}子类(get是对entrySet的线性遍历)对比。
+ *
+ * <p>用种子7的{@link Random}生成n个随机Integer键放入映射，作为命中的查询；再生成n个随机
+ * Integer作为未命中的查询(与已有的键相同的概率可以忽略)。每种映射先预热5轮，
+ * 每轮对全部查询重复5遍，取8轮中最快的一轮，报告每次get的纳秒数。
+ * AbstractMap子类太慢，只在n不超过10000时测一轮，不取最优。
+ *
+ * <pre>
+ *     java -cp target/classes:target/bench-classes com.jianglei.util.bench.SwissHashMapBench [n列表]
+ * </pre>
+ * 默认n为1000,1000000。这是System.nanoTime循环，不是JMH：没有分叉JVM，也没有防止
+ * 死代码消除之外的保护，结果只适合在同一台机器上相互比较。
+ *
+ * Created by jianglei on 2017/4/22.
+ */
+public class SwissHashMapBench {
+
+    private static final int RUNS = 8;
+
+    private static final int REPS = 5;
+
+    private static final int WARMUP = 5;
+
+    public static void main(String[] args){
+        String sizes = args.length > 0 ? args[0] : "1000,1000000";
+        System.out.println("java " + System.getProperty("java.version") + ", ns per get, best of " + RUNS);
+        for(String s : sizes.split(","))
+            run(Integer.parseInt(s.trim()));
+    }
+
+    private static void run(int n){
+        Random rnd = new Random(7);
+        Integer[] hit = new Integer[n];
+        Integer[] miss = new Integer[n];
+        Map<Integer, Integer> swiss = new SwissHashMap<>();
+        Map<Integer, Integer> hash = new HashMap<>();
+        for(int i = 0; i < n; i++){
+            int k = rnd.nextInt();
+            hit[i] = k;
+            swiss.put(k, i);
+            hash.put(k, i);
+        }
+        for(int i = 0; i < n; i++)
+            miss[i] = rnd.nextInt();
+        Map<Integer, Integer> linear = new AbstractMap<Integer, Integer>() {
+            @Override
+            public Set<Entry<Integer, Integer>> entrySet(){
+                return hash.entrySet();
+            }
+        };
+
+        for(int w = 0; w < WARMUP; w++){
+            best(swiss, hit, 3);
+            best(hash, hit, 3);
+            best(swiss, miss, 3);
+            best(hash, miss, 3);
+        }
+        System.out.printf("n=%,d%n", n);
+        System.out.printf("  SwissHashMap  hit %d / miss %d%n", best(swiss, hit, REPS), best(swiss, miss, REPS));
+        System.out.printf("  HashMap       hit %d / miss %d%n", best(hash, hit, REPS), best(hash, miss, REPS));
+        if(n <= 10000)
+            System.out.printf("  AbstractMap   hit %d / miss %d (one run)%n", time(linear, hit, 1), time(linear, miss, 1));
+    }
+
+    private static long best(Map<Integer, Integer> m, Integer[] keys, int reps){
+        long best = Long.MAX_VALUE;
+        for(int i = 0; i < RUNS; i++)
+            best = Math.min(best, time(m, keys, reps));
+        return best;
+    }
+
+    /**
+     * 对keys重复查询reps遍，返回每次get的纳秒数
+     */
+    private static long time(Map<Integer, Integer> m, Integer[] keys, int reps){
+        long sum = 0;
+        long t = System.nanoTime();
+        for(int r = 0; r < reps; r++){
+            for(Integer k : keys){
+                Integer v = m.get(k);
+                if(v != null)
+                    sum += v;
+            }
+        }
+        long dt = System.nanoTime() - t;
+        if(sum == 42)
+            System.out.print("");   // 使用sum，防止循环被当作死代码消除
+        return dt / ((long) reps * keys.length);
+    }
+}
@@ -0,0 +1,142 @@
+package com.jianglei.util.bench;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntConsumer;
+
+/**
+ * 基准测试共用的多线程计时。{@link #timeNanos}让每个线程完成固定的工作量，
+ * 返回全部线程完成所用的时间；{@link #opsPerMicro}让每个线程用自己的xorshift
+ * 随机数驱动同一个操作，运行固定的时间，返回每微秒完成的操作数。
+ *
+ * <p>这些基准是普通的main程序，不依赖JMH。先编译主代码，再编译并运行基准：
+ * <pre>
+ *     mvn -q compile
+ *     javac -d target/bench-classes -cp target/classes src/bench/java/com/jianglei/util/bench/*.java
+ *     java -cp target/classes:target/bench-classes com.jianglei.util.bench.ConcurrentHashMapBench
+ * </pre>
+ * 线程数超过CPU核数时，测到的只是操作系统的时间片轮转，不能说明扩展性。
+ *
+ * Created by jianglei on 2017/4/22.
+ */
+final class Throughput {
+
+    private Throughput(){
+    }
+
+    /**
+     * 基准测试中的一次操作，random是调用线程生成的随机数
+     */
+    interface Op {
+        void apply(long random);
+    }
+
+    /**
+     * 每检查一次停止标志之前执行的操作次数
+     */
+    private static final int BATCH = 256;
+
+    private static volatile boolean stop;
+
+    /**
+     * 启动threads个线程，所有线程就绪后同时开始执行body(线程编号)，
+     * 返回从开始到所有线程结束经过的纳秒数
+     */
+    static long timeNanos(int threads, IntConsumer body) throws InterruptedException{
+        final CountDownLatch ready = new CountDownLatch(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] ts = new Thread[threads];
+        for(int t = 0; t < threads; t++){
+            final int index = t;
+            ts[t] = new Thread(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e){
+                    return;
+                }
+                body.accept(index);
+            });
+            ts[t].start();
+        }
+        ready.await();
+        long t0 = System.nanoTime();
+        start.countDown();
+        for(Thread t : ts)
+            t.join();
+        return System.nanoTime() - t0;
+    }
+
+    /**
+     * 用threads个线程执行op，运行millis毫秒，返回每微秒的操作数
+     */
+    static double opsPerMicro(int threads, long millis, Op op) throws InterruptedException{
+        final long[] counts = new long[threads * 16];   // 每个计数占一条缓存行，避免伪共享
+        final CountDownLatch ready = new CountDownLatch(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] ts = new Thread[threads];
+        stop = false;
+        for(int t = 0; t < threads; t++){
+            final int slot = t * 16;
+            final long seed = 0x9E3779B97F4A7C15L * (t + 1);
+            ts[t] = new Thread(() -> {
+                long x = seed;
+                long n = 0;
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e){
+                    return;
+                }
+                while (!stop){
+                    for(int i = 0; i < BATCH; i++){
+                        x ^= x << 13;
+                        x ^= x >>> 7;
+                        x ^= x << 17;
+                        op.apply(x);
+                    }
+                    n += BATCH;
+                }
+                counts[slot] = n;
+            });
+            ts[t].start();
+        }
+        ready.await();
+        long t0 = System.nanoTime();
+        start.countDown();
+        Thread.sleep(millis);
+        stop = true;
+        for(Thread t : ts)
+            t.join();
+        long elapsed = System.nanoTime() - t0;
+        long total = 0;
+        for(int t = 0; t < threads; t++)
+            total += counts[t * 16];
+        return total * 1000.0 / elapsed;
+    }
+
+    /**
+     * 解析逗号分隔的线程数列表，例如"1,2,4,8,16"
+     */
+    static int[] parseThreads(String s){
+        String[] parts = s.split(",");
+        int[] threads = new int[parts.length];
+        for(int i = 0; i < parts.length; i++)
+            threads[i] = Integer.parseInt(parts[i].trim());
+        return threads;
+    }
+
+    /**
+     * 打印运行环境。CPU核数少于最大线程数时给出警告
+     */
+    static void header(String title, int[] threads){
+        int cpus = Runtime.getRuntime().availableProcessors();
+        System.out.println(title);
+        System.out.println("java " + System.getProperty("java.version") + ", " + cpus + " CPUs");
+        int max = 0;
+        for(int t : threads)
+            max = Math.max(max, t);
+        if(cpus < max)
+            System.out.println("WARNING: fewer CPUs than threads; results above " + cpus +
+                                " thread(s) measure time-slicing, not scaling");
+    }
+}
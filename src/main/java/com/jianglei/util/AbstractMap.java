@@ -157,4 +157,424 @@ public abstract class AbstractMap<K, V> implements Map<K, V> {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @implSpec
+     * 此实现迭代整个entrySet()寻找一个具有指定key的entry。如果这样的
+     * entry被找到了，用getValue 得到他的值，然后用迭代器的remove方法
+     * 把此entry从集合中删除，返回保存的值。如果迭代器终止还没有找到这样的
+     * entry，返回null。注意此实现需要的线性时间与map的大小成正比;
+     * 许多实现会覆盖此方法
+     *
+     * <p>注意此实现抛出一个UnsupportedOperationException 如果
+     * entrySet 的迭代器不支持remove方法并且此map包含指定key的映射
+     *
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public V remove(Object key){
+        Iterator<Entry<K, V>> i = entrySet().iterator();
+        Entry<K, V> correctEntry = null;
+        if(key == null){
+            while (correctEntry == null && i.hasNext()){
+                Entry<K, V> e = i.next();
+                if(e.getKey() == null)
+                    correctEntry = e;
+            }
+        }else {
+            while (correctEntry == null && i.hasNext()){
+                Entry<K, V> e = i.next();
+                if(key.equals(e.getKey()))
+                    correctEntry = e;
+            }
+        }
+
+        V oldValue = null;
+        if(correctEntry != null){
+            oldValue = correctEntry.getValue();
+            i.remove();
+        }
+        return oldValue;
+    }
+
+    //Bulk Operations
+
+    /**
+     * {@inheritDoc}
+     *
+     * @implSpec
+     * 此实现迭代指定map的entrySet()集合，对每个迭代器返回的entry
+     * 调用一次此map的put操作
+     *
+     * <p>注意此实现抛出一个UnsupportedOperationException 如果此map
+     * 不支持put操作并且指定的map不为空
+     *
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public void putAll(Map<? extends K, ? extends V> m){
+        for(Iterator<? extends Entry<? extends K, ? extends V>> i = m.entrySet().iterator(); i.hasNext(); ){
+            Entry<? extends K, ? extends V> e = i.next();
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @implSpec
+     * 此实现调用entrySet().clear()
+     *
+     * <p>注意此实现抛出一个UnsupportedOperationException 如果entrySet
+     * 不支持clear操作
+     *
+     * @throws UnsupportedOperationException {@inheritDoc}
+     */
+    public void clear(){
+        entrySet().clear();
+    }
+
+    //Views
+
+    /**
+     * 这些字段在第一次请求相应视图时被初始化为一个包含相应视图实例的值。
+     * 视图是无状态的，所以没有理由创建一个以上的实例
+     */
+    transient Set<K> keySet;
+    transient Collection<V> values;
+
+    /**
+     * {@inheritDoc}
+     *
+     * @implSpec
+     * 此实现返回一个AbstractSet的子类。此子类的iterator方法返回一个
+     * 包装了此map entrySet()迭代器的"包装器对象"。size方法委托给此map的
+     * size方法，contains方法委托给此map的containsKey方法
+     *
+     * <p>此set在第一次调用此方法时被创建，以后的调用返回同一个set
+     */
+    public Set<K> keySet(){
+        Set<K> ks = keySet;
+        if(ks == null){
+            ks = new AbstractSet<K>() {
+                public Iterator<K> iterator() {
+                    return new Iterator<K>() {
+                        private Iterator<Entry<K, V>> i = entrySet().iterator();
+
+                        public boolean hasNext() {
+                            return i.hasNext();
+                        }
+
+                        public K next() {
+                            return i.next().getKey();
+                        }
+
+                        public void remove() {
+                            i.remove();
+                        }
+                    };
+                }
+
+                public int size() {
+                    return AbstractMap.this.size();
+                }
+
+                public boolean isEmpty() {
+                    return AbstractMap.this.isEmpty();
+                }
+
+                public void clear() {
+                    AbstractMap.this.clear();
+                }
+
+                public boolean contains(Object k) {
+                    return AbstractMap.this.containsKey(k);
+                }
+            };
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @implSpec
+     * 此实现返回一个AbstractCollection的子类。此子类的iterator方法返回一个
+     * 包装了此map entrySet()迭代器的"包装器对象"。size方法委托给此map的
+     * size方法，contains方法委托给此map的containsValue方法
+     *
+     * <p>此集合在第一次调用此方法时被创建，以后的调用返回同一个集合
+     */
+    public Collection<V> values(){
+        Collection<V> vals = values;
+        if(vals == null){
+            vals = new AbstractCollection<V>() {
+                public Iterator<V> iterator() {
+                    return new Iterator<V>() {
+                        private Iterator<Entry<K, V>> i = entrySet().iterator();
+
+                        public boolean hasNext() {
+                            return i.hasNext();
+                        }
+
+                        public V next() {
+                            return i.next().getValue();
+                        }
+
+                        public void remove() {
+                            i.remove();
+                        }
+                    };
+                }
+
+                public int size() {
+                    return AbstractMap.this.size();
+                }
+
+                public boolean isEmpty() {
+                    return AbstractMap.this.isEmpty();
+                }
+
+                public void clear() {
+                    AbstractMap.this.clear();
+                }
+
+                public boolean contains(Object v) {
+                    return AbstractMap.this.containsValue(v);
+                }
+            };
+            values = vals;
+        }
+        return vals;
+    }
+
+    public abstract Set<Entry<K, V>> entrySet();
+
+    //Comparison and hashing
+
+    /**
+     * 比较指定的对象与此map是否相等。如果指定的对象也是一个map并且两个map
+     * 表示相同的映射关系，返回true。
+     *
+     * @implSpec
+     * 此实现首先检查指定的对象是否是此map;如果是返回true。然后检查指定的对象
+     * 是否是一个大小与此map相同的map;如果不是返回false。否则，迭代此map的
+     * entrySet集合，检查指定的map是否包含每一个此map包含的映射
+     *
+     * @param o 与此map作相等性比较的对象
+     * @return true 如果指定的对象与此map相等
+     */
+    public boolean equals(Object o){
+        if(o == this)
+            return true;
+
+        if(!(o instanceof Map))
+            return false;
+        Map<?, ?> m = (Map<?, ?>) o;
+        if(m.size() != size())
+            return false;
+
+        try {
+            Iterator<Entry<K, V>> i = entrySet().iterator();
+            while (i.hasNext()){
+                Entry<K, V> e = i.next();
+                K key = e.getKey();
+                V value = e.getValue();
+                if(value == null){
+                    if(!(m.get(key) == null && m.containsKey(key)))
+                        return false;
+                }else {
+                    if(!value.equals(m.get(key)))
+                        return false;
+                }
+            }
+        } catch (ClassCastException unused){
+            return false;
+        } catch (NullPointerException unused){
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * 返回此map的hash值。map的hash值定义为此map entrySet()视图中
+     * 每个entry的hash值的和。
+     *
+     * @implSpec
+     * 此实现迭代entrySet()，对集合中每个元素(entry)调用hashCode()方法，
+     * 并把结果加起来
+     *
+     * @return 此map的hash值
+     */
+    public int hashCode(){
+        int h = 0;
+        Iterator<Entry<K, V>> i = entrySet().iterator();
+        while (i.hasNext())
+            h += i.next().hashCode();
+        return h;
+    }
+
+    /**
+     * 返回此map的字符串表示形式。字符串表示形式由键值映射关系列表组成，
+     * 按照entrySet视图的迭代器返回的顺序排列，并用括号("{}")括起来。
+     * 相邻的映射关系用字符", "分隔。每个键值映射关系按照键，等号("=")，值的
+     * 顺序呈现
+     *
+     * @return 此map的字符串表示形式
+     */
+    public String toString(){
+        Iterator<Entry<K, V>> i = entrySet().iterator();
+        if(!i.hasNext())
+            return "{}";
+
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        for(;;){
+            Entry<K, V> e = i.next();
+            K key = e.getKey();
+            V value = e.getValue();
+            sb.append(key == this ? "(this Map)" : key);
+            sb.append('=');
+            sb.append(value == this ? "(this Map)" : value);
+            if(!i.hasNext())
+                return sb.append('}').toString();
+            sb.append(',').append(' ');
+        }
+    }
+
+    /**
+     * 返回此AbstractMap实例的浅拷贝：键和值本身不被克隆
+     *
+     * @return 此map的浅拷贝
+     */
+    protected Object clone() throws CloneNotSupportedException{
+        AbstractMap<?, ?> result = (AbstractMap<?, ?>) super.clone();
+        result.keySet = null;
+        result.values = null;
+        return result;
+    }
+
+    /**
+     * SimpleEntry 和 SimpleImmutableEntry 使用的工具方法。
+     * 测试相等性，检查null值
+     */
+    private static boolean eq(Object o1, Object o2){
+        return o1 == null ? o2 == null : o1.equals(o2);
+    }
+
+    /**
+     * 一个维护着key和value的entry。value可以通过setValue方法改变。
+     * 此类有助于构建自定义map实现的过程。例如，在Map.entrySet().toArray
+     * 方法中返回SimpleEntry实例的数组可能会很方便
+     */
+    public static class SimpleEntry<K, V>
+            implements Entry<K, V>, java.io.Serializable {
+        private static final long serialVersionUID = -8499721149061103585L;
+
+        private final K key;
+        private V value;
+
+        public SimpleEntry(K key, V value){
+            this.key = key;
+            this.value = value;
+        }
+
+        public SimpleEntry(Entry<? extends K, ? extends V> entry){
+            this.key = entry.getKey();
+            this.value = entry.getValue();
+        }
+
+        public K getKey(){
+            return key;
+        }
+
+        public V getValue(){
+            return value;
+        }
+
+        public V setValue(V value){
+            V oldValue = this.value;
+            this.value = value;
+            return oldValue;
+        }
+
+        public boolean equals(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return eq(key, e.getKey()) && eq(value, e.getValue());
+        }
+
+        public int hashCode(){
+            return (key == null ? 0 : key.hashCode()) ^
+                    (value == null ? 0 : value.hashCode());
+        }
+
+        public String toString(){
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * 一个维护不可变key和value的entry。此类不支持setValue方法。
+     * 在返回线程安全的键值映射关系快照的方法中，此类可能很方便
+     */
+    public static class SimpleImmutableEntry<K, V>
+            implements Entry<K, V>, java.io.Serializable {
+        private static final long serialVersionUID = 7138329143949025153L;
+
+        private final K key;
+        private final V value;
+
+        public SimpleImmutableEntry(K key, V value){
+            this.key = key;
+            this.value = value;
+        }
+
+        public SimpleImmutableEntry(Entry<? extends K, ? extends V> entry){
+            this.key = entry.getKey();
+            this.value = entry.getValue();
+        }
+
+        public K getKey(){
+            return key;
+        }
+
+        public V getValue(){
+            return value;
+        }
+
+        /**
+         * 用指定的值替换此entry的值（可选的操作）。此实现只是简单的抛出
+         * UnsupportedOperationException，因为此类实现的是不可变的entry
+         *
+         * @throws UnsupportedOperationException 总是
+         */
+        public V setValue(V value){
+            throw new UnsupportedOperationException();
+        }
+
+        public boolean equals(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return eq(key, e.getKey()) && eq(value, e.getValue());
+        }
+
+        public int hashCode(){
+            return (key == null ? 0 : key.hashCode()) ^
+                    (value == null ? 0 : value.hashCode());
+        }
+
+        public String toString(){
+            return key + "=" + value;
+        }
+    }
+
 }
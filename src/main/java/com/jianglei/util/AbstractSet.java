@@ -1,5 +1,6 @@
 package com.jianglei.util;
 
+import java.util.Comparator;
 import java.util.Objects;
 
 /**
@@ -32,6 +33,48 @@ public abstract class AbstractSet<E>
         }
     }
 
+    /**
+     * 如果此set和c都是使用相同顺序的SortedSet，两者按同样的顺序迭代，
+     * 只需要一次线性的归并扫描，而不是对c中的每个元素做一次log(n)的查找。
+     * 只有c相对于此set不是太小的时候才这样做，否则逐个查找更快
+     */
+    public boolean containsAll(Collection<?> c){
+        if(this instanceof SortedSet && c instanceof SortedSet){
+            SortedSet<?> self = (SortedSet<?>) this;
+            SortedSet<?> other = (SortedSet<?>) c;
+            if(Objects.equals(self.comparator(), other.comparator())){
+                int n = size();
+                int m = other.size();
+                if(m > n)
+                    return false;
+                if((long) m * (32 - Integer.numberOfLeadingZeros(n)) >= n)
+                    return mergeContainsAll(self, other);
+            }
+        }
+        return super.containsAll(c);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean mergeContainsAll(SortedSet<?> self, SortedSet<?> other){
+        Comparator<Object> cmp = (Comparator<Object>) self.comparator();
+        Iterator<?> i = self.iterator();
+        Iterator<?> j = other.iterator();
+        while (j.hasNext()){
+            Object e = j.next();
+            for(;;){
+                if(!i.hasNext())
+                    return false;
+                Object x = i.next();
+                int r = cmp != null ? cmp.compare(x, e) : ((Comparable<Object>) x).compareTo(e);
+                if(r == 0)
+                    break;
+                if(r > 0)
+                    return false;
+            }
+        }
+        return true;
+    }
+
     public int hashCode(){
         int h = 0;
         Iterator<E> i = iterator();
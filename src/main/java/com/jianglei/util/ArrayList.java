@@ -82,13 +82,21 @@ public class ArrayList<E> extends AbstractList<E>
     private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
 
     private void grow(int minCapacity) {
-        int oldCapacity = elementData.length;
+        elementData = Arrays.copyOf(elementData, newCapacity(elementData.length, minCapacity));
+    }
+
+    /**
+     * 返回容量至少为minCapacity时数组扩容之后的容量：原来的1.5倍，不够时取
+     * minCapacity，超过MAX_ARRAY_SIZE时由hugeCapacity决定。基本类型的列表
+     * (IntArrayList等)使用相同的扩容策略
+     */
+    static int newCapacity(int oldCapacity, int minCapacity){
         int newCapacity = oldCapacity + (oldCapacity >> 1);
         if(newCapacity - minCapacity < 0)
             newCapacity = minCapacity;
         if(newCapacity - MAX_ARRAY_SIZE > 0)
             newCapacity = hugeCapacity(minCapacity);
-        elementData = Arrays.copyOf(elementData, newCapacity);
+        return newCapacity;
     }
 
     public static int hugeCapacity(int minCapacity){
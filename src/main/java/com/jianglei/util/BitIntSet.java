@@ -0,0 +1,534 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * 用位图保存非负int元素的Set。元素i对应long数组中第i / 64个字的第i % 64位，
+ * 所以对于稠密的ID区间，每个元素只占用1位，而哈希set每个元素至少要占用
+ * 一个槽位。
+ *
+ * <p>{@link #and}，{@link #or}，{@link #andNot} 和 {@link #xor} 以64位的字为
+ * 单位计算集合的交、并、差和对称差；当参数也是BitIntSet时，retainAll，addAll，
+ * removeAll 和 containsAll 也使用字运算，而不是逐个元素地调用contains。
+ * 元素的数量在add和remove时维护，批量运算之后用Long.bitCount重新统计。
+ *
+ * <p>{@link #nextSetBit(int)}，{@link #forEachInt(IntConsumer)} 和
+ * {@link #iterator()}返回的{@link IntIterator}都不装箱。此set不允许null和负数
+ * 元素，迭代按元素从小到大的顺序进行。
+ *
+ * <p>注意此实现不是同步的。此类的迭代器是fail-fast的。
+ *
+ * @see IntHashSet
+ * Created by jianglei on 2017/4/22.
+ */
+public class BitIntSet extends AbstractSet<Integer>
+        implements Set<Integer>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = 7214650938316273420L;
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private static final long WORD_MASK = 0xffffffffffffffffL;
+
+    /**
+     * 位图。下标大于等于wordsInUse的字都为0
+     */
+    private long[] words;
+
+    /**
+     * 使用中的字的数量：words[wordsInUse - 1]不为0(除非wordsInUse为0)
+     */
+    private transient int wordsInUse;
+
+    /**
+     * 元素的数量
+     */
+    private transient int size;
+
+    transient int modCount;
+
+    /**
+     * 创建一个空的set
+     */
+    public BitIntSet(){
+        words = new long[1];
+    }
+
+    /**
+     * 创建一个空的set，不扩容就能容纳[0, nbits)范围内的元素
+     *
+     * @throws IllegalArgumentException 如果nbits是负数
+     */
+    public BitIntSet(int nbits){
+        if(nbits < 0)
+            throw new IllegalArgumentException("nbits < 0: " + nbits);
+        words = new long[Math.max(wordIndex(nbits - 1) + 1, 1)];
+    }
+
+    /**
+     * 创建一个包含指定集合中所有元素的set
+     *
+     * @throws NullPointerException 如果指定的集合为null，或者包含null元素
+     * @throws IllegalArgumentException 如果指定的集合包含负数
+     */
+    public BitIntSet(Collection<? extends Integer> c){
+        this();
+        addAll(c);
+    }
+
+    private static int wordIndex(int bitIndex){
+        return bitIndex >> ADDRESS_BITS_PER_WORD;
+    }
+
+    private static void checkElement(int e){
+        if(e < 0)
+            throw new IllegalArgumentException("Negative element: " + e);
+    }
+
+    /**
+     * 保证words至少有wordsRequired个字
+     */
+    private void ensureCapacity(int wordsRequired){
+        if(words.length < wordsRequired){
+            int request = Math.max(2 * words.length, wordsRequired);
+            words = Arrays.copyOf(words, request);
+        }
+    }
+
+    /**
+     * 重新计算wordsInUse：跳过末尾为0的字
+     */
+    private void recalculateWordsInUse(){
+        int i;
+        for(i = wordsInUse - 1; i >= 0; i--)
+            if(words[i] != 0)
+                break;
+        wordsInUse = i + 1;
+    }
+
+    /**
+     * 重新统计元素的数量
+     */
+    private void recount(){
+        recalculateWordsInUse();
+        size = cardinality(words, wordsInUse);
+        modCount++;
+    }
+
+    private static int cardinality(long[] w, int n){
+        int sum = 0;
+        for(int i = 0; i < n; i++)
+            sum += Long.bitCount(w[i]);
+        return sum;
+    }
+
+    //Query Operations
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * 用Long.bitCount统计元素的数量。结果总是与size()相同，
+     * 用于验证或者在不信任缓存的计数时使用
+     */
+    public int cardinality(){
+        return cardinality(words, wordsInUse);
+    }
+
+    /**
+     * 如果此set包含指定的元素，返回true。负数总是返回false
+     */
+    public boolean contains(int e){
+        if(e < 0)
+            return false;
+        int wi = wordIndex(e);
+        return wi < wordsInUse && (words[wi] & (1L << e)) != 0;
+    }
+
+    public boolean contains(Object o){
+        return o instanceof Integer && contains(((Integer) o).intValue());
+    }
+
+    /**
+     * 返回大于等于fromIndex的最小元素，如果不存在，返回-1。
+     * 遍历所有元素的惯用法：
+     * <pre> {@code
+     * for (int i = s.nextSetBit(0); i >= 0; i = s.nextSetBit(i + 1)) {
+     *     // 处理元素i
+     * }}</pre>
+     *
+     * @throws IndexOutOfBoundsException 如果fromIndex是负数
+     */
+    public int nextSetBit(int fromIndex){
+        if(fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        int u = wordIndex(fromIndex);
+        if(u >= wordsInUse)
+            return -1;
+
+        long word = words[u] & (WORD_MASK << fromIndex);
+        while (true){
+            if(word != 0)
+                return (u * 64) + Long.numberOfTrailingZeros(word);
+            if(++u == wordsInUse)
+                return -1;
+            word = words[u];
+        }
+    }
+
+    /**
+     * 返回大于等于fromIndex的最小的不在此set中的非负整数
+     *
+     * @throws IndexOutOfBoundsException 如果fromIndex是负数
+     */
+    public int nextClearBit(int fromIndex){
+        if(fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        int u = wordIndex(fromIndex);
+        if(u >= wordsInUse)
+            return fromIndex;
+
+        long word = ~words[u] & (WORD_MASK << fromIndex);
+        while (true){
+            if(word != 0)
+                return (u * 64) + Long.numberOfTrailingZeros(word);
+            if(++u == wordsInUse)
+                return wordsInUse * 64;
+            word = ~words[u];
+        }
+    }
+
+    //Modification Operations
+
+    /**
+     * 把指定的元素加入到此set中
+     *
+     * @return true 如果此set原来不包含该元素
+     * @throws IllegalArgumentException 如果e是负数
+     */
+    public boolean add(int e){
+        checkElement(e);
+        int wi = wordIndex(e);
+        if(wi >= wordsInUse){
+            ensureCapacity(wi + 1);
+            wordsInUse = wi + 1;
+        }
+        long old = words[wi];
+        words[wi] = old | (1L << e);
+        if(old == words[wi])
+            return false;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * @throws NullPointerException 如果e为null
+     * @throws IllegalArgumentException 如果e是负数
+     */
+    public boolean add(Integer e){
+        return add(e.intValue());
+    }
+
+    /**
+     * 从此set中删除指定的元素，如果它存在的话
+     *
+     * @return true 如果此set包含该元素
+     */
+    public boolean remove(int e){
+        if(!contains(e))
+            return false;
+        int wi = wordIndex(e);
+        words[wi] &= ~(1L << e);
+        if(wi == wordsInUse - 1)
+            recalculateWordsInUse();
+        size--;
+        modCount++;
+        return true;
+    }
+
+    public boolean remove(Object o){
+        return o instanceof Integer && remove(((Integer) o).intValue());
+    }
+
+    public void clear(){
+        Arrays.fill(words, 0, wordsInUse, 0L);
+        wordsInUse = 0;
+        size = 0;
+        modCount++;
+    }
+
+    //Word-parallel Operations
+
+    /**
+     * 只保留同时包含在set中的元素(交集)
+     */
+    public void and(BitIntSet set){
+        if(this == set)
+            return;
+        while (wordsInUse > set.wordsInUse)
+            words[--wordsInUse] = 0;
+        for(int i = 0; i < wordsInUse; i++)
+            words[i] &= set.words[i];
+        recount();
+    }
+
+    /**
+     * 加入set中所有的元素(并集)
+     */
+    public void or(BitIntSet set){
+        if(this == set)
+            return;
+        int wordsInCommon = Math.min(wordsInUse, set.wordsInUse);
+        if(wordsInUse < set.wordsInUse){
+            ensureCapacity(set.wordsInUse);
+            wordsInUse = set.wordsInUse;
+        }
+        for(int i = 0; i < wordsInCommon; i++)
+            words[i] |= set.words[i];
+        if(wordsInCommon < set.wordsInUse)
+            System.arraycopy(set.words, wordsInCommon, words, wordsInCommon,
+                                wordsInUse - wordsInCommon);
+        recount();
+    }
+
+    /**
+     * 删除同时包含在set中的元素(差集)
+     */
+    public void andNot(BitIntSet set){
+        for(int i = Math.min(wordsInUse, set.wordsInUse) - 1; i >= 0; i--)
+            words[i] &= ~set.words[i];
+        recount();
+    }
+
+    /**
+     * 只保留恰好包含在两个set之一中的元素(对称差)
+     */
+    public void xor(BitIntSet set){
+        int wordsInCommon = Math.min(wordsInUse, set.wordsInUse);
+        if(wordsInUse < set.wordsInUse){
+            ensureCapacity(set.wordsInUse);
+            wordsInUse = set.wordsInUse;
+        }
+        for(int i = 0; i < wordsInCommon; i++)
+            words[i] ^= set.words[i];
+        if(wordsInCommon < set.wordsInUse)
+            System.arraycopy(set.words, wordsInCommon, words, wordsInCommon,
+                                set.wordsInUse - wordsInCommon);
+        recount();
+    }
+
+    /**
+     * 如果两个set有共同的元素，返回true
+     */
+    public boolean intersects(BitIntSet set){
+        for(int i = Math.min(wordsInUse, set.wordsInUse) - 1; i >= 0; i--)
+            if((words[i] & set.words[i]) != 0)
+                return true;
+        return false;
+    }
+
+    //Bulk Operations
+
+    public boolean containsAll(Collection<?> c){
+        if(c instanceof BitIntSet){
+            BitIntSet set = (BitIntSet) c;
+            if(set.wordsInUse > wordsInUse)
+                return false;
+            for(int i = 0; i < set.wordsInUse; i++)
+                if((set.words[i] & ~words[i]) != 0)
+                    return false;
+            return true;
+        }
+        return super.containsAll(c);
+    }
+
+    public boolean addAll(Collection<? extends Integer> c){
+        if(c instanceof BitIntSet){
+            int oldSize = size;
+            or((BitIntSet) c);
+            return size != oldSize;
+        }
+        return super.addAll(c);
+    }
+
+    public boolean removeAll(Collection<?> c){
+        if(c instanceof BitIntSet){
+            int oldSize = size;
+            andNot((BitIntSet) c);
+            return size != oldSize;
+        }
+        return super.removeAll(c);
+    }
+
+    public boolean retainAll(Collection<?> c){
+        Objects.requireNonNull(c);
+        if(c instanceof BitIntSet){
+            int oldSize = size;
+            and((BitIntSet) c);
+            return size != oldSize;
+        }
+        boolean modified = false;
+        for(int u = 0; u < wordsInUse; u++){
+            long word = words[u];
+            for(long w = word; w != 0; w &= w - 1){
+                int i = (u << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(w);
+                if(!c.contains(i))
+                    word &= ~(1L << i);
+            }
+            if(word != words[u]){
+                words[u] = word;
+                modified = true;
+            }
+        }
+        if(modified)
+            recount();
+        return modified;
+    }
+
+    /**
+     * 对此set中的每一个元素按从小到大的顺序执行指定的操作。不装箱。
+     * 不命名为forEach，是为了避免lambda参数与Iterable.forEach产生歧义
+     *
+     * @throws NullPointerException 如果action为null
+     * @throws ConcurrentModificationException 如果在遍历期间此set被修改
+     */
+    public void forEachInt(IntConsumer action){
+        if(action == null)
+            throw new NullPointerException();
+        final int expectedModCount = modCount;
+        for(int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)){
+            action.accept(i);
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(i == Integer.MAX_VALUE)
+                break;
+        }
+    }
+
+    /**
+     * 返回按从小到大的顺序包含所有元素的数组
+     */
+    public int[] toIntArray(){
+        int[] a = new int[size];
+        int n = 0;
+        for(int u = 0; u < wordsInUse; u++){
+            long word = words[u];
+            while (word != 0){
+                a[n++] = (u << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return a;
+    }
+
+    /**
+     * 返回按从小到大的顺序迭代元素的迭代器，它的nextInt不装箱
+     */
+    public IntIterator iterator(){
+        return new BitIterator();
+    }
+
+    final class BitIterator implements IntIterator {
+        int next = nextSetBit(0);
+        int lastReturned = -1;
+        int expectedModCount = modCount;
+
+        public boolean hasNext(){
+            return next >= 0;
+        }
+
+        public int nextInt(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(next < 0)
+                throw new NoSuchElementException();
+            lastReturned = next;
+            next = next == Integer.MAX_VALUE ? -1 : nextSetBit(next + 1);
+            return lastReturned;
+        }
+
+        public void remove(){
+            if(lastReturned < 0)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            BitIntSet.this.remove(lastReturned);
+            expectedModCount = modCount;
+            lastReturned = -1;
+        }
+    }
+
+    //Comparison and hashing
+
+    public boolean equals(Object o){
+        if(o instanceof BitIntSet){
+            BitIntSet set = (BitIntSet) o;
+            if(set.wordsInUse != wordsInUse)
+                return false;
+            for(int i = 0; i < wordsInUse; i++)
+                if(words[i] != set.words[i])
+                    return false;
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    /**
+     * 与Set&lt;Integer&gt;的哈希值一致：所有元素之和
+     */
+    public int hashCode(){
+        int h = 0;
+        for(int u = 0; u < wordsInUse; u++){
+            for(long w = words[u]; w != 0; w &= w - 1)
+                h += (u << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(w);
+        }
+        return h;
+    }
+
+    public BitIntSet clone(){
+        BitIntSet result;
+        try {
+            result = (BitIntSet) super.clone();
+        } catch (CloneNotSupportedException e){
+            throw new InternalError(e);
+        }
+        result.words = Arrays.copyOf(words, Math.max(wordsInUse, 1));
+        result.modCount = 0;
+        return result;
+    }
+
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        // 只写出使用中的字
+        long[] all = words;
+        words = Arrays.copyOf(all, wordsInUse);
+        try {
+            s.defaultWriteObject();
+        } finally {
+            words = all;
+        }
+    }
+
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        s.defaultReadObject();
+        if(words == null)
+            throw new java.io.InvalidObjectException("words is null");
+        wordsInUse = words.length;
+        if(words.length == 0)
+            words = new long[1];
+        recount();
+    }
+}
@@ -0,0 +1,333 @@
+package com.jianglei.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 分块的布隆过滤器，用于在访问大的map或者磁盘之前快速地排除"一定不存在"的元素。
+ * mightContain返回false时元素一定没有被加入过；返回true时元素可能被加入过，
+ * 误判的概率由创建时指定的误判率决定。元素不能被删除，需要删除时使用CuckooFilter。
+ *
+ * <p>位数组被分成512位(8个long，64字节，一条缓存行)的块。一个元素的所有位都
+ * 落在同一个块中：元素的64位哈希值的高32位选择块，再由哈希值生成的序列在块内
+ * 选择k个位，所以每次put 和 mightContain 最多访问一条缓存行，而普通的
+ * 布隆过滤器要访问k条。代价是块之间的负载不完全均匀，相同的位数下误判率
+ * 更高，所以位数不是按普通布隆过滤器的公式计算，而是按块中元素个数的泊松
+ * 分布估计分块之后的误判率，增加位数直到满足指定的误判率。
+ *
+ * <p>元素的哈希值由hashCode()扩展为64位，所以hashCode相同的元素无法区分。
+ * 此过滤器不允许null元素。
+ *
+ * <p>{@link #serialize(ByteBuffer)}写出的格式是小端序的：一个头部(标记，哈希
+ * 函数的个数，块数，加入的次数)，随后是位数组。
+ *
+ * <p>此类不是线程安全的。
+ *
+ * @param <E> 加入过滤器的元素的类型
+ * @see CuckooFilter
+ * @see FrequencySketch
+ * Created by jianglei on 2017/4/22.
+ */
+public final class BloomFilter<E> {
+
+    /**
+     * 每个块的long的个数，8个long正好是一条64字节的缓存行
+     */
+    private static final int BLOCK_WORDS = 8;
+
+    private static final int BLOCK_BITS = BLOCK_WORDS * Long.SIZE;
+
+    /**
+     * 取64位数的高9位得到块内的位置
+     */
+    private static final int BLOCK_SHIFT = Long.SIZE - 9;
+
+    /**
+     * 最多的哈希函数个数
+     */
+    private static final int MAX_HASH_FUNCTIONS = 16;
+
+    /**
+     * 序列化格式的标记
+     */
+    private static final int SERIAL_COOKIE = 0x424C4F4D;
+
+    private static final int HEADER_BYTES = 20;
+
+    private final long[] bits;
+    private final int numBlocks;
+    private final int numHashFunctions;
+
+    /**
+     * 加入的次数，包括重复的元素
+     */
+    private long count;
+
+    /**
+     * 创建一个在加入expectedInsertions个不同的元素之后，误判率约为fpp的过滤器
+     *
+     * @param expectedInsertions 预计加入的元素个数
+     * @param fpp 期望的误判率，必须在(0, 1)之间
+     * @throws IllegalArgumentException 如果参数不合法
+     */
+    public BloomFilter(long expectedInsertions, double fpp){
+        if(expectedInsertions < 0)
+            throw new IllegalArgumentException("Illegal expected insertions: " +
+                                                expectedInsertions);
+        if(!(fpp > 0 && fpp < 1))
+            throw new IllegalArgumentException("Illegal false positive probability: " + fpp);
+        long n = Math.max(expectedInsertions, 1);
+        double ln2 = Math.log(2);
+        int k = (int) Math.round(-Math.log(fpp) / ln2);
+        numHashFunctions = Math.max(1, Math.min(k, MAX_HASH_FUNCTIONS));
+        // 从普通布隆过滤器的每元素位数开始，增加到分块之后的误判率不超过fpp
+        double bitsPerElement = -Math.log(fpp) / (ln2 * ln2);
+        while (blockedFpp(bitsPerElement, numHashFunctions) > fpp && bitsPerElement < Long.SIZE)
+            bitsPerElement *= 1.05;
+        long blocks = (long) Math.ceil(n * bitsPerElement / BLOCK_BITS);
+        if(blocks > Integer.MAX_VALUE / BLOCK_WORDS)
+            throw new IllegalArgumentException("Filter too large: " + expectedInsertions +
+                                                " insertions at fpp " + fpp);
+        numBlocks = (int) Math.max(blocks, 1);
+        bits = new long[numBlocks * BLOCK_WORDS];
+    }
+
+    private BloomFilter(long[] bits, int numHashFunctions, long count){
+        this.bits = bits;
+        this.numBlocks = bits.length / BLOCK_WORDS;
+        this.numHashFunctions = numHashFunctions;
+        this.count = count;
+    }
+
+    /**
+     * 估计每个元素平均使用bitsPerElement位时分块过滤器的误判率。一个块中的元素
+     * 个数近似服从泊松分布，对每种个数j，块中一个位被置位的概率是
+     * 1 - (1 - 1/512)^(jk)，按分布加权求和
+     */
+    static double blockedFpp(double bitsPerElement, int k){
+        final double lambda = BLOCK_BITS / bitsPerElement;
+        final double logLambda = Math.log(lambda);
+        final double logEmpty = Math.log1p(-1.0 / BLOCK_BITS);
+        final int max = (int) (lambda + 10 * Math.sqrt(lambda) + 10);
+        double logPmf = -lambda;
+        double fpp = 0;
+        for(int j = 0; j <= max; j++){
+            if(j > 0)
+                logPmf += logLambda - Math.log(j);
+            double set = -Math.expm1(j * k * logEmpty);
+            fpp += Math.exp(logPmf) * Math.pow(set, k);
+        }
+        return fpp;
+    }
+
+    /**
+     * 把元素的hashCode扩展为64位的哈希值(MurmurHash3的fmix64)
+     */
+    static long hash64(Object e){
+        long h = e.hashCode() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * 返回哈希值选择的块的第一个long的下标。用乘法代替取模把高32位映射到[0, numBlocks)
+     */
+    private int blockOf(long h){
+        return (int) (((h >>> 32) * numBlocks) >>> 32) * BLOCK_WORDS;
+    }
+
+    /**
+     * 块内的k个位置取自以哈希值为种子的64位线性同余序列，每一项取最高的9位。
+     * 普通布隆过滤器常用的双重哈希h1 + i * h2在只有512位的块中结构太强：
+     * 步长相近的元素会共享多个位，实测误判率接近估计值的两倍
+     */
+    private static long nextProbe(long x){
+        return x * 0x5851F42D4C957F2DL + 0x14057B7EF767814FL;
+    }
+
+    /**
+     * 加入一个元素
+     *
+     * @return 如果过滤器的位因此改变，返回true。返回false说明元素可能已经被加入过
+     * @throws NullPointerException 如果指定的元素为null
+     */
+    public boolean put(E e){
+        final long h = hash64(e);
+        final long[] bits = this.bits;
+        final int block = blockOf(h);
+        boolean changed = false;
+        long x = h;
+        for(int i = 0; i < numHashFunctions; i++){
+            x = nextProbe(x);
+            int bit = (int) (x >>> BLOCK_SHIFT);
+            int w = block + (bit >>> 6);
+            long mask = 1L << bit;
+            if((bits[w] & mask) == 0){
+                bits[w] |= mask;
+                changed = true;
+            }
+        }
+        count++;
+        return changed;
+    }
+
+    /**
+     * 加入指定集合中的所有元素
+     *
+     * @return 如果过滤器的位因此改变，返回true
+     * @throws NullPointerException 如果指定的集合或者其中的某个元素为null
+     */
+    public boolean putAll(Collection<? extends E> c){
+        boolean changed = false;
+        for(Iterator<? extends E> i = c.iterator(); i.hasNext(); )
+            changed |= put(i.next());
+        return changed;
+    }
+
+    /**
+     * 如果元素可能被加入过，返回true；返回false时元素一定没有被加入过
+     *
+     * @throws NullPointerException 如果指定的元素为null
+     */
+    public boolean mightContain(Object e){
+        return mightContainHash(hash64(e));
+    }
+
+    private boolean mightContainHash(long h){
+        final long[] bits = this.bits;
+        final int block = blockOf(h);
+        long x = h;
+        for(int i = 0; i < numHashFunctions; i++){
+            x = nextProbe(x);
+            int bit = (int) (x >>> BLOCK_SHIFT);
+            if((bits[block + (bit >>> 6)] & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * 如果指定集合中的每个元素都可能被加入过，返回true；只要有一个元素
+     * 一定没有被加入过，立即返回false
+     *
+     * @throws NullPointerException 如果指定的集合或者其中的某个元素为null
+     */
+    public boolean mightContainAll(Collection<?> c){
+        for(Iterator<?> i = c.iterator(); i.hasNext(); ){
+            if(!mightContainHash(hash64(i.next())))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * 把另一个参数相同的过滤器中的元素并入此过滤器
+     *
+     * @throws IllegalArgumentException 如果两个过滤器的块数或者哈希函数的个数不同
+     */
+    public void putAll(BloomFilter<? extends E> other){
+        if(other.numBlocks != numBlocks || other.numHashFunctions != numHashFunctions)
+            throw new IllegalArgumentException("Incompatible bloom filters");
+        final long[] bits = this.bits;
+        final long[] ob = other.bits;
+        for(int i = 0; i < bits.length; i++)
+            bits[i] |= ob[i];
+        count += other.count;
+    }
+
+    /**
+     * 返回put被调用的次数，包括重复的元素
+     */
+    public long count(){
+        return count;
+    }
+
+    /**
+     * 返回哈希函数的个数
+     */
+    public int numHashFunctions(){
+        return numHashFunctions;
+    }
+
+    /**
+     * 返回位数组的大小，以位为单位
+     */
+    public long bitSize(){
+        return (long) bits.length * Long.SIZE;
+    }
+
+    /**
+     * 根据当前被置位的位的比例估计mightContain对一个没有加入过的元素返回true的概率
+     */
+    public double expectedFpp(){
+        long set = 0;
+        for(long w : bits)
+            set += Long.bitCount(w);
+        return Math.pow((double) set / bitSize(), numHashFunctions);
+    }
+
+    /**
+     * 清除所有的元素
+     */
+    public void clear(){
+        java.util.Arrays.fill(bits, 0L);
+        count = 0;
+    }
+
+    //Serialization
+
+    /**
+     * 返回serialize写出的字节数
+     */
+    public int serializedSizeInBytes(){
+        return HEADER_BYTES + bits.length * 8;
+    }
+
+    /**
+     * 从buf的position开始写出此过滤器，并把position移到写出的数据之后
+     *
+     * @throws java.nio.BufferOverflowException 如果buf的剩余空间不够
+     */
+    public void serialize(ByteBuffer buf){
+        final int total = serializedSizeInBytes();
+        if(buf.remaining() < total)
+            throw new java.nio.BufferOverflowException();
+        final int base = buf.position();
+        final ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(base, SERIAL_COOKIE);
+        b.putInt(base + 4, numHashFunctions);
+        b.putInt(base + 8, numBlocks);
+        b.putLong(base + 12, count);
+        b.position(base + HEADER_BYTES);
+        b.asLongBuffer().put(bits);
+        buf.position(base + total);
+    }
+
+    /**
+     * 从buf的position开始读取serialize写出的过滤器，并把position移到数据之后
+     *
+     * @throws IllegalArgumentException 如果数据不是合法的序列化格式
+     */
+    public static <E> BloomFilter<E> deserialize(ByteBuffer buf){
+        final int base = buf.position();
+        final ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if(buf.remaining() < HEADER_BYTES || b.getInt(base) != SERIAL_COOKIE)
+            throw new IllegalArgumentException("Not a serialized BloomFilter");
+        int k = b.getInt(base + 4);
+        int blocks = b.getInt(base + 8);
+        long count = b.getLong(base + 12);
+        if(k < 1 || k > MAX_HASH_FUNCTIONS)
+            throw new IllegalArgumentException("Illegal number of hash functions: " + k);
+        if(blocks < 1 || blocks > Integer.MAX_VALUE / BLOCK_WORDS ||
+                (long) blocks * BLOCK_WORDS * 8 > buf.remaining() - HEADER_BYTES)
+            throw new IllegalArgumentException("Illegal number of blocks: " + blocks);
+        long[] bits = new long[blocks * BLOCK_WORDS];
+        b.position(base + HEADER_BYTES);
+        b.asLongBuffer().get(bits);
+        buf.position(base + HEADER_BYTES + bits.length * 8);
+        return new BloomFilter<>(bits, k, count);
+    }
+}
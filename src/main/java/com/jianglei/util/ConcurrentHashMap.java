@@ -0,0 +1,1248 @@
+package com.jianglei.util;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 支持完全并发的读和高并发的写的哈希表。此类实现了Map接口，但不允许null键和null值。
+ *
+ * <p>表是一个AtomicReferenceArray，每个元素(bin)是一个由节点组成的单向链表：
+ * <ul>
+ *     <li>读操作(get 和 containsKey)完全不加锁。节点的val和next字段是volatile的，
+ *     读线程总能看到一个一致的链表</li>
+ *     <li>向一个空的bin插入第一个节点时使用CAS，不加锁。这是没有竞争时最常见的情况</li>
+ *     <li>其他的写操作只锁住bin的第一个节点，所以不同bin上的写操作可以并行进行</li>
+ * </ul>
+ *
+ * <p>当映射的数量超过容量的3/4时，表的容量加倍。扩容是协作式的：扩容线程从旧表
+ * 的末尾开始，每次认领一段bin(stride)，把每个bin拆分到新表中的两个bin，然后在
+ * 旧表中放一个ForwardingNode。其他在写操作中遇到ForwardingNode的线程会加入扩容，
+ * 认领剩下的bin；遇到ForwardingNode的读线程直接到新表中查找，所以扩容永远不会
+ * 阻塞读。每个bin在拆分时都复制了需要移动的节点，旧的链表保持不变，正在遍历它的
+ * 读线程不受影响。
+ *
+ * <p>size 由LongAdder维护，在并发修改时只是一个估计值。集合视图的迭代器是弱一致的：
+ * 它们反映迭代器创建时或者创建之后某一时刻的状态，永远不会抛出
+ * ConcurrentModificationException，并且可以与其他操作并发进行。
+ *
+ * <p>newKeySet() 返回一个由此类支持的并发Set，keySet(V) 返回一个支持add的
+ * 键视图，新加入的键映射到给定的公共值。
+ *
+ * <p>此实现没有JDK中的红黑树bin：哈希值质量很差的键会使一个bin退化为长链表。
+ *
+ * @param <K> 此map维护的键的类型
+ * @param <V> 映射值的类型
+ * @see HashMap
+ * Created by jianglei on 2017/4/16.
+ */
+public class ConcurrentHashMap<K, V> extends AbstractMap<K, V> implements Map<K, V> {
+
+    /**
+     * 最大的表容量
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * 默认的初始容量，一定是2的幂
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * 每个扩容线程一次认领的最少的bin的数量
+     */
+    private static final int MIN_TRANSFER_STRIDE = 16;
+
+    /**
+     * sizeCtl中用于生成扩容标记(stamp)的位数
+     */
+    private static final int RESIZE_STAMP_BITS = 16;
+
+    /**
+     * 可以同时帮助扩容的最大线程数
+     */
+    private static final int MAX_RESIZERS = (1 << (32 - RESIZE_STAMP_BITS)) - 1;
+
+    /**
+     * 扩容标记在sizeCtl中移位的位数
+     */
+    private static final int RESIZE_STAMP_SHIFT = 32 - RESIZE_STAMP_BITS;
+
+    /**
+     * ForwardingNode的哈希值
+     */
+    static final int MOVED = -1;
+
+    /**
+     * 普通节点哈希值可用的位
+     */
+    static final int HASH_BITS = 0x7fffffff;
+
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 键值对节点。val和next是volatile的，使读操作不需要加锁
+     */
+    static class Node<K, V> implements Map.Entry<K, V> {
+        final int hash;
+        final K key;
+        volatile V val;
+        volatile Node<K, V> next;
+
+        Node(int hash, K key, V val, Node<K, V> next){
+            this.hash = hash;
+            this.key = key;
+            this.val = val;
+            this.next = next;
+        }
+
+        public final K getKey(){
+            return key;
+        }
+
+        public final V getValue(){
+            return val;
+        }
+
+        public final V setValue(V value){
+            throw new UnsupportedOperationException();
+        }
+
+        public final int hashCode(){
+            return key.hashCode() ^ val.hashCode();
+        }
+
+        public final boolean equals(Object o){
+            Object k, v, u;
+            Map.Entry<?, ?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?, ?>) o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    (k == key || k.equals(key)) &&
+                    (v == (u = val) || v.equals(u)));
+        }
+
+        public final String toString(){
+            return key + "=" + val;
+        }
+
+        /**
+         * 从此节点开始查找键k
+         */
+        Node<K, V> find(int h, Object k){
+            Node<K, V> e = this;
+            if(k != null){
+                do {
+                    K ek;
+                    if(e.hash == h &&
+                            ((ek = e.key) == k || (ek != null && k.equals(ek))))
+                        return e;
+                } while ((e = e.next) != null);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 扩容期间放在已经迁移的bin中的节点，指向新表
+     */
+    static final class ForwardingNode<K, V> extends Node<K, V> {
+        final AtomicReferenceArray<Node<K, V>> nextTable;
+
+        ForwardingNode(AtomicReferenceArray<Node<K, V>> tab){
+            super(MOVED, null, null, null);
+            this.nextTable = tab;
+        }
+
+        Node<K, V> find(int h, Object k){
+            // 用循环代替递归，避免连续的扩容造成很深的调用栈
+            outer: for(AtomicReferenceArray<Node<K, V>> tab = nextTable; ; ){
+                Node<K, V> e;
+                int n;
+                if(k == null || tab == null || (n = tab.length()) == 0 ||
+                        (e = tab.get((n - 1) & h)) == null)
+                    return null;
+                for(;;){
+                    int eh;
+                    K ek;
+                    if((eh = e.hash) == h &&
+                            ((ek = e.key) == k || (ek != null && k.equals(ek))))
+                        return e;
+                    if(eh < 0){
+                        if(e instanceof ForwardingNode){
+                            tab = ((ForwardingNode<K, V>) e).nextTable;
+                            continue outer;
+                        }
+                        return e.find(h, k);
+                    }
+                    if((e = e.next) == null)
+                        return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 把hashCode的高位扩散到低位，并清除最高位(负的哈希值被保留给特殊节点)
+     */
+    static int spread(int h){
+        return (h ^ (h >>> 16)) & HASH_BITS;
+    }
+
+    /**
+     * 返回不小于c的最小的2的幂
+     */
+    private static int tableSizeFor(int c){
+        int n = -1 >>> Integer.numberOfLeadingZeros(c - 1);
+        return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    /**
+     * 返回容量为n的表扩容时使用的标记，左移RESIZE_STAMP_SHIFT位之后一定是负数
+     */
+    static int resizeStamp(int n){
+        return Integer.numberOfLeadingZeros(n) | (1 << (RESIZE_STAMP_BITS - 1));
+    }
+
+    //Fields
+
+    /**
+     * bin的数组，在第一次插入时延迟初始化，长度总是2的幂
+     */
+    transient volatile AtomicReferenceArray<Node<K, V>> table;
+
+    /**
+     * 扩容时使用的新表，只在扩容期间不为null
+     */
+    private transient volatile AtomicReferenceArray<Node<K, V>> nextTable;
+
+    /**
+     * 映射的数量
+     */
+    private final LongAdder counter = new LongAdder();
+
+    /**
+     * 表初始化和扩容的控制字段。为负数时表正在初始化(-1)或者扩容(高16位是
+     * 扩容标记，低16位是1加上正在扩容的线程数)。否则，表为null时保存初始
+     * 容量，表初始化之后保存下一次扩容的阈值
+     */
+    private transient volatile int sizeCtl;
+
+    /**
+     * 扩容时下一个要认领的bin的下标(加1)
+     */
+    private transient volatile int transferIndex;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<ConcurrentHashMap> SIZECTL =
+            AtomicIntegerFieldUpdater.newUpdater(ConcurrentHashMap.class, "sizeCtl");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<ConcurrentHashMap> TRANSFERINDEX =
+            AtomicIntegerFieldUpdater.newUpdater(ConcurrentHashMap.class, "transferIndex");
+
+    //Constructors
+
+    /**
+     * 创建一个具有默认初始容量(16)的空map
+     */
+    public ConcurrentHashMap(){
+    }
+
+    /**
+     * 创建一个能容纳指定数量的映射而不需要扩容的空map
+     *
+     * @param initialCapacity 初始容量
+     * @throws IllegalArgumentException 如果初始容量是负数
+     */
+    public ConcurrentHashMap(int initialCapacity){
+        if(initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                                initialCapacity);
+        this.sizeCtl = ((initialCapacity >= (MAXIMUM_CAPACITY >>> 1)) ?
+                MAXIMUM_CAPACITY :
+                tableSizeFor(initialCapacity + (initialCapacity >>> 1) + 1));
+    }
+
+    /**
+     * 创建一个与指定map具有相同映射关系的map
+     *
+     * @param m 映射要放进此map中的map
+     * @throws NullPointerException 如果指定的map为null，或者包含null键或值
+     */
+    public ConcurrentHashMap(Map<? extends K, ? extends V> m){
+        this.sizeCtl = DEFAULT_CAPACITY;
+        putAll(m);
+    }
+
+    //Query Operations
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>在并发修改时，返回值只是一个估计值
+     */
+    public int size(){
+        long n = counter.sum();
+        return ((n < 0L) ? 0 :
+                (n > (long) Integer.MAX_VALUE) ? Integer.MAX_VALUE :
+                (int) n);
+    }
+
+    /**
+     * 返回映射的数量。当映射的数量可能超过Integer.MAX_VALUE时，应该使用
+     * 此方法代替size()
+     */
+    public long mappingCount(){
+        long n = counter.sum();
+        return (n < 0L) ? 0L : n;
+    }
+
+    public boolean isEmpty(){
+        return counter.sum() <= 0L;
+    }
+
+    /**
+     * 返回指定键映射到的值，如果此map不包含该键的映射，返回null。
+     * 此方法不加锁
+     *
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public V get(Object key){
+        AtomicReferenceArray<Node<K, V>> tab;
+        Node<K, V> e, p;
+        int n, eh;
+        K ek;
+        int h = spread(key.hashCode());
+        if((tab = table) != null && (n = tab.length()) > 0 &&
+                (e = tab.get((n - 1) & h)) != null){
+            if((eh = e.hash) == h){
+                if((ek = e.key) == key || (ek != null && key.equals(ek)))
+                    return e.val;
+            }else if(eh < 0)
+                return (p = e.find(h, key)) != null ? p.val : null;
+            while ((e = e.next) != null){
+                if(e.hash == h &&
+                        ((ek = e.key) == key || (ek != null && key.equals(ek))))
+                    return e.val;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public boolean containsKey(Object key){
+        return get(key) != null;
+    }
+
+    /**
+     * 如果此map把一个或多个键映射到指定值，返回true。此方法需要遍历整个map
+     *
+     * @throws NullPointerException 如果指定的值为null
+     */
+    public boolean containsValue(Object value){
+        if(value == null)
+            throw new NullPointerException();
+        AtomicReferenceArray<Node<K, V>> t;
+        if((t = table) != null){
+            Traverser<K, V> it = new Traverser<>(t, t.length(), 0, t.length());
+            for(Node<K, V> p; (p = it.advance()) != null; ){
+                V v;
+                if((v = p.val) == value || (v != null && value.equals(v)))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    //Modification Operations
+
+    /**
+     * 把指定值与此map中的指定键关联。键和值都不可以为null
+     *
+     * @return 与key关联的旧值，如果key没有映射返回null
+     * @throws NullPointerException 如果指定的键或值为null
+     */
+    public V put(K key, V value){
+        return putVal(key, value, false);
+    }
+
+    /**
+     * 如果指定的键没有映射，把它与指定值关联。此操作是原子的
+     *
+     * @return 与key关联的旧值，如果key没有映射返回null
+     * @throws NullPointerException 如果指定的键或值为null
+     */
+    public V putIfAbsent(K key, V value){
+        return putVal(key, value, true);
+    }
+
+    final V putVal(K key, V value, boolean onlyIfAbsent){
+        if(key == null || value == null)
+            throw new NullPointerException();
+        int hash = spread(key.hashCode());
+        int binCount = 0;
+        for(AtomicReferenceArray<Node<K, V>> tab = table; ; ){
+            Node<K, V> f;
+            int n, i, fh;
+            if(tab == null || (n = tab.length()) == 0)
+                tab = initTable();
+            else if((f = tab.get(i = (n - 1) & hash)) == null){
+                if(tab.compareAndSet(i, null, new Node<K, V>(hash, key, value, null)))
+                    break;                   // 插入空的bin时不加锁
+            }else if((fh = f.hash) == MOVED)
+                tab = helpTransfer(tab, f);
+            else {
+                V oldVal = null;
+                synchronized (f){
+                    if(tab.get(i) == f){
+                        if(fh >= 0){
+                            binCount = 1;
+                            for(Node<K, V> e = f; ; ++binCount){
+                                K ek;
+                                if(e.hash == hash &&
+                                        ((ek = e.key) == key ||
+                                                (ek != null && key.equals(ek)))){
+                                    oldVal = e.val;
+                                    if(!onlyIfAbsent)
+                                        e.val = value;
+                                    break;
+                                }
+                                Node<K, V> pred = e;
+                                if((e = e.next) == null){
+                                    pred.next = new Node<K, V>(hash, key, value, null);
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+                if(binCount != 0){
+                    if(oldVal != null)
+                        return oldVal;
+                    break;
+                }
+            }
+        }
+        addCount(1L, binCount);
+        return null;
+    }
+
+    /**
+     * 把指定map中所有的映射拷贝到此map中
+     *
+     * @throws NullPointerException 如果指定的map为null，或者包含null键或值
+     */
+    public void putAll(Map<? extends K, ? extends V> m){
+        tryPresize(m.size());
+        for(Iterator<? extends Map.Entry<? extends K, ? extends V>> i = m.entrySet().iterator(); i.hasNext(); ){
+            Map.Entry<? extends K, ? extends V> e = i.next();
+            putVal(e.getKey(), e.getValue(), false);
+        }
+    }
+
+    /**
+     * 从此map中删除指定键的映射，如果它存在的话
+     *
+     * @return 与key关联的旧值，如果key没有映射返回null
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public V remove(Object key){
+        return replaceNode(key, null, null);
+    }
+
+    /**
+     * 只有当指定的键当前映射到指定值时才删除该映射。此操作是原子的
+     *
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public boolean remove(Object key, Object value){
+        if(key == null)
+            throw new NullPointerException();
+        return value != null && replaceNode(key, null, value) != null;
+    }
+
+    /**
+     * 只有当指定的键当前映射到oldValue时才把它替换为newValue。此操作是原子的
+     *
+     * @throws NullPointerException 如果任何参数为null
+     */
+    public boolean replace(K key, V oldValue, V newValue){
+        if(key == null || oldValue == null || newValue == null)
+            throw new NullPointerException();
+        return replaceNode(key, newValue, oldValue) != null;
+    }
+
+    /**
+     * 只有当指定的键当前有映射时才把它的值替换为value。此操作是原子的
+     *
+     * @return 与key关联的旧值，如果key没有映射返回null
+     * @throws NullPointerException 如果指定的键或值为null
+     */
+    public V replace(K key, V value){
+        if(key == null || value == null)
+            throw new NullPointerException();
+        return replaceNode(key, value, null);
+    }
+
+    /**
+     * 四个公共的删除/替换方法的实现：把节点的值替换为value，如果cv不为null，
+     * 只有当节点当前的值等于cv时才替换。如果value为null，删除节点
+     */
+    final V replaceNode(Object key, V value, Object cv){
+        int hash = spread(key.hashCode());
+        for(AtomicReferenceArray<Node<K, V>> tab = table; ; ){
+            Node<K, V> f;
+            int n, i, fh;
+            if(tab == null || (n = tab.length()) == 0 ||
+                    (f = tab.get(i = (n - 1) & hash)) == null)
+                break;
+            else if((fh = f.hash) == MOVED)
+                tab = helpTransfer(tab, f);
+            else {
+                V oldVal = null;
+                boolean validated = false;
+                synchronized (f){
+                    if(tab.get(i) == f){
+                        if(fh >= 0){
+                            validated = true;
+                            for(Node<K, V> e = f, pred = null; ; ){
+                                K ek;
+                                if(e.hash == hash &&
+                                        ((ek = e.key) == key ||
+                                                (ek != null && key.equals(ek)))){
+                                    V ev = e.val;
+                                    if(cv == null || cv == ev ||
+                                            (ev != null && cv.equals(ev))){
+                                        oldVal = ev;
+                                        if(value != null)
+                                            e.val = value;
+                                        else if(pred != null)
+                                            pred.next = e.next;
+                                        else
+                                            tab.set(i, e.next);
+                                    }
+                                    break;
+                                }
+                                pred = e;
+                                if((e = e.next) == null)
+                                    break;
+                            }
+                        }
+                    }
+                }
+                if(validated){
+                    if(oldVal != null){
+                        if(value == null)
+                            addCount(-1L, -1);
+                        return oldVal;
+                    }
+                    break;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 删除此map中所有的映射
+     */
+    public void clear(){
+        long delta = 0L;
+        int i = 0;
+        AtomicReferenceArray<Node<K, V>> tab = table;
+        while (tab != null && i < tab.length()){
+            int fh;
+            Node<K, V> f = tab.get(i);
+            if(f == null)
+                ++i;
+            else if((fh = f.hash) == MOVED){
+                tab = helpTransfer(tab, f);
+                i = 0;                       // 从新表的开头重新开始
+            }else {
+                synchronized (f){
+                    if(tab.get(i) == f){
+                        Node<K, V> p = (fh >= 0 ? f : null);
+                        while (p != null){
+                            --delta;
+                            p = p.next;
+                        }
+                        tab.set(i++, null);
+                    }
+                }
+            }
+        }
+        if(delta != 0L)
+            addCount(delta, -1);
+    }
+
+    //Table Initialization and Resizing
+
+    /**
+     * 用sizeCtl中记录的容量初始化表
+     */
+    private AtomicReferenceArray<Node<K, V>> initTable(){
+        AtomicReferenceArray<Node<K, V>> tab;
+        int sc;
+        while ((tab = table) == null || tab.length() == 0){
+            if((sc = sizeCtl) < 0)
+                Thread.yield();              // 其他线程正在初始化，让出CPU
+            else if(SIZECTL.compareAndSet(this, sc, -1)){
+                try {
+                    if((tab = table) == null || tab.length() == 0){
+                        int n = (sc > 0) ? sc : DEFAULT_CAPACITY;
+                        tab = new AtomicReferenceArray<>(n);
+                        table = tab;
+                        sc = n - (n >>> 2);
+                    }
+                } finally {
+                    sizeCtl = sc;
+                }
+                break;
+            }
+        }
+        return tab;
+    }
+
+    /**
+     * 把x加到映射的数量上。如果check &gt;= 0并且表需要扩容，开始扩容，
+     * 或者帮助正在进行的扩容
+     */
+    private void addCount(long x, int check){
+        counter.add(x);
+        if(check >= 0){
+            AtomicReferenceArray<Node<K, V>> tab, nt;
+            int n, sc;
+            long s = counter.sum();
+            while (s >= (long) (sc = sizeCtl) && (tab = table) != null &&
+                    (n = tab.length()) < MAXIMUM_CAPACITY){
+                int rs = resizeStamp(n) << RESIZE_STAMP_SHIFT;
+                if(sc < 0){
+                    if(sc == rs + MAX_RESIZERS || sc == rs + 1 ||
+                            (nt = nextTable) == null || transferIndex <= 0)
+                        break;
+                    if(SIZECTL.compareAndSet(this, sc, sc + 1))
+                        transfer(tab, nt);
+                }else if(SIZECTL.compareAndSet(this, sc, rs + 2))
+                    transfer(tab, null);
+                s = counter.sum();
+            }
+        }
+    }
+
+    /**
+     * 如果正在扩容，帮助迁移bin，返回新表
+     */
+    final AtomicReferenceArray<Node<K, V>> helpTransfer(AtomicReferenceArray<Node<K, V>> tab, Node<K, V> f){
+        AtomicReferenceArray<Node<K, V>> nextTab;
+        int sc;
+        if(tab != null && (f instanceof ForwardingNode) &&
+                (nextTab = ((ForwardingNode<K, V>) f).nextTable) != null){
+            int rs = resizeStamp(tab.length()) << RESIZE_STAMP_SHIFT;
+            while (nextTab == nextTable && table == tab &&
+                    (sc = sizeCtl) < 0){
+                if(sc == rs + MAX_RESIZERS || sc == rs + 1 ||
+                        transferIndex <= 0)
+                    break;
+                if(SIZECTL.compareAndSet(this, sc, sc + 1)){
+                    transfer(tab, nextTab);
+                    break;
+                }
+            }
+            return nextTab;
+        }
+        return table;
+    }
+
+    /**
+     * 在批量插入之前尝试把表扩容到能容纳size个映射
+     */
+    private void tryPresize(int size){
+        int c = (size >= (MAXIMUM_CAPACITY >>> 1)) ? MAXIMUM_CAPACITY :
+                tableSizeFor(size + (size >>> 1) + 1);
+        int sc;
+        while ((sc = sizeCtl) >= 0){
+            AtomicReferenceArray<Node<K, V>> tab = table;
+            int n;
+            if(tab == null || (n = tab.length()) == 0){
+                n = (sc > c) ? sc : c;
+                if(SIZECTL.compareAndSet(this, sc, -1)){
+                    try {
+                        if(table == tab){
+                            table = new AtomicReferenceArray<>(n);
+                            sc = n - (n >>> 2);
+                        }
+                    } finally {
+                        sizeCtl = sc;
+                    }
+                }
+            }else if(c <= sc || n >= MAXIMUM_CAPACITY)
+                break;
+            else if(tab == table){
+                int rs = resizeStamp(n);
+                if(SIZECTL.compareAndSet(this, sc, (rs << RESIZE_STAMP_SHIFT) + 2))
+                    transfer(tab, null);
+            }
+        }
+    }
+
+    /**
+     * 把每个bin中的节点迁移(复制)到新表中。多个线程可以同时调用此方法，
+     * 每个线程通过CAS transferIndex认领一段bin
+     */
+    private void transfer(AtomicReferenceArray<Node<K, V>> tab, AtomicReferenceArray<Node<K, V>> nextTab){
+        int n = tab.length(), stride;
+        if((stride = (NCPU > 1) ? (n >>> 3) / NCPU : n) < MIN_TRANSFER_STRIDE)
+            stride = MIN_TRANSFER_STRIDE;
+        if(nextTab == null){                // 发起扩容的线程创建新表
+            try {
+                nextTab = new AtomicReferenceArray<>(n << 1);
+            } catch (Throwable ex){          // 内存不足时放弃扩容
+                sizeCtl = Integer.MAX_VALUE;
+                return;
+            }
+            nextTable = nextTab;
+            transferIndex = n;
+        }
+        int nextn = nextTab.length();
+        ForwardingNode<K, V> fwd = new ForwardingNode<>(nextTab);
+        boolean advance = true;
+        boolean finishing = false;          // 在提交新表之前再扫描一遍旧表
+        for(int i = 0, bound = 0; ; ){
+            Node<K, V> f;
+            int fh;
+            while (advance){
+                int nextIndex, nextBound;
+                if(--i >= bound || finishing)
+                    advance = false;
+                else if((nextIndex = transferIndex) <= 0){
+                    i = -1;
+                    advance = false;
+                }else if(TRANSFERINDEX.compareAndSet(this, nextIndex,
+                        nextBound = (nextIndex > stride ? nextIndex - stride : 0))){
+                    bound = nextBound;
+                    i = nextIndex - 1;
+                    advance = false;
+                }
+            }
+            if(i < 0 || i >= n || i + n >= nextn){
+                int sc;
+                if(finishing){
+                    nextTable = null;
+                    table = nextTab;
+                    sizeCtl = (n << 1) - (n >>> 1);
+                    return;
+                }
+                if(SIZECTL.compareAndSet(this, sc = sizeCtl, sc - 1)){
+                    if((sc - 2) != resizeStamp(n) << RESIZE_STAMP_SHIFT)
+                        return;
+                    finishing = advance = true;
+                    i = n;                   // 提交之前重新检查
+                }
+            }else if((f = tab.get(i)) == null)
+                advance = tab.compareAndSet(i, null, fwd);
+            else if((fh = f.hash) == MOVED)
+                advance = true;              // 已经处理过了
+            else {
+                synchronized (f){
+                    if(tab.get(i) == f){
+                        if(fh >= 0){
+                            // 链表尾部连续的、去向相同的一段节点可以直接重用
+                            int runBit = fh & n;
+                            Node<K, V> lastRun = f;
+                            for(Node<K, V> p = f.next; p != null; p = p.next){
+                                int b = p.hash & n;
+                                if(b != runBit){
+                                    runBit = b;
+                                    lastRun = p;
+                                }
+                            }
+                            Node<K, V> ln, hn;
+                            if(runBit == 0){
+                                ln = lastRun;
+                                hn = null;
+                            }else {
+                                hn = lastRun;
+                                ln = null;
+                            }
+                            for(Node<K, V> p = f; p != lastRun; p = p.next){
+                                int ph = p.hash;
+                                K pk = p.key;
+                                V pv = p.val;
+                                if((ph & n) == 0)
+                                    ln = new Node<>(ph, pk, pv, ln);
+                                else
+                                    hn = new Node<>(ph, pk, pv, hn);
+                            }
+                            nextTab.set(i, ln);
+                            nextTab.set(i + n, hn);
+                            tab.set(i, fwd);
+                            advance = true;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    //Traversal
+
+    /**
+     * 遍历时遇到ForwardingNode，记录旧表的状态以便返回
+     */
+    static final class TableStack<K, V> {
+        int length;
+        int index;
+        AtomicReferenceArray<Node<K, V>> tab;
+        TableStack<K, V> next;
+    }
+
+    /**
+     * 弱一致的遍历。遇到ForwardingNode时，先遍历新表中对应的两个bin
+     * (index 和 index + n)，再回到旧表继续，这样即使在扩容期间，每个存在的
+     * 节点也只被访问一次
+     */
+    static class Traverser<K, V> {
+        AtomicReferenceArray<Node<K, V>> tab;
+        Node<K, V> next;
+        TableStack<K, V> stack, spare;
+        int index;
+        int baseIndex;
+        int baseLimit;
+        final int baseSize;
+
+        Traverser(AtomicReferenceArray<Node<K, V>> tab, int size, int index, int limit){
+            this.tab = tab;
+            this.baseSize = size;
+            this.baseIndex = this.index = index;
+            this.baseLimit = limit;
+            this.next = null;
+        }
+
+        /**
+         * 前进到下一个节点，没有更多的节点时返回null
+         */
+        final Node<K, V> advance(){
+            Node<K, V> e;
+            if((e = next) != null)
+                e = e.next;
+            for(;;){
+                AtomicReferenceArray<Node<K, V>> t;
+                int i, n;
+                if(e != null)
+                    return next = e;
+                if(baseIndex >= baseLimit || (t = tab) == null ||
+                        (n = t.length()) <= (i = index) || i < 0)
+                    return next = null;
+                if((e = t.get(i)) != null && e.hash < 0){
+                    if(e instanceof ForwardingNode){
+                        tab = ((ForwardingNode<K, V>) e).nextTable;
+                        e = null;
+                        pushState(t, i, n);
+                        continue;
+                    }
+                    e = null;
+                }
+                if(stack != null)
+                    recoverState(n);
+                else if((index = i + baseSize) >= n)
+                    index = ++baseIndex;
+            }
+        }
+
+        private void pushState(AtomicReferenceArray<Node<K, V>> t, int i, int n){
+            TableStack<K, V> s = spare;
+            if(s != null)
+                spare = s.next;
+            else
+                s = new TableStack<>();
+            s.tab = t;
+            s.length = n;
+            s.index = i;
+            s.next = stack;
+            stack = s;
+        }
+
+        private void recoverState(int n){
+            TableStack<K, V> s;
+            int len;
+            while ((s = stack) != null && (index += (len = s.length)) >= n){
+                n = len;
+                index = s.index;
+                tab = s.tab;
+                s.tab = null;
+                TableStack<K, V> next = s.next;
+                s.next = spare;
+                stack = next;
+                spare = s;
+            }
+            if(s == null && (index += baseSize) >= n)
+                index = ++baseIndex;
+        }
+    }
+
+    /**
+     * 集合视图迭代器的基类
+     */
+    static class BaseIterator<K, V> extends Traverser<K, V> {
+        final ConcurrentHashMap<K, V> map;
+        Node<K, V> lastReturned;
+
+        BaseIterator(AtomicReferenceArray<Node<K, V>> tab, int size, ConcurrentHashMap<K, V> map){
+            super(tab, size, 0, size);
+            this.map = map;
+            advance();
+        }
+
+        public final boolean hasNext(){
+            return next != null;
+        }
+
+        final Node<K, V> nextNode(){
+            Node<K, V> p;
+            if((p = next) == null)
+                throw new NoSuchElementException();
+            lastReturned = p;
+            advance();
+            return p;
+        }
+
+        public final void remove(){
+            Node<K, V> p;
+            if((p = lastReturned) == null)
+                throw new IllegalStateException();
+            lastReturned = null;
+            map.replaceNode(p.key, null, null);
+        }
+    }
+
+    static final class KeyIterator<K, V> extends BaseIterator<K, V> implements Iterator<K> {
+        KeyIterator(AtomicReferenceArray<Node<K, V>> tab, int size, ConcurrentHashMap<K, V> map){
+            super(tab, size, map);
+        }
+
+        public K next(){
+            return nextNode().key;
+        }
+    }
+
+    static final class ValueIterator<K, V> extends BaseIterator<K, V> implements Iterator<V> {
+        ValueIterator(AtomicReferenceArray<Node<K, V>> tab, int size, ConcurrentHashMap<K, V> map){
+            super(tab, size, map);
+        }
+
+        public V next(){
+            return nextNode().val;
+        }
+    }
+
+    static final class EntryIterator<K, V> extends BaseIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        EntryIterator(AtomicReferenceArray<Node<K, V>> tab, int size, ConcurrentHashMap<K, V> map){
+            super(tab, size, map);
+        }
+
+        public Map.Entry<K, V> next(){
+            Node<K, V> p = nextNode();
+            return new MapEntry<>(p.key, p.val, map);
+        }
+    }
+
+    /**
+     * entrySet迭代器返回的entry。setValue 写穿到map中
+     */
+    static final class MapEntry<K, V> implements Map.Entry<K, V> {
+        final K key;
+        V val;
+        final ConcurrentHashMap<K, V> map;
+
+        MapEntry(K key, V val, ConcurrentHashMap<K, V> map){
+            this.key = key;
+            this.val = val;
+            this.map = map;
+        }
+
+        public K getKey(){
+            return key;
+        }
+
+        public V getValue(){
+            return val;
+        }
+
+        public int hashCode(){
+            return key.hashCode() ^ val.hashCode();
+        }
+
+        public String toString(){
+            return key + "=" + val;
+        }
+
+        public boolean equals(Object o){
+            Object k, v;
+            Map.Entry<?, ?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?, ?>) o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    (k == key || k.equals(key)) &&
+                    (v == val || v.equals(val)));
+        }
+
+        /**
+         * 设置此entry的值并写穿到map中。返回值只是此entry中的旧值：
+         * 由于并发的修改，map中的旧值可能已经不同了
+         */
+        public V setValue(V value){
+            if(value == null)
+                throw new NullPointerException();
+            V v = val;
+            val = value;
+            map.put(key, value);
+            return v;
+        }
+    }
+
+    //Views
+
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * 返回此map包含的键的set视图。此set支持元素的移除，但不支持add。
+     * 它的迭代器是弱一致的
+     */
+    @SuppressWarnings("unchecked")
+    public KeySetView<K, V> keySet(){
+        Set<K> ks = keySet;
+        if(ks == null){
+            ks = new KeySetView<>(this, null);
+            keySet = ks;
+        }
+        return (KeySetView<K, V>) ks;
+    }
+
+    /**
+     * 返回此map包含的键的set视图，其中add 和 addAll 把新的键映射到指定的
+     * 公共值(如果键还没有映射的话)
+     *
+     * @param mappedValue 加入的键映射到的值
+     * @throws NullPointerException 如果mappedValue为null
+     */
+    public KeySetView<K, V> keySet(V mappedValue){
+        if(mappedValue == null)
+            throw new NullPointerException();
+        return new KeySetView<>(this, mappedValue);
+    }
+
+    /**
+     * 创建一个由ConcurrentHashMap支持的新的Set，键映射到Boolean.TRUE。
+     * contains 不加锁；add 和 remove 在bin为空时只是一次CAS，否则只锁住
+     * 一个bin；迭代器是弱一致的
+     *
+     * @param <K> set的元素的类型
+     * @return 新的set
+     */
+    public static <K> KeySetView<K, Boolean> newKeySet(){
+        return new KeySetView<>(new ConcurrentHashMap<K, Boolean>(), Boolean.TRUE);
+    }
+
+    /**
+     * 创建一个由ConcurrentHashMap支持的新的Set，键映射到Boolean.TRUE
+     *
+     * @param initialCapacity 初始容量，实现会保证容纳这么多元素而不需要扩容
+     * @param <K> set的元素的类型
+     * @return 新的set
+     * @throws IllegalArgumentException 如果初始容量为负数
+     */
+    public static <K> KeySetView<K, Boolean> newKeySet(int initialCapacity){
+        return new KeySetView<>(new ConcurrentHashMap<K, Boolean>(initialCapacity), Boolean.TRUE);
+    }
+
+    /**
+     * 返回此map包含的值的集合视图。它的迭代器是弱一致的
+     */
+    public Collection<V> values(){
+        Collection<V> vs = values;
+        if(vs == null){
+            vs = new ValuesView();
+            values = vs;
+        }
+        return vs;
+    }
+
+    /**
+     * 返回此map包含的映射的set视图。它的迭代器是弱一致的
+     */
+    public Set<Map.Entry<K, V>> entrySet(){
+        Set<Map.Entry<K, V>> es = entrySet;
+        if(es == null){
+            es = new EntrySetView();
+            entrySet = es;
+        }
+        return es;
+    }
+
+    /**
+     * ConcurrentHashMap的键的Set视图。如果创建时指定了一个映射值，此set支持
+     * add 和 addAll，新的键映射到这个值；否则它们抛出UnsupportedOperationException。
+     * 所有的操作都直接委托给背后的map，所以此set可以被多个线程并发地使用，
+     * 不需要外部的同步
+     *
+     * @param <K> 键的类型
+     * @param <V> 值的类型
+     */
+    public static final class KeySetView<K, V> extends AbstractSet<K> implements Set<K> {
+        private final ConcurrentHashMap<K, V> map;
+        private final V value;
+
+        KeySetView(ConcurrentHashMap<K, V> map, V value){
+            this.map = map;
+            this.value = value;
+        }
+
+        /**
+         * 返回支持此视图的map
+         */
+        public ConcurrentHashMap<K, V> getMap(){
+            return map;
+        }
+
+        /**
+         * 返回add使用的映射值，如果此视图不支持add，返回null
+         */
+        public V getMappedValue(){
+            return value;
+        }
+
+        public int size(){
+            return map.size();
+        }
+
+        public boolean isEmpty(){
+            return map.isEmpty();
+        }
+
+        public void clear(){
+            map.clear();
+        }
+
+        /**
+         * 此方法不加锁
+         *
+         * @throws NullPointerException 如果指定的元素为null
+         */
+        public boolean contains(Object o){
+            return map.containsKey(o);
+        }
+
+        /**
+         * @throws NullPointerException 如果指定的元素为null
+         */
+        public boolean remove(Object o){
+            return map.remove(o) != null;
+        }
+
+        /**
+         * 如果元素还不存在，把它映射到此视图的映射值加入背后的map。此操作是原子的
+         *
+         * @throws UnsupportedOperationException 如果此视图没有映射值
+         * @throws NullPointerException 如果指定的元素为null
+         */
+        public boolean add(K e){
+            V v;
+            if((v = value) == null)
+                throw new UnsupportedOperationException();
+            return map.putVal(e, v, true) == null;
+        }
+
+        /**
+         * @throws UnsupportedOperationException 如果此视图没有映射值
+         * @throws NullPointerException 如果指定的集合为null，或者包含null元素
+         */
+        public boolean addAll(Collection<? extends K> c){
+            boolean added = false;
+            V v;
+            if((v = value) == null)
+                throw new UnsupportedOperationException();
+            map.tryPresize(c.size());
+            for(Iterator<? extends K> i = c.iterator(); i.hasNext(); ){
+                if(map.putVal(i.next(), v, true) == null)
+                    added = true;
+            }
+            return added;
+        }
+
+        /**
+         * 返回一个弱一致的迭代器
+         */
+        public Iterator<K> iterator(){
+            AtomicReferenceArray<Node<K, V>> t = map.table;
+            int f = (t == null) ? 0 : t.length();
+            return new KeyIterator<>(t, f, map);
+        }
+    }
+
+    final class ValuesView extends AbstractCollection<V> {
+        public int size(){
+            return ConcurrentHashMap.this.size();
+        }
+
+        public boolean isEmpty(){
+            return ConcurrentHashMap.this.isEmpty();
+        }
+
+        public void clear(){
+            ConcurrentHashMap.this.clear();
+        }
+
+        public boolean contains(Object o){
+            return containsValue(o);
+        }
+
+        public Iterator<V> iterator(){
+            AtomicReferenceArray<Node<K, V>> t = table;
+            int f = (t == null) ? 0 : t.length();
+            return new ValueIterator<>(t, f, ConcurrentHashMap.this);
+        }
+    }
+
+    final class EntrySetView extends AbstractSet<Map.Entry<K, V>> {
+        public int size(){
+            return ConcurrentHashMap.this.size();
+        }
+
+        public boolean isEmpty(){
+            return ConcurrentHashMap.this.isEmpty();
+        }
+
+        public void clear(){
+            ConcurrentHashMap.this.clear();
+        }
+
+        public boolean contains(Object o){
+            Object k, v, r;
+            Map.Entry<?, ?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?, ?>) o).getKey()) != null &&
+                    (r = get(k)) != null &&
+                    (v = e.getValue()) != null &&
+                    (v == r || v.equals(r)));
+        }
+
+        public boolean remove(Object o){
+            Object k, v;
+            Map.Entry<?, ?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?, ?>) o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    ConcurrentHashMap.this.remove(k, v));
+        }
+
+        public Iterator<Map.Entry<K, V>> iterator(){
+            AtomicReferenceArray<Node<K, V>> t = table;
+            int f = (t == null) ? 0 : t.length();
+            return new EntryIterator<>(t, f, ConcurrentHashMap.this);
+        }
+    }
+}
@@ -0,0 +1,1737 @@
+package com.jianglei.util;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * 可伸缩的并发NavigableMap实现。map根据键的自然顺序，或者根据创建时提供的
+ * Comparator排序。
+ *
+ * <p>此类实现了跳表(skip list)的一个并发变体，为containsKey，get，put，
+ * remove以及各种导航操作提供了期望的log(n)时间开销。插入，删除，更新和访问
+ * 操作可以由多个线程安全地并发执行，所有操作都不加锁，只使用CAS。
+ *
+ * <p>最底层是一个有序的单向链表，保存所有的键值对；上面的各层是索引，每一层
+ * 大约跳过下一层一半的节点。删除一个节点分为三步，每一步都是一次CAS：
+ * <ol>
+ *     <li>把节点的value设置为null，此时逻辑上删除已经完成</li>
+ *     <li>在节点后面追加一个标记(marker)节点，防止其他线程在它后面插入</li>
+ *     <li>把前驱节点的next指向标记节点的后继，在物理上移除节点</li>
+ * </ol>
+ * 任何遍历的线程遇到value为null的节点时都会帮助完成后两步，所以删除永远
+ * 不会因为某个线程的停顿而阻塞。索引层的节点在遍历时被惰性地解除链接。
+ *
+ * <p>集合视图的迭代器是弱一致的：它们反映迭代器创建时或者创建之后某一时刻
+ * 的状态，永远不会抛出ConcurrentModificationException，并且可以与其他操作
+ * 并发进行。子map视图上的范围迭代同样直接沿着基础层前进，不复制任何节点。
+ *
+ * <p>注意与大多数集合不同，size方法不是一个常数时间的操作：它需要遍历
+ * 所有的元素，在并发修改时结果可能不准确。此类不允许null键和null值。
+ *
+ * @param <K> 此map维护的键的类型
+ * @param <V> 映射值的类型
+ * @see TreeMap
+ * @see ConcurrentHashMap
+ * Created by jianglei on 2017/4/18.
+ */
+public class ConcurrentSkipListMap<K, V> extends AbstractMap<K, V>
+        implements NavigableMap<K, V> {
+
+    /**
+     * 用于标识基础层头节点的特殊值
+     */
+    private static final Object BASE_HEADER = new Object();
+
+    /**
+     * 最顶层的头索引
+     */
+    private transient volatile HeadIndex<K, V> head;
+
+    /**
+     * 用于维护顺序的comparator，如果使用键的自然顺序，为null
+     */
+    final Comparator<? super K> comparator;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentSkipListMap, HeadIndex> HEAD =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentSkipListMap.class, HeadIndex.class, "head");
+
+    /**
+     * 创建一个使用键的自然顺序的空map
+     */
+    public ConcurrentSkipListMap(){
+        this.comparator = null;
+        initialize();
+    }
+
+    /**
+     * 创建一个根据指定的comparator排序的空map
+     *
+     * @param comparator 用于排序此map的comparator。如果为null，使用键的自然顺序
+     */
+    public ConcurrentSkipListMap(Comparator<? super K> comparator){
+        this.comparator = comparator;
+        initialize();
+    }
+
+    /**
+     * 创建一个与指定map具有相同映射关系，根据键的自然顺序排序的map
+     *
+     * @param m 映射要放进此map中的map
+     * @throws ClassCastException 如果m中的键不是Comparable，或者不能相互比较
+     * @throws NullPointerException 如果指定的map为null，或者包含null键或值
+     */
+    public ConcurrentSkipListMap(Map<? extends K, ? extends V> m){
+        this.comparator = null;
+        initialize();
+        putAll(m);
+    }
+
+    private void initialize(){
+        head = new HeadIndex<>(new Node<K, V>(null, BASE_HEADER, null),
+                               null, null, 1);
+    }
+
+    private boolean casHead(HeadIndex<K, V> cmp, HeadIndex<K, V> val){
+        return HEAD.compareAndSet(this, cmp, val);
+    }
+
+    //Nodes
+
+    /**
+     * 基础层的节点。value为null表示节点已经被删除；value等于节点自身表示这是一个
+     * 标记节点；value等于BASE_HEADER表示这是头节点
+     */
+    static final class Node<K, V> {
+        final K key;
+        volatile Object value;
+        volatile Node<K, V> next;
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<Node, Object> VALUE =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class, "value");
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+
+        Node(K key, Object value, Node<K, V> next){
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        /**
+         * 创建一个标记节点
+         */
+        Node(Node<K, V> next){
+            this.key = null;
+            this.value = this;
+            this.next = next;
+        }
+
+        boolean casValue(Object cmp, Object val){
+            return VALUE.compareAndSet(this, cmp, val);
+        }
+
+        boolean casNext(Node<K, V> cmp, Node<K, V> val){
+            return NEXT.compareAndSet(this, cmp, val);
+        }
+
+        boolean isMarker(){
+            return value == this;
+        }
+
+        boolean isBaseHeader(){
+            return value == BASE_HEADER;
+        }
+
+        /**
+         * 尝试在此节点后面追加一个标记节点
+         */
+        boolean appendMarker(Node<K, V> f){
+            return casNext(f, new Node<K, V>(f));
+        }
+
+        /**
+         * 帮助删除此节点：如果还没有追加标记节点，追加它；否则把前驱b的next
+         * 指向标记节点的后继
+         *
+         * @param b 前驱
+         * @param f 后继
+         */
+        void helpDelete(Node<K, V> b, Node<K, V> f){
+            if(f == next && this == b.next){
+                if(f == null || f.value != f)
+                    casNext(f, new Node<K, V>(f));
+                else
+                    b.casNext(this, f.next);
+            }
+        }
+
+        /**
+         * 如果此节点保存着有效的值，返回它，否则返回null
+         */
+        @SuppressWarnings("unchecked")
+        V getValidValue(){
+            Object v = value;
+            if(v == this || v == BASE_HEADER)
+                return null;
+            return (V) v;
+        }
+
+        /**
+         * 如果此节点保存着有效的值，返回当前映射的快照，否则返回null
+         */
+        AbstractMap.SimpleImmutableEntry<K, V> createSnapshot(){
+            V v = getValidValue();
+            if(v == null)
+                return null;
+            return new AbstractMap.SimpleImmutableEntry<>(key, v);
+        }
+    }
+
+    //Indexing
+
+    /**
+     * 索引层的节点。node 和 down 是final的，只有right需要CAS
+     */
+    static class Index<K, V> {
+        final Node<K, V> node;
+        final Index<K, V> down;
+        volatile Index<K, V> right;
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<Index, Index> RIGHT =
+                AtomicReferenceFieldUpdater.newUpdater(Index.class, Index.class, "right");
+
+        Index(Node<K, V> node, Index<K, V> down, Index<K, V> right){
+            this.node = node;
+            this.down = down;
+            this.right = right;
+        }
+
+        final boolean casRight(Index<K, V> cmp, Index<K, V> val){
+            return RIGHT.compareAndSet(this, cmp, val);
+        }
+
+        /**
+         * 如果此索引指向的节点已经被删除，返回true
+         */
+        final boolean indexesDeletedNode(){
+            return node.value == null;
+        }
+
+        /**
+         * 尝试把newSucc插入在此索引和succ之间
+         */
+        final boolean link(Index<K, V> succ, Index<K, V> newSucc){
+            Node<K, V> n = node;
+            newSucc.right = succ;
+            return n.value != null && casRight(succ, newSucc);
+        }
+
+        /**
+         * 尝试把succ从此索引之后解除链接
+         */
+        final boolean unlink(Index<K, V> succ){
+            return node.value != null && casRight(succ, succ.right);
+        }
+    }
+
+    /**
+     * 每一层的头索引，记录着层数
+     */
+    static final class HeadIndex<K, V> extends Index<K, V> {
+        final int level;
+
+        HeadIndex(Node<K, V> node, Index<K, V> down, Index<K, V> right, int level){
+            super(node, down, right);
+            this.level = level;
+        }
+    }
+
+    //Traversal
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int cpr(Comparator c, Object x, Object y){
+        return (c != null) ? c.compare(x, y) : ((Comparable) x).compareTo(y);
+    }
+
+    /**
+     * 沿着索引层查找键小于key的一个基础层节点，如果没有，返回头节点。
+     * 沿途解除已删除节点的索引
+     */
+    private Node<K, V> findPredecessor(Object key, Comparator<? super K> cmp){
+        if(key == null)
+            throw new NullPointerException();
+        for(;;){
+            for(Index<K, V> q = head, r = q.right, d; ; ){
+                if(r != null){
+                    Node<K, V> n = r.node;
+                    K k = n.key;
+                    if(n.value == null){
+                        if(!q.unlink(r))
+                            break;           // 重新开始
+                        r = q.right;
+                        continue;
+                    }
+                    if(cpr(cmp, key, k) > 0){
+                        q = r;
+                        r = r.right;
+                        continue;
+                    }
+                }
+                if((d = q.down) == null)
+                    return q.node;
+                q = d;
+                r = d.right;
+            }
+        }
+    }
+
+    /**
+     * 返回保存着key的节点，如果没有，返回null。沿途帮助删除遇到的已删除节点。
+     *
+     * <p>在基础层的每一步都要检查三种不一致的情况，遇到任何一种都重新开始：
+     * (1) n不再是b的后继；(2) n已经被删除；(3) b已经被删除
+     */
+    private Node<K, V> findNode(Object key){
+        if(key == null)
+            throw new NullPointerException();
+        Comparator<? super K> cmp = comparator;
+        outer: for(;;){
+            for(Node<K, V> b = findPredecessor(key, cmp), n = b.next; ; ){
+                Object v;
+                int c;
+                if(n == null)
+                    break outer;
+                Node<K, V> f = n.next;
+                if(n != b.next)
+                    break;
+                if((v = n.value) == null){
+                    n.helpDelete(b, f);
+                    break;
+                }
+                if(b.value == null || v == n)
+                    break;
+                if((c = cpr(cmp, key, n.key)) == 0)
+                    return n;
+                if(c < 0)
+                    break outer;
+                b = n;
+                n = f;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 返回key映射的值，如果没有，返回null
+     */
+    @SuppressWarnings("unchecked")
+    private V doGet(Object key){
+        if(key == null)
+            throw new NullPointerException();
+        Comparator<? super K> cmp = comparator;
+        outer: for(;;){
+            for(Node<K, V> b = findPredecessor(key, cmp), n = b.next; ; ){
+                Object v;
+                int c;
+                if(n == null)
+                    break outer;
+                Node<K, V> f = n.next;
+                if(n != b.next)
+                    break;
+                if((v = n.value) == null){
+                    n.helpDelete(b, f);
+                    break;
+                }
+                if(b.value == null || v == n)
+                    break;
+                if((c = cpr(cmp, key, n.key)) == 0)
+                    return (V) v;
+                if(c < 0)
+                    break outer;
+                b = n;
+                n = f;
+            }
+        }
+        return null;
+    }
+
+    //Insertion
+
+    /**
+     * 插入或者替换。先在基础层插入新节点，然后以1/4的概率为它建立索引：
+     * 层数服从几何分布，如果超过了当前的最大层数，尝试增加一层
+     *
+     * @return 旧值，如果插入了新节点，返回null
+     */
+    @SuppressWarnings("unchecked")
+    private V doPut(K key, V value, boolean onlyIfAbsent){
+        Node<K, V> z;
+        if(key == null)
+            throw new NullPointerException();
+        Comparator<? super K> cmp = comparator;
+        outer: for(;;){
+            for(Node<K, V> b = findPredecessor(key, cmp), n = b.next; ; ){
+                if(n != null){
+                    Object v;
+                    int c;
+                    Node<K, V> f = n.next;
+                    if(n != b.next)
+                        break;
+                    if((v = n.value) == null){
+                        n.helpDelete(b, f);
+                        break;
+                    }
+                    if(b.value == null || v == n)
+                        break;
+                    if((c = cpr(cmp, key, n.key)) > 0){
+                        b = n;
+                        n = f;
+                        continue;
+                    }
+                    if(c == 0){
+                        if(onlyIfAbsent || n.casValue(v, value))
+                            return (V) v;
+                        break;               // 替换值的竞争失败，重新开始
+                    }
+                }
+
+                z = new Node<>(key, value, n);
+                if(!b.casNext(n, z))
+                    break;                   // 插入的竞争失败，重新开始
+                break outer;
+            }
+        }
+
+        int rnd = ThreadLocalRandom.current().nextInt();
+        if((rnd & 0x80000001) == 0){        // 检查最高位和最低位
+            int level = 1, max;
+            while (((rnd >>>= 1) & 1) != 0)
+                ++level;
+            Index<K, V> idx = null;
+            HeadIndex<K, V> h = head;
+            if(level <= (max = h.level)){
+                for(int i = 1; i <= level; ++i)
+                    idx = new Index<>(z, idx, null);
+            }else {                          // 尝试增加一层
+                level = max + 1;
+                @SuppressWarnings("unchecked")
+                Index<K, V>[] idxs = (Index<K, V>[]) new Index<?, ?>[level + 1];
+                for(int i = 1; i <= level; ++i)
+                    idxs[i] = idx = new Index<>(z, idx, null);
+                for(;;){
+                    h = head;
+                    int oldLevel = h.level;
+                    if(level <= oldLevel)    // 其他线程已经增加了层数
+                        break;
+                    HeadIndex<K, V> newh = h;
+                    Node<K, V> oldbase = h.node;
+                    for(int j = oldLevel + 1; j <= level; ++j)
+                        newh = new HeadIndex<>(oldbase, newh, idxs[j], j);
+                    if(casHead(h, newh)){
+                        h = newh;
+                        idx = idxs[level = oldLevel];
+                        break;
+                    }
+                }
+            }
+            // 从上到下找到每一层的插入点，链接索引
+            splice: for(int insertionLevel = level; ; ){
+                int j = h.level;
+                for(Index<K, V> q = h, r = q.right, t = idx; ; ){
+                    if(q == null || t == null)
+                        break splice;
+                    if(r != null){
+                        Node<K, V> n = r.node;
+                        // 在检查删除之前比较，避免需要重新检查
+                        int c = cpr(cmp, key, n.key);
+                        if(n.value == null){
+                            if(!q.unlink(r))
+                                break;
+                            r = q.right;
+                            continue;
+                        }
+                        if(c > 0){
+                            q = r;
+                            r = r.right;
+                            continue;
+                        }
+                    }
+
+                    if(j == insertionLevel){
+                        if(!q.link(r, t))
+                            break;           // 重新开始
+                        if(t.node.value == null){
+                            // 节点在链接期间被删除了，用findNode清除索引
+                            findNode(key);
+                            break splice;
+                        }
+                        if(--insertionLevel == 0)
+                            break splice;
+                    }
+
+                    if(--j >= insertionLevel && j < level)
+                        t = t.down;
+                    q = q.down;
+                    r = q.right;
+                }
+            }
+        }
+        return null;
+    }
+
+    //Deletion
+
+    /**
+     * 删除key的映射。如果value不为null，只有当前值等于value时才删除
+     *
+     * @return 删除的值，如果没有删除，返回null
+     */
+    @SuppressWarnings("unchecked")
+    final V doRemove(Object key, Object value){
+        if(key == null)
+            throw new NullPointerException();
+        Comparator<? super K> cmp = comparator;
+        outer: for(;;){
+            for(Node<K, V> b = findPredecessor(key, cmp), n = b.next; ; ){
+                Object v;
+                int c;
+                if(n == null)
+                    break outer;
+                Node<K, V> f = n.next;
+                if(n != b.next)
+                    break;
+                if((v = n.value) == null){
+                    n.helpDelete(b, f);
+                    break;
+                }
+                if(b.value == null || v == n)
+                    break;
+                if((c = cpr(cmp, key, n.key)) < 0)
+                    break outer;
+                if(c > 0){
+                    b = n;
+                    n = f;
+                    continue;
+                }
+                if(value != null && !value.equals(v))
+                    break outer;
+                if(!n.casValue(v, null))
+                    break;
+                if(!n.appendMarker(f) || !b.casNext(n, f))
+                    findNode(key);           // 通过findNode重试
+                else {
+                    findPredecessor(key, cmp);  // 清除索引
+                    if(head.right == null)
+                        tryReduceLevel();
+                }
+                return (V) v;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 如果最上面的三层都是空的，尝试减少一层。只在三层都为空时才减少，
+     * 是为了避免在删除之后紧接着插入时层数的抖动
+     */
+    private void tryReduceLevel(){
+        HeadIndex<K, V> h = head;
+        HeadIndex<K, V> d;
+        HeadIndex<K, V> e;
+        if(h.level > 3 &&
+                (d = (HeadIndex<K, V>) h.down) != null &&
+                (e = (HeadIndex<K, V>) d.down) != null &&
+                e.right == null &&
+                d.right == null &&
+                h.right == null &&
+                casHead(h, d) &&             // 尝试设置
+                h.right != null)             // 重新检查
+            casHead(d, h);                   // 尝试撤销
+    }
+
+    //Finding and removing first element
+
+    /**
+     * 返回第一个有效的节点，如果map为空，返回null
+     */
+    final Node<K, V> findFirst(){
+        for(Node<K, V> b, n; ; ){
+            if((n = (b = head.node).next) == null)
+                return null;
+            if(n.value != null)
+                return n;
+            n.helpDelete(b, n.next);
+        }
+    }
+
+    /**
+     * 删除第一个节点，返回它的快照
+     */
+    @SuppressWarnings("unchecked")
+    private Map.Entry<K, V> doRemoveFirstEntry(){
+        for(Node<K, V> b, n; ; ){
+            if((n = (b = head.node).next) == null)
+                return null;
+            Node<K, V> f = n.next;
+            if(n != b.next)
+                continue;
+            Object v = n.value;
+            if(v == null){
+                n.helpDelete(b, f);
+                continue;
+            }
+            if(!n.casValue(v, null))
+                continue;
+            if(!n.appendMarker(f) || !b.casNext(n, f))
+                findFirst();                 // 重试
+            clearIndexToFirst();
+            return new AbstractMap.SimpleImmutableEntry<>(n.key, (V) v);
+        }
+    }
+
+    /**
+     * 清除指向已删除的第一个节点的索引
+     */
+    private void clearIndexToFirst(){
+        for(;;){
+            for(Index<K, V> q = head; ; ){
+                Index<K, V> r = q.right;
+                if(r != null && r.indexesDeletedNode() && !q.unlink(r))
+                    break;
+                if((q = q.down) == null){
+                    if(head.right == null)
+                        tryReduceLevel();
+                    return;
+                }
+            }
+        }
+    }
+
+    //Finding and removing last element
+
+    /**
+     * 返回最后一个有效的节点，如果map为空，返回null
+     */
+    final Node<K, V> findLast(){
+        Index<K, V> q = head;
+        for(;;){
+            Index<K, V> d, r;
+            if((r = q.right) != null){
+                if(r.indexesDeletedNode()){
+                    q.unlink(r);
+                    q = head;                // 重新开始
+                }else
+                    q = r;
+            }else if((d = q.down) != null){
+                q = d;
+            }else {
+                for(Node<K, V> b = q.node, n = b.next; ; ){
+                    if(n == null)
+                        return b.isBaseHeader() ? null : b;
+                    Node<K, V> f = n.next;
+                    if(n != b.next)
+                        break;
+                    Object v = n.value;
+                    if(v == null){
+                        n.helpDelete(b, f);
+                        break;
+                    }
+                    if(b.value == null || v == n)
+                        break;
+                    b = n;
+                    n = f;
+                }
+                q = head;                    // 重新开始
+            }
+        }
+    }
+
+    /**
+     * 返回基础层中在最后一个节点之前的某个节点
+     */
+    private Node<K, V> findPredecessorOfLast(){
+        for(;;){
+            for(Index<K, V> q = head; ; ){
+                Index<K, V> d, r;
+                if((r = q.right) != null){
+                    if(r.indexesDeletedNode()){
+                        q.unlink(r);
+                        break;               // 必须重新开始
+                    }
+                    // 如果可能，向右前进
+                    if(r.node.next != null){
+                        q = r;
+                        continue;
+                    }
+                }
+                if((d = q.down) != null)
+                    q = d;
+                else
+                    return q.node;
+            }
+        }
+    }
+
+    /**
+     * 删除最后一个节点，返回它的快照
+     */
+    @SuppressWarnings("unchecked")
+    private Map.Entry<K, V> doRemoveLastEntry(){
+        for(;;){
+            Node<K, V> b = findPredecessorOfLast();
+            Node<K, V> n = b.next;
+            if(n == null){
+                if(b.isBaseHeader())         // map为空
+                    return null;
+                else
+                    continue;                // b的所有后继都被删除了，重试
+            }
+            for(;;){
+                Node<K, V> f = n.next;
+                if(n != b.next)
+                    break;
+                Object v = n.value;
+                if(v == null){
+                    n.helpDelete(b, f);
+                    break;
+                }
+                if(b.value == null || v == n)
+                    break;
+                if(f != null){
+                    b = n;
+                    n = f;
+                    continue;
+                }
+                if(!n.casValue(v, null))
+                    break;
+                K key = n.key;
+                if(!n.appendMarker(f) || !b.casNext(n, f))
+                    findNode(key);           // 通过findNode重试
+                else {
+                    findPredecessor(key, comparator);  // 清除索引
+                    if(head.right == null)
+                        tryReduceLevel();
+                }
+                return new AbstractMap.SimpleImmutableEntry<>(key, (V) v);
+            }
+        }
+    }
+
+    //Relational operations
+
+    private static final int EQ = 1;
+    private static final int LT = 2;
+    private static final int GT = 0; // 实际上检查的是非LT
+
+    /**
+     * 返回满足关系rel的最近的节点：GT表示大于key的最小的节点，GT|EQ 表示
+     * 大于等于，LT表示小于key的最大的节点，LT|EQ 表示小于等于。
+     * 如果没有这样的节点，返回null
+     */
+    final Node<K, V> findNear(K key, int rel, Comparator<? super K> cmp){
+        if(key == null)
+            throw new NullPointerException();
+        for(;;){
+            for(Node<K, V> b = findPredecessor(key, cmp), n = b.next; ; ){
+                Object v;
+                if(n == null)
+                    return ((rel & LT) == 0 || b.isBaseHeader()) ? null : b;
+                Node<K, V> f = n.next;
+                if(n != b.next)
+                    break;
+                if((v = n.value) == null){
+                    n.helpDelete(b, f);
+                    break;
+                }
+                if(b.value == null || v == n)
+                    break;
+                int c = cpr(cmp, key, n.key);
+                if((c == 0 && (rel & EQ) != 0) ||
+                        (c < 0 && (rel & LT) == 0))
+                    return n;
+                if(c <= 0 && (rel & LT) != 0)
+                    return b.isBaseHeader() ? null : b;
+                b = n;
+                n = f;
+            }
+        }
+    }
+
+    /**
+     * 返回findNear找到的节点的快照，如果没有，返回null
+     */
+    final AbstractMap.SimpleImmutableEntry<K, V> getNear(K key, int rel){
+        Comparator<? super K> cmp = comparator;
+        for(;;){
+            Node<K, V> n = findNear(key, rel, cmp);
+            if(n == null)
+                return null;
+            AbstractMap.SimpleImmutableEntry<K, V> e = n.createSnapshot();
+            if(e != null)
+                return e;
+        }
+    }
+
+    //Map API methods
+
+    /**
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public boolean containsKey(Object key){
+        return doGet(key) != null;
+    }
+
+    /**
+     * 返回指定键映射到的值，如果此map不包含该键的映射，返回null
+     *
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public V get(Object key){
+        return doGet(key);
+    }
+
+    /**
+     * 把指定值与此map中的指定键关联。如果map之前包含该键的映射，替换旧值
+     *
+     * @return 与key关联的旧值，如果key没有映射返回null
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键或值为null
+     */
+    public V put(K key, V value){
+        if(value == null)
+            throw new NullPointerException();
+        return doPut(key, value, false);
+    }
+
+    /**
+     * 从此map中删除指定键的映射，如果它存在的话
+     *
+     * @return 与key关联的旧值，如果key没有映射返回null
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public V remove(Object key){
+        return doRemove(key, null);
+    }
+
+    /**
+     * 如果此map把一个或多个键映射到指定值，返回true。此方法需要遍历整个map
+     *
+     * @throws NullPointerException 如果指定的值为null
+     */
+    public boolean containsValue(Object value){
+        if(value == null)
+            throw new NullPointerException();
+        for(Node<K, V> n = findFirst(); n != null; n = n.next){
+            V v = n.getValidValue();
+            if(v != null && value.equals(v))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * 返回此map中映射的数量。
+     *
+     * <p>注意此方法不是一个常数时间的操作：它需要遍历所有的元素。在并发修改时
+     * 返回的结果可能不准确
+     */
+    public int size(){
+        long count = 0;
+        for(Node<K, V> n = findFirst(); n != null; n = n.next){
+            if(n.getValidValue() != null)
+                ++count;
+        }
+        return (count >= Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) count;
+    }
+
+    public boolean isEmpty(){
+        return findFirst() == null;
+    }
+
+    /**
+     * 删除此map中所有的映射。与其他操作并发进行时，可能有一部分并发插入的
+     * 映射被保留下来
+     */
+    public void clear(){
+        initialize();
+    }
+
+    //ConcurrentMap methods
+
+    /**
+     * 如果指定的键没有映射，把它与指定值关联。此操作是原子的
+     *
+     * @return 与key关联的旧值，如果key没有映射返回null
+     * @throws NullPointerException 如果指定的键或值为null
+     */
+    public V putIfAbsent(K key, V value){
+        if(value == null)
+            throw new NullPointerException();
+        return doPut(key, value, true);
+    }
+
+    /**
+     * 只有当指定的键当前映射到指定值时才删除该映射。此操作是原子的
+     *
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public boolean remove(Object key, Object value){
+        if(key == null)
+            throw new NullPointerException();
+        return value != null && doRemove(key, value) != null;
+    }
+
+    /**
+     * 只有当指定的键当前映射到oldValue时才把它替换为newValue。此操作是原子的
+     *
+     * @throws NullPointerException 如果任何参数为null
+     */
+    public boolean replace(K key, V oldValue, V newValue){
+        if(key == null || oldValue == null || newValue == null)
+            throw new NullPointerException();
+        for(;;){
+            Node<K, V> n;
+            Object v;
+            if((n = findNode(key)) == null)
+                return false;
+            if((v = n.value) != null){
+                if(!oldValue.equals(v))
+                    return false;
+                if(n.casValue(v, newValue))
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * 只有当指定的键当前有映射时才把它的值替换为value。此操作是原子的
+     *
+     * @return 与key关联的旧值，如果key没有映射返回null
+     * @throws NullPointerException 如果指定的键或值为null
+     */
+    @SuppressWarnings("unchecked")
+    public V replace(K key, V value){
+        if(key == null || value == null)
+            throw new NullPointerException();
+        for(;;){
+            Node<K, V> n;
+            Object v;
+            if((n = findNode(key)) == null)
+                return null;
+            if((v = n.value) != null && n.casValue(v, value))
+                return (V) v;
+        }
+    }
+
+    //SortedMap methods
+
+    public Comparator<? super K> comparator(){
+        return comparator;
+    }
+
+    /**
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public K firstKey(){
+        Node<K, V> n = findFirst();
+        if(n == null)
+            throw new NoSuchElementException();
+        return n.key;
+    }
+
+    /**
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public K lastKey(){
+        Node<K, V> n = findLast();
+        if(n == null)
+            throw new NoSuchElementException();
+        return n.key;
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException 如果fromKey或toKey为null
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive,
+                                     K toKey, boolean toInclusive){
+        if(fromKey == null || toKey == null)
+            throw new NullPointerException();
+        return new SubMap(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException 如果toKey为null
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive){
+        if(toKey == null)
+            throw new NullPointerException();
+        return new SubMap(null, false, toKey, inclusive);
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException 如果fromKey为null
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive){
+        if(fromKey == null)
+            throw new NullPointerException();
+        return new SubMap(fromKey, inclusive, null, false);
+    }
+
+    public SortedMap<K, V> subMap(K fromKey, K toKey){
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    public SortedMap<K, V> headMap(K toKey){
+        return headMap(toKey, false);
+    }
+
+    public SortedMap<K, V> tailMap(K fromKey){
+        return tailMap(fromKey, true);
+    }
+
+    //Relational operations
+
+    /**
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public Map.Entry<K, V> lowerEntry(K key){
+        return getNear(key, LT);
+    }
+
+    /**
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public K lowerKey(K key){
+        Node<K, V> n = findNear(key, LT, comparator);
+        return (n == null) ? null : n.key;
+    }
+
+    /**
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public Map.Entry<K, V> floorEntry(K key){
+        return getNear(key, LT | EQ);
+    }
+
+    /**
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public K floorKey(K key){
+        Node<K, V> n = findNear(key, LT | EQ, comparator);
+        return (n == null) ? null : n.key;
+    }
+
+    /**
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public Map.Entry<K, V> ceilingEntry(K key){
+        return getNear(key, GT | EQ);
+    }
+
+    /**
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public K ceilingKey(K key){
+        Node<K, V> n = findNear(key, GT | EQ, comparator);
+        return (n == null) ? null : n.key;
+    }
+
+    /**
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public Map.Entry<K, V> higherEntry(K key){
+        return getNear(key, GT);
+    }
+
+    /**
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public K higherKey(K key){
+        Node<K, V> n = findNear(key, GT, comparator);
+        return (n == null) ? null : n.key;
+    }
+
+    public Map.Entry<K, V> firstEntry(){
+        for(;;){
+            Node<K, V> n = findFirst();
+            if(n == null)
+                return null;
+            AbstractMap.SimpleImmutableEntry<K, V> e = n.createSnapshot();
+            if(e != null)
+                return e;
+        }
+    }
+
+    public Map.Entry<K, V> lastEntry(){
+        for(;;){
+            Node<K, V> n = findLast();
+            if(n == null)
+                return null;
+            AbstractMap.SimpleImmutableEntry<K, V> e = n.createSnapshot();
+            if(e != null)
+                return e;
+        }
+    }
+
+    public Map.Entry<K, V> pollFirstEntry(){
+        return doRemoveFirstEntry();
+    }
+
+    public Map.Entry<K, V> pollLastEntry(){
+        return doRemoveLastEntry();
+    }
+
+    //Iterators
+
+    /**
+     * 迭代器的基类。沿着基础层前进，跳过已删除的节点和标记节点，在hi(如果
+     * 不为null)之后停止
+     */
+    abstract class Iter<T> implements Iterator<T> {
+        /**
+         * 上一次next返回的节点
+         */
+        Node<K, V> lastReturned;
+        /**
+         * 下一次next返回的节点
+         */
+        Node<K, V> next;
+        /**
+         * 在next被删除时也要返回的值的快照
+         */
+        V nextValue;
+
+        final K hi;
+        final boolean hiInclusive;
+
+        Iter(Node<K, V> first, K hi, boolean hiInclusive){
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            for(next = first; next != null; next = next.next){
+                if(skip())
+                    continue;
+                break;
+            }
+        }
+
+        /**
+         * 如果next应该被跳过，返回true；如果next在范围之外，把它设置为null
+         */
+        @SuppressWarnings("unchecked")
+        private boolean skip(){
+            Object x = next.value;
+            if(x == null || x == next || x == BASE_HEADER)
+                return true;
+            if(hi != null){
+                int c = cpr(comparator, next.key, hi);
+                if(c > 0 || (c == 0 && !hiInclusive)){
+                    next = null;
+                    return false;
+                }
+            }
+            nextValue = (V) x;
+            return false;
+        }
+
+        public final boolean hasNext(){
+            return next != null;
+        }
+
+        final void advance(){
+            if(next == null)
+                throw new NoSuchElementException();
+            lastReturned = next;
+            while ((next = next.next) != null){
+                if(!skip())
+                    break;
+            }
+        }
+
+        public void remove(){
+            Node<K, V> l = lastReturned;
+            if(l == null)
+                throw new IllegalStateException();
+            ConcurrentSkipListMap.this.remove(l.key);
+            lastReturned = null;
+        }
+    }
+
+    final class ValueIterator extends Iter<V> {
+        ValueIterator(Node<K, V> first, K hi, boolean hiInclusive){
+            super(first, hi, hiInclusive);
+        }
+
+        public V next(){
+            V v = nextValue;
+            advance();
+            return v;
+        }
+    }
+
+    final class KeyIterator extends Iter<K> {
+        KeyIterator(Node<K, V> first, K hi, boolean hiInclusive){
+            super(first, hi, hiInclusive);
+        }
+
+        public K next(){
+            Node<K, V> n = next;
+            advance();
+            return n.key;
+        }
+    }
+
+    final class EntryIterator extends Iter<Map.Entry<K, V>> {
+        EntryIterator(Node<K, V> first, K hi, boolean hiInclusive){
+            super(first, hi, hiInclusive);
+        }
+
+        public Map.Entry<K, V> next(){
+            Node<K, V> n = next;
+            V v = nextValue;
+            advance();
+            return new AbstractMap.SimpleImmutableEntry<>(n.key, v);
+        }
+    }
+
+    //Views
+
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * 返回此map包含的键的set视图，其迭代器按升序返回键，并且是弱一致的
+     */
+    public Set<K> keySet(){
+        Set<K> ks = keySet;
+        if(ks == null){
+            ks = new KeySetView();
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    /**
+     * 返回此map包含的值的集合视图，其迭代器按相应键的升序返回值，并且是弱一致的
+     */
+    public Collection<V> values(){
+        Collection<V> vs = values;
+        if(vs == null){
+            vs = new ValuesView();
+            values = vs;
+        }
+        return vs;
+    }
+
+    /**
+     * 返回此map包含的映射的set视图，其迭代器按键的升序返回映射，并且是弱一致的。
+     * 迭代器返回的entry是映射的快照，不支持setValue方法
+     */
+    public Set<Map.Entry<K, V>> entrySet(){
+        Set<Map.Entry<K, V>> es = entrySet;
+        return (es != null) ? es : (entrySet = new EntrySetView());
+    }
+
+    final class KeySetView extends AbstractSet<K> {
+        public int size(){
+            return ConcurrentSkipListMap.this.size();
+        }
+
+        public boolean isEmpty(){
+            return ConcurrentSkipListMap.this.isEmpty();
+        }
+
+        public void clear(){
+            ConcurrentSkipListMap.this.clear();
+        }
+
+        public boolean contains(Object o){
+            return containsKey(o);
+        }
+
+        public boolean remove(Object o){
+            return ConcurrentSkipListMap.this.remove(o) != null;
+        }
+
+        public Iterator<K> iterator(){
+            return new KeyIterator(findFirst(), null, false);
+        }
+    }
+
+    final class ValuesView extends AbstractCollection<V> {
+        public int size(){
+            return ConcurrentSkipListMap.this.size();
+        }
+
+        public boolean isEmpty(){
+            return ConcurrentSkipListMap.this.isEmpty();
+        }
+
+        public void clear(){
+            ConcurrentSkipListMap.this.clear();
+        }
+
+        public boolean contains(Object o){
+            return containsValue(o);
+        }
+
+        public Iterator<V> iterator(){
+            return new ValueIterator(findFirst(), null, false);
+        }
+    }
+
+    final class EntrySetView extends AbstractSet<Map.Entry<K, V>> {
+        public int size(){
+            return ConcurrentSkipListMap.this.size();
+        }
+
+        public boolean isEmpty(){
+            return ConcurrentSkipListMap.this.isEmpty();
+        }
+
+        public void clear(){
+            ConcurrentSkipListMap.this.clear();
+        }
+
+        public boolean contains(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            V v = get(e.getKey());
+            return v != null && v.equals(e.getValue());
+        }
+
+        public boolean remove(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return ConcurrentSkipListMap.this.remove(e.getKey(), e.getValue());
+        }
+
+        public Iterator<Map.Entry<K, V>> iterator(){
+            return new EntryIterator(findFirst(), null, false);
+        }
+    }
+
+    //SubMap
+
+    /**
+     * subMap，headMap 和 tailMap 返回的视图。lo(hi)为null表示没有低(高)端点。
+     * 所有的操作都先检查范围，然后直接在跳表上进行，迭代从范围内的第一个节点
+     * 开始沿着基础层前进，不复制任何节点
+     */
+    final class SubMap extends AbstractMap<K, V> implements NavigableMap<K, V> {
+
+        private final K lo;
+        private final K hi;
+        private final boolean loInclusive;
+        private final boolean hiInclusive;
+
+        private transient Set<Map.Entry<K, V>> entrySetView;
+
+        SubMap(K fromKey, boolean fromInclusive,
+               K toKey, boolean toInclusive){
+            if(fromKey != null && toKey != null &&
+                    cpr(comparator, fromKey, toKey) > 0)
+                throw new IllegalArgumentException("inconsistent range");
+            this.lo = fromKey;
+            this.hi = toKey;
+            this.loInclusive = fromInclusive;
+            this.hiInclusive = toInclusive;
+        }
+
+        //Utilities
+
+        boolean tooLow(Object key){
+            int c;
+            return (lo != null && ((c = cpr(comparator, key, lo)) < 0 ||
+                    (c == 0 && !loInclusive)));
+        }
+
+        boolean tooHigh(Object key){
+            int c;
+            return (hi != null && ((c = cpr(comparator, key, hi)) > 0 ||
+                    (c == 0 && !hiInclusive)));
+        }
+
+        boolean inBounds(Object key){
+            return !tooLow(key) && !tooHigh(key);
+        }
+
+        void checkKeyBounds(K key){
+            if(key == null)
+                throw new NullPointerException();
+            if(!inBounds(key))
+                throw new IllegalArgumentException("key out of range");
+        }
+
+        /**
+         * 如果节点的键没有超过高端点，返回true
+         */
+        boolean isBeforeEnd(Node<K, V> n){
+            if(n == null)
+                return false;
+            if(hi == null)
+                return true;
+            K k = n.key;
+            if(k == null)                    // 标记节点或头节点
+                return true;
+            int c = cpr(comparator, k, hi);
+            return !(c > 0 || (c == 0 && !hiInclusive));
+        }
+
+        /**
+         * 返回范围内的第一个节点(不一定在范围内，需要调用者检查高端点)
+         */
+        Node<K, V> loNode(){
+            if(lo == null)
+                return findFirst();
+            else if(loInclusive)
+                return findNear(lo, GT | EQ, comparator);
+            else
+                return findNear(lo, GT, comparator);
+        }
+
+        /**
+         * 返回范围内的最后一个节点(不一定在范围内，需要调用者检查低端点)
+         */
+        Node<K, V> hiNode(){
+            if(hi == null)
+                return findLast();
+            else if(hiInclusive)
+                return findNear(hi, LT | EQ, comparator);
+            else
+                return findNear(hi, LT, comparator);
+        }
+
+        K lowestKey(){
+            Node<K, V> n = loNode();
+            if(isBeforeEnd(n))
+                return n.key;
+            else
+                throw new NoSuchElementException();
+        }
+
+        K highestKey(){
+            Node<K, V> n = hiNode();
+            if(n != null){
+                K last = n.key;
+                if(inBounds(last))
+                    return last;
+            }
+            throw new NoSuchElementException();
+        }
+
+        Map.Entry<K, V> lowestEntry(){
+            for(;;){
+                Node<K, V> n = loNode();
+                if(!isBeforeEnd(n))
+                    return null;
+                Map.Entry<K, V> e = n.createSnapshot();
+                if(e != null)
+                    return e;
+            }
+        }
+
+        Map.Entry<K, V> highestEntry(){
+            for(;;){
+                Node<K, V> n = hiNode();
+                if(n == null || !inBounds(n.key))
+                    return null;
+                Map.Entry<K, V> e = n.createSnapshot();
+                if(e != null)
+                    return e;
+            }
+        }
+
+        Map.Entry<K, V> removeLowest(){
+            for(;;){
+                Node<K, V> n = loNode();
+                if(n == null)
+                    return null;
+                K k = n.key;
+                if(!inBounds(k))
+                    return null;
+                V v = doRemove(k, null);
+                if(v != null)
+                    return new AbstractMap.SimpleImmutableEntry<>(k, v);
+            }
+        }
+
+        Map.Entry<K, V> removeHighest(){
+            for(;;){
+                Node<K, V> n = hiNode();
+                if(n == null)
+                    return null;
+                K k = n.key;
+                if(!inBounds(k))
+                    return null;
+                V v = doRemove(k, null);
+                if(v != null)
+                    return new AbstractMap.SimpleImmutableEntry<>(k, v);
+            }
+        }
+
+        /**
+         * 在范围内查找满足关系rel的最近的映射
+         */
+        Map.Entry<K, V> getNearEntry(K key, int rel){
+            if(tooLow(key)){
+                if((rel & LT) != 0)
+                    return null;
+                return lowestEntry();
+            }
+            if(tooHigh(key)){
+                if((rel & LT) != 0)
+                    return highestEntry();
+                return null;
+            }
+            for(;;){
+                Node<K, V> n = findNear(key, rel, comparator);
+                if(n == null || !inBounds(n.key))
+                    return null;
+                Map.Entry<K, V> e = n.createSnapshot();
+                if(e != null)
+                    return e;
+            }
+        }
+
+        K getNearKey(K key, int rel){
+            Map.Entry<K, V> e = getNearEntry(key, rel);
+            return e == null ? null : e.getKey();
+        }
+
+        //Map methods
+
+        public boolean containsKey(Object key){
+            if(key == null)
+                throw new NullPointerException();
+            return inBounds(key) && ConcurrentSkipListMap.this.containsKey(key);
+        }
+
+        public V get(Object key){
+            if(key == null)
+                throw new NullPointerException();
+            return (!inBounds(key)) ? null : ConcurrentSkipListMap.this.get(key);
+        }
+
+        public V put(K key, V value){
+            checkKeyBounds(key);
+            return ConcurrentSkipListMap.this.put(key, value);
+        }
+
+        public V remove(Object key){
+            return (!inBounds(key)) ? null : ConcurrentSkipListMap.this.remove(key);
+        }
+
+        public int size(){
+            long count = 0;
+            for(Node<K, V> n = loNode(); isBeforeEnd(n); n = n.next){
+                if(n.getValidValue() != null)
+                    ++count;
+            }
+            return count >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) count;
+        }
+
+        public boolean isEmpty(){
+            return !isBeforeEnd(loNode());
+        }
+
+        public boolean containsValue(Object value){
+            if(value == null)
+                throw new NullPointerException();
+            for(Node<K, V> n = loNode(); isBeforeEnd(n); n = n.next){
+                V v = n.getValidValue();
+                if(v != null && value.equals(v))
+                    return true;
+            }
+            return false;
+        }
+
+        public void clear(){
+            for(Node<K, V> n = loNode(); isBeforeEnd(n); n = n.next){
+                if(n.getValidValue() != null)
+                    ConcurrentSkipListMap.this.remove(n.key);
+            }
+        }
+
+        //SortedMap methods
+
+        public Comparator<? super K> comparator(){
+            return comparator;
+        }
+
+        public K firstKey(){
+            return lowestKey();
+        }
+
+        public K lastKey(){
+            return highestKey();
+        }
+
+        public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive,
+                                         K toKey, boolean toInclusive){
+            if(fromKey == null || toKey == null)
+                throw new NullPointerException();
+            return newSubMap(fromKey, fromInclusive, toKey, toInclusive);
+        }
+
+        public NavigableMap<K, V> headMap(K toKey, boolean inclusive){
+            if(toKey == null)
+                throw new NullPointerException();
+            return newSubMap(null, false, toKey, inclusive);
+        }
+
+        public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive){
+            if(fromKey == null)
+                throw new NullPointerException();
+            return newSubMap(fromKey, inclusive, null, false);
+        }
+
+        public SortedMap<K, V> subMap(K fromKey, K toKey){
+            return subMap(fromKey, true, toKey, false);
+        }
+
+        public SortedMap<K, V> headMap(K toKey){
+            return headMap(toKey, false);
+        }
+
+        public SortedMap<K, V> tailMap(K fromKey){
+            return tailMap(fromKey, true);
+        }
+
+        /**
+         * 创建子范围的视图。新的端点必须在此视图的范围之内，null表示沿用此视图的端点
+         */
+        private SubMap newSubMap(K fromKey, boolean fromInclusive,
+                                 K toKey, boolean toInclusive){
+            if(lo != null){
+                if(fromKey == null){
+                    fromKey = lo;
+                    fromInclusive = loInclusive;
+                }else {
+                    int c = cpr(comparator, fromKey, lo);
+                    if(c < 0 || (c == 0 && !loInclusive && fromInclusive))
+                        throw new IllegalArgumentException("key out of range");
+                }
+            }
+            if(hi != null){
+                if(toKey == null){
+                    toKey = hi;
+                    toInclusive = hiInclusive;
+                }else {
+                    int c = cpr(comparator, toKey, hi);
+                    if(c > 0 || (c == 0 && !hiInclusive && toInclusive))
+                        throw new IllegalArgumentException("key out of range");
+                }
+            }
+            return new SubMap(fromKey, fromInclusive, toKey, toInclusive);
+        }
+
+        //Relational methods
+
+        public Map.Entry<K, V> ceilingEntry(K key){
+            return getNearEntry(key, GT | EQ);
+        }
+
+        public K ceilingKey(K key){
+            return getNearKey(key, GT | EQ);
+        }
+
+        public Map.Entry<K, V> lowerEntry(K key){
+            return getNearEntry(key, LT);
+        }
+
+        public K lowerKey(K key){
+            return getNearKey(key, LT);
+        }
+
+        public Map.Entry<K, V> floorEntry(K key){
+            return getNearEntry(key, LT | EQ);
+        }
+
+        public K floorKey(K key){
+            return getNearKey(key, LT | EQ);
+        }
+
+        public Map.Entry<K, V> higherEntry(K key){
+            return getNearEntry(key, GT);
+        }
+
+        public K higherKey(K key){
+            return getNearKey(key, GT);
+        }
+
+        public Map.Entry<K, V> firstEntry(){
+            return lowestEntry();
+        }
+
+        public Map.Entry<K, V> lastEntry(){
+            return highestEntry();
+        }
+
+        public Map.Entry<K, V> pollFirstEntry(){
+            return removeLowest();
+        }
+
+        public Map.Entry<K, V> pollLastEntry(){
+            return removeHighest();
+        }
+
+        //Views
+
+        public Set<Map.Entry<K, V>> entrySet(){
+            Set<Map.Entry<K, V>> es = entrySetView;
+            return (es != null) ? es : (entrySetView = new SubMapEntrySet());
+        }
+
+        final class SubMapEntrySet extends AbstractSet<Map.Entry<K, V>> {
+            public int size(){
+                return SubMap.this.size();
+            }
+
+            public boolean isEmpty(){
+                return SubMap.this.isEmpty();
+            }
+
+            public void clear(){
+                SubMap.this.clear();
+            }
+
+            public boolean contains(Object o){
+                if(!(o instanceof Map.Entry))
+                    return false;
+                Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+                V v = SubMap.this.get(e.getKey());
+                return v != null && v.equals(e.getValue());
+            }
+
+            public boolean remove(Object o){
+                if(!(o instanceof Map.Entry))
+                    return false;
+                Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+                Object k = e.getKey();
+                return inBounds(k) &&
+                        ConcurrentSkipListMap.this.remove(k, e.getValue());
+            }
+
+            public Iterator<Map.Entry<K, V>> iterator(){
+                return new EntryIterator(loNode(), hi, hiInclusive);
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.jianglei.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 估计流中每个元素出现次数的Count-Min Sketch。计数器排成depth行、每行width个，
+ * 不管流中有多少不同的元素，占用的内存都是固定的。
+ *
+ * <p>一个元素在每一行中对应一个计数器，增加时增加这些计数器，估计时取它们的
+ * 最小值，所以估计值不会小于真实的次数。以1 - delta的概率，估计值不超过真实
+ * 次数加上epsilon * N，其中N是所有增加的次数之和，width = ceil(e / epsilon)，
+ * depth = ceil(ln(1 / delta))。
+ *
+ * <p>使用保守更新(conservative update)时，增加一个元素只把它的计数器提高到
+ * "当前估计值 + 增量"，已经比这个值大的计数器保持不变。估计值仍然不会小于真实的
+ * 次数，但是其他元素带来的高估明显减少。保守更新下计数只能增加。
+ *
+ * <p>两个维度相同的sketch可以用merge合并，计数器逐个相加，所以可以在每个线程中
+ * 分别计数，最后合并。合并的结果仍然不会低估；对于使用保守更新的sketch，合并的
+ * 结果可能比在一个sketch中保守地更新整个流略高。
+ *
+ * <p>元素的哈希值由hashCode()扩展为64位，所以hashCode相同的元素共用计数器。
+ * 此类不允许null元素。与TinyLfuCache内部使用的4位FrequencySketch不同，这里的
+ * 计数器是long，不会饱和，也不会老化。
+ *
+ * <p>{@link #serialize(ByteBuffer)}写出的格式是小端序的：一个头部(标记，深度，
+ * 宽度，标志，总数)，随后是按变长整数(每字节7位)编码的计数器，值小的计数器只占
+ * 一个字节。
+ *
+ * <p>此类不是线程安全的。
+ *
+ * @param <E> 计数的元素的类型
+ * @see HyperLogLog
+ * @see FrequencySketch
+ * Created by jianglei on 2017/4/22.
+ */
+public final class CountMinSketch<E> {
+
+    /**
+     * 序列化格式的标记
+     */
+    private static final int SERIAL_COOKIE = 0x434D5331;
+
+    private static final int HEADER_BYTES = 24;
+
+    private static final int FLAG_CONSERVATIVE = 1;
+
+    private final int depth;
+    private final int width;
+    private final boolean conservative;
+
+    /**
+     * 计数器，第i行位于[i * width, (i + 1) * width)
+     */
+    private final long[] table;
+
+    /**
+     * 所有增加的次数之和
+     */
+    private long totalCount;
+
+    /**
+     * 创建一个depth行、每行width个计数器的sketch
+     *
+     * @param depth 行数，即每个元素对应的计数器个数
+     * @param width 每行的计数器个数
+     * @param conservative 是否使用保守更新
+     * @throws IllegalArgumentException 如果参数不合法
+     */
+    public CountMinSketch(int depth, int width, boolean conservative){
+        if(depth <= 0 || width <= 0)
+            throw new IllegalArgumentException("Illegal dimensions: " + depth + " x " + width);
+        if((long) depth * width > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Sketch too large: " + depth + " x " + width);
+        this.depth = depth;
+        this.width = width;
+        this.conservative = conservative;
+        this.table = new long[depth * width];
+    }
+
+    /**
+     * 创建一个以1 - delta的概率，估计误差不超过epsilon * 总数的sketch
+     *
+     * @param epsilon 相对于总数的误差
+     * @param delta 误差超出范围的概率
+     * @param conservative 是否使用保守更新
+     * @return 新的sketch
+     * @throws IllegalArgumentException 如果参数不合法
+     */
+    public static <E> CountMinSketch<E> withError(double epsilon, double delta, boolean conservative){
+        if(!(epsilon > 0 && epsilon < 1))
+            throw new IllegalArgumentException("Illegal epsilon: " + epsilon);
+        if(!(delta > 0 && delta < 1))
+            throw new IllegalArgumentException("Illegal delta: " + delta);
+        int width = (int) Math.ceil(Math.E / epsilon);
+        int depth = (int) Math.ceil(Math.log(1 / delta));
+        return new CountMinSketch<>(Math.max(depth, 1), width, conservative);
+    }
+
+    /**
+     * 返回元素在第row行对应的计数器在table中的下标。各行的位置由哈希值的两半
+     * 做双重哈希得到，再用乘法代替取模映射到[0, width)
+     */
+    private int indexOf(long h, int row){
+        int x = (int) h + row * (int) (h >>> 32);
+        x ^= x >>> 15;
+        x *= 0x2c1b3c6d;
+        x ^= x >>> 12;
+        return row * width + (int) (((x & 0xffffffffL) * width) >>> 32);
+    }
+
+    /**
+     * 把元素的次数加1
+     *
+     * @throws NullPointerException 如果指定的元素为null
+     */
+    public void add(E e){
+        add(e, 1);
+    }
+
+    /**
+     * 把元素的次数增加count
+     *
+     * @throws IllegalArgumentException 如果count为负数
+     * @throws NullPointerException 如果指定的元素为null
+     */
+    public void add(E e, long count){
+        if(count < 0)
+            throw new IllegalArgumentException("Negative count: " + count);
+        if(count == 0)
+            return;
+        final long h = BloomFilter.hash64(e);
+        final long[] table = this.table;
+        if(conservative){
+            long target = estimateHash(h) + count;
+            for(int i = 0; i < depth; i++){
+                int j = indexOf(h, i);
+                if(table[j] < target)
+                    table[j] = target;
+            }
+        }else {
+            for(int i = 0; i < depth; i++)
+                table[indexOf(h, i)] += count;
+        }
+        totalCount += count;
+    }
+
+    /**
+     * 返回元素出现次数的估计值，不会小于真实的次数
+     *
+     * @throws NullPointerException 如果指定的元素为null
+     */
+    public long estimateCount(Object e){
+        return estimateHash(BloomFilter.hash64(e));
+    }
+
+    private long estimateHash(long h){
+        final long[] table = this.table;
+        long min = Long.MAX_VALUE;
+        for(int i = 0; i < depth; i++){
+            long c = table[indexOf(h, i)];
+            if(c < min)
+                min = c;
+        }
+        return min;
+    }
+
+    /**
+     * 把另一个维度相同的sketch合并到此sketch中
+     *
+     * @throws IllegalArgumentException 如果两者的维度不同
+     */
+    public void merge(CountMinSketch<? extends E> other){
+        if(other.depth != depth || other.width != width)
+            throw new IllegalArgumentException("Dimension mismatch: " + depth + " x " + width +
+                                                " and " + other.depth + " x " + other.width);
+        final long[] table = this.table;
+        final long[] ot = other.table;
+        for(int i = 0; i < table.length; i++)
+            table[i] += ot[i];
+        totalCount += other.totalCount;
+    }
+
+    /**
+     * 返回所有增加的次数之和
+     */
+    public long totalCount(){
+        return totalCount;
+    }
+
+    public int depth(){
+        return depth;
+    }
+
+    public int width(){
+        return width;
+    }
+
+    public boolean isConservative(){
+        return conservative;
+    }
+
+    /**
+     * 清除所有的计数器
+     */
+    public void clear(){
+        java.util.Arrays.fill(table, 0L);
+        totalCount = 0;
+    }
+
+    //Serialization
+
+    /**
+     * 返回serialize写出的字节数。计数器按变长整数编码，需要扫描所有的计数器
+     */
+    public int serializedSizeInBytes(){
+        long size = HEADER_BYTES;
+        for(long c : table)
+            size += varLongSize(c);
+        if(size > Integer.MAX_VALUE)
+            throw new IllegalStateException("Sketch too large to serialize");
+        return (int) size;
+    }
+
+    private static int varLongSize(long v){
+        return Math.max(1, (Long.SIZE - Long.numberOfLeadingZeros(v) + 6) / 7);
+    }
+
+    /**
+     * 从buf的position开始写出此sketch，并把position移到写出的数据之后
+     *
+     * @throws java.nio.BufferOverflowException 如果buf的剩余空间不够
+     */
+    public void serialize(ByteBuffer buf){
+        final int total = serializedSizeInBytes();
+        if(buf.remaining() < total)
+            throw new java.nio.BufferOverflowException();
+        final int base = buf.position();
+        final ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(base, SERIAL_COOKIE);
+        b.putInt(base + 4, depth);
+        b.putInt(base + 8, width);
+        b.putInt(base + 12, conservative ? FLAG_CONSERVATIVE : 0);
+        b.putLong(base + 16, totalCount);
+        int pos = base + HEADER_BYTES;
+        for(long c : table){
+            while ((c & ~0x7FL) != 0){
+                b.put(pos++, (byte) ((c & 0x7F) | 0x80));
+                c >>>= 7;
+            }
+            b.put(pos++, (byte) c);
+        }
+        buf.position(base + total);
+    }
+
+    /**
+     * 从buf的position开始读取serialize写出的sketch，并把position移到数据之后
+     *
+     * @throws IllegalArgumentException 如果数据不是合法的序列化格式
+     */
+    public static <E> CountMinSketch<E> deserialize(ByteBuffer buf){
+        final int base = buf.position();
+        final ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if(buf.remaining() < HEADER_BYTES || b.getInt(base) != SERIAL_COOKIE)
+            throw new IllegalArgumentException("Not a serialized CountMinSketch");
+        int depth = b.getInt(base + 4);
+        int width = b.getInt(base + 8);
+        int flags = b.getInt(base + 12);
+        long total = b.getLong(base + 16);
+        if(depth <= 0 || width <= 0 || (long) depth * width > buf.remaining() - HEADER_BYTES)
+            throw new IllegalArgumentException("Illegal dimensions: " + depth + " x " + width);
+        CountMinSketch<E> sketch = new CountMinSketch<>(depth, width,
+                                                        (flags & FLAG_CONSERVATIVE) != 0);
+        final long[] table = sketch.table;
+        final int limit = base + buf.remaining();
+        int pos = base + HEADER_BYTES;
+        for(int i = 0; i < table.length; i++){
+            long c = 0;
+            for(int shift = 0; ; shift += 7){
+                if(pos >= limit || shift >= Long.SIZE)
+                    throw new IllegalArgumentException("Corrupted counter " + i);
+                byte x = b.get(pos++);
+                c |= (long) (x & 0x7F) << shift;
+                if(x >= 0)
+                    break;
+            }
+            table[i] = c;
+        }
+        sketch.totalCount = total;
+        buf.position(pos);
+        return sketch;
+    }
+}
@@ -0,0 +1,434 @@
+package com.jianglei.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 支持删除的近似成员过滤器。与BloomFilter一样，mightContain返回false时元素
+ * 一定不在过滤器中，返回true时元素可能在过滤器中；不同的是加入过的元素可以用
+ * remove删除。
+ *
+ * <p>过滤器是一个布谷鸟哈希表，每个桶有4个槽位，每个槽位保存元素的一个f位的
+ * 指纹。一个元素有两个候选的桶：i1由哈希值选择，i2 = (hash(指纹) - i1) mod n，
+ * 这个映射是自反的，所以只凭桶的下标和指纹就能算出另一个桶，踢出指纹时不需要
+ * 原来的元素，桶的数量n也不必是2的幂。两个桶都满时随机踢出一个指纹到它的
+ * 另一个桶，最多踢MAX_KICKS次。桶的数量按每个桶4个槽位、95%的装载率计算。
+ *
+ * <p>指纹的位数f由误判率决定：误判率约为8 / 2^f，f取4，8 或 16中足够的最小值，
+ * 所以误判率不能低于约1.2e-4。槽位按f位紧密地排列在long数组中，一个桶正好占
+ * 2，4 或 8个字节，不跨越long。
+ *
+ * <p>踢出MAX_KICKS次仍然找不到空槽位时，元素已经被加入，最后一个被踢出的指纹
+ * 保存在一个额外的槽位中，put仍然返回true，过滤器没有假阴性。额外的槽位被占用
+ * 之后过滤器已满，put不再加入任何元素并返回false，直到删除了一些元素。
+ * 同一个元素在表中最多有8个副本(两个桶的所有槽位)；当i2 == i1时(2 * i1 ≡
+ * hash(指纹) mod n)两个候选桶是同一个，最多只有4个副本。此外额外槽位还可以
+ * 容纳一个。只能删除确实加入过的
+ * 元素，删除一个没有加入过的元素可能删掉另一个元素的指纹，造成假阴性。
+ *
+ * <p>元素的哈希值由hashCode()扩展为64位，所以hashCode相同的元素无法区分。
+ * 此过滤器不允许null元素。
+ *
+ * <p>{@link #serialize(ByteBuffer)}写出的格式是小端序的：一个头部(标记，指纹的
+ * 位数，桶数，元素个数，额外槽位的桶和指纹)，随后是槽位数组。
+ *
+ * <p>此类不是线程安全的。
+ *
+ * @param <E> 加入过滤器的元素的类型
+ * @see BloomFilter
+ * Created by jianglei on 2017/4/22.
+ */
+public final class CuckooFilter<E> {
+
+    private static final int SLOTS_PER_BUCKET = 4;
+
+    /**
+     * 加入时最多踢出的次数
+     */
+    private static final int MAX_KICKS = 500;
+
+    /**
+     * 计算桶数时使用的装载率
+     */
+    private static final double LOAD_FACTOR = 0.95;
+
+    /**
+     * 桶数总是这个数的倍数，使4位的指纹也能填满整数个long
+     */
+    private static final int BUCKET_ALIGNMENT = 4;
+
+    /**
+     * 最多的桶数，使槽位数组的长度不超过int的范围
+     */
+    private static final int MAXIMUM_BUCKETS = 1 << 28;
+
+    /**
+     * 序列化格式的标记
+     */
+    private static final int SERIAL_COOKIE = 0x43554B4F;
+
+    private static final int HEADER_BYTES = 28;
+
+    private final long[] table;
+    private final int numBuckets;
+    private final int fingerprintBits;
+    private final int fingerprintMask;
+
+    /**
+     * 每个long中的槽位个数的log2
+     */
+    private final int slotsPerWordShift;
+
+    private long count;
+
+    /**
+     * 加入失败时保存的最后一个被踢出的指纹，0表示没有
+     */
+    private int victimFingerprint;
+    private int victimBucket;
+
+    /**
+     * 踢出时选择槽位用的xorshift随机数状态
+     */
+    private int seed = 0x2545F491;
+
+    /**
+     * 创建一个能容纳expectedInsertions个元素，误判率约为fpp的过滤器
+     *
+     * @param expectedInsertions 预计加入的元素个数
+     * @param fpp 期望的误判率，必须在(0, 1)之间
+     * @throws IllegalArgumentException 如果参数不合法
+     */
+    public CuckooFilter(long expectedInsertions, double fpp){
+        if(expectedInsertions < 0)
+            throw new IllegalArgumentException("Illegal expected insertions: " +
+                                                expectedInsertions);
+        if(!(fpp > 0 && fpp < 1))
+            throw new IllegalArgumentException("Illegal false positive probability: " + fpp);
+        double need = Math.log(2.0 * SLOTS_PER_BUCKET / fpp) / Math.log(2);
+        int f = need <= 4 ? 4 : need <= 8 ? 8 : 16;
+        long buckets = (long) Math.ceil(Math.max(expectedInsertions, 1) /
+                                        (SLOTS_PER_BUCKET * LOAD_FACTOR));
+        if(buckets > MAXIMUM_BUCKETS)
+            throw new IllegalArgumentException("Filter too large: " + expectedInsertions +
+                                                " insertions");
+        int n = (int) ((buckets + BUCKET_ALIGNMENT - 1) & -BUCKET_ALIGNMENT);
+        this.fingerprintBits = f;
+        this.fingerprintMask = (1 << f) - 1;
+        this.slotsPerWordShift = Integer.numberOfTrailingZeros(Long.SIZE / f);
+        this.numBuckets = n;
+        this.table = new long[(int) ((long) n * SLOTS_PER_BUCKET * f / Long.SIZE)];
+    }
+
+    private CuckooFilter(long[] table, int buckets, int f, long count,
+                         int victimBucket, int victimFingerprint){
+        this.table = table;
+        this.numBuckets = buckets;
+        this.fingerprintBits = f;
+        this.fingerprintMask = (1 << f) - 1;
+        this.slotsPerWordShift = Integer.numberOfTrailingZeros(Long.SIZE / f);
+        this.count = count;
+        this.victimBucket = victimBucket;
+        this.victimFingerprint = victimFingerprint;
+    }
+
+    /**
+     * 返回哈希值的指纹，高位取f位，0被保留表示空的槽位
+     */
+    private int fingerprint(long h){
+        int fp = (int) (h >>> 32) & fingerprintMask;
+        return fp == 0 ? 1 : fp;
+    }
+
+    /**
+     * 用乘法代替取模把哈希值的低32位映射到[0, numBuckets)
+     */
+    private int indexOf(long h){
+        return (int) (((h & 0xffffffffL) * numBuckets) >>> 32);
+    }
+
+    /**
+     * 返回指纹fp在桶i之外的另一个候选桶。altIndex(altIndex(i, fp), fp) == i。
+     * 当2 * i ≡ hash(fp) (mod n)时结果就是i本身，这样的元素只有一个候选桶
+     */
+    private int altIndex(int i, int fp){
+        int j = (int) (((Hashing.mix(fp) & 0xffffffffL) * numBuckets) >>> 32) - i;
+        return j < 0 ? j + numBuckets : j;
+    }
+
+    private int getSlot(int bucket, int j){
+        int s = bucket * SLOTS_PER_BUCKET + j;
+        int shift = (s & ((1 << slotsPerWordShift) - 1)) * fingerprintBits;
+        return (int) (table[s >>> slotsPerWordShift] >>> shift) & fingerprintMask;
+    }
+
+    private void setSlot(int bucket, int j, int fp){
+        int s = bucket * SLOTS_PER_BUCKET + j;
+        int w = s >>> slotsPerWordShift;
+        int shift = (s & ((1 << slotsPerWordShift) - 1)) * fingerprintBits;
+        table[w] = (table[w] & ~((long) fingerprintMask << shift)) | ((long) fp << shift);
+    }
+
+    /**
+     * 把fp放入桶i的一个空槽位，如果没有空槽位返回false
+     */
+    private boolean insertIntoBucket(int i, int fp){
+        for(int j = 0; j < SLOTS_PER_BUCKET; j++){
+            if(getSlot(i, j) == 0){
+                setSlot(i, j, fp);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean bucketContains(int i, int fp){
+        for(int j = 0; j < SLOTS_PER_BUCKET; j++){
+            if(getSlot(i, j) == fp)
+                return true;
+        }
+        return false;
+    }
+
+    private boolean deleteFromBucket(int i, int fp){
+        for(int j = 0; j < SLOTS_PER_BUCKET; j++){
+            if(getSlot(i, j) == fp){
+                setSlot(i, j, 0);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int nextRandom(){
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        return seed = x;
+    }
+
+    /**
+     * 加入一个元素
+     *
+     * @return 如果元素被加入(包括最后被踢出的指纹进入额外槽位的情况)，返回true；
+     *         如果额外槽位已被占用，过滤器已满，元素没有被加入，返回false
+     * @throws NullPointerException 如果指定的元素为null
+     */
+    public boolean put(E e){
+        if(victimFingerprint != 0)
+            return false;
+        long h = BloomFilter.hash64(e);
+        int fp = fingerprint(h);
+        int i1 = indexOf(h);
+        int i2 = altIndex(i1, fp);
+        if(insertIntoBucket(i1, fp) || insertIntoBucket(i2, fp)){
+            count++;
+            return true;
+        }
+        int i = (nextRandom() & 1) == 0 ? i1 : i2;
+        for(int n = 0; n < MAX_KICKS; n++){
+            int j = nextRandom() & (SLOTS_PER_BUCKET - 1);
+            int old = getSlot(i, j);
+            setSlot(i, j, fp);
+            fp = old;
+            i = altIndex(i, fp);
+            if(insertIntoBucket(i, fp)){
+                count++;
+                return true;
+            }
+        }
+        // 表已经太满，保存最后被踢出的指纹，过滤器中的元素仍然都能被找到。
+        // 新的元素已经在表中，所以这次加入是成功的，之后的put才返回false
+        victimFingerprint = fp;
+        victimBucket = i;
+        count++;
+        return true;
+    }
+
+    /**
+     * 如果元素可能在过滤器中，返回true；返回false时元素一定不在过滤器中
+     *
+     * @throws NullPointerException 如果指定的元素为null
+     */
+    public boolean mightContain(Object e){
+        return mightContainHash(BloomFilter.hash64(e));
+    }
+
+    private boolean mightContainHash(long h){
+        int fp = fingerprint(h);
+        int i1 = indexOf(h);
+        int i2 = altIndex(i1, fp);
+        if(bucketContains(i1, fp) || bucketContains(i2, fp))
+            return true;
+        return victimFingerprint == fp && (victimBucket == i1 || victimBucket == i2);
+    }
+
+    /**
+     * 如果指定集合中的每个元素都可能在过滤器中，返回true；只要有一个元素
+     * 一定不在过滤器中，立即返回false
+     *
+     * @throws NullPointerException 如果指定的集合或者其中的某个元素为null
+     */
+    public boolean mightContainAll(Collection<?> c){
+        for(Iterator<?> i = c.iterator(); i.hasNext(); ){
+            if(!mightContainHash(BloomFilter.hash64(i.next())))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * 删除一个加入过的元素的一个副本。只能删除确实加入过的元素
+     *
+     * @return 如果找到并删除了元素的指纹，返回true
+     * @throws NullPointerException 如果指定的元素为null
+     */
+    public boolean remove(Object e){
+        long h = BloomFilter.hash64(e);
+        int fp = fingerprint(h);
+        int i1 = indexOf(h);
+        int i2 = altIndex(i1, fp);
+        if(victimFingerprint == fp && (victimBucket == i1 || victimBucket == i2)){
+            victimFingerprint = 0;
+            count--;
+            return true;
+        }
+        if(deleteFromBucket(i1, fp) || deleteFromBucket(i2, fp)){
+            count--;
+            // 腾出了一个槽位，尝试把额外槽位中的指纹放回表中
+            if(victimFingerprint != 0){
+                int vfp = victimFingerprint;
+                int vi = victimBucket;
+                victimFingerprint = 0;
+                count--;
+                reinsert(vi, vfp);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 重新加入一个已经在桶i中计算好的指纹
+     */
+    private void reinsert(int i, int fp){
+        if(insertIntoBucket(i, fp) || insertIntoBucket(altIndex(i, fp), fp)){
+            count++;
+            return;
+        }
+        for(int n = 0; n < MAX_KICKS; n++){
+            int j = nextRandom() & (SLOTS_PER_BUCKET - 1);
+            int old = getSlot(i, j);
+            setSlot(i, j, fp);
+            fp = old;
+            i = altIndex(i, fp);
+            if(insertIntoBucket(i, fp)){
+                count++;
+                return;
+            }
+        }
+        victimFingerprint = fp;
+        victimBucket = i;
+        count++;
+    }
+
+    /**
+     * 返回过滤器中的元素个数
+     */
+    public long count(){
+        return count;
+    }
+
+    /**
+     * 返回指纹的位数
+     */
+    public int fingerprintBits(){
+        return fingerprintBits;
+    }
+
+    /**
+     * 返回过滤器的槽位总数
+     */
+    public long capacity(){
+        return (long) numBuckets * SLOTS_PER_BUCKET;
+    }
+
+    /**
+     * 返回已经使用的槽位的比例
+     */
+    public double loadFactor(){
+        return (double) count / capacity();
+    }
+
+    /**
+     * 清除所有的元素
+     */
+    public void clear(){
+        java.util.Arrays.fill(table, 0L);
+        count = 0;
+        victimFingerprint = 0;
+    }
+
+    //Serialization
+
+    /**
+     * 返回serialize写出的字节数
+     */
+    public int serializedSizeInBytes(){
+        return HEADER_BYTES + table.length * 8;
+    }
+
+    /**
+     * 从buf的position开始写出此过滤器，并把position移到写出的数据之后
+     *
+     * @throws java.nio.BufferOverflowException 如果buf的剩余空间不够
+     */
+    public void serialize(ByteBuffer buf){
+        final int total = serializedSizeInBytes();
+        if(buf.remaining() < total)
+            throw new java.nio.BufferOverflowException();
+        final int base = buf.position();
+        final ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(base, SERIAL_COOKIE);
+        b.putInt(base + 4, fingerprintBits);
+        b.putInt(base + 8, numBuckets);
+        b.putLong(base + 12, count);
+        b.putInt(base + 20, victimBucket);
+        b.putInt(base + 24, victimFingerprint);
+        b.position(base + HEADER_BYTES);
+        b.asLongBuffer().put(table);
+        buf.position(base + total);
+    }
+
+    /**
+     * 从buf的position开始读取serialize写出的过滤器，并把position移到数据之后
+     *
+     * @throws IllegalArgumentException 如果数据不是合法的序列化格式
+     */
+    public static <E> CuckooFilter<E> deserialize(ByteBuffer buf){
+        final int base = buf.position();
+        final ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if(buf.remaining() < HEADER_BYTES || b.getInt(base) != SERIAL_COOKIE)
+            throw new IllegalArgumentException("Not a serialized CuckooFilter");
+        int f = b.getInt(base + 4);
+        int buckets = b.getInt(base + 8);
+        long count = b.getLong(base + 12);
+        int victimBucket = b.getInt(base + 20);
+        int victimFingerprint = b.getInt(base + 24);
+        if(f != 4 && f != 8 && f != 16)
+            throw new IllegalArgumentException("Illegal fingerprint bits: " + f);
+        if(buckets < BUCKET_ALIGNMENT || buckets > MAXIMUM_BUCKETS || buckets % BUCKET_ALIGNMENT != 0)
+            throw new IllegalArgumentException("Illegal number of buckets: " + buckets);
+        int words = (int) ((long) buckets * SLOTS_PER_BUCKET * f / Long.SIZE);
+        if((long) words * 8 > buf.remaining() - HEADER_BYTES)
+            throw new IllegalArgumentException("Truncated CuckooFilter");
+        if(victimFingerprint >>> f != 0 || victimBucket < 0 || victimBucket >= buckets)
+            throw new IllegalArgumentException("Corrupted victim slot");
+        long[] table = new long[words];
+        b.position(base + HEADER_BYTES);
+        b.asLongBuffer().get(table);
+        buf.position(base + HEADER_BYTES + words * 8);
+        return new CuckooFilter<>(table, buckets, f, count, victimBucket, victimFingerprint);
+    }
+}
@@ -0,0 +1,25 @@
+package com.jianglei.util;
+
+/**
+ * 返回基本类型double的迭代器。nextDouble不装箱，next只是为了与Iterator&lt;Double&gt;
+ * 兼容而把nextDouble的结果装箱。
+ *
+ * @see DoubleArrayList
+ * Created by jianglei on 2017/4/22.
+ */
+public interface DoubleIterator extends Iterator<Double> {
+
+    /**
+     * 返回迭代的下一个元素
+     *
+     * @throws java.util.NoSuchElementException 如果没有元素可迭代
+     */
+    double nextDouble();
+
+    /**
+     * 等价于nextDouble()，返回装箱之后的结果
+     */
+    default Double next(){
+        return nextDouble();
+    }
+}
@@ -0,0 +1,131 @@
+package com.jianglei.util;
+
+/**
+ * 一个估计元素近期访问频率的4位Count-Min Sketch，供TinyLfuCache决定
+ * 是否接纳新的元素。
+ *
+ * <p>计数器表是一个long数组，每个long保存16个4位的计数器，所以每个计数器
+ * 最大为15。一个元素在4个不同的long中各对应一个计数器，这4个计数器位于long
+ * 内不同的位置，增加时只增加未饱和的计数器，估计时取4个计数器的最小值。
+ *
+ * <p>为了让频率反映"近期"的访问，sketch定期老化：当增加的次数达到样本大小
+ * (最大容量的10倍)时，所有计数器减半。这样旧的热点会逐渐冷却，缓存可以适应
+ * 访问模式的变化。
+ *
+ * <p>此类不是线程安全的。
+ *
+ * @see TinyLfuCache
+ * Created by jianglei on 2017/4/15.
+ */
+final class FrequencySketch {
+
+    /**
+     * 4个计数器各自使用的哈希种子
+     */
+    private static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+            0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    /**
+     * 每个4位计数器减半时保留的位
+     */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /**
+     * 每个4位计数器的最低位
+     */
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * 创建一个适合最多maximumSize个元素的缓存的sketch
+     *
+     * @param maximumSize 缓存的最大容量
+     */
+    FrequencySketch(int maximumSize){
+        int n = Math.max(maximumSize, 8);
+        int capacity = Integer.highestOneBit(n);
+        if(capacity < n)
+            capacity = capacity >= (1 << 29) ? (1 << 30) : capacity << 1;
+        table = new long[capacity];
+        tableMask = capacity - 1;
+        sampleSize = (int) Math.min(10L * maximumSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 返回元素e的估计频率，最大为15
+     */
+    int frequency(Object e){
+        int hash = spread(e.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for(int i = 0; i < 4; i++){
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 增加元素e的频率，如果达到了样本大小，把所有的计数器减半
+     */
+    void increment(Object e){
+        int hash = spread(e.hashCode());
+        int start = (hash & 3) << 2;
+
+        boolean added = false;
+        for(int i = 0; i < 4; i++){
+            int index = indexOf(hash, i);
+            added |= incrementAt(index, start + i);
+        }
+
+        if(added && ++additions == sampleSize)
+            reset();
+    }
+
+    /**
+     * 增加table[i]中第j个计数器，如果它没有饱和的话
+     */
+    private boolean incrementAt(int i, int j){
+        int offset = j << 2;
+        long mask = 0xfL << offset;
+        if((table[i] & mask) != mask){
+            table[i] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 把所有的计数器减半。奇数计数器的截断误差也要从additions中扣除
+     */
+    private void reset(){
+        int count = 0;
+        for(int i = 0; i < table.length; i++){
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions = (additions >>> 1) - (count >>> 2);
+    }
+
+    /**
+     * 返回第i个计数器所在的long的下标
+     */
+    private int indexOf(int item, int i){
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += hash >>> 32;
+        return ((int) hash) & tableMask;
+    }
+
+    private static int spread(int x){
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,795 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * 基于开放寻址哈希表的Map接口实现。此实现提供了所有可选的map操作，
+ * 并且允许null键和null值。此类不保证映射的顺序，特别是不保证该顺序
+ * 恒久不变。
+ *
+ * <p>与链式哈希表不同，此实现不为每个映射分配一个节点对象：键和值分别
+ * 保存在两个平行的数组keys和vals中，下标相同的两个元素组成一个映射。
+ * 冲突采用线性探测解决：如果键的初始槽位已被占用，就依次检查下一个槽位，
+ * 直到找到该键或遇到一个空槽。表的容量总是2的幂，所以取模可以用位与代替。
+ *
+ * <p>删除映射时不使用"墓碑"标记，而是把同一探测簇中后续的映射向前移动
+ * 来填补空槽（backward shift deletion），这样查找的探测长度不会因为
+ * 反复的删除而退化。
+ *
+ * <p>此实现假定哈希函数将元素适当地分布在各槽位中，基本操作（get 和 put）
+ * 提供稳定的期望常数时间性能。由于线性探测对负载很敏感，默认的加载因子
+ * 比链式哈希表低一些(0.5)；加载因子必须小于1，以保证表中总有空槽来终止
+ * 探测。当映射的数量超过了加载因子与当前容量的乘积时，哈希表的容量加倍
+ * 并重新哈希。
+ *
+ * <p>注意此实现不是同步的。如果多个线程并发的访问一个HashMap，并且至少
+ * 一个线程改变了map的结构，则它必须保持外部同步。（结构修改是指添加或删除
+ * 一个或多个映射的操作；仅改变已有键所关联的值不是结构的更改）
+ *
+ * <p>此类所有"集合视图方法"返回的迭代器是fail-fast的：如果在迭代器创建之后，
+ * 用迭代器自身remove方法以外的任何方式从结构上修改了map，迭代器会抛出
+ * ConcurrentModificationException。迭代器的快速失败行为不能得到保证，
+ * 它只应该用于检测程序错误。
+ *
+ * <p>这个类是Java Collections Framework 中的一员
+ *
+ * @param <K> 此map维护的键的类型
+ * @param <V> 映射值的类型
+ * Created by jianglei on 2017/4/9.
+ */
+public class HashMap<K, V> extends AbstractMap<K, V>
+        implements Map<K, V>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = 362498820763181265L;
+
+    /**
+     * 默认的初始容量，一定是2的幂
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * 最大容量，一定是2的幂且不大于 1 << 30
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * 构造器中没有指定加载因子时使用的加载因子
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * 在表中代表null键的值
+     */
+    static final Object NULL_KEY = new Object();
+
+    /**
+     * 保存键的表，长度总是2的幂。null表示空槽，null键用NULL_KEY代替
+     */
+    transient Object[] keys;
+
+    /**
+     * 保存值的表，与keys下标一一对应
+     */
+    transient Object[] vals;
+
+    /**
+     * 此map包含的映射的数量
+     */
+    transient int size;
+
+    /**
+     * 此map被结构性修改的次数，用于使集合视图的迭代器快速失败
+     */
+    transient int modCount;
+
+    /**
+     * 下一次扩容的阈值 (capacity * load factor)
+     */
+    int threshold;
+
+    /**
+     * 哈希表的加载因子
+     */
+    final float loadFactor;
+
+    /**
+     * 创建一个具有指定初始容量和加载因子的空HashMap
+     *
+     * @param initialCapacity 初始容量
+     * @param loadFactor 加载因子
+     * @throws IllegalArgumentException 如果初始容量是负数，或者加载因子
+     *         不在(0, 1)范围内
+     */
+    public HashMap(int initialCapacity, float loadFactor){
+        if(initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                                initialCapacity);
+        if(!(loadFactor > 0 && loadFactor < 1))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                                loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor(initialCapacity, loadFactor));
+    }
+
+    /**
+     * 创建一个具有指定初始容量和默认加载因子(0.5)的空HashMap
+     *
+     * @param initialCapacity 初始容量
+     * @throws IllegalArgumentException 如果初始容量是负数
+     */
+    public HashMap(int initialCapacity){
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * 创建一个具有默认初始容量(16)和默认加载因子(0.5)的空HashMap
+     */
+    public HashMap(){
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        allocate(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * 创建一个与指定map具有相同映射关系的HashMap。
+     *
+     * @param m 映射要放进此map中的map
+     * @throws NullPointerException 如果指定的map为null
+     */
+    public HashMap(Map<? extends K, ? extends V> m){
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        allocate(tableSizeFor(Math.max(m.size(), DEFAULT_INITIAL_CAPACITY / 2),
+                                DEFAULT_LOAD_FACTOR));
+        putAll(m);
+    }
+
+    /**
+     * 返回能容纳expectedSize个映射而不扩容的最小容量（2的幂）
+     */
+    static int tableSizeFor(int expectedSize, float loadFactor){
+        double needed = Math.ceil(expectedSize / (double) loadFactor);
+        if(needed >= MAXIMUM_CAPACITY)
+            return MAXIMUM_CAPACITY;
+        int n = Math.max((int) needed, 2);
+        int cap = Integer.highestOneBit(n);
+        return cap == n ? cap : cap << 1;
+    }
+
+    /**
+     * 返回指定容量的表对应的扩容阈值。表中至少保留一个空槽来终止探测
+     */
+    final int thresholdFor(int capacity){
+        if(capacity == MAXIMUM_CAPACITY)
+            return capacity - 1;
+        return Math.min((int) (capacity * loadFactor), capacity - 1);
+    }
+
+    private void allocate(int capacity){
+        keys = new Object[capacity];
+        vals = new Object[capacity];
+        threshold = thresholdFor(capacity);
+    }
+
+    /**
+     * 用null代替NULL_KEY
+     */
+    static Object maskNull(Object key){
+        return key == null ? NULL_KEY : key;
+    }
+
+    /**
+     * 把内部表示的NULL_KEY还原为null
+     */
+    @SuppressWarnings("unchecked")
+    static <K> K unmaskNull(Object key){
+        return key == NULL_KEY ? null : (K) key;
+    }
+
+    /**
+     * 计算键的哈希值。hashCode()的低位往往分布不均(例如连续的整数)，
+     * 而线性探测只使用低位，所以先乘以黄金分割常数，再把高位异或到低位，
+     * 使高位也参与到槽位的选择中
+     */
+    static int hash(Object key){
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 返回已经masked的键k所在的槽位，如果此map不包含该键返回-1
+     */
+    final int indexOf(Object k){
+        final Object[] tab = keys;
+        final int mask = tab.length - 1;
+        int i = hash(k) & mask;
+        Object item;
+        while ((item = tab[i]) != null){
+            if(item == k || item.equals(k))
+                return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * 返回指定键映射到的值，如果此map不包含该键的映射，返回null
+     *
+     * <p>返回null并不一定表示此map不包含该键的映射，也可能是该键
+     * 明确的映射到了null。可以使用containsKey方法来区分这两种情况
+     *
+     * @see #put(Object, Object)
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key){
+        int i = indexOf(maskNull(key));
+        if(i < 0)
+            return null;
+        afterNodeAccess(i);
+        return (V) vals[i];
+    }
+
+    /**
+     * 如果此map包含指定键的映射，返回true
+     *
+     * @param key 测试此map中是否存在的键
+     * @return true 如果此map包含指定键的映射
+     */
+    public boolean containsKey(Object key){
+        return indexOf(maskNull(key)) >= 0;
+    }
+
+    /**
+     * 如果此map把一个或多个键映射到指定值，返回true。
+     * 此实现直接扫描值表，不经过entrySet的迭代器
+     *
+     * @param value 测试此map中是否存在的值
+     * @return true 如果此map把一个或多个键映射到指定值
+     */
+    public boolean containsValue(Object value){
+        final Object[] tab = keys;
+        final Object[] vs = vals;
+        if(value == null){
+            for(int i = 0; i < tab.length; i++)
+                if(tab[i] != null && vs[i] == null)
+                    return true;
+        }else {
+            for(int i = 0; i < tab.length; i++)
+                if(tab[i] != null && value.equals(vs[i]))
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * 把指定值与此map中的指定键关联。如果此map以前包含该键的映射，
+     * 则旧值被替换
+     *
+     * @param key 与指定值关联的键
+     * @param value 与指定键关联的值
+     * @return 与key关联的旧值，如果key没有映射返回null
+     *         (返回null也可能表示该键以前映射到null)
+     * @throws IllegalStateException 如果表已经达到最大容量并且
+     *         没有空间容纳新的映射
+     */
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value){
+        final Object k = maskNull(key);
+
+        retryAfterResize: for(;;){
+            final Object[] tab = keys;
+            final int mask = tab.length - 1;
+            int i = hash(k) & mask;
+            for(Object item; (item = tab[i]) != null; i = (i + 1) & mask){
+                if(item == k || item.equals(k)){
+                    V oldValue = (V) vals[i];
+                    vals[i] = value;
+                    afterNodeAccess(i);
+                    return oldValue;
+                }
+            }
+
+            if(size + 1 > threshold){
+                if(tab.length == MAXIMUM_CAPACITY)
+                    throw new IllegalStateException("Capacity exhausted.");
+                resize(tab.length << 1);
+                continue retryAfterResize;
+            }
+
+            modCount++;
+            tab[i] = k;
+            vals[i] = value;
+            size++;
+            afterNodeInsertion(i);
+            return null;
+        }
+    }
+
+    /**
+     * 把键k插入到表中第一个可用的槽位，调用者保证此map不包含k并且表中
+     * 有足够的空间。返回插入的槽位
+     */
+    final int insertAbsent(Object k, Object value){
+        final Object[] tab = keys;
+        final int mask = tab.length - 1;
+        int i = hash(k) & mask;
+        while (tab[i] != null)
+            i = (i + 1) & mask;
+        tab[i] = k;
+        vals[i] = value;
+        return i;
+    }
+
+    /**
+     * 把表重新哈希到一个指定容量的新表中
+     */
+    void resize(int newCapacity){
+        Object[] oldKeys = keys;
+        Object[] oldVals = vals;
+        allocate(newCapacity);
+        transfer(oldKeys, oldVals);
+    }
+
+    /**
+     * 把旧表中所有的映射移到当前表中
+     */
+    void transfer(Object[] oldKeys, Object[] oldVals){
+        for(int j = 0; j < oldKeys.length; j++){
+            Object k = oldKeys[j];
+            if(k != null)
+                insertAbsent(k, oldVals[j]);
+        }
+    }
+
+    /**
+     * 把指定map中所有的映射拷贝到此map中。对于指定map中的键，
+     * 这些映射会替换此map已有的映射
+     *
+     * @param m 要存储进此map的映射
+     * @throws NullPointerException 如果指定的map为null
+     */
+    public void putAll(Map<? extends K, ? extends V> m){
+        int n = m.size();
+        if(n == 0)
+            return;
+        if(n > threshold){
+            int capacity = tableSizeFor(n, loadFactor);
+            if(capacity > keys.length)
+                resize(capacity);
+        }
+        for(Iterator<? extends Map.Entry<? extends K, ? extends V>> i = m.entrySet().iterator(); i.hasNext(); ){
+            Map.Entry<? extends K, ? extends V> e = i.next();
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * 从此map中删除指定键的映射，如果它存在的话
+     *
+     * @param key 要从此map中删除映射的键
+     * @return 与key关联的旧值，如果key没有映射返回null
+     *         (返回null也可能表示该键以前映射到null)
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(Object key){
+        int i = indexOf(maskNull(key));
+        if(i < 0)
+            return null;
+        V oldValue = (V) vals[i];
+        removeAt(i);
+        return oldValue;
+    }
+
+    /**
+     * 删除槽位d上的映射
+     */
+    void removeAt(int d){
+        modCount++;
+        size--;
+        afterNodeRemoval(d);
+        closeDeletion(d);
+    }
+
+    /**
+     * 删除槽位d上的映射后，把同一探测簇中后续的映射向前移动，
+     * 使每个键从其初始槽位到当前槽位之间不存在空槽
+     */
+    private void closeDeletion(int d){
+        final Object[] tab = keys;
+        final Object[] vs = vals;
+        final int mask = tab.length - 1;
+        tab[d] = null;
+        vs[d] = null;
+
+        Object item;
+        for(int i = (d + 1) & mask; (item = tab[i]) != null; i = (i + 1) & mask){
+            if(Hashing.canShift(hash(item) & mask, d, i)){
+                tab[d] = item;
+                vs[d] = vs[i];
+                tab[i] = null;
+                vs[i] = null;
+                afterNodeMove(i, d);
+                d = i;
+            }
+        }
+    }
+
+    // Callbacks to allow LinkedHashMap post-actions
+
+    /**
+     * 槽位i上的映射被get或者put访问之后调用
+     */
+    void afterNodeAccess(int i){ }
+
+    /**
+     * 新的映射被插入到槽位i之后调用
+     */
+    void afterNodeInsertion(int i){ }
+
+    /**
+     * 槽位i上的映射被删除之前调用，此时size已经减小
+     */
+    void afterNodeRemoval(int i){ }
+
+    /**
+     * 删除时，槽位from上的映射被移到槽位to之后调用
+     */
+    void afterNodeMove(int from, int to){ }
+
+    /**
+     * 删除此map中所有的映射。此调用返回后，map将为空
+     */
+    public void clear(){
+        modCount++;
+        Arrays.fill(keys, null);
+        Arrays.fill(vals, null);
+        size = 0;
+    }
+
+    /**
+     * 返回此HashMap实例的浅拷贝：键和值本身不被克隆
+     *
+     * @return 此map的浅拷贝
+     */
+    @SuppressWarnings("unchecked")
+    public Object clone(){
+        HashMap<K, V> result;
+        try {
+            result = (HashMap<K, V>) super.clone();
+        } catch (CloneNotSupportedException e){
+            throw new InternalError(e);
+        }
+        result.keys = keys.clone();
+        result.vals = vals.clone();
+        result.entrySet = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    //Views
+
+    /**
+     * 持有缓存的entrySet()视图
+     */
+    transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * 返回此map包含的键的set视图。此set受map支持，所以对map的改变
+     * 会反映在此set中，反之亦然。此set支持元素的移除，但不支持add 或
+     * addAll 操作
+     *
+     * @return 此map包含的键的set视图
+     */
+    public Set<K> keySet(){
+        Set<K> ks = keySet;
+        if(ks == null){
+            ks = new KeySet();
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            HashMap.this.clear();
+        }
+
+        public Iterator<K> iterator(){
+            return newKeyIterator();
+        }
+
+        public boolean contains(Object o){
+            return containsKey(o);
+        }
+
+        public boolean remove(Object o){
+            int i = indexOf(maskNull(o));
+            if(i < 0)
+                return false;
+            removeAt(i);
+            return true;
+        }
+    }
+
+    /**
+     * 返回此map包含的值的集合视图。此集合受map支持，所以对map的改变
+     * 会反映在此集合中，反之亦然。此集合支持元素的移除，但不支持add 或
+     * addAll 操作
+     *
+     * @return 此map包含的值的集合视图
+     */
+    public Collection<V> values(){
+        Collection<V> vs = values;
+        if(vs == null){
+            vs = new Values();
+            values = vs;
+        }
+        return vs;
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            HashMap.this.clear();
+        }
+
+        public Iterator<V> iterator(){
+            return newValueIterator();
+        }
+
+        public boolean contains(Object o){
+            return containsValue(o);
+        }
+    }
+
+    /**
+     * 返回此map包含的映射的set视图。此set受map支持，所以对map的改变
+     * 会反映在此set中，反之亦然。此set支持元素的移除，但不支持add 或
+     * addAll 操作
+     *
+     * @return 此map包含的映射的set视图
+     */
+    public Set<Map.Entry<K, V>> entrySet(){
+        Set<Map.Entry<K, V>> es = entrySet;
+        if(es == null){
+            es = new EntrySet();
+            entrySet = es;
+        }
+        return es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            HashMap.this.clear();
+        }
+
+        public Iterator<Map.Entry<K, V>> iterator(){
+            return newEntryIterator();
+        }
+
+        public boolean contains(Object o){
+            return indexOfEntry(o) >= 0;
+        }
+
+        public boolean remove(Object o){
+            int i = indexOfEntry(o);
+            if(i < 0)
+                return false;
+            removeAt(i);
+            return true;
+        }
+    }
+
+    /**
+     * 如果o是一个与此map中某个映射相等的Map.Entry，返回该映射的槽位，否则返回-1
+     */
+    final int indexOfEntry(Object o){
+        if(!(o instanceof Map.Entry))
+            return -1;
+        Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+        int i = indexOf(maskNull(e.getKey()));
+        if(i < 0)
+            return -1;
+        Object v = vals[i];
+        Object ev = e.getValue();
+        return (v == ev || (v != null && v.equals(ev))) ? i : -1;
+    }
+
+    // 集合视图迭代器的工厂方法，LinkedHashMap覆盖它们按链表的顺序迭代
+
+    Iterator<K> newKeyIterator(){
+        return new KeyIterator();
+    }
+
+    Iterator<V> newValueIterator(){
+        return new ValueIterator();
+    }
+
+    Iterator<Map.Entry<K, V>> newEntryIterator(){
+        return new EntryIterator();
+    }
+
+    /**
+     * 集合视图迭代器的基类。
+     *
+     * <p>迭代从某个空槽之后开始，循环地扫描一整圈。因为探测簇不会跨过
+     * 这个空槽，删除时向前移动的映射总是来自迭代顺序中当前位置之后的槽位，
+     * 所以迭代器的remove方法不会让某个映射被漏掉或者被返回两次
+     */
+    abstract class HashIterator<E> implements Iterator<E> {
+        int index;
+        int remaining;
+        int lastReturned = -1;
+        int expectedModCount = modCount;
+
+        HashIterator(){
+            final Object[] tab = keys;
+            int empty = 0;
+            while (tab[empty] != null)
+                empty++;
+            index = (empty + 1) & (tab.length - 1);
+            remaining = tab.length - 1;
+        }
+
+        public boolean hasNext(){
+            final Object[] tab = keys;
+            final int mask = tab.length - 1;
+            while (remaining > 0){
+                if(tab[index] != null)
+                    return true;
+                index = (index + 1) & mask;
+                remaining--;
+            }
+            return false;
+        }
+
+        final int nextIndex(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(!hasNext())
+                throw new NoSuchElementException();
+            lastReturned = index;
+            index = (index + 1) & (keys.length - 1);
+            remaining--;
+            return lastReturned;
+        }
+
+        public void remove(){
+            if(lastReturned < 0)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeAt(lastReturned);
+            expectedModCount = modCount;
+            // 后续的映射可能被移到了刚删除的槽位上，需要重新检查它
+            index = lastReturned;
+            remaining++;
+            lastReturned = -1;
+        }
+    }
+
+    final class KeyIterator extends HashIterator<K> {
+        public K next(){
+            return unmaskNull(keys[nextIndex()]);
+        }
+    }
+
+    final class ValueIterator extends HashIterator<V> {
+        @SuppressWarnings("unchecked")
+        public V next(){
+            return (V) vals[nextIndex()];
+        }
+    }
+
+    final class EntryIterator extends HashIterator<Map.Entry<K, V>> {
+        public Map.Entry<K, V> next(){
+            return new SlotEntry(nextIndex());
+        }
+    }
+
+    /**
+     * 由entrySet迭代器返回的entry，直接读写表中的一个槽位。
+     * 与Map.Entry的规范一致，在map被结构性修改之后它的行为是不确定的
+     */
+    final class SlotEntry implements Map.Entry<K, V> {
+        private final int index;
+
+        SlotEntry(int index){
+            this.index = index;
+        }
+
+        public K getKey(){
+            return unmaskNull(keys[index]);
+        }
+
+        @SuppressWarnings("unchecked")
+        public V getValue(){
+            return (V) vals[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        public V setValue(V value){
+            V oldValue = (V) vals[index];
+            vals[index] = value;
+            return oldValue;
+        }
+
+        public boolean equals(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            Object k = getKey();
+            Object v = getValue();
+            return (k == null ? e.getKey() == null : k.equals(e.getKey())) &&
+                    (v == null ? e.getValue() == null : v.equals(e.getValue()));
+        }
+
+        public int hashCode(){
+            Object k = getKey();
+            Object v = getValue();
+            return (k == null ? 0 : k.hashCode()) ^
+                    (v == null ? 0 : v.hashCode());
+        }
+
+        public String toString(){
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        s.defaultWriteObject();
+
+        s.writeInt(size);
+
+        // 按迭代器的顺序写出，使LinkedHashMap反序列化之后保持原来的顺序
+        for(Iterator<Map.Entry<K, V>> i = newEntryIterator(); i.hasNext(); ){
+            Map.Entry<K, V> e = i.next();
+            s.writeObject(e.getKey());
+            s.writeObject(e.getValue());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        s.defaultReadObject();
+        if(!(loadFactor > 0 && loadFactor < 1))
+            throw new java.io.InvalidObjectException("Illegal load factor: " +
+                                                        loadFactor);
+
+        int mappings = s.readInt();
+        if(mappings < 0)
+            throw new java.io.InvalidObjectException("Illegal mappings count: " +
+                                                        mappings);
+        allocate(tableSizeFor(Math.max(mappings, DEFAULT_INITIAL_CAPACITY / 2),
+                                loadFactor));
+
+        for(int i = 0; i < mappings; i++){
+            K key = (K) s.readObject();
+            V value = (V) s.readObject();
+            put(key, value);
+        }
+    }
+}
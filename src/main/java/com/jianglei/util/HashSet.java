@@ -0,0 +1,426 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * 基于开放寻址哈希表的Set接口实现。此类不保证迭代的顺序，特别是不保证
+ * 该顺序恒久不变。此类允许null元素。
+ *
+ * <p>此实现不是对HashMap的包装：包装的做法要为每个元素保存一个共享的
+ * 哑值，白白占用一个值的槽位。这里只有一个保存元素的数组，冲突使用线性
+ * 探测，删除使用backward shift deletion，哈希函数与HashMap相同。add，
+ * remove 和 contains 提供稳定的期望常数时间性能。
+ *
+ * <p>removeAll 和 retainAll 直接在表上探测：removeAll 根据两个集合的大小，
+ * 要么逐个探测指定集合的元素，要么扫描此set的表；当指定的集合也是HashSet时，
+ * 扫描中的判断直接探测对方的表，而不经过接口调用contains。
+ *
+ * <p>注意此实现不是同步的。此类的迭代器是fail-fast的：如果在迭代器创建之后，
+ * 用迭代器自身remove方法以外的任何方式修改了set，迭代器会抛出
+ * ConcurrentModificationException。
+ *
+ * <p>这个类是Java Collections Framework 中的一员
+ *
+ * @param <E> 此set维护的元素的类型
+ * @see HashMap
+ * Created by jianglei on 2017/4/21.
+ */
+public class HashSet<E> extends AbstractSet<E>
+        implements Set<E>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = -5024744406713321676L;
+
+    /**
+     * 保存元素的表，长度总是2的幂。null表示空槽，null元素用HashMap.NULL_KEY代替
+     */
+    transient Object[] table;
+
+    /**
+     * 此set包含的元素的数量
+     */
+    transient int size;
+
+    /**
+     * 此set被修改的次数，用于使迭代器快速失败
+     */
+    transient int modCount;
+
+    /**
+     * 下一次扩容的阈值 (capacity * load factor)
+     */
+    int threshold;
+
+    /**
+     * 哈希表的加载因子
+     */
+    final float loadFactor;
+
+    /**
+     * 创建一个具有指定初始容量和加载因子的空set
+     *
+     * @throws IllegalArgumentException 如果初始容量是负数，或者加载因子
+     *         不在(0, 1)范围内
+     */
+    public HashSet(int initialCapacity, float loadFactor){
+        this.loadFactor = Hashing.checkLoadFactor(loadFactor);
+        allocate(Hashing.tableSizeFor(initialCapacity, loadFactor));
+    }
+
+    /**
+     * 创建一个具有指定初始容量和默认加载因子(0.5)的空set
+     *
+     * @throws IllegalArgumentException 如果初始容量是负数
+     */
+    public HashSet(int initialCapacity){
+        this(initialCapacity, HashMap.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * 创建一个具有默认初始容量(16)和默认加载因子(0.5)的空set
+     */
+    public HashSet(){
+        this.loadFactor = HashMap.DEFAULT_LOAD_FACTOR;
+        allocate(HashMap.DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * 创建一个包含指定集合中所有元素的set
+     *
+     * @throws NullPointerException 如果指定的集合为null
+     */
+    public HashSet(Collection<? extends E> c){
+        this.loadFactor = HashMap.DEFAULT_LOAD_FACTOR;
+        allocate(HashMap.tableSizeFor(Math.max(c.size(), HashMap.DEFAULT_INITIAL_CAPACITY / 2),
+                                        loadFactor));
+        addAll(c);
+    }
+
+    private void allocate(int capacity){
+        table = new Object[capacity];
+        threshold = thresholdFor(capacity);
+    }
+
+    private int thresholdFor(int capacity){
+        if(capacity == HashMap.MAXIMUM_CAPACITY)
+            return capacity - 1;
+        return Math.min((int) (capacity * loadFactor), capacity - 1);
+    }
+
+    /**
+     * 返回已经masked的元素o所在的槽位，如果此set不包含该元素返回-1
+     */
+    final int indexOf(Object o){
+        final Object[] tab = table;
+        final int mask = tab.length - 1;
+        int i = HashMap.hash(o) & mask;
+        Object item;
+        while ((item = tab[i]) != null){
+            if(item == o || item.equals(o))
+                return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    //Query Operations
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    public boolean contains(Object o){
+        return indexOf(HashMap.maskNull(o)) >= 0;
+    }
+
+    public Iterator<E> iterator(){
+        return new SetIterator();
+    }
+
+    //Modification Operations
+
+    /**
+     * 如果此set不包含指定的元素，把它加入到此set中
+     *
+     * @return true 如果此set原来不包含该元素
+     * @throws IllegalStateException 如果表已经达到最大容量并且
+     *         没有空间容纳新的元素
+     */
+    public boolean add(E e){
+        final Object o = HashMap.maskNull(e);
+
+        retryAfterResize: for(;;){
+            final Object[] tab = table;
+            final int mask = tab.length - 1;
+            int i = HashMap.hash(o) & mask;
+            for(Object item; (item = tab[i]) != null; i = (i + 1) & mask){
+                if(item == o || item.equals(o))
+                    return false;
+            }
+
+            if(size + 1 > threshold){
+                if(tab.length == HashMap.MAXIMUM_CAPACITY)
+                    throw new IllegalStateException("Capacity exhausted.");
+                resize(tab.length << 1);
+                continue retryAfterResize;
+            }
+
+            modCount++;
+            tab[i] = o;
+            size++;
+            return true;
+        }
+    }
+
+    public boolean remove(Object o){
+        int i = indexOf(HashMap.maskNull(o));
+        if(i < 0)
+            return false;
+        removeAt(i);
+        return true;
+    }
+
+    /**
+     * 删除槽位d上的元素，把同一探测簇中后续的元素向前移动，
+     * 使每个元素从其初始槽位到当前槽位之间不存在空槽
+     */
+    void removeAt(int d){
+        modCount++;
+        size--;
+        final Object[] tab = table;
+        final int mask = tab.length - 1;
+        tab[d] = null;
+
+        Object item;
+        for(int i = (d + 1) & mask; (item = tab[i]) != null; i = (i + 1) & mask){
+            if(Hashing.canShift(HashMap.hash(item) & mask, d, i)){
+                tab[d] = item;
+                tab[i] = null;
+                d = i;
+            }
+        }
+    }
+
+    /**
+     * 把表重新哈希到一个指定容量的新表中
+     */
+    private void resize(int newCapacity){
+        final Object[] oldTab = table;
+        allocate(newCapacity);
+        final Object[] tab = table;
+        final int mask = newCapacity - 1;
+        for(Object o : oldTab){
+            if(o != null){
+                int i = HashMap.hash(o) & mask;
+                while (tab[i] != null)
+                    i = (i + 1) & mask;
+                tab[i] = o;
+            }
+        }
+    }
+
+    //Bulk Operations
+
+    /**
+     * 把指定集合中的所有元素加入到此set中。如果需要，先一次性扩容到能够
+     * 容纳两者之和的容量，避免逐步的多次扩容
+     *
+     * @throws NullPointerException 如果指定的集合为null
+     */
+    public boolean addAll(Collection<? extends E> c){
+        int n = c.size();
+        if(n == 0)
+            return false;
+        if(size + n > threshold){
+            int capacity = HashMap.tableSizeFor(size + n, loadFactor);
+            if(capacity > table.length)
+                resize(capacity);
+        }
+        boolean modified = false;
+        for(Iterator<? extends E> i = c.iterator(); i.hasNext(); )
+            modified |= add(i.next());
+        return modified;
+    }
+
+    /**
+     * 删除此set中同时包含在指定集合中的所有元素。
+     *
+     * <p>如果此set比指定的集合大，逐个探测指定集合的元素并删除；否则扫描此set
+     * 的表，逐个判断元素是否在指定的集合中
+     *
+     * @throws NullPointerException 如果指定的集合为null
+     */
+    public boolean removeAll(Collection<?> c){
+        Objects.requireNonNull(c);
+        if(size > c.size()){
+            boolean modified = false;
+            for(Iterator<?> i = c.iterator(); i.hasNext(); ){
+                int slot = indexOf(HashMap.maskNull(i.next()));
+                if(slot >= 0){
+                    removeAt(slot);
+                    modified = true;
+                }
+            }
+            return modified;
+        }
+        return batchRemove(c, false);
+    }
+
+    /**
+     * 只保留此set中同时包含在指定集合中的元素
+     *
+     * @throws NullPointerException 如果指定的集合为null
+     */
+    public boolean retainAll(Collection<?> c){
+        Objects.requireNonNull(c);
+        return batchRemove(c, true);
+    }
+
+    /**
+     * 扫描表，删除(retain为true时保留)包含在c中的元素。
+     *
+     * <p>扫描与迭代器一样从某个空槽之后开始循环一整圈，删除一个元素之后，
+     * 后续的元素可能被移到当前槽位上，所以不前进而是重新检查当前槽位
+     */
+    private boolean batchRemove(Collection<?> c, boolean retain){
+        final HashSet<?> other = (c instanceof HashSet) ? (HashSet<?>) c : null;
+        final Object[] tab = table;
+        final int mask = tab.length - 1;
+        int empty = 0;
+        while (tab[empty] != null)
+            empty++;
+
+        boolean modified = false;
+        int i = (empty + 1) & mask;
+        for(int remaining = tab.length - 1; remaining > 0; ){
+            Object item = tab[i];
+            if(item != null){
+                boolean found = other != null
+                        ? other.indexOf(item) >= 0
+                        : c.contains(HashMap.unmaskNull(item));
+                if(found != retain){
+                    removeAt(i);
+                    modified = true;
+                    continue;
+                }
+            }
+            i = (i + 1) & mask;
+            remaining--;
+        }
+        return modified;
+    }
+
+    public void clear(){
+        modCount++;
+        Arrays.fill(table, null);
+        size = 0;
+    }
+
+    /**
+     * 返回此set的浅拷贝：元素本身不被克隆
+     */
+    @SuppressWarnings("unchecked")
+    public Object clone(){
+        HashSet<E> result;
+        try {
+            result = (HashSet<E>) super.clone();
+        } catch (CloneNotSupportedException e){
+            throw new InternalError(e);
+        }
+        result.table = table.clone();
+        result.modCount = 0;
+        return result;
+    }
+
+    /**
+     * 迭代器从某个空槽之后开始，循环地扫描一整圈，与HashMap的迭代器相同
+     */
+    final class SetIterator implements Iterator<E> {
+        int index;
+        int remaining;
+        int lastReturned = -1;
+        int expectedModCount = modCount;
+
+        SetIterator(){
+            final Object[] tab = table;
+            int empty = 0;
+            while (tab[empty] != null)
+                empty++;
+            index = (empty + 1) & (tab.length - 1);
+            remaining = tab.length - 1;
+        }
+
+        public boolean hasNext(){
+            final Object[] tab = table;
+            final int mask = tab.length - 1;
+            while (remaining > 0){
+                if(tab[index] != null)
+                    return true;
+                index = (index + 1) & mask;
+                remaining--;
+            }
+            return false;
+        }
+
+        public E next(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(!hasNext())
+                throw new NoSuchElementException();
+            lastReturned = index;
+            index = (index + 1) & (table.length - 1);
+            remaining--;
+            return HashMap.unmaskNull(table[lastReturned]);
+        }
+
+        public void remove(){
+            if(lastReturned < 0)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeAt(lastReturned);
+            expectedModCount = modCount;
+            // 后续的元素可能被移到了刚删除的槽位上，需要重新检查它
+            index = lastReturned;
+            remaining++;
+            lastReturned = -1;
+        }
+    }
+
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        s.defaultWriteObject();
+
+        s.writeInt(size);
+        for(Object o : table){
+            if(o != null)
+                s.writeObject(HashMap.unmaskNull(o));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        s.defaultReadObject();
+        if(!(loadFactor > 0 && loadFactor < 1))
+            throw new java.io.InvalidObjectException("Illegal load factor: " +
+                                                        loadFactor);
+
+        int elements = s.readInt();
+        if(elements < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + elements);
+        allocate(HashMap.tableSizeFor(Math.max(elements, HashMap.DEFAULT_INITIAL_CAPACITY / 2),
+                                        loadFactor));
+
+        for(int i = 0; i < elements; i++)
+            add((E) s.readObject());
+    }
+}
@@ -0,0 +1,74 @@
+package com.jianglei.util;
+
+/**
+ * 基本类型键的开放寻址哈希表共用的哈希函数和容量计算。
+ *
+ * <p>基本类型的键常常是连续的或者有规律的整数，而线性探测只使用哈希值的
+ * 低位，所以先用黄金分割常数做乘法，再把高位异或到低位上，使键的每一位都
+ * 参与到槽位的选择中。
+ *
+ * Created by jianglei on 2017/4/12.
+ */
+final class Hashing {
+
+    private Hashing(){
+    }
+
+    /**
+     * 返回int键的哈希值
+     */
+    static int mix(int key){
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 返回long键的哈希值
+     */
+    static int mix(long key){
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    /**
+     * 返回能容纳expectedSize个键而不扩容的最小容量（2的幂）
+     *
+     * @throws IllegalArgumentException 如果expectedSize是负数
+     */
+    static int tableSizeFor(int expectedSize, float loadFactor){
+        if(expectedSize < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                                expectedSize);
+        return HashMap.tableSizeFor(expectedSize, loadFactor);
+    }
+
+    /**
+     * 返回指定容量的表对应的扩容阈值。表中至少保留一个空槽来终止探测
+     */
+    static int thresholdFor(int capacity, float loadFactor){
+        if(capacity == HashMap.MAXIMUM_CAPACITY)
+            return capacity - 1;
+        return Math.min((int) (capacity * loadFactor), capacity - 1);
+    }
+
+    /**
+     * 检查加载因子是否在(0, 1)范围内
+     *
+     * @throws IllegalArgumentException 如果加载因子不合法
+     */
+    static float checkLoadFactor(float loadFactor){
+        if(!(loadFactor > 0 && loadFactor < 1))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                                loadFactor);
+        return loadFactor;
+    }
+
+    /**
+     * 如果d循环地位于[home, i)之间，返回true，即槽位i上初始槽位为home的键
+     * 可以移到空槽d上而不破坏探测序列。用于backward shift deletion
+     */
+    static boolean canShift(int home, int d, int i){
+        return (i < home && (home <= d || d <= i)) || (home <= d && d <= i);
+    }
+}
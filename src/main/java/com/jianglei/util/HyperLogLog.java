@@ -0,0 +1,258 @@
+package com.jianglei.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 估计流中不同元素个数的HyperLogLog。不管加入多少元素，占用的内存都是固定的
+ * 2^p个寄存器，估计值的相对标准误差约为1.04 / sqrt(2^p)，例如p = 14时使用
+ * 16K个寄存器，误差约为0.8%。
+ *
+ * <p>元素的64位哈希值的最高p位选择一个寄存器，寄存器记录其余的位中第一个1
+ * 出现的位置的最大值。估计值是各个寄存器的调和平均数；当估计值较小并且还有
+ * 为0的寄存器时，改用线性计数，以消除小基数时的偏差。
+ *
+ * <p>两个精度相同的HyperLogLog可以用merge合并，结果等于把两个流中的元素加入
+ * 同一个HyperLogLog，所以可以在每个线程中分别计数，最后合并。
+ *
+ * <p>元素的哈希值由hashCode()扩展为64位，所以hashCode相同的元素被看作同一个
+ * 元素，估计值不会超过不同的hashCode的个数。此类不允许null元素。
+ *
+ * <p>{@link #serialize(ByteBuffer)}写出的格式是小端序的：一个头部(标记，精度)，
+ * 随后是按6位紧密排列的寄存器。
+ *
+ * <p>此类不是线程安全的。
+ *
+ * @param <E> 计数的元素的类型
+ * @see CountMinSketch
+ * Created by jianglei on 2017/4/22.
+ */
+public final class HyperLogLog<E> {
+
+    /**
+     * 最小和最大的精度
+     */
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+
+    /**
+     * 每个寄存器序列化时使用的位数，寄存器的值不超过64 - p + 1
+     */
+    private static final int REGISTER_BITS = 6;
+
+    /**
+     * 序列化格式的标记
+     */
+    private static final int SERIAL_COOKIE = 0x484C4C31;
+
+    private static final int HEADER_BYTES = 8;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * 创建一个使用2^precision个寄存器的HyperLogLog
+     *
+     * @param precision 精度，在[MIN_PRECISION, MAX_PRECISION]之间
+     * @throws IllegalArgumentException 如果精度不合法
+     */
+    public HyperLogLog(int precision){
+        if(precision < MIN_PRECISION || precision > MAX_PRECISION)
+            throw new IllegalArgumentException("Illegal precision: " + precision);
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * 创建一个相对标准误差不超过relativeError的HyperLogLog
+     *
+     * @param relativeError 期望的相对标准误差
+     * @return 新的HyperLogLog
+     * @throws IllegalArgumentException 如果需要的精度超出了范围
+     */
+    public static <E> HyperLogLog<E> withRelativeError(double relativeError){
+        if(!(relativeError > 0 && relativeError < 1))
+            throw new IllegalArgumentException("Illegal relative error: " + relativeError);
+        double m = Math.pow(1.04 / relativeError, 2);
+        int p = Math.max(MIN_PRECISION, 64 - Long.numberOfLeadingZeros((long) Math.ceil(m) - 1));
+        return new HyperLogLog<>(p);
+    }
+
+    /**
+     * 加入一个元素
+     *
+     * @return 如果某个寄存器因此改变，返回true
+     * @throws NullPointerException 如果指定的元素为null
+     */
+    public boolean add(E e){
+        final long h = BloomFilter.hash64(e);
+        final int index = (int) (h >>> (Long.SIZE - precision));
+        // 低位补一个1，使rank不超过64 - p + 1
+        final int rank = Long.numberOfLeadingZeros((h << precision) | (1L << (precision - 1))) + 1;
+        if(rank > registers[index]){
+            registers[index] = (byte) rank;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 加入指定集合中的所有元素
+     *
+     * @return 如果某个寄存器因此改变，返回true
+     * @throws NullPointerException 如果指定的集合或者其中的某个元素为null
+     */
+    public boolean addAll(Collection<? extends E> c){
+        boolean changed = false;
+        for(Iterator<? extends E> i = c.iterator(); i.hasNext(); )
+            changed |= add(i.next());
+        return changed;
+    }
+
+    /**
+     * 返回加入过的不同元素的个数的估计值
+     */
+    public long estimate(){
+        final byte[] registers = this.registers;
+        final int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for(byte r : registers){
+            sum += 1.0 / (1L << r);
+            if(r == 0)
+                zeros++;
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if(estimate <= 2.5 * m && zeros != 0)
+            estimate = m * Math.log((double) m / zeros);
+        return Math.round(estimate);
+    }
+
+    private static double alpha(int m){
+        switch (m){
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /**
+     * 把另一个精度相同的HyperLogLog合并到此HyperLogLog中
+     *
+     * @throws IllegalArgumentException 如果两者的精度不同
+     */
+    public void merge(HyperLogLog<? extends E> other){
+        if(other.precision != precision)
+            throw new IllegalArgumentException("Precision mismatch: " + precision +
+                                                " and " + other.precision);
+        final byte[] registers = this.registers;
+        final byte[] or = other.registers;
+        for(int i = 0; i < registers.length; i++){
+            if(or[i] > registers[i])
+                registers[i] = or[i];
+        }
+    }
+
+    /**
+     * 返回精度，即寄存器个数的log2
+     */
+    public int precision(){
+        return precision;
+    }
+
+    /**
+     * 返回估计值的相对标准误差
+     */
+    public double relativeError(){
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    /**
+     * 清除所有的寄存器
+     */
+    public void clear(){
+        java.util.Arrays.fill(registers, (byte) 0);
+    }
+
+    //Serialization
+
+    /**
+     * 返回serialize写出的字节数
+     */
+    public int serializedSizeInBytes(){
+        return HEADER_BYTES + (registers.length * REGISTER_BITS + 7) / 8;
+    }
+
+    /**
+     * 从buf的position开始写出此HyperLogLog，并把position移到写出的数据之后
+     *
+     * @throws java.nio.BufferOverflowException 如果buf的剩余空间不够
+     */
+    public void serialize(ByteBuffer buf){
+        final int total = serializedSizeInBytes();
+        if(buf.remaining() < total)
+            throw new java.nio.BufferOverflowException();
+        final int base = buf.position();
+        final ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(base, SERIAL_COOKIE);
+        b.putInt(base + 4, precision);
+        int pos = base + HEADER_BYTES;
+        int acc = 0;
+        int bits = 0;
+        for(byte r : registers){
+            acc |= r << bits;
+            bits += REGISTER_BITS;
+            if(bits >= 8){
+                b.put(pos++, (byte) acc);
+                acc >>>= 8;
+                bits -= 8;
+            }
+        }
+        if(bits > 0)
+            b.put(pos, (byte) acc);
+        buf.position(base + total);
+    }
+
+    /**
+     * 从buf的position开始读取serialize写出的HyperLogLog，并把position移到数据之后
+     *
+     * @throws IllegalArgumentException 如果数据不是合法的序列化格式
+     */
+    public static <E> HyperLogLog<E> deserialize(ByteBuffer buf){
+        final int base = buf.position();
+        final ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if(buf.remaining() < HEADER_BYTES || b.getInt(base) != SERIAL_COOKIE)
+            throw new IllegalArgumentException("Not a serialized HyperLogLog");
+        int p = b.getInt(base + 4);
+        if(p < MIN_PRECISION || p > MAX_PRECISION)
+            throw new IllegalArgumentException("Illegal precision: " + p);
+        HyperLogLog<E> hll = new HyperLogLog<>(p);
+        final int total = hll.serializedSizeInBytes();
+        if(buf.remaining() < total)
+            throw new IllegalArgumentException("Truncated HyperLogLog");
+        final byte[] registers = hll.registers;
+        final int maxRank = Long.SIZE - p + 1;
+        int pos = base + HEADER_BYTES;
+        int acc = 0;
+        int bits = 0;
+        for(int i = 0; i < registers.length; i++){
+            if(bits < REGISTER_BITS){
+                acc |= (b.get(pos++) & 0xff) << bits;
+                bits += 8;
+            }
+            int r = acc & ((1 << REGISTER_BITS) - 1);
+            if(r > maxRank)
+                throw new IllegalArgumentException("Corrupted register: " + r);
+            registers[i] = (byte) r;
+            acc >>>= REGISTER_BITS;
+            bits -= REGISTER_BITS;
+        }
+        buf.position(base + total);
+        return hll;
+    }
+}
@@ -0,0 +1,700 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * 用引用相等代替对象相等来比较键(和值)的Map接口实现。也就是说，在此map中
+ * 两个键k1和k2相等当且仅当k1 == k2，键的哈希值是System.identityHashCode，
+ * 不调用键的equals和hashCode方法。
+ *
+ * <p>此类不是通用的Map实现，它有意地违反了Map要求使用equals比较对象的约定，
+ * 只用于少数需要引用相等语义的场合，例如序列化或者深拷贝时记录已经访问过的
+ * 对象：这时用equals比较既是错误的(两个相等但不同的对象都需要处理)，也是缓慢的。
+ *
+ * <p>键和值交替地保存在同一个数组中：键在偶数下标，它的值紧跟在后面，所以一次
+ * 查找通常只访问一条缓存行，插入时也不分配任何entry对象，只有entrySet的迭代器
+ * 才创建entry。冲突采用线性探测解决，删除时使用backward shift deletion，与
+ * HashMap相同。此类允许null键和null值。
+ *
+ * <p>{@link #newIdentitySet()}返回一个由此类支持的、按引用相等比较元素的Set。
+ *
+ * <p>注意此实现不是同步的。此类所有"集合视图方法"返回的迭代器是fail-fast的。
+ *
+ * <p>这个类是Java Collections Framework 中的一员
+ *
+ * @param <K> 此map维护的键的类型
+ * @param <V> 映射值的类型
+ * @see HashMap
+ * @see System#identityHashCode(Object)
+ * Created by jianglei on 2017/4/22.
+ */
+public class IdentityHashMap<K, V> extends AbstractMap<K, V>
+        implements Map<K, V>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = 8188218128353913216L;
+
+    /**
+     * 默认的预期最大映射数量
+     */
+    private static final int DEFAULT_EXPECTED_MAX_SIZE = 8;
+
+    /**
+     * 最大容量(槽位数)，数组的长度是它的两倍
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 29;
+
+    /**
+     * 键和值交替保存的表，长度是容量的两倍，容量总是2的幂。
+     * 键为null表示空槽，null键用HashMap.NULL_KEY代替
+     */
+    transient Object[] table;
+
+    transient int size;
+
+    transient int modCount;
+
+    /**
+     * 下一次扩容的阈值，容量乘以HashMap的默认加载因子
+     */
+    private transient int threshold;
+
+    /**
+     * 创建一个空的map，预期最大映射数量为8
+     */
+    public IdentityHashMap(){
+        init(DEFAULT_EXPECTED_MAX_SIZE);
+    }
+
+    /**
+     * 创建一个空的map，能容纳expectedMaxSize个映射而不需要扩容
+     *
+     * @param expectedMaxSize 预期的最大映射数量
+     * @throws IllegalArgumentException 如果expectedMaxSize为负数
+     */
+    public IdentityHashMap(int expectedMaxSize){
+        if(expectedMaxSize < 0)
+            throw new IllegalArgumentException("expectedMaxSize is negative: " +
+                                                expectedMaxSize);
+        init(expectedMaxSize);
+    }
+
+    /**
+     * 创建一个包含指定map中的映射的map
+     *
+     * @throws NullPointerException 如果指定的map为null
+     */
+    public IdentityHashMap(Map<? extends K, ? extends V> m){
+        init(Math.max(m.size(), DEFAULT_EXPECTED_MAX_SIZE));
+        putAll(m);
+    }
+
+    private void init(int expectedMaxSize){
+        allocate(capacityFor(expectedMaxSize));
+    }
+
+    private static int capacityFor(int expectedMaxSize){
+        return Math.min(HashMap.tableSizeFor(expectedMaxSize, HashMap.DEFAULT_LOAD_FACTOR),
+                        MAXIMUM_CAPACITY);
+    }
+
+    private void allocate(int capacity){
+        table = new Object[capacity << 1];
+        threshold = capacity == MAXIMUM_CAPACITY ? capacity - 1 :
+                (int) (capacity * HashMap.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * 返回键x在长度为length的表中的初始下标(偶数)
+     */
+    private static int hash(Object x, int length){
+        return (Hashing.mix(System.identityHashCode(x)) << 1) & (length - 1);
+    }
+
+    private static int nextKeyIndex(int i, int length){
+        return (i + 2 < length ? i + 2 : 0);
+    }
+
+    /**
+     * 返回已经masked的键k所在的下标，如果此map不包含该键返回-1
+     */
+    final int indexOf(Object k){
+        final Object[] tab = table;
+        final int len = tab.length;
+        int i = hash(k, len);
+        Object item;
+        while ((item = tab[i]) != null){
+            if(item == k)
+                return i;
+            i = nextKeyIndex(i, len);
+        }
+        return -1;
+    }
+
+    //Query Operations
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * 返回指定键映射到的值，如果此map不包含该键的映射(按引用相等比较)，返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key){
+        int i = indexOf(HashMap.maskNull(key));
+        return i < 0 ? null : (V) table[i + 1];
+    }
+
+    /**
+     * 如果此map包含与指定的键引用相等的键，返回true
+     */
+    public boolean containsKey(Object key){
+        return indexOf(HashMap.maskNull(key)) >= 0;
+    }
+
+    /**
+     * 如果此map把某个键映射到与指定的值引用相等的值，返回true
+     */
+    public boolean containsValue(Object value){
+        final Object[] tab = table;
+        for(int i = 1; i < tab.length; i += 2){
+            if(tab[i] == value && tab[i - 1] != null)
+                return true;
+        }
+        return false;
+    }
+
+    //Modification Operations
+
+    /**
+     * 把指定值与指定的键关联。如果此map已经包含与key引用相等的键，替换它的值
+     *
+     * @throws IllegalStateException 如果表已经达到最大容量并且没有空间容纳新的映射
+     */
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value){
+        final Object k = HashMap.maskNull(key);
+
+        retryAfterResize: for(;;){
+            final Object[] tab = table;
+            final int len = tab.length;
+            int i = hash(k, len);
+            for(Object item; (item = tab[i]) != null; i = nextKeyIndex(i, len)){
+                if(item == k){
+                    V oldValue = (V) tab[i + 1];
+                    tab[i + 1] = value;
+                    return oldValue;
+                }
+            }
+
+            if(size + 1 > threshold){
+                if(len == MAXIMUM_CAPACITY << 1)
+                    throw new IllegalStateException("Capacity exhausted.");
+                resize(len);    // 新的容量是原来的两倍，正好等于原来数组的长度
+                continue retryAfterResize;
+            }
+
+            modCount++;
+            tab[i] = k;
+            tab[i + 1] = value;
+            size++;
+            return null;
+        }
+    }
+
+    /**
+     * 把表重新哈希到一个指定容量的新表中
+     */
+    private void resize(int newCapacity){
+        final Object[] oldTable = table;
+        allocate(newCapacity);
+        final Object[] tab = table;
+        final int len = tab.length;
+        for(int j = 0; j < oldTable.length; j += 2){
+            Object k = oldTable[j];
+            if(k != null){
+                int i = hash(k, len);
+                while (tab[i] != null)
+                    i = nextKeyIndex(i, len);
+                tab[i] = k;
+                tab[i + 1] = oldTable[j + 1];
+            }
+        }
+    }
+
+    /**
+     * 把指定map中所有的映射拷贝到此map中
+     *
+     * @throws NullPointerException 如果指定的map为null
+     */
+    public void putAll(Map<? extends K, ? extends V> m){
+        int n = m.size();
+        if(n == 0)
+            return;
+        if(n > threshold){
+            int capacity = capacityFor(n);
+            if(capacity > table.length >>> 1)
+                resize(capacity);
+        }
+        for(Iterator<? extends Map.Entry<? extends K, ? extends V>> i = m.entrySet().iterator(); i.hasNext(); ){
+            Map.Entry<? extends K, ? extends V> e = i.next();
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * 删除与指定的键引用相等的键的映射，如果它存在的话
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(Object key){
+        int i = indexOf(HashMap.maskNull(key));
+        if(i < 0)
+            return null;
+        V oldValue = (V) table[i + 1];
+        removeAt(i);
+        return oldValue;
+    }
+
+    /**
+     * 删除下标d上的映射，把同一探测簇中后续的映射向前移动
+     */
+    final void removeAt(int d){
+        modCount++;
+        size--;
+        final Object[] tab = table;
+        final int len = tab.length;
+        tab[d] = null;
+        tab[d + 1] = null;
+
+        Object item;
+        for(int i = nextKeyIndex(d, len); (item = tab[i]) != null; i = nextKeyIndex(i, len)){
+            if(Hashing.canShift(hash(item, len), d, i)){
+                tab[d] = item;
+                tab[d + 1] = tab[i + 1];
+                tab[i] = null;
+                tab[i + 1] = null;
+                d = i;
+            }
+        }
+    }
+
+    public void clear(){
+        modCount++;
+        Arrays.fill(table, null);
+        size = 0;
+    }
+
+    /**
+     * 如果o也是一个IdentityHashMap，按引用相等比较键和值；否则使用Map的通常约定
+     */
+    public boolean equals(Object o){
+        if(o == this)
+            return true;
+        if(o instanceof IdentityHashMap){
+            IdentityHashMap<?, ?> m = (IdentityHashMap<?, ?>) o;
+            if(m.size() != size)
+                return false;
+            final Object[] tab = m.table;
+            for(int i = 0; i < tab.length; i += 2){
+                Object k = tab[i];
+                if(k != null){
+                    int j = indexOf(k);
+                    if(j < 0 || table[j + 1] != tab[i + 1])
+                        return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    /**
+     * 返回所有映射的System.identityHashCode(key) ^ System.identityHashCode(value)之和，
+     * 与entrySet中的entry的hashCode一致
+     */
+    public int hashCode(){
+        int h = 0;
+        final Object[] tab = table;
+        for(int i = 0; i < tab.length; i += 2){
+            Object k = tab[i];
+            if(k != null)
+                h += System.identityHashCode(HashMap.unmaskNull(k)) ^
+                        System.identityHashCode(tab[i + 1]);
+        }
+        return h;
+    }
+
+    //Views
+
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * 返回此map包含的键的set视图。此set按引用相等比较元素，支持元素的移除，
+     * 但不支持add 或 addAll 操作
+     */
+    public Set<K> keySet(){
+        Set<K> ks = keySet;
+        if(ks == null){
+            ks = new KeySet();
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            IdentityHashMap.this.clear();
+        }
+
+        public Iterator<K> iterator(){
+            return new KeyIterator();
+        }
+
+        public boolean contains(Object o){
+            return containsKey(o);
+        }
+
+        public boolean remove(Object o){
+            int i = indexOf(HashMap.maskNull(o));
+            if(i < 0)
+                return false;
+            removeAt(i);
+            return true;
+        }
+
+        /**
+         * 按引用相等的语义，返回元素的System.identityHashCode之和
+         */
+        public int hashCode(){
+            int h = 0;
+            for(Iterator<K> i = iterator(); i.hasNext(); )
+                h += System.identityHashCode(i.next());
+            return h;
+        }
+    }
+
+    /**
+     * 返回此map包含的值的集合视图。contains 按引用相等比较
+     */
+    public Collection<V> values(){
+        Collection<V> vs = values;
+        if(vs == null){
+            vs = new Values();
+            values = vs;
+        }
+        return vs;
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            IdentityHashMap.this.clear();
+        }
+
+        public Iterator<V> iterator(){
+            return new ValueIterator();
+        }
+
+        public boolean contains(Object o){
+            return containsValue(o);
+        }
+    }
+
+    /**
+     * 返回此map包含的映射的set视图。entry的equals 和 hashCode 按引用相等的
+     * 语义比较键和值
+     */
+    public Set<Map.Entry<K, V>> entrySet(){
+        Set<Map.Entry<K, V>> es = entrySet;
+        if(es == null){
+            es = new EntrySet();
+            entrySet = es;
+        }
+        return es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            IdentityHashMap.this.clear();
+        }
+
+        public Iterator<Map.Entry<K, V>> iterator(){
+            return new EntryIterator();
+        }
+
+        public boolean contains(Object o){
+            return indexOfEntry(o) >= 0;
+        }
+
+        public boolean remove(Object o){
+            int i = indexOfEntry(o);
+            if(i < 0)
+                return false;
+            removeAt(i);
+            return true;
+        }
+    }
+
+    /**
+     * 如果o是一个键和值都与此map中某个映射引用相等的Map.Entry，返回该映射的下标，
+     * 否则返回-1
+     */
+    final int indexOfEntry(Object o){
+        if(!(o instanceof Map.Entry))
+            return -1;
+        Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+        int i = indexOf(HashMap.maskNull(e.getKey()));
+        return (i >= 0 && table[i + 1] == e.getValue()) ? i : -1;
+    }
+
+    /**
+     * 集合视图迭代器的基类。与HashMap的迭代器一样，从某个空槽之后开始循环地
+     * 扫描一整圈，使remove时向前移动的映射不会被漏掉或者被返回两次
+     */
+    abstract class IdentityIterator<E> implements Iterator<E> {
+        int index;
+        int remaining;
+        int lastReturned = -1;
+        int expectedModCount = modCount;
+
+        IdentityIterator(){
+            final Object[] tab = table;
+            int empty = 0;
+            while (tab[empty] != null)
+                empty += 2;
+            index = nextKeyIndex(empty, tab.length);
+            remaining = (tab.length >>> 1) - 1;
+        }
+
+        public boolean hasNext(){
+            final Object[] tab = table;
+            while (remaining > 0){
+                if(tab[index] != null)
+                    return true;
+                index = nextKeyIndex(index, tab.length);
+                remaining--;
+            }
+            return false;
+        }
+
+        final int nextIndex(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(!hasNext())
+                throw new NoSuchElementException();
+            lastReturned = index;
+            index = nextKeyIndex(index, table.length);
+            remaining--;
+            return lastReturned;
+        }
+
+        public void remove(){
+            if(lastReturned < 0)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeAt(lastReturned);
+            expectedModCount = modCount;
+            // 后续的映射可能被移到了刚删除的槽位上，需要重新检查它
+            index = lastReturned;
+            remaining++;
+            lastReturned = -1;
+        }
+    }
+
+    final class KeyIterator extends IdentityIterator<K> {
+        public K next(){
+            return HashMap.unmaskNull(table[nextIndex()]);
+        }
+    }
+
+    final class ValueIterator extends IdentityIterator<V> {
+        @SuppressWarnings("unchecked")
+        public V next(){
+            return (V) table[nextIndex() + 1];
+        }
+    }
+
+    final class EntryIterator extends IdentityIterator<Map.Entry<K, V>> {
+        public Map.Entry<K, V> next(){
+            return new SlotEntry(nextIndex());
+        }
+    }
+
+    /**
+     * 由entrySet迭代器返回的entry，直接读写表中的一个槽位。
+     * 与Map.Entry的规范一致，在map被结构性修改之后它的行为是不确定的
+     */
+    final class SlotEntry implements Map.Entry<K, V> {
+        private final int index;
+
+        SlotEntry(int index){
+            this.index = index;
+        }
+
+        public K getKey(){
+            return HashMap.unmaskNull(table[index]);
+        }
+
+        @SuppressWarnings("unchecked")
+        public V getValue(){
+            return (V) table[index + 1];
+        }
+
+        @SuppressWarnings("unchecked")
+        public V setValue(V value){
+            V oldValue = (V) table[index + 1];
+            table[index + 1] = value;
+            return oldValue;
+        }
+
+        public boolean equals(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return e.getKey() == getKey() && e.getValue() == getValue();
+        }
+
+        public int hashCode(){
+            return System.identityHashCode(getKey()) ^
+                    System.identityHashCode(getValue());
+        }
+
+        public String toString(){
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    /**
+     * 返回一个按引用相等比较元素的空Set，它由一个IdentityHashMap支持
+     */
+    public static <E> Set<E> newIdentitySet(){
+        return new IdentitySet<>(DEFAULT_EXPECTED_MAX_SIZE);
+    }
+
+    /**
+     * 返回一个按引用相等比较元素的空Set，能容纳expectedMaxSize个元素而不需要扩容
+     *
+     * @throws IllegalArgumentException 如果expectedMaxSize为负数
+     */
+    public static <E> Set<E> newIdentitySet(int expectedMaxSize){
+        return new IdentitySet<>(expectedMaxSize);
+    }
+
+    /**
+     * 由IdentityHashMap支持的Set，元素是map的键，值是一个共享的占位对象
+     */
+    static final class IdentitySet<E> extends AbstractSet<E>
+            implements Set<E>, Serializable {
+
+        private static final long serialVersionUID = -5325286346829003347L;
+
+        private static final Object PRESENT = Boolean.TRUE;
+
+        private final IdentityHashMap<E, Object> m;
+
+        IdentitySet(int expectedMaxSize){
+            m = new IdentityHashMap<>(expectedMaxSize);
+        }
+
+        public int size(){
+            return m.size();
+        }
+
+        public boolean isEmpty(){
+            return m.isEmpty();
+        }
+
+        public boolean contains(Object o){
+            return m.containsKey(o);
+        }
+
+        public boolean add(E e){
+            return m.put(e, PRESENT) == null;
+        }
+
+        public boolean remove(Object o){
+            return m.remove(o) == PRESENT;
+        }
+
+        public void clear(){
+            m.clear();
+        }
+
+        public Iterator<E> iterator(){
+            return m.keySet().iterator();
+        }
+
+        public int hashCode(){
+            return m.keySet().hashCode();
+        }
+    }
+
+    /**
+     * 返回此map的浅拷贝：键和值本身不被克隆
+     */
+    @SuppressWarnings("unchecked")
+    public Object clone(){
+        IdentityHashMap<K, V> result;
+        try {
+            result = (IdentityHashMap<K, V>) super.clone();
+        } catch (CloneNotSupportedException e){
+            throw new InternalError(e);
+        }
+        result.table = table.clone();
+        result.entrySet = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        s.defaultWriteObject();
+
+        s.writeInt(size);
+        final Object[] tab = table;
+        for(int i = 0; i < tab.length; i += 2){
+            Object k = tab[i];
+            if(k != null){
+                s.writeObject(HashMap.unmaskNull(k));
+                s.writeObject(tab[i + 1]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        s.defaultReadObject();
+
+        int mappings = s.readInt();
+        if(mappings < 0)
+            throw new java.io.InvalidObjectException("Illegal mappings count: " +
+                                                        mappings);
+        init(Math.max(mappings, DEFAULT_EXPECTED_MAX_SIZE));
+        for(int i = 0; i < mappings; i++){
+            K key = (K) s.readObject();
+            V value = (V) s.readObject();
+            put(key, value);
+        }
+    }
+}
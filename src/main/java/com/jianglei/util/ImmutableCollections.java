@@ -0,0 +1,531 @@
+package com.jianglei.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Map.of 和 Map.ofEntries 等静态工厂方法返回的不可变map的实现。
+ *
+ * <p>这些map创建之后永远不会改变，所以可以按大小选择最紧凑的表示，而不需要
+ * 为以后的插入预留空间：
+ * <ul>
+ *     <li>0个映射：共享的单例{@link Map0}</li>
+ *     <li>1到2个映射：键和值直接保存在字段中({@link Map1}，{@link Map2})，
+ *     没有任何数组</li>
+ *     <li>3到{@link #SMALL_MAX}个映射：键和值交替保存在一个正好大小的数组中
+ *     ({@link MapSmall})，查找时线性扫描。映射很少时，扫描几个连续的引用比
+ *     计算哈希值再探测更快</li>
+ *     <li>更多的映射：键和值交替保存在一个加载因子为0.5的开放寻址表中
+ *     ({@link MapN})，线性探测</li>
+ * </ul>
+ *
+ * <p>这些map都不允许null键和null值，也不允许重复的键。它们不缓存集合视图，
+ * 每次调用keySet，values 或 entrySet都创建一个新的轻量视图，这样map本身
+ * 只有保存映射所需的字段。
+ *
+ * Created by jianglei on 2017/4/20.
+ */
+final class ImmutableCollections {
+
+    private ImmutableCollections(){
+    }
+
+    /**
+     * 使用线性扫描的最大映射数量
+     */
+    static final int SMALL_MAX = 8;
+
+    static UnsupportedOperationException uoe(){
+        return new UnsupportedOperationException();
+    }
+
+    /**
+     * 根据交替排列的键值数组创建合适大小的map。数组不会被复制，调用者
+     * 不能再修改它
+     *
+     * @throws NullPointerException 如果有null键或值
+     * @throws IllegalArgumentException 如果有重复的键
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> Map<K, V> mapOf(Object[] kvs){
+        int n = kvs.length >> 1;
+        for(Object o : kvs)
+            if(o == null)
+                throw new NullPointerException();
+        switch (n){
+            case 0:
+                return (Map<K, V>) Map0.INSTANCE;
+            case 1:
+                return new Map1<>((K) kvs[0], (V) kvs[1]);
+            case 2:
+                if(kvs[0].equals(kvs[2]))
+                    throw duplicate(kvs[0]);
+                return new Map2<>((K) kvs[0], (V) kvs[1], (K) kvs[2], (V) kvs[3]);
+            default:
+                if(n <= SMALL_MAX){
+                    for(int i = 2; i < kvs.length; i += 2)
+                        for(int j = 0; j < i; j += 2)
+                            if(kvs[i].equals(kvs[j]))
+                                throw duplicate(kvs[i]);
+                    return new MapSmall<>(kvs);
+                }
+                return new MapN<>(kvs);
+        }
+    }
+
+    static IllegalArgumentException duplicate(Object key){
+        return new IllegalArgumentException("duplicate key: " + key);
+    }
+
+    /**
+     * 所有不可变map的基类：修改方法都抛出UnsupportedOperationException。
+     * 子类按交替的下标提供键和值，集合视图都建立在下标之上
+     */
+    abstract static class AbstractImmutableMap<K, V> extends AbstractMap<K, V> {
+
+        public V put(K key, V value){
+            throw uoe();
+        }
+
+        public V remove(Object key){
+            throw uoe();
+        }
+
+        public void putAll(Map<? extends K, ? extends V> m){
+            throw uoe();
+        }
+
+        public void clear(){
+            throw uoe();
+        }
+
+        public boolean containsKey(Object key){
+            return get(key) != null;
+        }
+
+        public abstract V get(Object key);
+
+        /**
+         * 返回第i个映射的键，0 &lt;= i &lt; capacity()。空的位置返回null
+         */
+        abstract K keyAt(int i);
+
+        /**
+         * 返回第i个映射的值
+         */
+        abstract V valueAt(int i);
+
+        /**
+         * 返回keyAt可以接受的下标的上界
+         */
+        abstract int capacity();
+
+        public Set<K> keySet(){
+            return new ImmutableSet<K>(){
+                public int size(){
+                    return AbstractImmutableMap.this.size();
+                }
+
+                public boolean contains(Object o){
+                    return containsKey(o);
+                }
+
+                public Iterator<K> iterator(){
+                    return new IndexIterator<K>(AbstractImmutableMap.this){
+                        K element(int i){
+                            return keyAt(i);
+                        }
+                    };
+                }
+            };
+        }
+
+        public Collection<V> values(){
+            return new AbstractCollection<V>(){
+                public int size(){
+                    return AbstractImmutableMap.this.size();
+                }
+
+                public boolean contains(Object o){
+                    return containsValue(o);
+                }
+
+                public boolean add(V e){
+                    throw uoe();
+                }
+
+                public boolean remove(Object o){
+                    throw uoe();
+                }
+
+                public boolean removeAll(Collection<?> c){
+                    throw uoe();
+                }
+
+                public boolean retainAll(Collection<?> c){
+                    throw uoe();
+                }
+
+                public void clear(){
+                    throw uoe();
+                }
+
+                public Iterator<V> iterator(){
+                    return new IndexIterator<V>(AbstractImmutableMap.this){
+                        V element(int i){
+                            return valueAt(i);
+                        }
+                    };
+                }
+            };
+        }
+
+        public Set<Map.Entry<K, V>> entrySet(){
+            return new ImmutableSet<Map.Entry<K, V>>(){
+                public int size(){
+                    return AbstractImmutableMap.this.size();
+                }
+
+                public boolean contains(Object o){
+                    if(!(o instanceof Map.Entry))
+                        return false;
+                    Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+                    Object k = e.getKey();
+                    if(k == null)
+                        return false;
+                    V v = get(k);
+                    return v != null && v.equals(e.getValue());
+                }
+
+                public Iterator<Map.Entry<K, V>> iterator(){
+                    return new IndexIterator<Map.Entry<K, V>>(AbstractImmutableMap.this){
+                        Map.Entry<K, V> element(int i){
+                            return new AbstractMap.SimpleImmutableEntry<>(keyAt(i), valueAt(i));
+                        }
+                    };
+                }
+            };
+        }
+
+        public int hashCode(){
+            int h = 0;
+            for(int i = 0, n = capacity(); i < n; i++){
+                K k = keyAt(i);
+                if(k != null)
+                    h += k.hashCode() ^ valueAt(i).hashCode();
+            }
+            return h;
+        }
+    }
+
+    /**
+     * 不可变map的keySet 和 entrySet视图的基类，修改方法都抛出
+     * UnsupportedOperationException
+     */
+    abstract static class ImmutableSet<E> extends AbstractSet<E> {
+        public boolean add(E e){
+            throw uoe();
+        }
+
+        public boolean remove(Object o){
+            throw uoe();
+        }
+
+        public boolean removeAll(Collection<?> c){
+            throw uoe();
+        }
+
+        public boolean retainAll(Collection<?> c){
+            throw uoe();
+        }
+
+        public void clear(){
+            throw uoe();
+        }
+    }
+
+    /**
+     * 按下标遍历不可变map的迭代器，跳过键为null的空位置
+     */
+    abstract static class IndexIterator<E> implements Iterator<E> {
+        private final AbstractImmutableMap<?, ?> map;
+        private final int capacity;
+        private int index;
+
+        IndexIterator(AbstractImmutableMap<?, ?> map){
+            this.map = map;
+            this.capacity = map.capacity();
+            this.index = advance(0);
+        }
+
+        /**
+         * 返回第i个位置上的元素，只在keyAt(i)不为null时调用
+         */
+        abstract E element(int i);
+
+        private int advance(int i){
+            while (i < capacity && map.keyAt(i) == null)
+                i++;
+            return i;
+        }
+
+        public boolean hasNext(){
+            return index < capacity;
+        }
+
+        public E next(){
+            if(index >= capacity)
+                throw new NoSuchElementException();
+            E e = element(index);
+            index = advance(index + 1);
+            return e;
+        }
+    }
+
+    /**
+     * 空map，只有一个实例
+     */
+    static final class Map0<K, V> extends AbstractImmutableMap<K, V> {
+        static final Map0<?, ?> INSTANCE = new Map0<>();
+
+        private Map0(){
+        }
+
+        public int size(){
+            return 0;
+        }
+
+        public V get(Object key){
+            if(key == null)
+                throw new NullPointerException();
+            return null;
+        }
+
+        public boolean containsValue(Object value){
+            if(value == null)
+                throw new NullPointerException();
+            return false;
+        }
+
+        K keyAt(int i){
+            throw new IndexOutOfBoundsException();
+        }
+
+        V valueAt(int i){
+            throw new IndexOutOfBoundsException();
+        }
+
+        int capacity(){
+            return 0;
+        }
+    }
+
+    /**
+     * 只有一个映射的map，键和值直接保存在字段中
+     */
+    static final class Map1<K, V> extends AbstractImmutableMap<K, V> {
+        private final K k0;
+        private final V v0;
+
+        Map1(K k0, V v0){
+            this.k0 = k0;
+            this.v0 = v0;
+        }
+
+        public int size(){
+            return 1;
+        }
+
+        public V get(Object key){
+            return key.equals(k0) ? v0 : null;
+        }
+
+        public boolean containsValue(Object value){
+            return value.equals(v0);
+        }
+
+        K keyAt(int i){
+            return k0;
+        }
+
+        V valueAt(int i){
+            return v0;
+        }
+
+        int capacity(){
+            return 1;
+        }
+
+        public int hashCode(){
+            return k0.hashCode() ^ v0.hashCode();
+        }
+    }
+
+    /**
+     * 有两个映射的map，键和值直接保存在字段中
+     */
+    static final class Map2<K, V> extends AbstractImmutableMap<K, V> {
+        private final K k0;
+        private final V v0;
+        private final K k1;
+        private final V v1;
+
+        Map2(K k0, V v0, K k1, V v1){
+            this.k0 = k0;
+            this.v0 = v0;
+            this.k1 = k1;
+            this.v1 = v1;
+        }
+
+        public int size(){
+            return 2;
+        }
+
+        public V get(Object key){
+            if(key.equals(k0))
+                return v0;
+            if(key.equals(k1))
+                return v1;
+            return null;
+        }
+
+        public boolean containsValue(Object value){
+            return value.equals(v0) || value.equals(v1);
+        }
+
+        K keyAt(int i){
+            return i == 0 ? k0 : k1;
+        }
+
+        V valueAt(int i){
+            return i == 0 ? v0 : v1;
+        }
+
+        int capacity(){
+            return 2;
+        }
+    }
+
+    /**
+     * 键和值交替保存在一个正好大小的数组中的map，线性查找
+     */
+    static final class MapSmall<K, V> extends AbstractImmutableMap<K, V> {
+        private final Object[] kvs;
+
+        MapSmall(Object[] kvs){
+            this.kvs = kvs;
+        }
+
+        public int size(){
+            return kvs.length >> 1;
+        }
+
+        @SuppressWarnings("unchecked")
+        public V get(Object key){
+            if(key == null)
+                throw new NullPointerException();
+            final Object[] a = kvs;
+            for(int i = 0; i < a.length; i += 2)
+                if(key.equals(a[i]))
+                    return (V) a[i + 1];
+            return null;
+        }
+
+        public boolean containsValue(Object value){
+            if(value == null)
+                throw new NullPointerException();
+            final Object[] a = kvs;
+            for(int i = 1; i < a.length; i += 2)
+                if(value.equals(a[i]))
+                    return true;
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        K keyAt(int i){
+            return (K) kvs[i << 1];
+        }
+
+        @SuppressWarnings("unchecked")
+        V valueAt(int i){
+            return (V) kvs[(i << 1) + 1];
+        }
+
+        int capacity(){
+            return kvs.length >> 1;
+        }
+    }
+
+    /**
+     * 键和值交替保存在开放寻址表中的map。表的槽位数是映射数量的2倍到4倍之间
+     * 的2的幂，线性探测，空槽位上的键为null
+     */
+    static final class MapN<K, V> extends AbstractImmutableMap<K, V> {
+        private final Object[] table;
+        private final int size;
+
+        MapN(Object[] kvs){
+            int n = kvs.length >> 1;
+            table = new Object[Hashing.tableSizeFor(n, 0.5f) << 1];
+            for(int i = 0; i < kvs.length; i += 2){
+                int idx = probe(kvs[i]);
+                if(idx >= 0)
+                    throw duplicate(kvs[i]);
+                idx = -(idx + 1);
+                table[idx] = kvs[i];
+                table[idx + 1] = kvs[i + 1];
+            }
+            size = n;
+        }
+
+        /**
+         * 返回键pk所在的下标；如果不存在，返回(-(插入点) - 1)
+         */
+        private int probe(Object pk){
+            final Object[] t = table;
+            int mask = t.length - 2;
+            int idx = (HashMap.hash(pk) << 1) & mask;
+            for(;;){
+                Object ek = t[idx];
+                if(ek == null)
+                    return -idx - 1;
+                if(pk.equals(ek))
+                    return idx;
+                idx = (idx + 2) & mask;
+            }
+        }
+
+        public int size(){
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        public V get(Object key){
+            int idx = probe(key);
+            return idx >= 0 ? (V) table[idx + 1] : null;
+        }
+
+        public boolean containsValue(Object value){
+            if(value == null)
+                throw new NullPointerException();
+            final Object[] t = table;
+            for(int i = 1; i < t.length; i += 2)
+                if(t[i] != null && value.equals(t[i]))
+                    return true;
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        K keyAt(int i){
+            return (K) table[i << 1];
+        }
+
+        @SuppressWarnings("unchecked")
+        V valueAt(int i){
+            return (V) table[(i << 1) + 1];
+        }
+
+        int capacity(){
+            return table.length >> 1;
+        }
+    }
+}
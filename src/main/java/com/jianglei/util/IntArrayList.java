@@ -0,0 +1,636 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * 元素是基本类型int的可变长数组列表。ArrayList把元素保存在Object[]中，每个
+ * 数值都是一个单独的Integer对象，再加上一个引用；此类把元素直接保存在int[]中，
+ * getInt 和 addInt既不装箱也不拆箱。
+ *
+ * <p>扩容策略与ArrayList相同(见ArrayList.newCapacity 和 ArrayList.hugeCapacity)：
+ * 容量不够时增加到原来的1.5倍；没有指定初始容量时，第一次添加元素才分配默认
+ * 容量(10)的数组。{@link #trimToSize()}把数组缩减到元素的个数。
+ *
+ * <p>{@link #asList()}返回一个List&lt;Integer&gt;视图，用于与使用对象集合的代码
+ * 互操作；它的equals 和 hashCode与同样元素的List&lt;Integer&gt;一致。
+ *
+ * <p>注意此实现不是同步的。
+ *
+ * @see LongArrayList
+ * @see DoubleArrayList
+ * @see ArrayList
+ * Created by jianglei on 2017/4/22.
+ */
+public class IntArrayList implements RandomAccess, Cloneable, Serializable {
+
+    private static final long serialVersionUID = 5826478730470951487L;
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private static final int[] EMPTY_ELEMENTDATA = {};
+
+    private static final int[] DEFAULTCAPACITY_EMPTY_ELEMENTDATA = {};
+
+    transient int[] elementData;
+
+    private int size;
+
+    transient int modCount;
+
+    /**
+     * 创建一个具有指定初始容量的空列表
+     *
+     * @throws IllegalArgumentException 如果初始容量是负数
+     */
+    public IntArrayList(int initialCapacity){
+        if(initialCapacity > 0){
+            this.elementData = new int[initialCapacity];
+        }else if(initialCapacity == 0){
+            this.elementData = EMPTY_ELEMENTDATA;
+        }else {
+            throw new IllegalArgumentException("Illegal Capacity: " +
+                                                initialCapacity);
+        }
+    }
+
+    /**
+     * 创建一个空列表，第一次添加元素时分配默认容量(10)的数组
+     */
+    public IntArrayList(){
+        this.elementData = DEFAULTCAPACITY_EMPTY_ELEMENTDATA;
+    }
+
+    /**
+     * 创建一个包含指定数组中的元素的列表
+     *
+     * @throws NullPointerException 如果指定的数组为null
+     */
+    public IntArrayList(int[] a){
+        size = a.length;
+        elementData = size == 0 ? EMPTY_ELEMENTDATA : a.clone();
+    }
+
+    /**
+     * 把数组的容量缩减为元素的个数
+     */
+    public void trimToSize(){
+        modCount++;
+        if(size < elementData.length){
+            elementData = (size == 0)
+                    ? EMPTY_ELEMENTDATA
+                    : Arrays.copyOf(elementData, size);
+        }
+    }
+
+    /**
+     * 必要时增加数组的容量，使它至少能容纳minCapacity个元素
+     */
+    public void ensureCapacity(int minCapacity){
+        int minExpand = (elementData != DEFAULTCAPACITY_EMPTY_ELEMENTDATA)
+                ? 0
+                : DEFAULT_CAPACITY;
+        if(minCapacity > minExpand){
+            ensureExplicitCapacity(minCapacity);
+        }
+    }
+
+    private void ensureCapacityInternal(int minCapacity){
+        if(elementData == DEFAULTCAPACITY_EMPTY_ELEMENTDATA){
+            minCapacity = Math.max(DEFAULT_CAPACITY, minCapacity);
+        }
+        ensureExplicitCapacity(minCapacity);
+    }
+
+    private void ensureExplicitCapacity(int minCapacity){
+        modCount++;
+
+        if(minCapacity - elementData.length > 0)
+            grow(minCapacity);
+    }
+
+    private void grow(int minCapacity){
+        elementData = Arrays.copyOf(elementData, ArrayList.newCapacity(elementData.length, minCapacity));
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * 返回指定位置上的元素
+     *
+     * @throws IndexOutOfBoundsException 如果index超出范围
+     */
+    public int getInt(int index){
+        rangeCheck(index);
+        return elementData[index];
+    }
+
+    /**
+     * 用指定的元素替换指定位置上的元素
+     *
+     * @return 原来在该位置上的元素
+     * @throws IndexOutOfBoundsException 如果index超出范围
+     */
+    public int setInt(int index, int element){
+        rangeCheck(index);
+        int oldValue = elementData[index];
+        elementData[index] = element;
+        return oldValue;
+    }
+
+    /**
+     * 把指定的元素添加到列表的末尾
+     */
+    public void addInt(int e){
+        ensureCapacityInternal(size + 1);
+        elementData[size++] = e;
+    }
+
+    /**
+     * 把指定的元素插入到指定的位置，把该位置及之后的元素向后移动
+     *
+     * @throws IndexOutOfBoundsException 如果index超出范围
+     */
+    public void addInt(int index, int element){
+        rangeCheckForAdd(index);
+        ensureCapacityInternal(size + 1);
+        System.arraycopy(elementData, index, elementData, index + 1, size - index);
+        elementData[index] = element;
+        size++;
+    }
+
+    /**
+     * 把数组a中从off开始的len个元素添加到列表的末尾，最多扩容一次
+     *
+     * @throws IndexOutOfBoundsException 如果off 和 len超出了数组的范围
+     * @throws NullPointerException 如果指定的数组为null
+     */
+    public void addAll(int[] a, int off, int len){
+        if(off < 0 || len < 0 || len > a.length - off)
+            throw new IndexOutOfBoundsException("off: " + off + ", len: " + len +
+                                                ", length: " + a.length);
+        ensureCapacityInternal(size + len);
+        System.arraycopy(a, off, elementData, size, len);
+        size += len;
+    }
+
+    /**
+     * 把数组a中所有的元素添加到列表的末尾
+     *
+     * @throws NullPointerException 如果指定的数组为null
+     */
+    public void addAll(int[] a){
+        addAll(a, 0, a.length);
+    }
+
+    /**
+     * 删除指定位置上的元素，把之后的元素向前移动
+     *
+     * @return 被删除的元素
+     * @throws IndexOutOfBoundsException 如果index超出范围
+     */
+    public int removeIntAt(int index){
+        rangeCheck(index);
+        modCount++;
+        int oldValue = elementData[index];
+        int numMoved = size - index - 1;
+        if(numMoved > 0)
+            System.arraycopy(elementData, index + 1, elementData, index, numMoved);
+        size--;
+        return oldValue;
+    }
+
+    /**
+     * 返回指定元素第一次出现的位置，如果不存在返回-1
+     */
+    public int indexOf(int e){
+        final int[] es = elementData;
+        for(int i = 0; i < size; i++){
+            if(es[i] == e)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 返回指定元素最后一次出现的位置，如果不存在返回-1
+     */
+    public int lastIndexOf(int e){
+        final int[] es = elementData;
+        for(int i = size - 1; i >= 0; i--){
+            if(es[i] == e)
+                return i;
+        }
+        return -1;
+    }
+
+    public boolean contains(int e){
+        return indexOf(e) >= 0;
+    }
+
+    /**
+     * 删除所有的元素。数组的容量不变
+     */
+    public void clear(){
+        modCount++;
+        size = 0;
+    }
+
+    /**
+     * 按顺序对每一个元素执行指定的操作，不装箱
+     *
+     * @throws NullPointerException 如果action为null
+     * @throws ConcurrentModificationException 如果在遍历期间此列表被修改
+     */
+    public void forEach(IntConsumer action){
+        if(action == null)
+            throw new NullPointerException();
+        final int expectedModCount = modCount;
+        final int[] es = elementData;
+        final int size = this.size;
+        for(int i = 0; i < size && modCount == expectedModCount; i++)
+            action.accept(es[i]);
+        if(modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * 返回按顺序包含所有元素的数组
+     */
+    public int[] toIntArray(){
+        return Arrays.copyOf(elementData, size);
+    }
+
+    public IntArrayList clone(){
+        IntArrayList result;
+        try {
+            result = (IntArrayList) super.clone();
+        } catch (CloneNotSupportedException e){
+            throw new InternalError(e);
+        }
+        result.elementData = Arrays.copyOf(elementData, size);
+        result.listView = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    public boolean equals(Object o){
+        if(o == this)
+            return true;
+        if(!(o instanceof IntArrayList))
+            return false;
+        IntArrayList l = (IntArrayList) o;
+        if(l.size != size)
+            return false;
+        final int[] a = elementData;
+        final int[] b = l.elementData;
+        for(int i = 0; i < size; i++){
+            if(a[i] != b[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * 与List&lt;Integer&gt;的哈希值一致
+     */
+    public int hashCode(){
+        int h = 1;
+        final int[] es = elementData;
+        for(int i = 0; i < size; i++)
+            h = 31 * h + es[i];
+        return h;
+    }
+
+    public String toString(){
+        if(size == 0)
+            return "[]";
+        final StringBuilder sb = new StringBuilder();
+        sb.append('[').append(elementData[0]);
+        for(int i = 1; i < size; i++)
+            sb.append(',').append(' ').append(elementData[i]);
+        return sb.append(']').toString();
+    }
+
+    private void rangeCheck(int index){
+        if(index >= size)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    private void rangeCheckForAdd(int index){
+        if(index > size || index < 0)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    private String outOfBoundsMsg(int index){
+        return "Index: " + index + ", Size: " + size;
+    }
+
+    //List view
+
+    transient ListView listView;
+
+    /**
+     * 返回此列表的List&lt;Integer&gt;视图。此视图受此列表支持，所以对此列表的
+     * 改变会反映在视图中，反之亦然。视图不允许null元素
+     *
+     * @return 此列表的List视图
+     */
+    public List<Integer> asList(){
+        ListView lv = listView;
+        if(lv == null){
+            lv = new ListView();
+            listView = lv;
+        }
+        return lv;
+    }
+
+    final class ListView extends AbstractList<Integer> implements RandomAccess {
+        public int size(){
+            return size;
+        }
+
+        public Integer get(int index){
+            return getInt(index);
+        }
+
+        public Integer set(int index, Integer element){
+            return setInt(index, element);
+        }
+
+        public boolean add(Integer e){
+            addInt(e);
+            return true;
+        }
+
+        public void add(int index, Integer element){
+            addInt(index, element);
+        }
+
+        public Integer remove(int index){
+            return removeIntAt(index);
+        }
+
+        public int indexOf(Object o){
+            return o instanceof Integer ? IntArrayList.this.indexOf((Integer) o) : -1;
+        }
+
+        public int lastIndexOf(Object o){
+            return o instanceof Integer ? IntArrayList.this.lastIndexOf((Integer) o) : -1;
+        }
+
+        public boolean contains(Object o){
+            return indexOf(o) >= 0;
+        }
+
+        public void clear(){
+            IntArrayList.this.clear();
+        }
+
+        /**
+         * AbstractList没有覆盖hashCode，这里按List的约定计算
+         */
+        public int hashCode(){
+            return IntArrayList.this.hashCode();
+        }
+
+        /**
+         * 迭代器的nextInt不装箱，并且在此列表被直接修改时也能快速失败
+         */
+        public IntIterator iterator(){
+            return new Itr();
+        }
+
+        /**
+         * 视图继承的modCount不会随此列表改变，所以列表迭代器和子列表都检查此列表的modCount
+         */
+        public ListIterator<Integer> listIterator(int index){
+            rangeCheckForAdd(index);
+            return new ListItr(index);
+        }
+
+        public ListIterator<Integer> listIterator(){
+            return new ListItr(0);
+        }
+
+        public List<Integer> subList(int fromIndex, int toIndex){
+            ArrayList.subListRangeCheck(fromIndex, toIndex, size);
+            return new SubList(this, 0, fromIndex, toIndex);
+        }
+    }
+
+    class Itr implements IntIterator {
+        int cursor;
+        int lastRet = -1;
+        int expectedModCount = modCount;
+
+        public boolean hasNext(){
+            return cursor != size;
+        }
+
+        public int nextInt(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            int i = cursor;
+            if(i >= size)
+                throw new NoSuchElementException();
+            cursor = i + 1;
+            return elementData[lastRet = i];
+        }
+
+        public void remove(){
+            if(lastRet < 0)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeIntAt(lastRet);
+            cursor = lastRet;
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    final class ListItr extends Itr implements ListIterator<Integer> {
+        ListItr(int index){
+            cursor = index;
+        }
+
+        public Integer next(){
+            return nextInt();
+        }
+
+        public boolean hasPrevious(){
+            return cursor != 0;
+        }
+
+        public int nextIndex(){
+            return cursor;
+        }
+
+        public int previousIndex(){
+            return cursor - 1;
+        }
+
+        public Integer privious(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            int i = cursor - 1;
+            if(i < 0)
+                throw new NoSuchElementException();
+            cursor = i;
+            return elementData[lastRet = i];
+        }
+
+        public void set(Integer e){
+            if(lastRet < 0)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            setInt(lastRet, e);
+        }
+
+        public void add(Integer e){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            addInt(cursor++, e);
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * List视图的子列表，直接读写此列表的数组。与ArrayList的子列表一样，
+     * 通过子列表以外的方式改变此列表之后，子列表的操作会抛出ConcurrentModificationException
+     */
+    final class SubList extends AbstractList<Integer> implements RandomAccess {
+        private final AbstractList<Integer> parent;
+        private final int parentOffset;
+        private final int offset;
+        int size;
+
+        SubList(AbstractList<Integer> parent, int offset, int fromIndex, int toIndex){
+            this.parent = parent;
+            this.parentOffset = fromIndex;
+            this.offset = offset + fromIndex;
+            this.size = toIndex - fromIndex;
+            this.modCount = IntArrayList.this.modCount;
+        }
+
+        public Integer set(int index, Integer e){
+            rangeCheck(index);
+            checkForComodification();
+            int oldValue = elementData[offset + index];
+            elementData[offset + index] = e;
+            return oldValue;
+        }
+
+        public Integer get(int index){
+            rangeCheck(index);
+            checkForComodification();
+            return elementData[offset + index];
+        }
+
+        public int size(){
+            checkForComodification();
+            return this.size;
+        }
+
+        public void add(int index, Integer e){
+            rangeCheckForAdd(index);
+            checkForComodification();
+            parent.add(parentOffset + index, e);
+            this.modCount = IntArrayList.this.modCount;
+            this.size++;
+        }
+
+        public Integer remove(int index){
+            rangeCheck(index);
+            checkForComodification();
+            Integer result = parent.remove(parentOffset + index);
+            this.modCount = IntArrayList.this.modCount;
+            this.size--;
+            return result;
+        }
+
+        public int hashCode(){
+            checkForComodification();
+            int h = 1;
+            final int[] es = elementData;
+            for(int i = offset, end = offset + size; i < end; i++)
+                h = 31 * h + es[i];
+            return h;
+        }
+
+        public List<Integer> subList(int fromIndex, int toIndex){
+            ArrayList.subListRangeCheck(fromIndex, toIndex, size);
+            return new SubList(this, offset, fromIndex, toIndex);
+        }
+
+        private void rangeCheck(int index){
+            if(index < 0 || index >= this.size)
+                throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+        }
+
+        private void rangeCheckForAdd(int index){
+            if(index < 0 || index > this.size)
+                throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+        }
+
+        private String outOfBoundsMsg(int index){
+            return "Index: " + index + ", Size: " + this.size;
+        }
+
+        private void checkForComodification(){
+            if(IntArrayList.this.modCount != this.modCount)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    //Serialization
+
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        int expectedModCount = modCount;
+        s.defaultWriteObject();
+
+        s.writeInt(size);
+
+        for(int i = 0; i < size; i++){
+            s.writeInt(elementData[i]);
+        }
+
+        if(modCount != expectedModCount){
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        elementData = EMPTY_ELEMENTDATA;
+        s.defaultReadObject();
+
+        s.readInt();
+
+        if(size < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + size);
+        if(size > 0){
+            ensureCapacityInternal(size);
+
+            int[] a = elementData;
+            for(int i = 0; i < size; i++){
+                a[i] = s.readInt();
+            }
+        }
+    }
+}
@@ -0,0 +1,515 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * 元素是基本类型int的开放寻址哈希set，适合对大量的数值ID去重。
+ * 元素保存在一个int数组中，既不装箱也不分配节点对象。
+ *
+ * <p>冲突用线性探测解决，删除时把后续的元素向前移动，不留下墓碑。0被用作
+ * 空槽的标记，所以元素0单独用一个标志记录。{@link #forEach(IntConsumer)}
+ * 和{@link #iterator()}都不装箱；{@link #asSet()}返回一个Set&lt;Integer&gt;
+ * 视图，用于与使用对象集合的代码互操作，例如AbstractSet的equals和containsAll。
+ *
+ * <p>注意此实现不是同步的。
+ *
+ * @see LongHashSet
+ * @see IntIntMap
+ * Created by jianglei on 2017/4/21.
+ */
+public class IntHashSet implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = -2687411823914365530L;
+
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * 元素表，0表示空槽
+     */
+    transient int[] table;
+
+    /**
+     * 是否包含元素0
+     */
+    transient boolean hasZero;
+
+    /**
+     * 元素的数量，包括元素0
+     */
+    transient int size;
+
+    transient int modCount;
+
+    transient int threshold;
+
+    final float loadFactor;
+
+    /**
+     * 创建一个具有指定初始容量和加载因子的空IntHashSet
+     *
+     * @param expectedSize 预期的元素数量
+     * @param loadFactor 加载因子
+     * @throws IllegalArgumentException 如果初始容量是负数，或者加载因子
+     *         不在(0, 1)范围内
+     */
+    public IntHashSet(int expectedSize, float loadFactor){
+        this.loadFactor = Hashing.checkLoadFactor(loadFactor);
+        allocate(Hashing.tableSizeFor(expectedSize, loadFactor));
+    }
+
+    public IntHashSet(int expectedSize){
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public IntHashSet(){
+        this(DEFAULT_INITIAL_CAPACITY / 2, DEFAULT_LOAD_FACTOR);
+    }
+
+    private void allocate(int capacity){
+        table = new int[capacity];
+        threshold = Hashing.thresholdFor(capacity, loadFactor);
+    }
+
+    /**
+     * 沿着非0元素e的探测序列查找。如果找到了返回它所在的槽位，
+     * 否则返回 ~i，i是探测停下的空槽
+     */
+    private int probe(int e){
+        final int[] tab = table;
+        final int mask = tab.length - 1;
+        int i = Hashing.mix(e) & mask;
+        int k;
+        while ((k = tab[i]) != 0){
+            if(k == e)
+                return i;
+            i = (i + 1) & mask;
+        }
+        return ~i;
+    }
+
+    /**
+     * 保存在表中(元素0以外)的元素的数量
+     */
+    private int tableSize(){
+        return hasZero ? size - 1 : size;
+    }
+
+    private void rehash(int newCapacity){
+        final int[] oldTab = table;
+        allocate(newCapacity);
+        final int[] tab = table;
+        final int mask = newCapacity - 1;
+        for(int k : oldTab){
+            if(k != 0){
+                int i = Hashing.mix(k) & mask;
+                while (tab[i] != 0)
+                    i = (i + 1) & mask;
+                tab[i] = k;
+            }
+        }
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * 如果此set包含指定的元素，返回true
+     */
+    public boolean contains(int e){
+        return e == 0 ? hasZero : probe(e) >= 0;
+    }
+
+    /**
+     * 如果此set不包含指定的元素，把它加入到此set中
+     *
+     * @return true 如果此set原来不包含该元素
+     * @throws IllegalStateException 如果表已经达到最大容量并且
+     *         没有空间容纳新的元素
+     */
+    public boolean add(int e){
+        if(e == 0){
+            if(hasZero)
+                return false;
+            modCount++;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int i = probe(e);
+        if(i >= 0)
+            return false;
+        i = ~i;
+        if(tableSize() + 1 > threshold){
+            if(table.length == HashMap.MAXIMUM_CAPACITY)
+                throw new IllegalStateException("Capacity exhausted.");
+            rehash(table.length << 1);
+            i = ~probe(e);
+        }
+        modCount++;
+        table[i] = e;
+        size++;
+        return true;
+    }
+
+    /**
+     * 把数组a中从off开始的len个元素加入到此set中。如果需要，先一次性扩容
+     * 到能够容纳全部元素的容量，避免逐步的多次扩容
+     *
+     * @return true 如果此set因此改变
+     * @throws IndexOutOfBoundsException 如果off或len越界
+     * @throws IllegalStateException 如果表已经达到最大容量并且
+     *         没有空间容纳新的元素
+     */
+    public boolean addAll(int[] a, int off, int len){
+        if(off < 0 || len < 0 || off > a.length - len)
+            throw new IndexOutOfBoundsException("off: " + off + ", len: " + len +
+                                                ", length: " + a.length);
+        long expected = (long) tableSize() + len;
+        if(expected > threshold){
+            int capacity = Hashing.tableSizeFor((int) Math.min(expected, Integer.MAX_VALUE), loadFactor);
+            if(capacity > table.length)
+                rehash(capacity);
+        }
+        boolean modified = false;
+        for(int end = off + len; off < end; off++)
+            modified |= add(a[off]);
+        return modified;
+    }
+
+    /**
+     * 把数组a中的所有元素加入到此set中
+     *
+     * @return true 如果此set因此改变
+     */
+    public boolean addAll(int[] a){
+        return addAll(a, 0, a.length);
+    }
+
+    /**
+     * 如果此set包含指定set中的所有元素，返回true
+     */
+    public boolean containsAll(IntHashSet s){
+        if(s.hasZero && !hasZero)
+            return false;
+        for(int k : s.table){
+            if(k != 0 && probe(k) < 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * 从此set中删除指定的元素，如果它存在的话
+     *
+     * @return true 如果此set包含该元素
+     */
+    public boolean remove(int e){
+        if(e == 0){
+            if(!hasZero)
+                return false;
+            modCount++;
+            hasZero = false;
+            size--;
+            return true;
+        }
+        int i = probe(e);
+        if(i < 0)
+            return false;
+        removeAt(i);
+        return true;
+    }
+
+    /**
+     * 删除槽位d上的元素，并把同一探测簇中后续的元素向前移动
+     */
+    private void removeAt(int d){
+        modCount++;
+        size--;
+        final int[] tab = table;
+        final int mask = tab.length - 1;
+        int k;
+        for(int i = (d + 1) & mask; (k = tab[i]) != 0; i = (i + 1) & mask){
+            if(Hashing.canShift(Hashing.mix(k) & mask, d, i)){
+                tab[d] = k;
+                d = i;
+            }
+        }
+        tab[d] = 0;
+    }
+
+    /**
+     * 删除此set中所有的元素。表的容量不变
+     */
+    public void clear(){
+        modCount++;
+        Arrays.fill(table, 0);
+        hasZero = false;
+        size = 0;
+    }
+
+    /**
+     * 把表的容量缩减为容纳当前元素所需的最小容量。
+     * 应用程序可以在大量删除之后使用此操作来减少内存占用
+     */
+    public void trimToSize(){
+        int capacity = Hashing.tableSizeFor(tableSize(), loadFactor);
+        if(capacity < table.length){
+            modCount++;
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * 对此set中的每一个元素执行指定的操作。不装箱，也不分配任何对象
+     *
+     * @param action 要执行的操作
+     * @throws NullPointerException 如果action为null
+     * @throws ConcurrentModificationException 如果在遍历期间此set被修改
+     */
+    public void forEach(IntConsumer action){
+        if(action == null)
+            throw new NullPointerException();
+        final int expectedModCount = modCount;
+        if(hasZero)
+            action.accept(0);
+        final int[] tab = table;
+        for(int i = 0; i < tab.length && modCount == expectedModCount; i++){
+            if(tab[i] != 0)
+                action.accept(tab[i]);
+        }
+        if(modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * 返回包含此set中所有元素的数组，顺序不确定
+     */
+    public int[] toArray(){
+        int[] a = new int[size];
+        int n = 0;
+        if(hasZero)
+            a[n++] = 0;
+        for(int k : table){
+            if(k != 0)
+                a[n++] = k;
+        }
+        return a;
+    }
+
+    /**
+     * 返回此set中元素的迭代器。迭代器的nextInt不装箱，支持remove
+     */
+    public IntIterator iterator(){
+        return new SetIterator();
+    }
+
+    public IntHashSet clone(){
+        IntHashSet result;
+        try {
+            result = (IntHashSet) super.clone();
+        } catch (CloneNotSupportedException e){
+            throw new InternalError(e);
+        }
+        result.table = table.clone();
+        result.setView = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    public boolean equals(Object o){
+        if(o == this)
+            return true;
+        if(!(o instanceof IntHashSet))
+            return false;
+        IntHashSet s = (IntHashSet) o;
+        return s.size == size && containsAll(s);
+    }
+
+    /**
+     * 与Set&lt;Integer&gt;的哈希值一致：所有元素的Integer.hashCode之和
+     */
+    public int hashCode(){
+        int h = 0;
+        for(int k : table)
+            h += k;
+        return h;
+    }
+
+    public String toString(){
+        final StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        forEach(k -> {
+            if(sb.length() > 1)
+                sb.append(',').append(' ');
+            sb.append(k);
+        });
+        return sb.append(']').toString();
+    }
+
+    //Set view
+
+    transient SetView setView;
+
+    /**
+     * 返回此set的Set&lt;Integer&gt;视图。此视图受此set支持，所以对此set的改变
+     * 会反映在视图中，反之亦然。视图不允许null元素
+     *
+     * @return 此set的Set视图
+     */
+    public Set<Integer> asSet(){
+        SetView sv = setView;
+        if(sv == null){
+            sv = new SetView();
+            setView = sv;
+        }
+        return sv;
+    }
+
+    final class SetView extends AbstractSet<Integer> {
+        public int size(){
+            return size;
+        }
+
+        public boolean isEmpty(){
+            return size == 0;
+        }
+
+        public boolean contains(Object o){
+            return o instanceof Integer && IntHashSet.this.contains((Integer) o);
+        }
+
+        public boolean add(Integer e){
+            return IntHashSet.this.add(e);
+        }
+
+        public boolean remove(Object o){
+            return o instanceof Integer && IntHashSet.this.remove((Integer) o);
+        }
+
+        /**
+         * 如果c也是IntHashSet的视图，直接比较两个表，不装箱
+         */
+        public boolean containsAll(Collection<?> c){
+            if(c instanceof IntHashSet.SetView)
+                return IntHashSet.this.containsAll(((SetView) c).owner());
+            return super.containsAll(c);
+        }
+
+        public void clear(){
+            IntHashSet.this.clear();
+        }
+
+        public IntIterator iterator(){
+            return new SetIterator();
+        }
+
+        IntHashSet owner(){
+            return IntHashSet.this;
+        }
+    }
+
+    /**
+     * 先返回元素0，然后从表中某个空槽之后开始循环地扫描一整圈；因为探测簇
+     * 不会跨过这个空槽，remove方法向前移动的元素总是还没有被访问过的
+     */
+    final class SetIterator implements IntIterator {
+        boolean zeroPending = hasZero;
+        int index;
+        int remaining;
+        int lastReturned = -2;
+        int expectedModCount = modCount;
+
+        SetIterator(){
+            final int[] tab = table;
+            int empty = 0;
+            while (tab[empty] != 0)
+                empty++;
+            index = (empty + 1) & (tab.length - 1);
+            remaining = tab.length - 1;
+        }
+
+        public boolean hasNext(){
+            if(zeroPending)
+                return true;
+            final int[] tab = table;
+            final int mask = tab.length - 1;
+            while (remaining > 0){
+                if(tab[index] != 0)
+                    return true;
+                index = (index + 1) & mask;
+                remaining--;
+            }
+            return false;
+        }
+
+        public int nextInt(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(!hasNext())
+                throw new NoSuchElementException();
+            if(zeroPending){
+                zeroPending = false;
+                lastReturned = -1;
+                return 0;
+            }
+            final int i = index;
+            lastReturned = i;
+            index = (i + 1) & (table.length - 1);
+            remaining--;
+            return table[i];
+        }
+
+        public void remove(){
+            if(lastReturned == -2)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(lastReturned == -1){
+                IntHashSet.this.remove(0);
+            }else {
+                removeAt(lastReturned);
+                // 后续的元素可能被移到了刚删除的槽位上，需要重新检查它
+                index = lastReturned;
+                remaining++;
+            }
+            expectedModCount = modCount;
+            lastReturned = -2;
+        }
+    }
+
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        s.defaultWriteObject();
+        s.writeInt(size);
+        if(hasZero)
+            s.writeInt(0);
+        for(int k : table){
+            if(k != 0)
+                s.writeInt(k);
+        }
+    }
+
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        s.defaultReadObject();
+        Hashing.checkLoadFactor(loadFactor);
+        int elements = s.readInt();
+        if(elements < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + elements);
+        allocate(Hashing.tableSizeFor(elements, loadFactor));
+        for(int i = 0; i < elements; i++)
+            add(s.readInt());
+    }
+}
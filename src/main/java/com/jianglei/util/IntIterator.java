@@ -0,0 +1,25 @@
+package com.jianglei.util;
+
+/**
+ * 返回基本类型int的迭代器。nextInt不装箱，next只是为了与Iterator&lt;Integer&gt;
+ * 兼容而把nextInt的结果装箱。
+ *
+ * @see IntHashSet
+ * Created by jianglei on 2017/4/21.
+ */
+public interface IntIterator extends Iterator<Integer> {
+
+    /**
+     * 返回迭代的下一个元素
+     *
+     * @throws java.util.NoSuchElementException 如果没有元素可迭代
+     */
+    int nextInt();
+
+    /**
+     * 等价于nextInt()，返回装箱之后的结果
+     */
+    default Integer next(){
+        return nextInt();
+    }
+}
@@ -0,0 +1,549 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * 以基本类型int为键的哈希表。键保存在int[]数组中，值保存在平行的Object[]数组中，
+ * 所以get(int)、put(int, V)、remove(int) 和 forEach(IntObjectConsumer)都不需要
+ * 把键装箱成Integer，也不分配任何节点对象。
+ *
+ * <p>冲突用线性探测解决，删除时把后续的键向前移动（backward shift deletion）,
+ * 不留下墓碑。0被用作空槽的标记，所以键0的映射单独保存在表外。值可以是null。
+ *
+ * <p>此类不实现Map接口；需要把它传给接收Map的代码时，使用asMap()返回的视图。
+ * 视图上的操作会对键装箱，应该只在非热点路径上使用。
+ *
+ * <p>注意此实现不是同步的。asMap()视图的迭代器是fail-fast的。
+ *
+ * @param <V> 映射值的类型
+ * @see LongObjectMap
+ * Created by jianglei on 2017/4/12.
+ */
+public class IntObjectMap<V> implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 4061349618362720367L;
+
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * 键表，0表示空槽
+     */
+    transient int[] keys;
+
+    transient Object[] vals;
+
+    /**
+     * 是否包含键0的映射
+     */
+    transient boolean hasZeroKey;
+
+    /**
+     * 键0映射到的值
+     */
+    transient Object zeroValue;
+
+    /**
+     * 映射的数量，包括键0的映射
+     */
+    transient int size;
+
+    transient int modCount;
+
+    transient int threshold;
+
+    final float loadFactor;
+
+    /**
+     * 创建一个具有指定初始容量和加载因子的空IntObjectMap
+     *
+     * @param expectedSize 预期的映射数量
+     * @param loadFactor 加载因子
+     * @throws IllegalArgumentException 如果初始容量是负数，或者加载因子
+     *         不在(0, 1)范围内
+     */
+    public IntObjectMap(int expectedSize, float loadFactor){
+        this.loadFactor = Hashing.checkLoadFactor(loadFactor);
+        allocate(Hashing.tableSizeFor(expectedSize, loadFactor));
+    }
+
+    public IntObjectMap(int expectedSize){
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public IntObjectMap(){
+        this(DEFAULT_INITIAL_CAPACITY / 2, DEFAULT_LOAD_FACTOR);
+    }
+
+    private void allocate(int capacity){
+        keys = new int[capacity];
+        vals = new Object[capacity];
+        threshold = Hashing.thresholdFor(capacity, loadFactor);
+    }
+
+    /**
+     * 返回非0键key所在的槽位，如果不存在返回-1
+     */
+    private int indexOf(int key){
+        final int[] tab = keys;
+        final int mask = tab.length - 1;
+        int i = Hashing.mix(key) & mask;
+        int k;
+        while ((k = tab[i]) != 0){
+            if(k == key)
+                return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * 如果此map包含指定键的映射，返回true
+     */
+    public boolean containsKey(int key){
+        return key == 0 ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * 如果此map把一个或多个键映射到指定值，返回true
+     */
+    public boolean containsValue(Object value){
+        if(hasZeroKey && eq(value, zeroValue))
+            return true;
+        final int[] tab = keys;
+        final Object[] vs = vals;
+        for(int i = 0; i < tab.length; i++)
+            if(tab[i] != 0 && eq(value, vs[i]))
+                return true;
+        return false;
+    }
+
+    private static boolean eq(Object o1, Object o2){
+        return o1 == null ? o2 == null : o1.equals(o2);
+    }
+
+    /**
+     * 返回指定键映射到的值，如果此map不包含该键的映射，返回null
+     *
+     * @param key 键
+     * @return 此键映射到的值，或者null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key){
+        if(key == 0)
+            return (V) zeroValue;
+        int i = indexOf(key);
+        return i < 0 ? null : (V) vals[i];
+    }
+
+    /**
+     * 把指定值与此map中的指定键关联。如果此map以前包含该键的映射，
+     * 则旧值被替换
+     *
+     * @param key 键
+     * @param value 值
+     * @return 与key关联的旧值，如果key没有映射返回null
+     * @throws IllegalStateException 如果表已经达到最大容量并且
+     *         没有空间容纳新的映射
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value){
+        if(key == 0){
+            V oldValue = (V) zeroValue;
+            if(!hasZeroKey){
+                modCount++;
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return oldValue;
+        }
+
+        for(;;){
+            final int[] tab = keys;
+            final int mask = tab.length - 1;
+            int i = Hashing.mix(key) & mask;
+            for(int k; (k = tab[i]) != 0; i = (i + 1) & mask){
+                if(k == key){
+                    V oldValue = (V) vals[i];
+                    vals[i] = value;
+                    return oldValue;
+                }
+            }
+
+            if(tableSize() + 1 > threshold){
+                if(tab.length == HashMap.MAXIMUM_CAPACITY)
+                    throw new IllegalStateException("Capacity exhausted.");
+                rehash(tab.length << 1);
+                continue;
+            }
+
+            modCount++;
+            tab[i] = key;
+            vals[i] = value;
+            size++;
+            return null;
+        }
+    }
+
+    /**
+     * 保存在表中(键0以外)的映射的数量
+     */
+    private int tableSize(){
+        return hasZeroKey ? size - 1 : size;
+    }
+
+    private void rehash(int newCapacity){
+        final int[] oldKeys = keys;
+        final Object[] oldVals = vals;
+        allocate(newCapacity);
+        final int[] tab = keys;
+        final int mask = newCapacity - 1;
+        for(int j = 0; j < oldKeys.length; j++){
+            int k = oldKeys[j];
+            if(k != 0){
+                int i = Hashing.mix(k) & mask;
+                while (tab[i] != 0)
+                    i = (i + 1) & mask;
+                tab[i] = k;
+                vals[i] = oldVals[j];
+            }
+        }
+    }
+
+    /**
+     * 从此map中删除指定键的映射，如果它存在的话
+     *
+     * @param key 键
+     * @return 与key关联的旧值，如果key没有映射返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key){
+        if(key == 0){
+            if(!hasZeroKey)
+                return null;
+            V oldValue = (V) zeroValue;
+            modCount++;
+            hasZeroKey = false;
+            zeroValue = null;
+            size--;
+            return oldValue;
+        }
+        int i = indexOf(key);
+        if(i < 0)
+            return null;
+        V oldValue = (V) vals[i];
+        removeAt(i);
+        return oldValue;
+    }
+
+    /**
+     * 删除槽位d上的映射，并把同一探测簇中后续的映射向前移动
+     */
+    private void removeAt(int d){
+        modCount++;
+        size--;
+        final int[] tab = keys;
+        final Object[] vs = vals;
+        final int mask = tab.length - 1;
+        int k;
+        for(int i = (d + 1) & mask; (k = tab[i]) != 0; i = (i + 1) & mask){
+            if(Hashing.canShift(Hashing.mix(k) & mask, d, i)){
+                tab[d] = k;
+                vs[d] = vs[i];
+                d = i;
+            }
+        }
+        tab[d] = 0;
+        vs[d] = null;
+    }
+
+    /**
+     * 删除此map中所有的映射
+     */
+    public void clear(){
+        modCount++;
+        Arrays.fill(keys, 0);
+        Arrays.fill(vals, null);
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    /**
+     * 对此map中的每一个映射执行指定的操作。键不会被装箱，遍历也不分配任何对象
+     *
+     * @param action 要执行的操作
+     * @throws NullPointerException 如果action为null
+     * @throws ConcurrentModificationException 如果在遍历期间此map被结构性修改
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(IntObjectConsumer<? super V> action){
+        if(action == null)
+            throw new NullPointerException();
+        final int expectedModCount = modCount;
+        if(hasZeroKey)
+            action.accept(0, (V) zeroValue);
+        final int[] tab = keys;
+        final Object[] vs = vals;
+        for(int i = 0; i < tab.length && modCount == expectedModCount; i++){
+            if(tab[i] != 0)
+                action.accept(tab[i], (V) vs[i]);
+        }
+        if(modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    @SuppressWarnings("unchecked")
+    public IntObjectMap<V> clone(){
+        IntObjectMap<V> result;
+        try {
+            result = (IntObjectMap<V>) super.clone();
+        } catch (CloneNotSupportedException e){
+            throw new InternalError(e);
+        }
+        result.keys = keys.clone();
+        result.vals = vals.clone();
+        result.mapView = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    public boolean equals(Object o){
+        if(o == this)
+            return true;
+        if(o instanceof IntObjectMap)
+            return asMap().equals(((IntObjectMap<?>) o).asMap());
+        return false;
+    }
+
+    public int hashCode(){
+        return asMap().hashCode();
+    }
+
+    public String toString(){
+        return asMap().toString();
+    }
+
+    //Map view
+
+    transient MapView mapView;
+
+    /**
+     * 返回此map的Map&lt;Integer, V&gt;视图。此视图受此map支持，所以对此map的改变
+     * 会反映在视图中，反之亦然。视图不允许null键，它的集合视图支持元素的移除
+     *
+     * @return 此map的Map视图
+     */
+    public Map<Integer, V> asMap(){
+        MapView mv = mapView;
+        if(mv == null){
+            mv = new MapView();
+            mapView = mv;
+        }
+        return mv;
+    }
+
+    final class MapView extends AbstractMap<Integer, V> {
+        public int size(){
+            return size;
+        }
+
+        public boolean isEmpty(){
+            return size == 0;
+        }
+
+        public boolean containsKey(Object key){
+            return key instanceof Integer && IntObjectMap.this.containsKey((Integer) key);
+        }
+
+        public boolean containsValue(Object value){
+            return IntObjectMap.this.containsValue(value);
+        }
+
+        public V get(Object key){
+            return key instanceof Integer ? IntObjectMap.this.get((Integer) key) : null;
+        }
+
+        public V put(Integer key, V value){
+            return IntObjectMap.this.put(key, value);
+        }
+
+        public V remove(Object key){
+            return key instanceof Integer ? IntObjectMap.this.remove((Integer) key) : null;
+        }
+
+        public void clear(){
+            IntObjectMap.this.clear();
+        }
+
+        transient Set<Map.Entry<Integer, V>> entrySet;
+
+        public Set<Map.Entry<Integer, V>> entrySet(){
+            Set<Map.Entry<Integer, V>> es = entrySet;
+            if(es == null){
+                es = new AbstractSet<Map.Entry<Integer, V>>() {
+                    public Iterator<Map.Entry<Integer, V>> iterator(){
+                        return new EntryIterator();
+                    }
+
+                    public int size(){
+                        return size;
+                    }
+
+                    public void clear(){
+                        IntObjectMap.this.clear();
+                    }
+
+                    public boolean contains(Object o){
+                        if(!(o instanceof Map.Entry))
+                            return false;
+                        Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+                        Object k = e.getKey();
+                        if(!(k instanceof Integer))
+                            return false;
+                        int key = (Integer) k;
+                        return IntObjectMap.this.containsKey(key) &&
+                                eq(IntObjectMap.this.get(key), e.getValue());
+                    }
+
+                    public boolean remove(Object o){
+                        if(!contains(o))
+                            return false;
+                        IntObjectMap.this.remove((int) (Integer) ((Map.Entry<?, ?>) o).getKey());
+                        return true;
+                    }
+                };
+                entrySet = es;
+            }
+            return es;
+        }
+    }
+
+    /**
+     * asMap()视图的迭代器。先返回键0的映射，然后从表中某个空槽之后开始
+     * 循环地扫描一整圈；因为探测簇不会跨过这个空槽，remove方法向前移动的
+     * 映射总是还没有被访问过的
+     */
+    final class EntryIterator implements Iterator<Map.Entry<Integer, V>> {
+        boolean zeroPending = hasZeroKey;
+        int index;
+        int remaining;
+        int lastReturned = -2;
+        int expectedModCount = modCount;
+
+        EntryIterator(){
+            final int[] tab = keys;
+            int empty = 0;
+            while (tab[empty] != 0)
+                empty++;
+            index = (empty + 1) & (tab.length - 1);
+            remaining = tab.length - 1;
+        }
+
+        public boolean hasNext(){
+            if(zeroPending)
+                return true;
+            final int[] tab = keys;
+            final int mask = tab.length - 1;
+            while (remaining > 0){
+                if(tab[index] != 0)
+                    return true;
+                index = (index + 1) & mask;
+                remaining--;
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        public Map.Entry<Integer, V> next(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(!hasNext())
+                throw new NoSuchElementException();
+            if(zeroPending){
+                zeroPending = false;
+                lastReturned = -1;
+                return new AbstractMap.SimpleEntry<Integer, V>(0, (V) zeroValue) {
+                    public V setValue(V value){
+                        super.setValue(value);
+                        return IntObjectMap.this.put(0, value);
+                    }
+                };
+            }
+            final int i = index;
+            lastReturned = i;
+            index = (i + 1) & (keys.length - 1);
+            remaining--;
+            return new AbstractMap.SimpleEntry<Integer, V>(keys[i], (V) vals[i]) {
+                public V setValue(V value){
+                    super.setValue(value);
+                    return IntObjectMap.this.put(getKey(), value);
+                }
+            };
+        }
+
+        public void remove(){
+            if(lastReturned == -2)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(lastReturned == -1){
+                IntObjectMap.this.remove(0);
+            }else {
+                removeAt(lastReturned);
+                // 后续的映射可能被移到了刚删除的槽位上，需要重新检查它
+                index = lastReturned;
+                remaining++;
+            }
+            expectedModCount = modCount;
+            lastReturned = -2;
+        }
+    }
+
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        s.defaultWriteObject();
+        s.writeInt(size);
+        if(hasZeroKey){
+            s.writeInt(0);
+            s.writeObject(zeroValue);
+        }
+        final int[] tab = keys;
+        for(int i = 0; i < tab.length; i++){
+            if(tab[i] != 0){
+                s.writeInt(tab[i]);
+                s.writeObject(vals[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        s.defaultReadObject();
+        Hashing.checkLoadFactor(loadFactor);
+        int mappings = s.readInt();
+        if(mappings < 0)
+            throw new java.io.InvalidObjectException("Illegal mappings count: " +
+                                                        mappings);
+        allocate(Hashing.tableSizeFor(mappings, loadFactor));
+        for(int i = 0; i < mappings; i++){
+            int key = s.readInt();
+            put(key, (V) s.readObject());
+        }
+    }
+}
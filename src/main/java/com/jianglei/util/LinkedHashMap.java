@@ -0,0 +1,343 @@
+package com.jianglei.util;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * Map接口的哈希表和链表实现，具有可预知的迭代顺序。此实现与HashMap的不同之处
+ * 在于，它维护着一个贯穿其所有映射的双向链表。此链表定义了迭代顺序，该顺序
+ * 通常就是键插入到map中的顺序（插入顺序）。注意，如果在map中重新插入键，
+ * 则插入顺序不受影响。
+ *
+ * <p>HashMap把映射保存在平行的键数组和值数组中，没有节点对象，所以链表也用
+ * 两个与表平行的int数组before和after来表示：before[i]和after[i]是槽位i上的
+ * 映射在链表中前一个和后一个映射所在的槽位。删除时被向前移动的映射会同时
+ * 修正它邻居的链接，扩容时按链表的顺序重新插入映射并重建链表。
+ *
+ * <p>此类提供了一个特殊的构造器来创建访问顺序的LinkedHashMap，其迭代顺序就是
+ * 映射最后一次被访问的顺序，从近期访问最少到近期访问最多。调用put 或 get方法
+ * 会访问相应的映射，并在O(1)时间内把它移到链表的末尾。这种map很适合构建LRU缓存。
+ *
+ * <p>可以覆盖removeEldestEntry(Map.Entry)方法，以便在向map添加新映射时强制
+ * 自动移除旧的映射，这样可以得到一个有界的LRU缓存。
+ *
+ * <p>此类的集合视图的迭代器沿着链表迭代，所需的时间与map的大小成正比，
+ * 而与容量无关。
+ *
+ * <p>注意此实现不是同步的。在访问顺序的LinkedHashMap中，仅仅用get查询map
+ * 也是一个结构修改。此类所有"集合视图方法"返回的迭代器是fail-fast的。
+ *
+ * <p>这个类是Java Collections Framework 中的一员
+ *
+ * @param <K> 此map维护的键的类型
+ * @param <V> 映射值的类型
+ * @see HashMap
+ * Created by jianglei on 2017/4/14.
+ */
+public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
+
+    private static final long serialVersionUID = 3801124242820219131L;
+
+    /**
+     * before[i] 是槽位i上的映射在链表中前一个映射所在的槽位
+     */
+    transient int[] before;
+
+    /**
+     * after[i] 是槽位i上的映射在链表中后一个映射所在的槽位
+     */
+    transient int[] after;
+
+    /**
+     * 链表头(最老的映射)所在的槽位，只有size &gt; 0 时才有意义
+     */
+    transient int head;
+
+    /**
+     * 链表尾(最新的映射)所在的槽位，只有size &gt; 0 时才有意义
+     */
+    transient int tail;
+
+    /**
+     * 此LinkedHashMap的迭代顺序：true 表示访问顺序，false 表示插入顺序
+     */
+    final boolean accessOrder;
+
+    /**
+     * 创建一个具有指定初始容量和加载因子的空的插入顺序的LinkedHashMap
+     *
+     * @param initialCapacity 初始容量
+     * @param loadFactor 加载因子
+     * @throws IllegalArgumentException 如果初始容量是负数，或者加载因子
+     *         不在(0, 1)范围内
+     */
+    public LinkedHashMap(int initialCapacity, float loadFactor){
+        super(initialCapacity, loadFactor);
+        accessOrder = false;
+    }
+
+    /**
+     * 创建一个具有指定初始容量和默认加载因子(0.5)的空的插入顺序的LinkedHashMap
+     *
+     * @param initialCapacity 初始容量
+     * @throws IllegalArgumentException 如果初始容量是负数
+     */
+    public LinkedHashMap(int initialCapacity){
+        super(initialCapacity);
+        accessOrder = false;
+    }
+
+    /**
+     * 创建一个具有默认初始容量(16)和加载因子(0.5)的空的插入顺序的LinkedHashMap
+     */
+    public LinkedHashMap(){
+        super();
+        accessOrder = false;
+    }
+
+    /**
+     * 创建一个与指定map具有相同映射关系的插入顺序的LinkedHashMap
+     *
+     * @param m 映射要放进此map中的map
+     * @throws NullPointerException 如果指定的map为null
+     */
+    public LinkedHashMap(Map<? extends K, ? extends V> m){
+        super();
+        accessOrder = false;
+        putAll(m);
+    }
+
+    /**
+     * 创建一个具有指定初始容量，加载因子和顺序模式的空LinkedHashMap
+     *
+     * @param initialCapacity 初始容量
+     * @param loadFactor 加载因子
+     * @param accessOrder 顺序模式 - true 表示访问顺序，false 表示插入顺序
+     * @throws IllegalArgumentException 如果初始容量是负数，或者加载因子
+     *         不在(0, 1)范围内
+     */
+    public LinkedHashMap(int initialCapacity,
+                         float loadFactor,
+                         boolean accessOrder){
+        super(initialCapacity, loadFactor);
+        this.accessOrder = accessOrder;
+    }
+
+    //Linked list maintenance
+
+    private void linkLast(int i){
+        if(size == 1){
+            head = i;
+        }else {
+            after[tail] = i;
+            before[i] = tail;
+        }
+        tail = i;
+    }
+
+    private void unlink(int i){
+        int p = before[i];
+        int n = after[i];
+        if(i == head)
+            head = n;
+        else
+            after[p] = n;
+        if(i == tail)
+            tail = p;
+        else
+            before[n] = p;
+    }
+
+    void afterNodeAccess(int i){
+        if(accessOrder && i != tail){
+            modCount++;
+            unlink(i);
+            after[tail] = i;
+            before[i] = tail;
+            tail = i;
+        }
+    }
+
+    void afterNodeInsertion(int i){
+        if(after == null || after.length != keys.length){
+            before = new int[keys.length];
+            after = new int[keys.length];
+        }
+        linkLast(i);
+        if(removeEldestEntry(new SlotEntry(head)))
+            removeAt(head);
+    }
+
+    void afterNodeRemoval(int i){
+        if(size > 0)
+            unlink(i);
+    }
+
+    void afterNodeMove(int from, int to){
+        int p = before[from];
+        int n = after[from];
+        before[to] = p;
+        after[to] = n;
+        if(from == head)
+            head = to;
+        else
+            after[p] = to;
+        if(from == tail)
+            tail = to;
+        else
+            before[n] = to;
+    }
+
+    /**
+     * 按链表的顺序把映射重新插入新表中，并重建链表
+     */
+    void transfer(Object[] oldKeys, Object[] oldVals){
+        if(size == 0 || after == null){
+            before = null;
+            after = null;
+            super.transfer(oldKeys, oldVals);
+            return;
+        }
+        final int[] oldAfter = after;
+        before = new int[keys.length];
+        after = new int[keys.length];
+        int p = head;
+        int prev = -1;
+        for(int c = 0; c < size; c++){
+            int j = insertAbsent(oldKeys[p], oldVals[p]);
+            if(prev < 0){
+                head = j;
+            }else {
+                after[prev] = j;
+                before[j] = prev;
+            }
+            prev = j;
+            p = oldAfter[p];
+        }
+        tail = prev;
+    }
+
+    /**
+     * 如果此map把一个或多个键映射到指定值，返回true。
+     * 此实现沿着链表查找
+     */
+    public boolean containsValue(Object value){
+        final Object[] vs = vals;
+        int p = head;
+        for(int c = 0; c < size; c++, p = after[p]){
+            Object v = vs[p];
+            if(value == null ? v == null : value.equals(v))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * 如果此map应该删除它最老的映射，返回true。在把一个新的映射插入map之后，
+     * put 和 putAll 会调用此方法。它让实现者有机会在每次添加新映射时删除最老
+     * 的映射。如果map表示一个缓存，这是有用的：它允许map通过删除旧的映射来
+     * 减少内存损耗。
+     *
+     * <p>使用示例：此覆盖允许map增长到100个映射，然后每次添加新映射时删除
+     * 最老的映射，保持100个映射的稳定状态。
+     * <pre>
+     *     private static final int MAX_ENTRIES = 100;
+     *
+     *     protected boolean removeEldestEntry(Map.Entry eldest) {
+     *        return size() &gt; MAX_ENTRIES;
+     *     }
+     * </pre>
+     *
+     * <p>此方法通常不以任何方式修改map，而是通过它的返回值来指示map是否
+     * 删除最老的映射。默认的实现总是返回false（map永远不会删除旧的映射）
+     *
+     * @param eldest map中最老的映射；在访问顺序的map中是最近最少被访问的映射。
+     *               此entry只在此方法调用期间有效
+     * @return true 如果应该从map中删除最老的映射，false 如果应该保留它
+     */
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest){
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Object clone(){
+        LinkedHashMap<K, V> result = (LinkedHashMap<K, V>) super.clone();
+        if(after != null){
+            result.before = before.clone();
+            result.after = after.clone();
+        }
+        return result;
+    }
+
+    //Iterators
+
+    Iterator<K> newKeyIterator(){
+        return new LinkedKeyIterator();
+    }
+
+    Iterator<V> newValueIterator(){
+        return new LinkedValueIterator();
+    }
+
+    Iterator<Map.Entry<K, V>> newEntryIterator(){
+        return new LinkedEntryIterator();
+    }
+
+    /**
+     * 沿着链表迭代。删除映射可能会移动下一个要返回的映射所在的槽位，
+     * 所以remove方法在删除之后重新定位它
+     */
+    abstract class LinkedHashIterator<E> implements Iterator<E> {
+        int next = head;
+        int remaining = size;
+        int lastReturned = -1;
+        int expectedModCount = modCount;
+
+        public final boolean hasNext(){
+            return remaining > 0;
+        }
+
+        final int nextIndex(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(remaining == 0)
+                throw new NoSuchElementException();
+            lastReturned = next;
+            if(--remaining > 0)
+                next = after[next];
+            return lastReturned;
+        }
+
+        public final void remove(){
+            if(lastReturned < 0)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            Object nextKey = remaining > 0 ? keys[next] : null;
+            removeAt(lastReturned);
+            if(nextKey != null)
+                next = indexOf(nextKey);
+            expectedModCount = modCount;
+            lastReturned = -1;
+        }
+    }
+
+    final class LinkedKeyIterator extends LinkedHashIterator<K> {
+        public K next(){
+            return unmaskNull(keys[nextIndex()]);
+        }
+    }
+
+    final class LinkedValueIterator extends LinkedHashIterator<V> {
+        @SuppressWarnings("unchecked")
+        public V next(){
+            return (V) vals[nextIndex()];
+        }
+    }
+
+    final class LinkedEntryIterator extends LinkedHashIterator<Map.Entry<K, V>> {
+        public Map.Entry<K, V> next(){
+            return new SlotEntry(nextIndex());
+        }
+    }
+}
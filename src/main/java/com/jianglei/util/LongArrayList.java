@@ -0,0 +1,636 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.LongConsumer;
+
+/**
+ * 元素是基本类型long的可变长数组列表。ArrayList把元素保存在Object[]中，每个
+ * 数值都是一个单独的Long对象，再加上一个引用；此类把元素直接保存在long[]中，
+ * getLong 和 addLong既不装箱也不拆箱。
+ *
+ * <p>扩容策略与ArrayList相同(见ArrayList.newCapacity 和 ArrayList.hugeCapacity)：
+ * 容量不够时增加到原来的1.5倍；没有指定初始容量时，第一次添加元素才分配默认
+ * 容量(10)的数组。{@link #trimToSize()}把数组缩减到元素的个数。
+ *
+ * <p>{@link #asList()}返回一个List&lt;Long&gt;视图，用于与使用对象集合的代码
+ * 互操作；它的equals 和 hashCode与同样元素的List&lt;Long&gt;一致。
+ *
+ * <p>注意此实现不是同步的。
+ *
+ * @see IntArrayList
+ * @see DoubleArrayList
+ * @see ArrayList
+ * Created by jianglei on 2017/4/22.
+ */
+public class LongArrayList implements RandomAccess, Cloneable, Serializable {
+
+    private static final long serialVersionUID = -3146279427408812935L;
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private static final long[] EMPTY_ELEMENTDATA = {};
+
+    private static final long[] DEFAULTCAPACITY_EMPTY_ELEMENTDATA = {};
+
+    transient long[] elementData;
+
+    private int size;
+
+    transient int modCount;
+
+    /**
+     * 创建一个具有指定初始容量的空列表
+     *
+     * @throws IllegalArgumentException 如果初始容量是负数
+     */
+    public LongArrayList(int initialCapacity){
+        if(initialCapacity > 0){
+            this.elementData = new long[initialCapacity];
+        }else if(initialCapacity == 0){
+            this.elementData = EMPTY_ELEMENTDATA;
+        }else {
+            throw new IllegalArgumentException("Illegal Capacity: " +
+                                                initialCapacity);
+        }
+    }
+
+    /**
+     * 创建一个空列表，第一次添加元素时分配默认容量(10)的数组
+     */
+    public LongArrayList(){
+        this.elementData = DEFAULTCAPACITY_EMPTY_ELEMENTDATA;
+    }
+
+    /**
+     * 创建一个包含指定数组中的元素的列表
+     *
+     * @throws NullPointerException 如果指定的数组为null
+     */
+    public LongArrayList(long[] a){
+        size = a.length;
+        elementData = size == 0 ? EMPTY_ELEMENTDATA : a.clone();
+    }
+
+    /**
+     * 把数组的容量缩减为元素的个数
+     */
+    public void trimToSize(){
+        modCount++;
+        if(size < elementData.length){
+            elementData = (size == 0)
+                    ? EMPTY_ELEMENTDATA
+                    : Arrays.copyOf(elementData, size);
+        }
+    }
+
+    /**
+     * 必要时增加数组的容量，使它至少能容纳minCapacity个元素
+     */
+    public void ensureCapacity(int minCapacity){
+        int minExpand = (elementData != DEFAULTCAPACITY_EMPTY_ELEMENTDATA)
+                ? 0
+                : DEFAULT_CAPACITY;
+        if(minCapacity > minExpand){
+            ensureExplicitCapacity(minCapacity);
+        }
+    }
+
+    private void ensureCapacityInternal(int minCapacity){
+        if(elementData == DEFAULTCAPACITY_EMPTY_ELEMENTDATA){
+            minCapacity = Math.max(DEFAULT_CAPACITY, minCapacity);
+        }
+        ensureExplicitCapacity(minCapacity);
+    }
+
+    private void ensureExplicitCapacity(int minCapacity){
+        modCount++;
+
+        if(minCapacity - elementData.length > 0)
+            grow(minCapacity);
+    }
+
+    private void grow(int minCapacity){
+        elementData = Arrays.copyOf(elementData, ArrayList.newCapacity(elementData.length, minCapacity));
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * 返回指定位置上的元素
+     *
+     * @throws IndexOutOfBoundsException 如果index超出范围
+     */
+    public long getLong(int index){
+        rangeCheck(index);
+        return elementData[index];
+    }
+
+    /**
+     * 用指定的元素替换指定位置上的元素
+     *
+     * @return 原来在该位置上的元素
+     * @throws IndexOutOfBoundsException 如果index超出范围
+     */
+    public long setLong(int index, long element){
+        rangeCheck(index);
+        long oldValue = elementData[index];
+        elementData[index] = element;
+        return oldValue;
+    }
+
+    /**
+     * 把指定的元素添加到列表的末尾
+     */
+    public void addLong(long e){
+        ensureCapacityInternal(size + 1);
+        elementData[size++] = e;
+    }
+
+    /**
+     * 把指定的元素插入到指定的位置，把该位置及之后的元素向后移动
+     *
+     * @throws IndexOutOfBoundsException 如果index超出范围
+     */
+    public void addLong(int index, long element){
+        rangeCheckForAdd(index);
+        ensureCapacityInternal(size + 1);
+        System.arraycopy(elementData, index, elementData, index + 1, size - index);
+        elementData[index] = element;
+        size++;
+    }
+
+    /**
+     * 把数组a中从off开始的len个元素添加到列表的末尾，最多扩容一次
+     *
+     * @throws IndexOutOfBoundsException 如果off 和 len超出了数组的范围
+     * @throws NullPointerException 如果指定的数组为null
+     */
+    public void addAll(long[] a, int off, int len){
+        if(off < 0 || len < 0 || len > a.length - off)
+            throw new IndexOutOfBoundsException("off: " + off + ", len: " + len +
+                                                ", length: " + a.length);
+        ensureCapacityInternal(size + len);
+        System.arraycopy(a, off, elementData, size, len);
+        size += len;
+    }
+
+    /**
+     * 把数组a中所有的元素添加到列表的末尾
+     *
+     * @throws NullPointerException 如果指定的数组为null
+     */
+    public void addAll(long[] a){
+        addAll(a, 0, a.length);
+    }
+
+    /**
+     * 删除指定位置上的元素，把之后的元素向前移动
+     *
+     * @return 被删除的元素
+     * @throws IndexOutOfBoundsException 如果index超出范围
+     */
+    public long removeLongAt(int index){
+        rangeCheck(index);
+        modCount++;
+        long oldValue = elementData[index];
+        int numMoved = size - index - 1;
+        if(numMoved > 0)
+            System.arraycopy(elementData, index + 1, elementData, index, numMoved);
+        size--;
+        return oldValue;
+    }
+
+    /**
+     * 返回指定元素第一次出现的位置，如果不存在返回-1
+     */
+    public int indexOf(long e){
+        final long[] es = elementData;
+        for(int i = 0; i < size; i++){
+            if(es[i] == e)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 返回指定元素最后一次出现的位置，如果不存在返回-1
+     */
+    public int lastIndexOf(long e){
+        final long[] es = elementData;
+        for(int i = size - 1; i >= 0; i--){
+            if(es[i] == e)
+                return i;
+        }
+        return -1;
+    }
+
+    public boolean contains(long e){
+        return indexOf(e) >= 0;
+    }
+
+    /**
+     * 删除所有的元素。数组的容量不变
+     */
+    public void clear(){
+        modCount++;
+        size = 0;
+    }
+
+    /**
+     * 按顺序对每一个元素执行指定的操作，不装箱
+     *
+     * @throws NullPointerException 如果action为null
+     * @throws ConcurrentModificationException 如果在遍历期间此列表被修改
+     */
+    public void forEach(LongConsumer action){
+        if(action == null)
+            throw new NullPointerException();
+        final int expectedModCount = modCount;
+        final long[] es = elementData;
+        final int size = this.size;
+        for(int i = 0; i < size && modCount == expectedModCount; i++)
+            action.accept(es[i]);
+        if(modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * 返回按顺序包含所有元素的数组
+     */
+    public long[] toLongArray(){
+        return Arrays.copyOf(elementData, size);
+    }
+
+    public LongArrayList clone(){
+        LongArrayList result;
+        try {
+            result = (LongArrayList) super.clone();
+        } catch (CloneNotSupportedException e){
+            throw new InternalError(e);
+        }
+        result.elementData = Arrays.copyOf(elementData, size);
+        result.listView = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    public boolean equals(Object o){
+        if(o == this)
+            return true;
+        if(!(o instanceof LongArrayList))
+            return false;
+        LongArrayList l = (LongArrayList) o;
+        if(l.size != size)
+            return false;
+        final long[] a = elementData;
+        final long[] b = l.elementData;
+        for(int i = 0; i < size; i++){
+            if(a[i] != b[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * 与List&lt;Long&gt;的哈希值一致
+     */
+    public int hashCode(){
+        int h = 1;
+        final long[] es = elementData;
+        for(int i = 0; i < size; i++)
+            h = 31 * h + Long.hashCode(es[i]);
+        return h;
+    }
+
+    public String toString(){
+        if(size == 0)
+            return "[]";
+        final StringBuilder sb = new StringBuilder();
+        sb.append('[').append(elementData[0]);
+        for(int i = 1; i < size; i++)
+            sb.append(',').append(' ').append(elementData[i]);
+        return sb.append(']').toString();
+    }
+
+    private void rangeCheck(int index){
+        if(index >= size)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    private void rangeCheckForAdd(int index){
+        if(index > size || index < 0)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    private String outOfBoundsMsg(int index){
+        return "Index: " + index + ", Size: " + size;
+    }
+
+    //List view
+
+    transient ListView listView;
+
+    /**
+     * 返回此列表的List&lt;Long&gt;视图。此视图受此列表支持，所以对此列表的
+     * 改变会反映在视图中，反之亦然。视图不允许null元素
+     *
+     * @return 此列表的List视图
+     */
+    public List<Long> asList(){
+        ListView lv = listView;
+        if(lv == null){
+            lv = new ListView();
+            listView = lv;
+        }
+        return lv;
+    }
+
+    final class ListView extends AbstractList<Long> implements RandomAccess {
+        public int size(){
+            return size;
+        }
+
+        public Long get(int index){
+            return getLong(index);
+        }
+
+        public Long set(int index, Long element){
+            return setLong(index, element);
+        }
+
+        public boolean add(Long e){
+            addLong(e);
+            return true;
+        }
+
+        public void add(int index, Long element){
+            addLong(index, element);
+        }
+
+        public Long remove(int index){
+            return removeLongAt(index);
+        }
+
+        public int indexOf(Object o){
+            return o instanceof Long ? LongArrayList.this.indexOf((Long) o) : -1;
+        }
+
+        public int lastIndexOf(Object o){
+            return o instanceof Long ? LongArrayList.this.lastIndexOf((Long) o) : -1;
+        }
+
+        public boolean contains(Object o){
+            return indexOf(o) >= 0;
+        }
+
+        public void clear(){
+            LongArrayList.this.clear();
+        }
+
+        /**
+         * AbstractList没有覆盖hashCode，这里按List的约定计算
+         */
+        public int hashCode(){
+            return LongArrayList.this.hashCode();
+        }
+
+        /**
+         * 迭代器的nextLong不装箱，并且在此列表被直接修改时也能快速失败
+         */
+        public LongIterator iterator(){
+            return new Itr();
+        }
+
+        /**
+         * 视图继承的modCount不会随此列表改变，所以列表迭代器和子列表都检查此列表的modCount
+         */
+        public ListIterator<Long> listIterator(int index){
+            rangeCheckForAdd(index);
+            return new ListItr(index);
+        }
+
+        public ListIterator<Long> listIterator(){
+            return new ListItr(0);
+        }
+
+        public List<Long> subList(int fromIndex, int toIndex){
+            ArrayList.subListRangeCheck(fromIndex, toIndex, size);
+            return new SubList(this, 0, fromIndex, toIndex);
+        }
+    }
+
+    class Itr implements LongIterator {
+        int cursor;
+        int lastRet = -1;
+        int expectedModCount = modCount;
+
+        public boolean hasNext(){
+            return cursor != size;
+        }
+
+        public long nextLong(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            int i = cursor;
+            if(i >= size)
+                throw new NoSuchElementException();
+            cursor = i + 1;
+            return elementData[lastRet = i];
+        }
+
+        public void remove(){
+            if(lastRet < 0)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeLongAt(lastRet);
+            cursor = lastRet;
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    final class ListItr extends Itr implements ListIterator<Long> {
+        ListItr(int index){
+            cursor = index;
+        }
+
+        public Long next(){
+            return nextLong();
+        }
+
+        public boolean hasPrevious(){
+            return cursor != 0;
+        }
+
+        public int nextIndex(){
+            return cursor;
+        }
+
+        public int previousIndex(){
+            return cursor - 1;
+        }
+
+        public Long privious(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            int i = cursor - 1;
+            if(i < 0)
+                throw new NoSuchElementException();
+            cursor = i;
+            return elementData[lastRet = i];
+        }
+
+        public void set(Long e){
+            if(lastRet < 0)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            setLong(lastRet, e);
+        }
+
+        public void add(Long e){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            addLong(cursor++, e);
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * List视图的子列表，直接读写此列表的数组。与ArrayList的子列表一样，
+     * 通过子列表以外的方式改变此列表之后，子列表的操作会抛出ConcurrentModificationException
+     */
+    final class SubList extends AbstractList<Long> implements RandomAccess {
+        private final AbstractList<Long> parent;
+        private final int parentOffset;
+        private final int offset;
+        int size;
+
+        SubList(AbstractList<Long> parent, int offset, int fromIndex, int toIndex){
+            this.parent = parent;
+            this.parentOffset = fromIndex;
+            this.offset = offset + fromIndex;
+            this.size = toIndex - fromIndex;
+            this.modCount = LongArrayList.this.modCount;
+        }
+
+        public Long set(int index, Long e){
+            rangeCheck(index);
+            checkForComodification();
+            long oldValue = elementData[offset + index];
+            elementData[offset + index] = e;
+            return oldValue;
+        }
+
+        public Long get(int index){
+            rangeCheck(index);
+            checkForComodification();
+            return elementData[offset + index];
+        }
+
+        public int size(){
+            checkForComodification();
+            return this.size;
+        }
+
+        public void add(int index, Long e){
+            rangeCheckForAdd(index);
+            checkForComodification();
+            parent.add(parentOffset + index, e);
+            this.modCount = LongArrayList.this.modCount;
+            this.size++;
+        }
+
+        public Long remove(int index){
+            rangeCheck(index);
+            checkForComodification();
+            Long result = parent.remove(parentOffset + index);
+            this.modCount = LongArrayList.this.modCount;
+            this.size--;
+            return result;
+        }
+
+        public int hashCode(){
+            checkForComodification();
+            int h = 1;
+            final long[] es = elementData;
+            for(int i = offset, end = offset + size; i < end; i++)
+                h = 31 * h + Long.hashCode(es[i]);
+            return h;
+        }
+
+        public List<Long> subList(int fromIndex, int toIndex){
+            ArrayList.subListRangeCheck(fromIndex, toIndex, size);
+            return new SubList(this, offset, fromIndex, toIndex);
+        }
+
+        private void rangeCheck(int index){
+            if(index < 0 || index >= this.size)
+                throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+        }
+
+        private void rangeCheckForAdd(int index){
+            if(index < 0 || index > this.size)
+                throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+        }
+
+        private String outOfBoundsMsg(int index){
+            return "Index: " + index + ", Size: " + this.size;
+        }
+
+        private void checkForComodification(){
+            if(LongArrayList.this.modCount != this.modCount)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    //Serialization
+
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        int expectedModCount = modCount;
+        s.defaultWriteObject();
+
+        s.writeInt(size);
+
+        for(int i = 0; i < size; i++){
+            s.writeLong(elementData[i]);
+        }
+
+        if(modCount != expectedModCount){
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        elementData = EMPTY_ELEMENTDATA;
+        s.defaultReadObject();
+
+        s.readInt();
+
+        if(size < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + size);
+        if(size > 0){
+            ensureCapacityInternal(size);
+
+            long[] a = elementData;
+            for(int i = 0; i < size; i++){
+                a[i] = s.readLong();
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.jianglei.util;
+
+/**
+ * 接收一个long键和一个double值的操作，不返回结果。
+ * 用于不装箱地遍历LongDoubleMap。
+ *
+ * @see LongDoubleMap#forEach(LongDoubleConsumer)
+ * Created by jianglei on 2017/4/13.
+ */
+@FunctionalInterface
+public interface LongDoubleConsumer {
+
+    /**
+     * 对指定的键和值执行此操作
+     *
+     * @param key 键
+     * @param value 值
+     */
+    void accept(long key, double value);
+}
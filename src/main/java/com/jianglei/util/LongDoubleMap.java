@@ -0,0 +1,465 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+
+/**
+ * 键和值都是基本类型的开放寻址哈希表(long 到 double)，适合保存计数器和聚合值。
+ * 键和值保存在两个平行的基本类型数组中，每个映射既不装箱也不分配节点对象。
+ *
+ * <p>addTo、getOrDefault 和 putIfAbsent 都只做一次探测：探测要么找到键所在的
+ * 槽位，要么停在键应该插入的空槽上，插入直接使用这个空槽，不需要第二次查找
+ * （除非插入触发了扩容）。
+ *
+ * <p>冲突用线性探测解决，删除时把后续的键向前移动，不留下墓碑。0被用作空槽
+ * 的标记，所以键0的映射单独保存在表外。对于不存在的键，put 和 remove 返回0，
+ * 需要区分时请使用containsKey。
+ *
+ * <p>注意此实现不是同步的。
+ *
+ * @see IntIntMap
+ * @see LongLongMap
+ * Created by jianglei on 2017/4/13.
+ */
+public class LongDoubleMap implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 6682916402761380975L;
+
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * 键表，0表示空槽
+     */
+    transient long[] keys;
+
+    transient double[] vals;
+
+    /**
+     * 是否包含键0的映射
+     */
+    transient boolean hasZeroKey;
+
+    /**
+     * 键0映射到的值
+     */
+    transient double zeroValue;
+
+    /**
+     * 映射的数量，包括键0的映射
+     */
+    transient int size;
+
+    transient int modCount;
+
+    transient int threshold;
+
+    final float loadFactor;
+
+    /**
+     * 创建一个具有指定初始容量和加载因子的空LongDoubleMap
+     *
+     * @param expectedSize 预期的映射数量
+     * @param loadFactor 加载因子
+     * @throws IllegalArgumentException 如果初始容量是负数，或者加载因子
+     *         不在(0, 1)范围内
+     */
+    public LongDoubleMap(int expectedSize, float loadFactor){
+        this.loadFactor = Hashing.checkLoadFactor(loadFactor);
+        allocate(Hashing.tableSizeFor(expectedSize, loadFactor));
+    }
+
+    public LongDoubleMap(int expectedSize){
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public LongDoubleMap(){
+        this(DEFAULT_INITIAL_CAPACITY / 2, DEFAULT_LOAD_FACTOR);
+    }
+
+    private void allocate(int capacity){
+        keys = new long[capacity];
+        vals = new double[capacity];
+        threshold = Hashing.thresholdFor(capacity, loadFactor);
+    }
+
+    /**
+     * 沿着非0键key的探测序列查找。如果找到了返回它所在的槽位，
+     * 否则返回 ~i，i是探测停下的空槽
+     */
+    private int probe(long key){
+        final long[] tab = keys;
+        final int mask = tab.length - 1;
+        int i = Hashing.mix(key) & mask;
+        long k;
+        while ((k = tab[i]) != 0){
+            if(k == key)
+                return i;
+            i = (i + 1) & mask;
+        }
+        return ~i;
+    }
+
+    /**
+     * 在probe返回的空槽上插入一个新的映射。如果插入需要扩容，
+     * 扩容之后重新探测空槽
+     */
+    private void insert(int emptySlot, long key, double value){
+        int i = emptySlot;
+        if(tableSize() + 1 > threshold){
+            if(keys.length == HashMap.MAXIMUM_CAPACITY)
+                throw new IllegalStateException("Capacity exhausted.");
+            rehash(keys.length << 1);
+            i = ~probe(key);
+        }
+        modCount++;
+        keys[i] = key;
+        vals[i] = value;
+        size++;
+    }
+
+    /**
+     * 保存在表中(键0以外)的映射的数量
+     */
+    private int tableSize(){
+        return hasZeroKey ? size - 1 : size;
+    }
+
+    private void rehash(int newCapacity){
+        final long[] oldKeys = keys;
+        final double[] oldVals = vals;
+        allocate(newCapacity);
+        final long[] tab = keys;
+        final int mask = newCapacity - 1;
+        for(int j = 0; j < oldKeys.length; j++){
+            long k = oldKeys[j];
+            if(k != 0){
+                int i = Hashing.mix(k) & mask;
+                while (tab[i] != 0)
+                    i = (i + 1) & mask;
+                tab[i] = k;
+                vals[i] = oldVals[j];
+            }
+        }
+    }
+
+    private void insertZero(double value){
+        modCount++;
+        hasZeroKey = true;
+        zeroValue = value;
+        size++;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * 如果此map包含指定键的映射，返回true
+     */
+    public boolean containsKey(long key){
+        return key == 0 ? hasZeroKey : probe(key) >= 0;
+    }
+
+    /**
+     * 返回指定键映射到的值，如果此map不包含该键的映射，返回dflt
+     *
+     * @param key 键
+     * @param dflt 键不存在时返回的值
+     * @return 此键映射到的值，或者dflt
+     */
+    public double getOrDefault(long key, double dflt){
+        if(key == 0)
+            return hasZeroKey ? zeroValue : dflt;
+        int i = probe(key);
+        return i >= 0 ? vals[i] : dflt;
+    }
+
+    /**
+     * 返回指定键映射到的值，如果此map不包含该键的映射，返回0
+     */
+    public double get(long key){
+        return getOrDefault(key, 0);
+    }
+
+    /**
+     * 把指定值与此map中的指定键关联。如果此map以前包含该键的映射，
+     * 则旧值被替换
+     *
+     * @param key 键
+     * @param value 值
+     * @return 与key关联的旧值，如果key没有映射返回0
+     * @throws IllegalStateException 如果表已经达到最大容量并且
+     *         没有空间容纳新的映射
+     */
+    public double put(long key, double value){
+        if(key == 0){
+            double oldValue = zeroValue;
+            if(hasZeroKey)
+                zeroValue = value;
+            else
+                insertZero(value);
+            return oldValue;
+        }
+        int i = probe(key);
+        if(i >= 0){
+            double oldValue = vals[i];
+            vals[i] = value;
+            return oldValue;
+        }
+        insert(~i, key, value);
+        return 0;
+    }
+
+    /**
+     * 如果此map不包含指定键的映射，把它与指定值关联
+     *
+     * @param key 键
+     * @param value 值
+     * @return true 如果插入了新的映射，false 如果键已经存在(值不变)
+     * @throws IllegalStateException 如果表已经达到最大容量并且
+     *         没有空间容纳新的映射
+     */
+    public boolean putIfAbsent(long key, double value){
+        if(key == 0){
+            if(hasZeroKey)
+                return false;
+            insertZero(value);
+            return true;
+        }
+        int i = probe(key);
+        if(i >= 0)
+            return false;
+        insert(~i, key, value);
+        return true;
+    }
+
+    /**
+     * 把指定的增量加到键所映射的值上。如果此map不包含该键的映射，
+     * 则先把它映射到0
+     *
+     * @param key 键
+     * @param delta 增量
+     * @return 相加之后的新值
+     * @throws IllegalStateException 如果表已经达到最大容量并且
+     *         没有空间容纳新的映射
+     */
+    public double addTo(long key, double delta){
+        if(key == 0){
+            if(hasZeroKey)
+                return zeroValue += delta;
+            insertZero(delta);
+            return delta;
+        }
+        int i = probe(key);
+        if(i >= 0)
+            return vals[i] += delta;
+        insert(~i, key, delta);
+        return delta;
+    }
+
+    /**
+     * 从此map中删除指定键的映射，如果它存在的话
+     *
+     * @param key 键
+     * @return 与key关联的旧值，如果key没有映射返回0
+     */
+    public double remove(long key){
+        if(key == 0){
+            if(!hasZeroKey)
+                return 0;
+            double oldValue = zeroValue;
+            modCount++;
+            hasZeroKey = false;
+            zeroValue = 0;
+            size--;
+            return oldValue;
+        }
+        int i = probe(key);
+        if(i < 0)
+            return 0;
+        double oldValue = vals[i];
+        removeAt(i);
+        return oldValue;
+    }
+
+    /**
+     * 删除槽位d上的映射，并把同一探测簇中后续的映射向前移动
+     */
+    private void removeAt(int d){
+        modCount++;
+        size--;
+        final long[] tab = keys;
+        final double[] vs = vals;
+        final int mask = tab.length - 1;
+        long k;
+        for(int i = (d + 1) & mask; (k = tab[i]) != 0; i = (i + 1) & mask){
+            if(Hashing.canShift(Hashing.mix(k) & mask, d, i)){
+                tab[d] = k;
+                vs[d] = vs[i];
+                d = i;
+            }
+        }
+        tab[d] = 0;
+        vs[d] = 0;
+    }
+
+    /**
+     * 删除此map中所有的映射。表的容量不变
+     */
+    public void clear(){
+        modCount++;
+        Arrays.fill(keys, 0);
+        Arrays.fill(vals, 0);
+        hasZeroKey = false;
+        zeroValue = 0;
+        size = 0;
+    }
+
+    /**
+     * 把表的容量缩减为容纳当前映射所需的最小容量。
+     * 应用程序可以在大量删除之后使用此操作来减少内存占用
+     */
+    public void trimToSize(){
+        int capacity = Hashing.tableSizeFor(tableSize(), loadFactor);
+        if(capacity < keys.length){
+            modCount++;
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * 对此map中的每一个映射执行指定的操作。不装箱，也不分配任何对象
+     *
+     * @param action 要执行的操作
+     * @throws NullPointerException 如果action为null
+     * @throws ConcurrentModificationException 如果在遍历期间此map被结构性修改
+     */
+    public void forEach(LongDoubleConsumer action){
+        if(action == null)
+            throw new NullPointerException();
+        final int expectedModCount = modCount;
+        if(hasZeroKey)
+            action.accept(0, zeroValue);
+        final long[] tab = keys;
+        final double[] vs = vals;
+        for(int i = 0; i < tab.length && modCount == expectedModCount; i++){
+            if(tab[i] != 0)
+                action.accept(tab[i], vs[i]);
+        }
+        if(modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    public LongDoubleMap clone(){
+        LongDoubleMap result;
+        try {
+            result = (LongDoubleMap) super.clone();
+        } catch (CloneNotSupportedException e){
+            throw new InternalError(e);
+        }
+        result.keys = keys.clone();
+        result.vals = vals.clone();
+        result.modCount = 0;
+        return result;
+    }
+
+    /**
+     * 两个LongDoubleMap包含相同的映射(键相等，值按Double.equals相等)时相等
+     */
+    public boolean equals(Object o){
+        if(o == this)
+            return true;
+        if(!(o instanceof LongDoubleMap))
+            return false;
+        LongDoubleMap m = (LongDoubleMap) o;
+        if(m.size != size || m.hasZeroKey != hasZeroKey)
+            return false;
+        if(hasZeroKey && !valueEquals(zeroValue, m.zeroValue))
+            return false;
+        final long[] tab = keys;
+        final double[] vs = vals;
+        for(int i = 0; i < tab.length; i++){
+            if(tab[i] != 0){
+                int j = m.probe(tab[i]);
+                if(j < 0 || !valueEquals(vs[i], m.vals[j]))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean valueEquals(double v1, double v2){
+        return Double.doubleToLongBits(v1) == Double.doubleToLongBits(v2);
+    }
+
+    /**
+     * 返回每个映射的(键的哈希码 ^ 值的哈希码)之和，与包含相同映射的Map&lt;Long, Double&gt;的哈希码相同
+     */
+    public int hashCode(){
+        int h = 0;
+        if(hasZeroKey)
+            h += entryHash(0, zeroValue);
+        final long[] tab = keys;
+        final double[] vs = vals;
+        for(int i = 0; i < tab.length; i++){
+            if(tab[i] != 0)
+                h += entryHash(tab[i], vs[i]);
+        }
+        return h;
+    }
+
+    private static int entryHash(long k, double v){
+        return Long.hashCode(k) ^ Double.hashCode(v);
+    }
+
+    public String toString(){
+        final StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        forEach((k, v) -> {
+            if(sb.length() > 1)
+                sb.append(',').append(' ');
+            sb.append(k).append('=').append(v);
+        });
+        return sb.append('}').toString();
+    }
+
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        s.defaultWriteObject();
+        s.writeInt(size);
+        if(hasZeroKey){
+            s.writeLong(0);
+            s.writeDouble(zeroValue);
+        }
+        final long[] tab = keys;
+        for(int i = 0; i < tab.length; i++){
+            if(tab[i] != 0){
+                s.writeLong(tab[i]);
+                s.writeDouble(vals[i]);
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        s.defaultReadObject();
+        Hashing.checkLoadFactor(loadFactor);
+        int mappings = s.readInt();
+        if(mappings < 0)
+            throw new java.io.InvalidObjectException("Illegal mappings count: " +
+                                                        mappings);
+        allocate(Hashing.tableSizeFor(mappings, loadFactor));
+        for(int i = 0; i < mappings; i++){
+            long key = s.readLong();
+            put(key, s.readDouble());
+        }
+    }
+}
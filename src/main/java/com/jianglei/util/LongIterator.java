@@ -0,0 +1,25 @@
+package com.jianglei.util;
+
+/**
+ * 返回基本类型long的迭代器。nextLong不装箱，next只是为了与Iterator&lt;Long&gt;
+ * 兼容而把nextLong的结果装箱。
+ *
+ * @see LongHashSet
+ * Created by jianglei on 2017/4/21.
+ */
+public interface LongIterator extends Iterator<Long> {
+
+    /**
+     * 返回迭代的下一个元素
+     *
+     * @throws java.util.NoSuchElementException 如果没有元素可迭代
+     */
+    long nextLong();
+
+    /**
+     * 等价于nextLong()，返回装箱之后的结果
+     */
+    default Long next(){
+        return nextLong();
+    }
+}
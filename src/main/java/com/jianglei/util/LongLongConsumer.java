@@ -0,0 +1,20 @@
+package com.jianglei.util;
+
+/**
+ * 接收一个long键和一个long值的操作，不返回结果。
+ * 用于不装箱地遍历LongLongMap。
+ *
+ * @see LongLongMap#forEach(LongLongConsumer)
+ * Created by jianglei on 2017/4/13.
+ */
+@FunctionalInterface
+public interface LongLongConsumer {
+
+    /**
+     * 对指定的键和值执行此操作
+     *
+     * @param key 键
+     * @param value 值
+     */
+    void accept(long key, long value);
+}
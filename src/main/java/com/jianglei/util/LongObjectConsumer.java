@@ -0,0 +1,21 @@
+package com.jianglei.util;
+
+/**
+ * 接收一个long键和一个对象值的操作，不返回结果。
+ * 用于不装箱地遍历LongObjectMap。
+ *
+ * @param <V> 值的类型
+ * @see LongObjectMap#forEach(LongObjectConsumer)
+ * Created by jianglei on 2017/4/12.
+ */
+@FunctionalInterface
+public interface LongObjectConsumer<V> {
+
+    /**
+     * 对指定的键和值执行此操作
+     *
+     * @param key 键
+     * @param value 值
+     */
+    void accept(long key, V value);
+}
@@ -264,5 +264,173 @@ public interface Map<K, V> {
 
     int hashCode();
 
+    //Static factories
 
+    /**
+     * 返回不包含任何映射的不可变map。
+     *
+     * <p>of，ofEntries 和 copyOf方法返回的map是不可变的：修改方法都抛出
+     * UnsupportedOperationException。它们不允许null键和null值，迭代顺序
+     * 是不确定的。实现根据映射的数量选择最紧凑的表示：两个以内的映射直接保存
+     * 在字段中，少量的映射保存在一个线性扫描的数组中，更多的映射保存在开放
+     * 寻址表中
+     *
+     * @param <K> 键的类型
+     * @param <V> 值的类型
+     * @return 空的不可变map
+     */
+    static <K, V> Map<K, V> of(){
+        return ImmutableCollections.mapOf(new Object[0]);
+    }
+
+    /**
+     * 返回包含1个映射的不可变map
+     *
+     * @throws IllegalArgumentException 如果有重复的键
+     * @throws NullPointerException 如果任何键或值为null
+     */
+    static <K, V> Map<K, V> of(K k1, V v1){
+        return ImmutableCollections.mapOf(new Object[]{k1, v1});
+    }
+
+    /**
+     * 返回包含2个映射的不可变map
+     *
+     * @throws IllegalArgumentException 如果有重复的键
+     * @throws NullPointerException 如果任何键或值为null
+     */
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2){
+        return ImmutableCollections.mapOf(new Object[]{k1, v1, k2, v2});
+    }
+
+    /**
+     * 返回包含3个映射的不可变map
+     *
+     * @throws IllegalArgumentException 如果有重复的键
+     * @throws NullPointerException 如果任何键或值为null
+     */
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3){
+        return ImmutableCollections.mapOf(new Object[]{k1, v1, k2, v2, k3, v3});
+    }
+
+    /**
+     * 返回包含4个映射的不可变map
+     *
+     * @throws IllegalArgumentException 如果有重复的键
+     * @throws NullPointerException 如果任何键或值为null
+     */
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4){
+        return ImmutableCollections.mapOf(new Object[]{k1, v1, k2, v2, k3, v3, k4, v4});
+    }
+
+    /**
+     * 返回包含5个映射的不可变map
+     *
+     * @throws IllegalArgumentException 如果有重复的键
+     * @throws NullPointerException 如果任何键或值为null
+     */
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4, K k5, V v5){
+        return ImmutableCollections.mapOf(new Object[]{k1, v1, k2, v2, k3, v3, k4, v4, k5, v5});
+    }
+
+    /**
+     * 返回包含6个映射的不可变map
+     *
+     * @throws IllegalArgumentException 如果有重复的键
+     * @throws NullPointerException 如果任何键或值为null
+     */
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4, K k5, V v5, K k6, V v6){
+        return ImmutableCollections.mapOf(new Object[]{k1, v1, k2, v2, k3, v3, k4, v4, k5, v5, k6, v6});
+    }
+
+    /**
+     * 返回包含7个映射的不可变map
+     *
+     * @throws IllegalArgumentException 如果有重复的键
+     * @throws NullPointerException 如果任何键或值为null
+     */
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4, K k5, V v5, K k6, V v6, K k7, V v7){
+        return ImmutableCollections.mapOf(new Object[]{k1, v1, k2, v2, k3, v3, k4, v4, k5, v5, k6, v6, k7, v7});
+    }
+
+    /**
+     * 返回包含8个映射的不可变map
+     *
+     * @throws IllegalArgumentException 如果有重复的键
+     * @throws NullPointerException 如果任何键或值为null
+     */
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4, K k5, V v5, K k6, V v6, K k7, V v7, K k8, V v8){
+        return ImmutableCollections.mapOf(new Object[]{k1, v1, k2, v2, k3, v3, k4, v4, k5, v5, k6, v6, k7, v7, k8, v8});
+    }
+
+    /**
+     * 返回包含9个映射的不可变map
+     *
+     * @throws IllegalArgumentException 如果有重复的键
+     * @throws NullPointerException 如果任何键或值为null
+     */
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4, K k5, V v5, K k6, V v6, K k7, V v7, K k8, V v8, K k9, V v9){
+        return ImmutableCollections.mapOf(new Object[]{k1, v1, k2, v2, k3, v3, k4, v4, k5, v5, k6, v6, k7, v7, k8, v8, k9, v9});
+    }
+
+    /**
+     * 返回包含10个映射的不可变map
+     *
+     * @throws IllegalArgumentException 如果有重复的键
+     * @throws NullPointerException 如果任何键或值为null
+     */
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4, K k5, V v5, K k6, V v6, K k7, V v7, K k8, V v8, K k9, V v9, K k10, V v10){
+        return ImmutableCollections.mapOf(new Object[]{k1, v1, k2, v2, k3, v3, k4, v4, k5, v5, k6, v6, k7, v7, k8, v8, k9, v9, k10, v10});
+    }
+
+    /**
+     * 返回包含指定entry中的键和值的不可变map。entry本身不会被保存
+     *
+     * @throws IllegalArgumentException 如果有重复的键
+     * @throws NullPointerException 如果任何entry，键或值为null，或者数组为null
+     */
+    @SafeVarargs
+    static <K, V> Map<K, V> ofEntries(Entry<? extends K, ? extends V>... entries){
+        Object[] kvs = new Object[entries.length << 1];
+        for(int i = 0; i < entries.length; i++){
+            kvs[i << 1] = entries[i].getKey();
+            kvs[(i << 1) + 1] = entries[i].getValue();
+        }
+        return ImmutableCollections.mapOf(kvs);
+    }
+
+    /**
+     * 返回包含指定的键和值的不可变entry，适合与ofEntries一起使用
+     *
+     * @throws NullPointerException 如果键或值为null
+     */
+    static <K, V> Entry<K, V> entry(K k, V v){
+        if(k == null || v == null)
+            throw new NullPointerException();
+        return new AbstractMap.SimpleImmutableEntry<>(k, v);
+    }
+
+    /**
+     * 返回包含指定map中所有映射的不可变map。如果指定的map就是由这些工厂方法
+     * 返回的，直接返回它
+     *
+     * @throws NullPointerException 如果指定的map为null，或者包含null键或值
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> Map<K, V> copyOf(Map<? extends K, ? extends V> map){
+        if(map instanceof ImmutableCollections.AbstractImmutableMap)
+            return (Map<K, V>) map;
+        Object[] kvs = new Object[map.size() << 1];
+        int i = 0;
+        for(Iterator<? extends Entry<? extends K, ? extends V>> it = map.entrySet().iterator(); it.hasNext(); ){
+            Entry<? extends K, ? extends V> e = it.next();
+            if(i == kvs.length)
+                throw new java.util.ConcurrentModificationException();
+            kvs[i++] = e.getKey();
+            kvs[i++] = e.getValue();
+        }
+        if(i != kvs.length)
+            throw new java.util.ConcurrentModificationException();
+        return ImmutableCollections.mapOf(kvs);
+    }
 }
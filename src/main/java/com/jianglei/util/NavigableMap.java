@@ -0,0 +1,167 @@
+package com.jianglei.util;
+
+/**
+ * 扩展了导航方法的SortedMap，这些方法返回与给定搜索目标最接近的匹配。
+ * lowerEntry，floorEntry，ceilingEntry 和 higherEntry 分别返回键小于，
+ * 小于等于，大于等于，大于给定键的映射，如果不存在这样的键，返回null。
+ * 类似地，lowerKey，floorKey，ceilingKey 和 higherKey 只返回相应的键。
+ * 所有这些方法都是为了查找映射而设计的，而不是遍历。
+ *
+ * 此接口还定义了firstEntry，pollFirstEntry，lastEntry 和 pollLastEntry
+ * 方法，它们返回和/或删除最小和最大的映射。
+ *
+ * subMap，headMap 和 tailMap 方法的重载版本可以指定端点是否包含在范围内。
+ * 与SortedMap中的版本一样，它们返回的都是此map的视图。
+ *
+ * 导航方法返回的entry表示的是调用时的映射快照，它们不支持setValue方法。
+ *
+ * 这个接口是 Java Collections Framework中的一员
+ *
+ * @param <K> 此map维护的键的类型
+ * @param <V> 映射值的类型
+ * @see SortedMap
+ * @see TreeMap
+ * Created by jianglei on 2017/4/17.
+ */
+public interface NavigableMap<K, V> extends SortedMap<K, V> {
+
+    /**
+     * 返回键严格小于给定键的最大的映射，如果不存在这样的键，返回null
+     *
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null，而此map不允许null键
+     */
+    Map.Entry<K, V> lowerEntry(K key);
+
+    /**
+     * 返回严格小于给定键的最大的键，如果不存在这样的键，返回null
+     *
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null，而此map不允许null键
+     */
+    K lowerKey(K key);
+
+    /**
+     * 返回键小于等于给定键的最大的映射，如果不存在这样的键，返回null
+     *
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null，而此map不允许null键
+     */
+    Map.Entry<K, V> floorEntry(K key);
+
+    /**
+     * 返回小于等于给定键的最大的键，如果不存在这样的键，返回null
+     *
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null，而此map不允许null键
+     */
+    K floorKey(K key);
+
+    /**
+     * 返回键大于等于给定键的最小的映射，如果不存在这样的键，返回null
+     *
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null，而此map不允许null键
+     */
+    Map.Entry<K, V> ceilingEntry(K key);
+
+    /**
+     * 返回大于等于给定键的最小的键，如果不存在这样的键，返回null
+     *
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null，而此map不允许null键
+     */
+    K ceilingKey(K key);
+
+    /**
+     * 返回键严格大于给定键的最小的映射，如果不存在这样的键，返回null
+     *
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null，而此map不允许null键
+     */
+    Map.Entry<K, V> higherEntry(K key);
+
+    /**
+     * 返回严格大于给定键的最小的键，如果不存在这样的键，返回null
+     *
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null，而此map不允许null键
+     */
+    K higherKey(K key);
+
+    /**
+     * 返回键最小的映射，如果map为空，返回null
+     */
+    Map.Entry<K, V> firstEntry();
+
+    /**
+     * 返回键最大的映射，如果map为空，返回null
+     */
+    Map.Entry<K, V> lastEntry();
+
+    /**
+     * 删除并返回键最小的映射，如果map为空，返回null
+     */
+    Map.Entry<K, V> pollFirstEntry();
+
+    /**
+     * 删除并返回键最大的映射，如果map为空，返回null
+     */
+    Map.Entry<K, V> pollLastEntry();
+
+    /**
+     * 返回此map中键的范围从fromKey到toKey的部分的视图。如果fromKey和toKey
+     * 相等，只有当fromInclusive和toInclusive都为true时，返回的map才不为空
+     *
+     * @param fromKey 返回的map中键的低端点
+     * @param fromInclusive 如果低端点包含在返回的视图中，为true
+     * @param toKey 返回的map中键的高端点
+     * @param toInclusive 如果高端点包含在返回的视图中，为true
+     * @return 此map中键的范围从fromKey到toKey的部分的视图
+     * @throws ClassCastException 如果fromKey和toKey不能相互比较
+     * @throws NullPointerException 如果fromKey或toKey为null，而此map不允许null键
+     * @throws IllegalArgumentException 如果fromKey大于toKey，或者此map本身
+     *         有范围限制，而fromKey或toKey在范围之外
+     */
+    NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive,
+                              K toKey, boolean toInclusive);
+
+    /**
+     * 返回此map中键小于(如果inclusive为true，小于等于)toKey的部分的视图
+     *
+     * @param toKey 返回的map中键的高端点
+     * @param inclusive 如果高端点包含在返回的视图中，为true
+     * @return 此map中键小于(或小于等于)toKey的部分的视图
+     * @throws ClassCastException 如果toKey与此map的comparator不兼容
+     * @throws NullPointerException 如果toKey为null，而此map不允许null键
+     * @throws IllegalArgumentException 如果此map本身有范围限制，而toKey在范围之外
+     */
+    NavigableMap<K, V> headMap(K toKey, boolean inclusive);
+
+    /**
+     * 返回此map中键大于(如果inclusive为true，大于等于)fromKey的部分的视图
+     *
+     * @param fromKey 返回的map中键的低端点
+     * @param inclusive 如果低端点包含在返回的视图中，为true
+     * @return 此map中键大于(或大于等于)fromKey的部分的视图
+     * @throws ClassCastException 如果fromKey与此map的comparator不兼容
+     * @throws NullPointerException 如果fromKey为null，而此map不允许null键
+     * @throws IllegalArgumentException 如果此map本身有范围限制，而fromKey在范围之外
+     */
+    NavigableMap<K, V> tailMap(K fromKey, boolean inclusive);
+
+    /**
+     * 等价于subMap(fromKey, true, toKey, false)
+     */
+    SortedMap<K, V> subMap(K fromKey, K toKey);
+
+    /**
+     * 等价于headMap(toKey, false)
+     */
+    SortedMap<K, V> headMap(K toKey);
+
+    /**
+     * 等价于tailMap(fromKey, true)
+     */
+    SortedMap<K, V> tailMap(K fromKey);
+}
@@ -0,0 +1,115 @@
+package com.jianglei.util;
+
+/**
+ * 扩展了导航方法的SortedSet，这些方法返回与给定搜索目标最接近的匹配。
+ * lower，floor，ceiling 和 higher 分别返回小于，小于等于，大于等于，
+ * 大于给定元素的元素，如果不存在这样的元素，返回null。
+ *
+ * 此接口还定义了pollFirst 和 pollLast 方法，它们删除并返回最小和最大的元素。
+ *
+ * subSet，headSet 和 tailSet 方法的重载版本可以指定端点是否包含在范围内。
+ * 与SortedSet中的版本一样，它们返回的都是此set的视图。
+ *
+ * 这个接口是 Java Collections Framework中的一员
+ *
+ * @param <E> 此set维护的元素的类型
+ * @see SortedSet
+ * @see TreeSet
+ * @see NavigableMap
+ * Created by jianglei on 2017/4/22.
+ */
+public interface NavigableSet<E> extends SortedSet<E> {
+
+    /**
+     * 返回严格小于给定元素的最大的元素，如果不存在这样的元素，返回null
+     *
+     * @throws ClassCastException 如果指定的元素不能与set中的元素比较
+     * @throws NullPointerException 如果指定的元素为null，而此set不允许null元素
+     */
+    E lower(E e);
+
+    /**
+     * 返回小于等于给定元素的最大的元素，如果不存在这样的元素，返回null
+     *
+     * @throws ClassCastException 如果指定的元素不能与set中的元素比较
+     * @throws NullPointerException 如果指定的元素为null，而此set不允许null元素
+     */
+    E floor(E e);
+
+    /**
+     * 返回大于等于给定元素的最小的元素，如果不存在这样的元素，返回null
+     *
+     * @throws ClassCastException 如果指定的元素不能与set中的元素比较
+     * @throws NullPointerException 如果指定的元素为null，而此set不允许null元素
+     */
+    E ceiling(E e);
+
+    /**
+     * 返回严格大于给定元素的最小的元素，如果不存在这样的元素，返回null
+     *
+     * @throws ClassCastException 如果指定的元素不能与set中的元素比较
+     * @throws NullPointerException 如果指定的元素为null，而此set不允许null元素
+     */
+    E higher(E e);
+
+    /**
+     * 删除并返回最小的元素，如果set为空，返回null
+     */
+    E pollFirst();
+
+    /**
+     * 删除并返回最大的元素，如果set为空，返回null
+     */
+    E pollLast();
+
+    /**
+     * 返回按升序遍历此set中元素的迭代器
+     */
+    Iterator<E> iterator();
+
+    /**
+     * 返回此set中元素的范围从fromElement到toElement的部分的视图。如果两个端点
+     * 相等，只有当fromInclusive和toInclusive都为true时，返回的set才不为空
+     *
+     * @throws ClassCastException 如果fromElement和toElement不能相互比较
+     * @throws NullPointerException 如果fromElement或toElement为null，
+     *         而此set不允许null元素
+     * @throws IllegalArgumentException 如果fromElement大于toElement，或者此set
+     *         本身有范围限制，而fromElement或toElement在范围之外
+     */
+    NavigableSet<E> subSet(E fromElement, boolean fromInclusive,
+                           E toElement, boolean toInclusive);
+
+    /**
+     * 返回此set中元素小于(如果inclusive为true，小于等于)toElement的部分的视图
+     *
+     * @throws ClassCastException 如果toElement与此set的comparator不兼容
+     * @throws NullPointerException 如果toElement为null，而此set不允许null元素
+     * @throws IllegalArgumentException 如果此set本身有范围限制，而toElement在范围之外
+     */
+    NavigableSet<E> headSet(E toElement, boolean inclusive);
+
+    /**
+     * 返回此set中元素大于(如果inclusive为true，大于等于)fromElement的部分的视图
+     *
+     * @throws ClassCastException 如果fromElement与此set的comparator不兼容
+     * @throws NullPointerException 如果fromElement为null，而此set不允许null元素
+     * @throws IllegalArgumentException 如果此set本身有范围限制，而fromElement在范围之外
+     */
+    NavigableSet<E> tailSet(E fromElement, boolean inclusive);
+
+    /**
+     * 等价于subSet(fromElement, true, toElement, false)
+     */
+    SortedSet<E> subSet(E fromElement, E toElement);
+
+    /**
+     * 等价于headSet(toElement, false)
+     */
+    SortedSet<E> headSet(E toElement);
+
+    /**
+     * 等价于tailSet(fromElement, true)
+     */
+    SortedSet<E> tailSet(E fromElement);
+}
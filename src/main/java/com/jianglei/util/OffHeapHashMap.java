@@ -0,0 +1,940 @@
+package com.jianglei.util;
+
+import java.io.Closeable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * 把键和值序列化之后保存在堆外内存中的哈希表。
+ *
+ * <p>每个映射编码成一条记录：键的长度，值的长度，键的字节，值的字节，
+ * 记录追加到固定大小的直接缓冲区(slab)中。索引是一个堆外的开放寻址表，
+ * 每个槽位保存记录的位置(slab的编号和偏移量)以及键的哈希值，冲突时使用
+ * 线性探测，删除时使用backward shift deletion。扩容只需要重新排列索引的
+ * 槽位，键不需要重新编码或者计算哈希值。所以无论保存多少映射，垃圾收集器
+ * 看到的只是索引缓冲区和几个slab缓冲区，而不是每个映射几个对象。
+ *
+ * <p>键和值通过{@link Codec}编码和解码。键的相等性由编码之后的字节决定，
+ * 所以键的编解码器必须是规范的：相等的键总是编码成相同的字节。值的编码
+ * 长度不变时，替换值直接覆盖原来的记录；否则追加一条新记录，旧记录成为
+ * 垃圾。垃圾超过已写入字节的一半时，存活的记录被压缩到新的slab中。
+ *
+ * <p>堆外内存不归垃圾收集器管理，用完之后必须调用{@link #close()}释放，
+ * 关闭之后的所有操作都抛出IllegalStateException。get和迭代每次都会解码出
+ * 新的键值对象，对它们的修改不会反映到map中。
+ *
+ * <p>此map不允许null键和null值。此实现不是同步的，编码用的缓冲区也是共享的，
+ * 所以即使只有读操作，多个线程访问时也必须在外部同步。
+ *
+ * @param <K> 此map维护的键的类型
+ * @param <V> 映射值的类型
+ * @see HashMap
+ * Created by jianglei on 2017/4/21.
+ */
+public class OffHeapHashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Closeable {
+
+    /**
+     * 键和值与字节之间的转换
+     *
+     * @param <T> 编码的对象的类型
+     */
+    public interface Codec<T> {
+
+        /**
+         * 把value编码到dst的position开始的位置，并把position移到编码的末尾。
+         * 空间不够时抛出BufferOverflowException，map会换一个更大的缓冲区重试
+         */
+        void encode(T value, ByteBuffer dst);
+
+        /**
+         * 从src解码一个对象，src的position到limit之间正好是encode写入的字节
+         */
+        T decode(ByteBuffer src);
+
+        /**
+         * UTF-8编码的字符串
+         */
+        Codec<String> STRING = new Codec<String>() {
+            public void encode(String value, ByteBuffer dst){
+                dst.put(value.getBytes(StandardCharsets.UTF_8));
+            }
+
+            public String decode(ByteBuffer src){
+                byte[] b = new byte[src.remaining()];
+                src.get(b);
+                return new String(b, StandardCharsets.UTF_8);
+            }
+        };
+
+        /**
+         * 4个字节的Integer
+         */
+        Codec<Integer> INTEGER = new Codec<Integer>() {
+            public void encode(Integer value, ByteBuffer dst){
+                dst.putInt(value);
+            }
+
+            public Integer decode(ByteBuffer src){
+                return src.getInt();
+            }
+        };
+
+        /**
+         * 8个字节的Long
+         */
+        Codec<Long> LONG = new Codec<Long>() {
+            public void encode(Long value, ByteBuffer dst){
+                dst.putLong(value);
+            }
+
+            public Long decode(ByteBuffer src){
+                return src.getLong();
+            }
+        };
+
+        /**
+         * 原样保存的字节数组。注意byte[]的equals比较的是引用，
+         * 所以containsValue对这种值没有意义
+         */
+        Codec<byte[]> BYTES = new Codec<byte[]>() {
+            public void encode(byte[] value, ByteBuffer dst){
+                dst.put(value);
+            }
+
+            public byte[] decode(ByteBuffer src){
+                byte[] b = new byte[src.remaining()];
+                src.get(b);
+                return b;
+            }
+        };
+    }
+
+    /**
+     * 默认的slab大小：64M
+     */
+    static final int DEFAULT_SLAB_SIZE = 1 << 26;
+
+    static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * 索引的槽位：8个字节的记录位置，4个字节的哈希值
+     */
+    private static final int SLOT = 12;
+
+    /**
+     * 索引的最大槽位数，索引缓冲区的字节数不能超过int的范围
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 27;
+
+    /**
+     * 记录头：键的长度和值的长度
+     */
+    private static final int HEADER = 8;
+
+    /**
+     * 编码缓冲区的最大容量
+     */
+    private static final int MAX_ENCODED = 1 << 30;
+
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final int slabSize;
+
+    /**
+     * 堆外索引，槽位的位置为0表示空槽
+     */
+    private ByteBuffer index;
+    private int capacity;
+    private int threshold;
+
+    private ByteBuffer[] slabs;
+    private int slabCount;
+
+    /**
+     * 当前slab(最后一个)的写入位置
+     */
+    private int slabPos;
+
+    /**
+     * 自上次压缩以来写入的记录字节数，以及其中已经失效的字节数
+     */
+    private long usedBytes;
+    private long garbageBytes;
+
+    private int size;
+    transient int modCount;
+
+    /**
+     * 编码键和值使用的堆内缓冲区，需要时扩大
+     */
+    private ByteBuffer keyBuf = ByteBuffer.allocate(64);
+    private ByteBuffer valBuf = ByteBuffer.allocate(64);
+
+    private boolean closed;
+
+    /**
+     * 持有缓存的entrySet()视图
+     */
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * 使用默认的slab大小构造一个空的map
+     *
+     * @throws NullPointerException 如果任一编解码器为null
+     */
+    public OffHeapHashMap(Codec<K> keyCodec, Codec<V> valueCodec){
+        this(keyCodec, valueCodec, 16, DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * 构造一个能容纳expectedSize个映射而不扩容索引的空map
+     *
+     * @throws NullPointerException 如果任一编解码器为null
+     * @throws IllegalArgumentException 如果expectedSize是负数
+     */
+    public OffHeapHashMap(Codec<K> keyCodec, Codec<V> valueCodec, int expectedSize){
+        this(keyCodec, valueCodec, expectedSize, DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * 构造一个空的map
+     *
+     * @param expectedSize 预计的映射数量
+     * @param slabSize 每个slab的字节数，比它大的记录单独占用一个slab
+     * @throws NullPointerException 如果任一编解码器为null
+     * @throws IllegalArgumentException 如果expectedSize是负数，或者slabSize不是正数
+     */
+    public OffHeapHashMap(Codec<K> keyCodec, Codec<V> valueCodec, int expectedSize, int slabSize){
+        if(keyCodec == null || valueCodec == null)
+            throw new NullPointerException();
+        if(slabSize <= 0)
+            throw new IllegalArgumentException("Illegal slab size: " + slabSize);
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.slabSize = slabSize;
+        this.capacity = Math.min(Hashing.tableSizeFor(expectedSize, LOAD_FACTOR), MAXIMUM_CAPACITY);
+        this.threshold = thresholdFor(capacity);
+        this.index = newIndex(capacity);
+        this.slabs = new ByteBuffer[4];
+    }
+
+    //Query Operations
+
+    public int size(){
+        ensureOpen();
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size() == 0;
+    }
+
+    /**
+     * 如果map包含指定键的映射，返回true
+     *
+     * @throws ClassCastException 如果键的类型与键的编解码器不兼容
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public boolean containsKey(Object key){
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * 如果map中有一个或多个键映射到指定的值，返回true。需要解码所有的值
+     */
+    public boolean containsValue(Object value){
+        ensureOpen();
+        if(value == null)
+            return false;
+        for(int i = 0; i < capacity; i++){
+            long ref = refAt(i);
+            if(ref != 0 && value.equals(readValue(ref)))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * 返回指定键映射的值(新解码的对象)，如果不包含该键的映射，返回null
+     *
+     * @throws ClassCastException 如果键的类型与键的编解码器不兼容
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public V get(Object key){
+        int i = indexOf(key);
+        return i < 0 ? null : readValue(refAt(i));
+    }
+
+    //Modification Operations
+
+    /**
+     * 把指定的值与指定的键关联
+     *
+     * @return 与key关联的旧值，如果key没有映射返回null
+     * @throws NullPointerException 如果键或值为null
+     * @throws IllegalArgumentException 如果键或值编码之后太大
+     * @throws IllegalStateException 如果map已经关闭，或者索引已满
+     */
+    public V put(K key, V value){
+        ensureOpen();
+        keyBuf = encode(keyCodec, key, keyBuf);
+        valBuf = encode(valueCodec, value, valBuf);
+        int kl = keyBuf.remaining();
+        int vl = valBuf.remaining();
+        int h = hashBytes(keyBuf, kl);
+        int i = find(kl, h);
+        if(i >= 0){
+            long ref = refAt(i);
+            V old = readValue(ref);
+            ByteBuffer s = slab(ref);
+            int off = offset(ref);
+            int oldLength = s.getInt(off + 4);
+            if(oldLength == vl){
+                // 长度不变，直接覆盖原来的值
+                ByteBuffer d = s.duplicate();
+                d.position(off + HEADER + kl);
+                d.put(valBuf);
+                valBuf.rewind();
+            }else {
+                index.putLong(i * SLOT, append(keyBuf, valBuf));
+                garbageBytes += HEADER + kl + oldLength;
+                compactIfNeeded();
+            }
+            return old;
+        }
+        if(size >= threshold){
+            resize();
+            i = find(kl, h);
+        }
+        i = -i - 1;
+        index.putLong(i * SLOT, append(keyBuf, valBuf));
+        index.putInt(i * SLOT + 8, h);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * 从此map中删除指定键的映射，如果它存在的话
+     *
+     * @return 与key关联的旧值，如果key没有映射返回null
+     * @throws ClassCastException 如果键的类型与键的编解码器不兼容
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public V remove(Object key){
+        int i = indexOf(key);
+        if(i < 0)
+            return null;
+        V old = readValue(refAt(i));
+        removeAt(i);
+        return old;
+    }
+
+    /**
+     * 删除所有的映射。保留索引和第一个slab，其余的slab被释放
+     */
+    public void clear(){
+        ensureOpen();
+        modCount++;
+        for(int i = 0; i < capacity; i++)
+            index.putLong(i * SLOT, 0L);
+        for(int i = 1; i < slabCount; i++){
+            free(slabs[i]);
+            slabs[i] = null;
+        }
+        if(slabCount > 1)
+            slabCount = 1;
+        slabPos = 0;
+        usedBytes = 0;
+        garbageBytes = 0;
+        size = 0;
+    }
+
+    /**
+     * 把存活的记录复制到新的slab中，释放原来的slab，回收被删除或者替换的
+     * 记录占用的空间。垃圾超过已写入字节的一半时会自动调用
+     */
+    public void compact(){
+        ensureOpen();
+        ByteBuffer[] old = slabs;
+        int oldCount = slabCount;
+        slabs = new ByteBuffer[4];
+        slabCount = 0;
+        slabPos = 0;
+        usedBytes = 0;
+        garbageBytes = 0;
+        for(int i = 0; i < capacity; i++){
+            long ref = refAt(i);
+            if(ref != 0){
+                ByteBuffer s = old[(int) (ref >>> 32) - 1];
+                int off = offset(ref);
+                ByteBuffer src = s.duplicate();
+                src.limit(off + HEADER + s.getInt(off) + s.getInt(off + 4));
+                src.position(off);
+                index.putLong(i * SLOT, appendRecord(src));
+            }
+        }
+        for(int i = 0; i < oldCount; i++)
+            free(old[i]);
+    }
+
+    /**
+     * 释放索引和所有slab占用的堆外内存。之后的所有操作都抛出
+     * IllegalStateException，重复调用没有效果
+     */
+    public void close(){
+        if(closed)
+            return;
+        closed = true;
+        modCount++;
+        free(index);
+        for(int i = 0; i < slabCount; i++)
+            free(slabs[i]);
+        index = null;
+        slabs = null;
+        slabCount = 0;
+        size = 0;
+    }
+
+    /**
+     * 返回堆外内存占用的字节数，包括索引和所有的slab
+     */
+    public long offHeapBytes(){
+        ensureOpen();
+        long bytes = index.capacity();
+        for(int i = 0; i < slabCount; i++)
+            bytes += slabs[i].capacity();
+        return bytes;
+    }
+
+    //Internal
+
+    private void ensureOpen(){
+        if(closed)
+            throw new IllegalStateException("map is closed");
+    }
+
+    /**
+     * 把value编码到buf中，空间不够时换一个两倍大的缓冲区。
+     * 返回实际使用的缓冲区，它的position为0，limit为编码的末尾
+     */
+    private static <T> ByteBuffer encode(Codec<T> codec, T value, ByteBuffer buf){
+        if(value == null)
+            throw new NullPointerException();
+        for(;;){
+            buf.clear();
+            try {
+                codec.encode(value, buf);
+                buf.flip();
+                return buf;
+            }catch (BufferOverflowException e){
+                if(buf.capacity() >= MAX_ENCODED)
+                    throw new IllegalArgumentException("encoded form too large");
+                buf = ByteBuffer.allocate(buf.capacity() << 1);
+            }
+        }
+    }
+
+    /**
+     * 编码之后字节的哈希值(Murmur3的32位版本)
+     */
+    static int hashBytes(ByteBuffer b, int len){
+        int h = len;
+        int i = 0;
+        for(; i + 4 <= len; i += 4){
+            int k = b.getInt(i) * 0xcc9e2d51;
+            k = Integer.rotateLeft(k, 15) * 0x1b873593;
+            h = Integer.rotateLeft(h ^ k, 13) * 5 + 0xe6546b64;
+        }
+        int k = 0;
+        for(; i < len; i++)
+            k = (k << 8) | (b.get(i) & 0xff);
+        k *= 0xcc9e2d51;
+        h ^= Integer.rotateLeft(k, 15) * 0x1b873593;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 返回指定键所在的槽位，不存在时返回-1
+     */
+    private int indexOf(Object key){
+        ensureOpen();
+        @SuppressWarnings("unchecked")
+        K k = (K) key;
+        keyBuf = encode(keyCodec, k, keyBuf);
+        int kl = keyBuf.remaining();
+        int i = find(kl, hashBytes(keyBuf, kl));
+        return i < 0 ? -1 : i;
+    }
+
+    /**
+     * 在索引中查找keyBuf中长度为kl的键。找到时返回它的槽位，
+     * 否则返回 (-(插入的槽位) - 1)
+     */
+    private int find(int kl, int h){
+        final ByteBuffer ix = index;
+        final int mask = capacity - 1;
+        for(int i = h & mask; ; i = (i + 1) & mask){
+            long ref = ix.getLong(i * SLOT);
+            if(ref == 0)
+                return -i - 1;
+            if(ix.getInt(i * SLOT + 8) == h && keyEquals(ref, kl))
+                return i;
+        }
+    }
+
+    /**
+     * 比较ref处记录的键与keyBuf中的键
+     */
+    private boolean keyEquals(long ref, int kl){
+        ByteBuffer s = slab(ref);
+        int off = offset(ref);
+        if(s.getInt(off) != kl)
+            return false;
+        off += HEADER;
+        final ByteBuffer k = keyBuf;
+        int i = 0;
+        for(; i + 8 <= kl; i += 8){
+            if(s.getLong(off + i) != k.getLong(i))
+                return false;
+        }
+        for(; i < kl; i++){
+            if(s.get(off + i) != k.get(i))
+                return false;
+        }
+        return true;
+    }
+
+    private long refAt(int i){
+        return index.getLong(i * SLOT);
+    }
+
+    /**
+     * 记录位置的高32位是slab的编号加1，所以有效的位置永远不为0
+     */
+    private ByteBuffer slab(long ref){
+        return slabs[(int) (ref >>> 32) - 1];
+    }
+
+    private static int offset(long ref){
+        return (int) ref;
+    }
+
+    K readKey(long ref){
+        ByteBuffer s = slab(ref);
+        int off = offset(ref);
+        ByteBuffer src = s.duplicate();
+        src.limit(off + HEADER + s.getInt(off));
+        src.position(off + HEADER);
+        return keyCodec.decode(src);
+    }
+
+    V readValue(long ref){
+        ByteBuffer s = slab(ref);
+        int off = offset(ref);
+        int kl = s.getInt(off);
+        ByteBuffer src = s.duplicate();
+        src.limit(off + HEADER + kl + s.getInt(off + 4));
+        src.position(off + HEADER + kl);
+        return valueCodec.decode(src);
+    }
+
+    /**
+     * 为一条长度为len的记录分配空间，当前slab放不下时开始一个新的slab。
+     * 返回记录的位置
+     */
+    private long allocate(int len){
+        if(slabCount == 0 || slabPos + len > slabs[slabCount - 1].capacity()){
+            if(slabCount == slabs.length)
+                slabs = Arrays.copyOf(slabs, slabCount << 1);
+            slabs[slabCount++] = ByteBuffer.allocateDirect(Math.max(slabSize, len));
+            slabPos = 0;
+        }
+        long ref = ((long) slabCount << 32) | slabPos;
+        slabPos += len;
+        usedBytes += len;
+        return ref;
+    }
+
+    private long append(ByteBuffer key, ByteBuffer value){
+        int kl = key.remaining();
+        int vl = value.remaining();
+        if((long) HEADER + kl + vl > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("record too large");
+        long ref = allocate(HEADER + kl + vl);
+        ByteBuffer d = slab(ref).duplicate();
+        d.position(offset(ref));
+        d.putInt(kl);
+        d.putInt(vl);
+        d.put(key);
+        d.put(value);
+        key.rewind();
+        value.rewind();
+        return ref;
+    }
+
+    private long appendRecord(ByteBuffer record){
+        long ref = allocate(record.remaining());
+        ByteBuffer d = slab(ref).duplicate();
+        d.position(offset(ref));
+        d.put(record);
+        return ref;
+    }
+
+    private void compactIfNeeded(){
+        if(garbageBytes > (usedBytes >>> 1) && usedBytes > slabSize)
+            compact();
+    }
+
+    /**
+     * 删除槽位i上的映射，后续探测簇中的槽位向前移动
+     */
+    void removeAt(int i){
+        final ByteBuffer ix = index;
+        long ref = ix.getLong(i * SLOT);
+        ByteBuffer s = slab(ref);
+        int off = offset(ref);
+        garbageBytes += HEADER + s.getInt(off) + s.getInt(off + 4);
+        modCount++;
+        size--;
+
+        final int mask = capacity - 1;
+        int d = i;
+        ix.putLong(d * SLOT, 0L);
+        long item;
+        for(int j = (d + 1) & mask; (item = ix.getLong(j * SLOT)) != 0; j = (j + 1) & mask){
+            int h = ix.getInt(j * SLOT + 8);
+            if(Hashing.canShift(h & mask, d, j)){
+                ix.putLong(d * SLOT, item);
+                ix.putInt(d * SLOT + 8, h);
+                ix.putLong(j * SLOT, 0L);
+                d = j;
+            }
+        }
+        compactIfNeeded();
+    }
+
+    private static ByteBuffer newIndex(int capacity){
+        // 新分配的直接缓冲区已经被清零，所有的槽位都是空槽
+        return ByteBuffer.allocateDirect(capacity * SLOT).order(ByteOrder.nativeOrder());
+    }
+
+    private static int thresholdFor(int capacity){
+        if(capacity == MAXIMUM_CAPACITY)
+            return capacity - 1;
+        return Hashing.thresholdFor(capacity, LOAD_FACTOR);
+    }
+
+    /**
+     * 把索引扩大一倍。槽位中保存着哈希值，所以不需要访问记录
+     */
+    private void resize(){
+        final int oldCap = capacity;
+        if(oldCap == MAXIMUM_CAPACITY)
+            throw new IllegalStateException("Index full: " + size + " mappings");
+        final int newCap = oldCap << 1;
+        final int mask = newCap - 1;
+        final ByteBuffer oldIndex = index;
+        final ByteBuffer ix = newIndex(newCap);
+        for(int i = 0; i < oldCap; i++){
+            long ref = oldIndex.getLong(i * SLOT);
+            if(ref != 0){
+                int h = oldIndex.getInt(i * SLOT + 8);
+                int j = h & mask;
+                while (ix.getLong(j * SLOT) != 0)
+                    j = (j + 1) & mask;
+                ix.putLong(j * SLOT, ref);
+                ix.putInt(j * SLOT + 8, h);
+            }
+        }
+        index = ix;
+        capacity = newCap;
+        threshold = thresholdFor(newCap);
+        free(oldIndex);
+    }
+
+    //Views
+
+    public Set<Map.Entry<K, V>> entrySet(){
+        Set<Map.Entry<K, V>> es = entrySet;
+        if(es == null){
+            es = new EntrySet();
+            entrySet = es;
+        }
+        return es;
+    }
+
+    public Set<K> keySet(){
+        Set<K> ks = keySet;
+        if(ks == null){
+            ks = new KeySet();
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    public Collection<V> values(){
+        Collection<V> vs = values;
+        if(vs == null){
+            vs = new Values();
+            values = vs;
+        }
+        return vs;
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        public int size(){
+            return OffHeapHashMap.this.size();
+        }
+
+        public void clear(){
+            OffHeapHashMap.this.clear();
+        }
+
+        public Iterator<K> iterator(){
+            return new KeyIterator();
+        }
+
+        public boolean contains(Object o){
+            return containsKey(o);
+        }
+
+        public boolean remove(Object o){
+            int i = indexOf(o);
+            if(i < 0)
+                return false;
+            removeAt(i);
+            return true;
+        }
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public int size(){
+            return OffHeapHashMap.this.size();
+        }
+
+        public void clear(){
+            OffHeapHashMap.this.clear();
+        }
+
+        public Iterator<V> iterator(){
+            return new ValueIterator();
+        }
+
+        public boolean contains(Object o){
+            return containsValue(o);
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        public int size(){
+            return OffHeapHashMap.this.size();
+        }
+
+        public void clear(){
+            OffHeapHashMap.this.clear();
+        }
+
+        public Iterator<Map.Entry<K, V>> iterator(){
+            return new EntryIterator();
+        }
+
+        public boolean contains(Object o){
+            return indexOfEntry(o) >= 0;
+        }
+
+        public boolean remove(Object o){
+            int i = indexOfEntry(o);
+            if(i < 0)
+                return false;
+            removeAt(i);
+            return true;
+        }
+    }
+
+    /**
+     * 如果o是一个与此map中某个映射相等的Map.Entry，返回该映射的槽位，否则返回-1
+     */
+    final int indexOfEntry(Object o){
+        if(!(o instanceof Map.Entry))
+            return -1;
+        Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+        Object k = e.getKey();
+        Object v = e.getValue();
+        if(k == null || v == null)
+            return -1;
+        int i = indexOf(k);
+        return (i >= 0 && v.equals(readValue(refAt(i)))) ? i : -1;
+    }
+
+    /**
+     * 集合视图迭代器的基类，与HashMap的迭代器一样，从某个空槽之后开始
+     * 循环地扫描一整圈，所以remove时向前移动的槽位不会被漏掉或者重复返回
+     */
+    abstract class OffHeapIterator<E> implements Iterator<E> {
+        int slot;
+        int remaining;
+        int lastReturned = -1;
+        int expectedModCount = modCount;
+
+        OffHeapIterator(){
+            ensureOpen();
+            int empty = 0;
+            while (refAt(empty) != 0)
+                empty++;
+            slot = (empty + 1) & (capacity - 1);
+            remaining = capacity - 1;
+        }
+
+        public boolean hasNext(){
+            if(closed)
+                return false;
+            final int mask = capacity - 1;
+            while (remaining > 0){
+                if(refAt(slot) != 0)
+                    return true;
+                slot = (slot + 1) & mask;
+                remaining--;
+            }
+            return false;
+        }
+
+        final long nextRef(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(!hasNext())
+                throw new NoSuchElementException();
+            lastReturned = slot;
+            slot = (slot + 1) & (capacity - 1);
+            remaining--;
+            return refAt(lastReturned);
+        }
+
+        public void remove(){
+            if(lastReturned < 0)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeAt(lastReturned);
+            expectedModCount = modCount;
+            slot = lastReturned;
+            remaining++;
+            lastReturned = -1;
+        }
+    }
+
+    final class KeyIterator extends OffHeapIterator<K> {
+        public K next(){
+            return readKey(nextRef());
+        }
+    }
+
+    final class ValueIterator extends OffHeapIterator<V> {
+        public V next(){
+            return readValue(nextRef());
+        }
+    }
+
+    final class EntryIterator extends OffHeapIterator<Map.Entry<K, V>> {
+        public Map.Entry<K, V> next(){
+            long ref = nextRef();
+            return new MapEntry<>(OffHeapHashMap.this, readKey(ref), readValue(ref));
+        }
+    }
+
+    /**
+     * 迭代器返回的entry，保存着解码出来的键和值，setValue写回到map中。
+     * SimpleEntry是可序列化的，而map不是，所以这里是静态类，对map的引用不参与序列化
+     */
+    static final class MapEntry<K, V> extends SimpleEntry<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient OffHeapHashMap<K, V> map;
+
+        MapEntry(OffHeapHashMap<K, V> map, K key, V value){
+            super(key, value);
+            this.map = map;
+        }
+
+        public V setValue(V value){
+            if(value == null)
+                throw new NullPointerException();
+            if(map != null)
+                map.put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    //Memory release
+
+    /**
+     * Java 9之后的sun.misc.Unsafe.invokeCleaner(ByteBuffer)
+     */
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    /**
+     * Java 8的sun.nio.ch.DirectBuffer.cleaner()和sun.misc.Cleaner.clean()
+     */
+    private static final Method CLEANER;
+    private static final Method CLEAN;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        Method cleaner = null;
+        Method clean = null;
+        try {
+            Class<?> c = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = c.getMethod("invokeCleaner", ByteBuffer.class);
+            Field f = c.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            unsafe = f.get(null);
+        }catch (Throwable e){
+            invokeCleaner = null;
+            unsafe = null;
+            try {
+                cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            }catch (Throwable e2){
+                cleaner = null;
+                clean = null;
+            }
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+        CLEANER = cleaner;
+        CLEAN = clean;
+    }
+
+    /**
+     * 立即释放直接缓冲区的内存。如果当前的JVM不支持，内存在缓冲区对象
+     * 被垃圾收集之后才会释放
+     */
+    static void free(ByteBuffer buf){
+        if(buf == null || !buf.isDirect())
+            return;
+        try {
+            if(INVOKE_CLEANER != null){
+                INVOKE_CLEANER.invoke(UNSAFE, buf);
+            }else if(CLEANER != null){
+                Object c = CLEANER.invoke(buf);
+                if(c != null)
+                    CLEAN.invoke(c);
+            }
+        }catch (Exception ignored){
+            // 留给垃圾收集器释放
+        }
+    }
+}
@@ -0,0 +1,780 @@
+package com.jianglei.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * 基于哈希数组映射前缀树(HAMT)的不可变map。
+ *
+ * <p>此map的实例永远不会改变：Map接口中的修改方法都抛出
+ * UnsupportedOperationException，取而代之的是{@link #with(Object, Object)}
+ * 和{@link #without(Object)}，它们返回一个新的版本，而原来的版本保持不变。
+ * 新旧两个版本共享所有没有改变的节点，每次更新只复制从根到被修改的叶子路径上
+ * 的节点，所以一次更新的时间和空间开销是O(log32 n)。因为实例是不可变的，
+ * 保存一个引用就是一个一致的快照，开销是O(1)，读线程不需要任何同步。
+ *
+ * <p>树的每一层使用哈希值的5位选择32个分支之一。每个节点用两个32位的位图
+ * 记录哪些分支直接保存着键值对(dataMap)，哪些分支指向子节点(nodeMap)，
+ * 内容数组只保存实际存在的分支：键值对交替排列在数组的前部，子节点从数组的
+ * 尾部倒序排列。删除之后，只剩一个键值对的子节点会被内联到父节点中，所以
+ * 树总是保持最紧凑的形式，相同的映射集合总是得到相同形状的树。32位哈希值
+ * 完全相同的键保存在冲突节点中。
+ *
+ * <p>批量装载时，每次with都复制路径会产生大量的垃圾。{@link Builder}持有一个
+ * 编辑令牌：由它创建的节点都标记着这个令牌，再次修改这些节点时直接原地修改
+ * 而不复制。build()返回一个不可变的map之后，构建器换一个新的令牌，所以已经
+ * 发布的节点再也不会被修改，构建器仍然可以继续使用。
+ *
+ * <p>此map不允许null键和null值。迭代顺序由键的哈希值决定。
+ *
+ * @param <K> 此map维护的键的类型
+ * @param <V> 映射值的类型
+ * @see HashMap
+ * Created by jianglei on 2017/4/19.
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> implements Map<K, V> {
+
+    /**
+     * 每一层使用的哈希值的位数
+     */
+    private static final int BITS = 5;
+
+    private static final int BIT_MASK = (1 << BITS) - 1;
+
+    /**
+     * 树的最大深度：7层位图节点加上一层冲突节点
+     */
+    private static final int MAX_DEPTH = 8;
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentHashMap EMPTY =
+            new PersistentHashMap<>(BitmapNode.EMPTY_NODE, 0);
+
+    private final Node<K, V> root;
+    private final int size;
+
+    private PersistentHashMap(Node<K, V> root, int size){
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * 返回空的map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty(){
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * 返回一个包含指定map中所有映射的map
+     *
+     * @throws NullPointerException 如果指定的map为null，或者包含null键或值
+     */
+    public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> m){
+        if(m instanceof PersistentHashMap){
+            @SuppressWarnings("unchecked")
+            PersistentHashMap<K, V> pm = (PersistentHashMap<K, V>) m;
+            return pm;
+        }
+        return PersistentHashMap.<K, V>builder().putAll(m).build();
+    }
+
+    /**
+     * 返回一个空的构建器
+     */
+    public static <K, V> Builder<K, V> builder(){
+        return new Builder<>(PersistentHashMap.<K, V>empty());
+    }
+
+    /**
+     * 返回一个以此map的内容为起点的构建器。此操作的开销是O(1)：构建器与此map
+     * 共享所有节点，只在修改时复制
+     */
+    public Builder<K, V> toBuilder(){
+        return new Builder<>(this);
+    }
+
+    //Query Operations
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public V get(Object key){
+        return root.find(key, HashMap.hash(key), 0);
+    }
+
+    /**
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public boolean containsKey(Object key){
+        return root.find(key, HashMap.hash(key), 0) != null;
+    }
+
+    //Persistent Operations
+
+    /**
+     * 返回一个在此map的基础上把key映射到value的新map，此map不变。如果key已经
+     * 映射到了value(相同的引用)，返回此map本身
+     *
+     * @throws NullPointerException 如果指定的键或值为null
+     */
+    public PersistentHashMap<K, V> with(K key, V value){
+        if(value == null)
+            throw new NullPointerException();
+        Change change = new Change();
+        Node<K, V> newRoot = root.update(null, key, value, HashMap.hash(key), 0, change);
+        if(newRoot == root)
+            return this;
+        return new PersistentHashMap<>(newRoot, change.sizeChanged ? size + 1 : size);
+    }
+
+    /**
+     * 返回一个在此map的基础上删除了key的映射的新map，此map不变。如果此map
+     * 不包含key，返回此map本身
+     *
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public PersistentHashMap<K, V> without(Object key){
+        Change change = new Change();
+        Node<K, V> newRoot = root.remove(null, key, HashMap.hash(key), 0, change);
+        if(newRoot == root)
+            return this;
+        return new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    //Unsupported Modification Operations
+
+    /**
+     * 总是抛出UnsupportedOperationException，使用{@link #with(Object, Object)}
+     *
+     * @throws UnsupportedOperationException 总是
+     */
+    public V put(K key, V value){
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 总是抛出UnsupportedOperationException，使用{@link #without(Object)}
+     *
+     * @throws UnsupportedOperationException 总是
+     */
+    public V remove(Object key){
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 总是抛出UnsupportedOperationException，使用{@link Builder#putAll(Map)}
+     *
+     * @throws UnsupportedOperationException 总是
+     */
+    public void putAll(Map<? extends K, ? extends V> m){
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 总是抛出UnsupportedOperationException，使用{@link #empty()}
+     *
+     * @throws UnsupportedOperationException 总是
+     */
+    public void clear(){
+        throw new UnsupportedOperationException();
+    }
+
+    //Views
+
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * 返回此map包含的映射的不可修改的set视图
+     */
+    public Set<Map.Entry<K, V>> entrySet(){
+        Set<Map.Entry<K, V>> es = entrySet;
+        return (es != null) ? es : (entrySet = new EntrySet());
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        public int size(){
+            return size;
+        }
+
+        public boolean contains(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            Object k = e.getKey();
+            if(k == null)
+                return false;
+            V v = get(k);
+            return v != null && v.equals(e.getValue());
+        }
+
+        public boolean remove(Object o){
+            throw new UnsupportedOperationException();
+        }
+
+        public void clear(){
+            throw new UnsupportedOperationException();
+        }
+
+        public Iterator<Map.Entry<K, V>> iterator(){
+            return new EntryIterator<>(root);
+        }
+    }
+
+    /**
+     * 深度优先地遍历树：先返回一个节点中所有的键值对，再进入它的子节点。
+     * 路径上的节点和游标保存在固定大小的栈中
+     */
+    static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        @SuppressWarnings("unchecked")
+        private final Node<K, V>[] nodes = (Node<K, V>[]) new Node<?, ?>[MAX_DEPTH];
+        private final int[] cursors = new int[MAX_DEPTH];
+        private int depth;
+
+        private Node<K, V> payloadNode;
+        private int payloadIndex;
+        private int payloadLength;
+
+        EntryIterator(Node<K, V> root){
+            payloadNode = root;
+            payloadLength = root.payloadArity();
+            if(root.nodeArity() > 0){
+                nodes[0] = root;
+                depth = 0;
+            }else
+                depth = -1;
+        }
+
+        /**
+         * 找到下一个含有键值对的节点
+         */
+        private boolean findNextPayload(){
+            while (depth >= 0){
+                Node<K, V> n = nodes[depth];
+                int c = cursors[depth];
+                if(c < n.nodeArity()){
+                    cursors[depth] = c + 1;
+                    Node<K, V> child = n.getNode(c);
+                    if(child.nodeArity() > 0){
+                        nodes[++depth] = child;
+                        cursors[depth] = 0;
+                    }
+                    if(child.payloadArity() > 0){
+                        payloadNode = child;
+                        payloadIndex = 0;
+                        payloadLength = child.payloadArity();
+                        return true;
+                    }
+                }else
+                    nodes[depth--] = null;
+            }
+            return false;
+        }
+
+        public boolean hasNext(){
+            return payloadIndex < payloadLength || findNextPayload();
+        }
+
+        public Map.Entry<K, V> next(){
+            if(!hasNext())
+                throw new NoSuchElementException();
+            int i = payloadIndex++;
+            return new AbstractMap.SimpleImmutableEntry<>(payloadNode.getKey(i),
+                                                          payloadNode.getValue(i));
+        }
+    }
+
+    //Builder
+
+    /**
+     * PersistentHashMap的可变构建器，用于批量装载。它从一个已有的map开始，
+     * 修改由它自己创建的节点时原地修改，修改从已有的map继承来的节点时复制。
+     *
+     * <p>build()的开销是O(1)。此类不是线程安全的。
+     *
+     * @param <K> 键的类型
+     * @param <V> 值的类型
+     */
+    public static final class Builder<K, V> {
+        private Node<K, V> root;
+        private int size;
+
+        /**
+         * 编辑令牌：标记着此令牌的节点只被此构建器引用，可以原地修改
+         */
+        private Object edit = new Object();
+
+        private final Change change = new Change();
+
+        Builder(PersistentHashMap<K, V> map){
+            this.root = map.root;
+            this.size = map.size;
+        }
+
+        /**
+         * 把key映射到value
+         *
+         * @return 此构建器
+         * @throws NullPointerException 如果指定的键或值为null
+         */
+        public Builder<K, V> put(K key, V value){
+            if(value == null)
+                throw new NullPointerException();
+            change.sizeChanged = false;
+            root = root.update(edit, key, value, HashMap.hash(key), 0, change);
+            if(change.sizeChanged)
+                size++;
+            return this;
+        }
+
+        /**
+         * 把指定map中所有的映射放进此构建器
+         *
+         * @return 此构建器
+         * @throws NullPointerException 如果指定的map为null，或者包含null键或值
+         */
+        public Builder<K, V> putAll(Map<? extends K, ? extends V> m){
+            for(Iterator<? extends Map.Entry<? extends K, ? extends V>> i = m.entrySet().iterator(); i.hasNext(); ){
+                Map.Entry<? extends K, ? extends V> e = i.next();
+                put(e.getKey(), e.getValue());
+            }
+            return this;
+        }
+
+        /**
+         * 删除key的映射，如果它存在的话
+         *
+         * @return 此构建器
+         * @throws NullPointerException 如果指定的键为null
+         */
+        public Builder<K, V> remove(Object key){
+            change.sizeChanged = false;
+            root = root.remove(edit, key, HashMap.hash(key), 0, change);
+            if(change.sizeChanged)
+                size--;
+            return this;
+        }
+
+        /**
+         * @throws NullPointerException 如果指定的键为null
+         */
+        public V get(Object key){
+            return root.find(key, HashMap.hash(key), 0);
+        }
+
+        /**
+         * @throws NullPointerException 如果指定的键为null
+         */
+        public boolean containsKey(Object key){
+            return get(key) != null;
+        }
+
+        public int size(){
+            return size;
+        }
+
+        /**
+         * 返回包含此构建器当前内容的不可变map。此后此构建器的修改不会影响
+         * 返回的map
+         */
+        public PersistentHashMap<K, V> build(){
+            edit = new Object();
+            return size == 0 ? PersistentHashMap.<K, V>empty()
+                             : new PersistentHashMap<>(root, size);
+        }
+    }
+
+    //Nodes
+
+    /**
+     * 一次更新的附加结果
+     */
+    static final class Change {
+        /**
+         * 如果映射的数量改变了(插入了新键或者删除了键)，为true
+         */
+        boolean sizeChanged;
+    }
+
+    static int mask(int hash, int shift){
+        return (hash >>> shift) & BIT_MASK;
+    }
+
+    static int bitpos(int mask){
+        return 1 << mask;
+    }
+
+    abstract static class Node<K, V> {
+        abstract V find(Object key, int hash, int shift);
+
+        /**
+         * 返回把key映射到value之后的节点。edit不为null并且等于节点的令牌时原地修改
+         */
+        abstract Node<K, V> update(Object edit, K key, V value, int hash, int shift, Change change);
+
+        /**
+         * 返回删除key之后的节点。edit不为null并且等于节点的令牌时原地修改
+         */
+        abstract Node<K, V> remove(Object edit, Object key, int hash, int shift, Change change);
+
+        abstract int payloadArity();
+
+        abstract int nodeArity();
+
+        abstract K getKey(int i);
+
+        abstract V getValue(int i);
+
+        abstract Node<K, V> getNode(int i);
+
+        /**
+         * 如果此节点只包含一个键值对而没有子节点，返回true，这样的节点会被内联到父节点中
+         */
+        final boolean hasSingleValue(){
+            return nodeArity() == 0 && payloadArity() == 1;
+        }
+    }
+
+    /**
+     * 位图节点。content的前部交替保存键和值，尾部倒序保存子节点
+     */
+    static final class BitmapNode<K, V> extends Node<K, V> {
+        static final BitmapNode<Object, Object> EMPTY_NODE =
+                new BitmapNode<>(null, 0, 0, new Object[0]);
+
+        final Object edit;
+        int dataMap;
+        int nodeMap;
+        Object[] content;
+
+        BitmapNode(Object edit, int dataMap, int nodeMap, Object[] content){
+            this.edit = edit;
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        private boolean isEditable(Object edit){
+            return edit != null && this.edit == edit;
+        }
+
+        private int dataIndex(int bit){
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit){
+            return Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        int payloadArity(){
+            return Integer.bitCount(dataMap);
+        }
+
+        int nodeArity(){
+            return Integer.bitCount(nodeMap);
+        }
+
+        @SuppressWarnings("unchecked")
+        K getKey(int i){
+            return (K) content[2 * i];
+        }
+
+        @SuppressWarnings("unchecked")
+        V getValue(int i){
+            return (V) content[2 * i + 1];
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<K, V> getNode(int i){
+            return (Node<K, V>) content[content.length - 1 - i];
+        }
+
+        V find(Object key, int hash, int shift){
+            int bit = bitpos(mask(hash, shift));
+            if((dataMap & bit) != 0){
+                int i = dataIndex(bit);
+                return key.equals(content[2 * i]) ? getValue(i) : null;
+            }
+            if((nodeMap & bit) != 0)
+                return getNode(nodeIndex(bit)).find(key, hash, shift + BITS);
+            return null;
+        }
+
+        Node<K, V> update(Object edit, K key, V value, int hash, int shift, Change change){
+            int bit = bitpos(mask(hash, shift));
+            if((dataMap & bit) != 0){
+                int i = dataIndex(bit);
+                K currentKey = getKey(i);
+                if(key.equals(currentKey)){
+                    if(content[2 * i + 1] == value)
+                        return this;
+                    return copyAndSetValue(edit, i, value);
+                }
+                V currentValue = getValue(i);
+                Node<K, V> sub = mergeTwo(edit, currentKey, currentValue,
+                        HashMap.hash(currentKey), key, value, hash, shift + BITS);
+                change.sizeChanged = true;
+                return copyAndMigrateFromInlineToNode(edit, bit, sub);
+            }
+            if((nodeMap & bit) != 0){
+                Node<K, V> child = getNode(nodeIndex(bit));
+                Node<K, V> newChild = child.update(edit, key, value, hash, shift + BITS, change);
+                if(newChild == child)
+                    return this;
+                return copyAndSetNode(edit, bit, newChild);
+            }
+            change.sizeChanged = true;
+            return copyAndInsertValue(edit, bit, key, value);
+        }
+
+        Node<K, V> remove(Object edit, Object key, int hash, int shift, Change change){
+            int bit = bitpos(mask(hash, shift));
+            if((dataMap & bit) != 0){
+                int i = dataIndex(bit);
+                if(!key.equals(content[2 * i]))
+                    return this;
+                change.sizeChanged = true;
+                if(payloadArity() == 2 && nodeArity() == 0){
+                    // 只剩下一个键值对，父节点会把它内联，所以它在此节点中的位置
+                    // 无关紧要；只有根节点需要保持正确的位图
+                    int newDataMap = (shift == 0) ? (dataMap ^ bit)
+                                                  : bitpos(mask(hash, 0));
+                    int j = 1 - i;
+                    return new BitmapNode<>(edit, newDataMap, 0,
+                            new Object[]{content[2 * j], content[2 * j + 1]});
+                }
+                return copyAndRemoveValue(edit, bit);
+            }
+            if((nodeMap & bit) != 0){
+                Node<K, V> child = getNode(nodeIndex(bit));
+                Node<K, V> newChild = child.remove(edit, key, hash, shift + BITS, change);
+                if(newChild == child)
+                    return this;
+                if(newChild.hasSingleValue()){
+                    if(payloadArity() == 0 && nodeArity() == 1)
+                        return newChild;     // 继续向上传递，直到被某个祖先内联
+                    return copyAndMigrateFromNodeToInline(edit, bit, newChild);
+                }
+                return copyAndSetNode(edit, bit, newChild);
+            }
+            return this;
+        }
+
+        //copy helpers
+
+        private Node<K, V> copyAndSetValue(Object edit, int i, V value){
+            if(isEditable(edit)){
+                content[2 * i + 1] = value;
+                return this;
+            }
+            Object[] dst = content.clone();
+            dst[2 * i + 1] = value;
+            return new BitmapNode<>(edit, dataMap, nodeMap, dst);
+        }
+
+        private Node<K, V> copyAndSetNode(Object edit, int bit, Node<K, V> node){
+            int idx = content.length - 1 - nodeIndex(bit);
+            if(isEditable(edit)){
+                content[idx] = node;
+                return this;
+            }
+            Object[] dst = content.clone();
+            dst[idx] = node;
+            return new BitmapNode<>(edit, dataMap, nodeMap, dst);
+        }
+
+        private Node<K, V> copyAndInsertValue(Object edit, int bit, K key, V value){
+            int idx = 2 * dataIndex(bit);
+            Object[] src = content;
+            Object[] dst = new Object[src.length + 2];
+            System.arraycopy(src, 0, dst, 0, idx);
+            dst[idx] = key;
+            dst[idx + 1] = value;
+            System.arraycopy(src, idx, dst, idx + 2, src.length - idx);
+            return replace(edit, dataMap | bit, nodeMap, dst);
+        }
+
+        private Node<K, V> copyAndRemoveValue(Object edit, int bit){
+            int idx = 2 * dataIndex(bit);
+            Object[] src = content;
+            Object[] dst = new Object[src.length - 2];
+            System.arraycopy(src, 0, dst, 0, idx);
+            System.arraycopy(src, idx + 2, dst, idx, src.length - idx - 2);
+            return replace(edit, dataMap ^ bit, nodeMap, dst);
+        }
+
+        /**
+         * 把bit分支上的键值对替换为子节点node
+         */
+        private Node<K, V> copyAndMigrateFromInlineToNode(Object edit, int bit, Node<K, V> node){
+            int idxOld = 2 * dataIndex(bit);
+            int idxNew = content.length - 2 - nodeIndex(bit);
+            Object[] src = content;
+            Object[] dst = new Object[src.length - 1];
+            // 键值对之前的部分，键值对之后到新子节点之前的部分，新子节点之后的部分
+            System.arraycopy(src, 0, dst, 0, idxOld);
+            System.arraycopy(src, idxOld + 2, dst, idxOld, idxNew - idxOld);
+            dst[idxNew] = node;
+            System.arraycopy(src, idxNew + 2, dst, idxNew + 1, src.length - idxNew - 2);
+            return replace(edit, dataMap ^ bit, nodeMap | bit, dst);
+        }
+
+        /**
+         * 把bit分支上只含一个键值对的子节点node内联为键值对
+         */
+        private Node<K, V> copyAndMigrateFromNodeToInline(Object edit, int bit, Node<K, V> node){
+            int idxOld = content.length - 1 - nodeIndex(bit);
+            int idxNew = 2 * dataIndex(bit);
+            Object[] src = content;
+            Object[] dst = new Object[src.length + 1];
+            System.arraycopy(src, 0, dst, 0, idxNew);
+            dst[idxNew] = node.getKey(0);
+            dst[idxNew + 1] = node.getValue(0);
+            System.arraycopy(src, idxNew, dst, idxNew + 2, idxOld - idxNew);
+            System.arraycopy(src, idxOld + 1, dst, idxOld + 2, src.length - idxOld - 1);
+            return replace(edit, dataMap | bit, nodeMap ^ bit, dst);
+        }
+
+        /**
+         * 用新的位图和内容数组替换此节点：可以原地修改时修改此节点，否则创建新节点
+         */
+        private Node<K, V> replace(Object edit, int dataMap, int nodeMap, Object[] content){
+            if(isEditable(edit)){
+                this.dataMap = dataMap;
+                this.nodeMap = nodeMap;
+                this.content = content;
+                return this;
+            }
+            return new BitmapNode<>(edit, dataMap, nodeMap, content);
+        }
+
+        /**
+         * 创建一个包含两个键值对的子树。两个键的哈希值在shift位置上相同时，
+         * 继续向下一层，直到它们分开；哈希值的所有位都用完时使用冲突节点，
+         * 所以冲突节点中的键的哈希值总是完全相同的
+         */
+        static <K, V> Node<K, V> mergeTwo(Object edit, K key0, V value0, int hash0,
+                                          K key1, V value1, int hash1, int shift){
+            if(shift >= 32)
+                return new CollisionNode<>(edit, hash0, new Object[]{key0, value0, key1, value1});
+            int mask0 = mask(hash0, shift);
+            int mask1 = mask(hash1, shift);
+            if(mask0 != mask1){
+                int dataMap = bitpos(mask0) | bitpos(mask1);
+                if(mask0 < mask1)
+                    return new BitmapNode<>(edit, dataMap, 0, new Object[]{key0, value0, key1, value1});
+                else
+                    return new BitmapNode<>(edit, dataMap, 0, new Object[]{key1, value1, key0, value0});
+            }
+            Node<K, V> node = mergeTwo(edit, key0, value0, hash0, key1, value1, hash1, shift + BITS);
+            return new BitmapNode<>(edit, 0, bitpos(mask0), new Object[]{node});
+        }
+    }
+
+    /**
+     * 保存32位哈希值完全相同的键的节点，线性查找
+     */
+    static final class CollisionNode<K, V> extends Node<K, V> {
+        final Object edit;
+        final int hash;
+        Object[] content;
+
+        CollisionNode(Object edit, int hash, Object[] content){
+            this.edit = edit;
+            this.hash = hash;
+            this.content = content;
+        }
+
+        int payloadArity(){
+            return content.length >> 1;
+        }
+
+        int nodeArity(){
+            return 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        K getKey(int i){
+            return (K) content[2 * i];
+        }
+
+        @SuppressWarnings("unchecked")
+        V getValue(int i){
+            return (V) content[2 * i + 1];
+        }
+
+        Node<K, V> getNode(int i){
+            throw new IllegalStateException();
+        }
+
+        private int indexOf(Object key){
+            for(int i = 0; i < content.length; i += 2)
+                if(key.equals(content[i]))
+                    return i;
+            return -1;
+        }
+
+        @SuppressWarnings("unchecked")
+        V find(Object key, int hash, int shift){
+            int i = indexOf(key);
+            return i < 0 ? null : (V) content[i + 1];
+        }
+
+        Node<K, V> update(Object edit, K key, V value, int hash, int shift, Change change){
+            int i = indexOf(key);
+            Object[] dst;
+            if(i >= 0){
+                if(content[i + 1] == value)
+                    return this;
+                if(edit != null && this.edit == edit){
+                    content[i + 1] = value;
+                    return this;
+                }
+                dst = content.clone();
+                dst[i + 1] = value;
+            }else {
+                change.sizeChanged = true;
+                int n = content.length;
+                dst = new Object[n + 2];
+                System.arraycopy(content, 0, dst, 0, n);
+                dst[n] = key;
+                dst[n + 1] = value;
+                if(edit != null && this.edit == edit){
+                    content = dst;
+                    return this;
+                }
+            }
+            return new CollisionNode<>(edit, this.hash, dst);
+        }
+
+        Node<K, V> remove(Object edit, Object key, int hash, int shift, Change change){
+            int i = indexOf(key);
+            if(i < 0)
+                return this;
+            change.sizeChanged = true;
+            int n = content.length;
+            if(n == 4){
+                // 只剩一个键值对，变成位图节点交给父节点内联
+                int j = i ^ 2;
+                return new BitmapNode<>(edit, bitpos(mask(hash, 0)), 0,
+                        new Object[]{content[j], content[j + 1]});
+            }
+            Object[] dst = new Object[n - 2];
+            System.arraycopy(content, 0, dst, 0, i);
+            System.arraycopy(content, i + 2, dst, i, n - i - 2);
+            if(edit != null && this.edit == edit){
+                content = dst;
+                return this;
+            }
+            return new CollisionNode<>(edit, this.hash, dst);
+        }
+    }
+}
@@ -0,0 +1,779 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * 以字符串为键的压缩前缀树(radix tree)，实现了Map接口。适合按URL、路径等前缀
+ * 查找：在哈希表中找出所有以某个前缀开头的键需要扫描全部的键，而在前缀树中只需要
+ * 沿着前缀走到一个节点，它的子树就是所有以该前缀开头的键。
+ *
+ * <p>树的每条边上有一个非空的标签，一个节点的键是从根到它的路径上所有标签的
+ * 连接。只有一个子节点并且没有值的节点会和它的子节点合并，所以节点的个数不超过
+ * 键的个数的两倍。一个节点的子节点按标签的第一个字符排序，用二分查找定位。
+ * 标签是char[]中的一段(数组，起始位置，长度)：查找时直接比较键和标签中的字符，
+ * 不创建子串；插入时分裂一条边只调整两段的边界，与原来的标签共用同一个数组。
+ *
+ * <p>containsKey，get，put 和 remove的开销与键的长度成正比，与映射的数量无关。
+ * {@link #longestPrefixOf(String)}返回此map中是某个字符串的前缀的最长的键，
+ * 例如按路径查找最具体的路由。{@link #prefixMap(String)}返回以指定前缀开头的
+ * 映射的视图，而不是拷贝。
+ *
+ * <p>集合视图按键的字典顺序(String.compareTo的顺序)迭代：子节点按第一个字符
+ * 排序，一个节点的键排在它的子树中所有的键之前。
+ *
+ * <p>此map不允许null键，允许null值。注意此实现不是同步的。此类所有"集合视图
+ * 方法"返回的迭代器是fail-fast的。
+ *
+ * <p>这个类是Java Collections Framework 中的一员
+ *
+ * @param <V> 映射值的类型
+ * @see TreeMap
+ * Created by jianglei on 2017/4/22.
+ */
+public class RadixTreeMap<V> extends AbstractMap<String, V>
+        implements Map<String, V>, Serializable {
+
+    private static final long serialVersionUID = -4103216752961482913L;
+
+    private static final char[] EMPTY_LABEL = {};
+
+    /**
+     * 根节点的标签为空，它的值是空字符串键的值
+     */
+    private transient Node<V> root = new Node<>(EMPTY_LABEL, 0, 0);
+
+    private transient int size;
+
+    /**
+     * 此map被结构性修改的次数
+     */
+    private transient int modCount;
+
+    /**
+     * 创建一个空的RadixTreeMap
+     */
+    public RadixTreeMap(){
+    }
+
+    /**
+     * 创建一个包含指定map中的映射的RadixTreeMap
+     *
+     * @throws NullPointerException 如果指定的map为null，或者包含null键
+     */
+    public RadixTreeMap(Map<? extends String, ? extends V> m){
+        putAll(m);
+    }
+
+    /**
+     * 树的节点。标签是chars[offset, offset + length)
+     */
+    static final class Node<V> {
+        char[] chars;
+        int offset;
+        int length;
+        V value;
+        boolean hasValue;
+
+        /**
+         * 子节点，按标签的第一个字符排序，没有子节点时为null
+         */
+        Node<V>[] children;
+        int childCount;
+
+        Node(char[] chars, int offset, int length){
+            this.chars = chars;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        char charAt(int i){
+            return chars[offset + i];
+        }
+
+        /**
+         * 返回第一个字符为c的子节点的下标；如果不存在，返回(-(插入位置) - 1)
+         */
+        int indexOfChild(char c){
+            final Node<V>[] cs = children;
+            int low = 0;
+            int high = childCount - 1;
+            while (low <= high){
+                int mid = (low + high) >>> 1;
+                char m = cs[mid].chars[cs[mid].offset];
+                if(m < c)
+                    low = mid + 1;
+                else if(m > c)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+            return -(low + 1);
+        }
+
+        @SuppressWarnings("unchecked")
+        void insertChild(int index, Node<V> child){
+            if(children == null)
+                children = (Node<V>[]) new Node<?>[2];
+            else if(childCount == children.length)
+                children = java.util.Arrays.copyOf(children, childCount + (childCount >> 1) + 1);
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            children[index] = child;
+            childCount++;
+        }
+
+        void removeChildAt(int index){
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            children[--childCount] = null;
+            if(childCount == 0)
+                children = null;
+        }
+
+        /**
+         * 在标签的第j个字符之前分裂此节点：返回一个标签为前j个字符的新节点，
+         * 此节点成为它唯一的子节点。两者共用原来的标签数组
+         */
+        Node<V> splitAt(int j){
+            Node<V> head = new Node<>(chars, offset, j);
+            offset += j;
+            length -= j;
+            head.insertChild(0, this);
+            return head;
+        }
+
+        /**
+         * 把此节点与它唯一的子节点合并。此节点没有值
+         */
+        void mergeWithChild(){
+            Node<V> c = children[0];
+            char[] merged = new char[length + c.length];
+            System.arraycopy(chars, offset, merged, 0, length);
+            System.arraycopy(c.chars, c.offset, merged, length, c.length);
+            chars = merged;
+            offset = 0;
+            length = merged.length;
+            value = c.value;
+            hasValue = c.hasValue;
+            children = c.children;
+            childCount = c.childCount;
+        }
+    }
+
+    /**
+     * 创建一个标签为key[from, key.length())的叶子节点
+     */
+    private static <V> Node<V> newLeaf(String key, int from, V value){
+        char[] label = new char[key.length() - from];
+        key.getChars(from, key.length(), label, 0);
+        Node<V> leaf = new Node<>(label, 0, label.length);
+        leaf.value = value;
+        leaf.hasValue = true;
+        return leaf;
+    }
+
+    /**
+     * 返回键恰好为key的节点(不一定有值)，如果不存在返回null
+     */
+    private Node<V> findNode(String key){
+        final int len = key.length();
+        Node<V> n = root;
+        int i = 0;
+        while (i < len){
+            int idx = n.indexOfChild(key.charAt(i));
+            if(idx < 0)
+                return null;
+            Node<V> c = n.children[idx];
+            final int cl = c.length;
+            if(cl > len - i)
+                return null;
+            final char[] cs = c.chars;
+            final int co = c.offset;
+            for(int j = 1; j < cl; j++){
+                if(cs[co + j] != key.charAt(i + j))
+                    return null;
+            }
+            i += cl;
+            n = c;
+        }
+        return n;
+    }
+
+    //Query Operations
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * @throws ClassCastException 如果指定的键不是String
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public boolean containsKey(Object key){
+        Node<V> n = findNode((String) key);
+        return n != null && n.hasValue;
+    }
+
+    /**
+     * @throws ClassCastException 如果指定的键不是String
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public V get(Object key){
+        Node<V> n = findNode((String) key);
+        return n == null ? null : n.value;
+    }
+
+    /**
+     * 返回此map中是s的前缀的最长的键(包括s本身)，如果没有这样的键，返回null。
+     * 只需要沿着s走一遍树
+     *
+     * @throws NullPointerException 如果s为null
+     */
+    public String longestPrefixOf(String s){
+        final int len = s.length();
+        Node<V> n = root;
+        int best = n.hasValue ? 0 : -1;
+        int i = 0;
+        walk: while (i < len){
+            int idx = n.indexOfChild(s.charAt(i));
+            if(idx < 0)
+                break;
+            Node<V> c = n.children[idx];
+            final int cl = c.length;
+            if(cl > len - i)
+                break;
+            for(int j = 1; j < cl; j++){
+                if(c.charAt(j) != s.charAt(i + j))
+                    break walk;
+            }
+            i += cl;
+            n = c;
+            if(n.hasValue)
+                best = i;
+        }
+        return best < 0 ? null : s.substring(0, best);
+    }
+
+    //Modification Operations
+
+    /**
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public V put(String key, V value){
+        final int len = key.length();
+        Node<V> n = root;
+        int i = 0;
+        for(;;){
+            if(i == len){
+                V oldValue = n.value;
+                n.value = value;
+                if(!n.hasValue){
+                    n.hasValue = true;
+                    size++;
+                    modCount++;
+                }
+                return oldValue;
+            }
+            int idx = n.indexOfChild(key.charAt(i));
+            if(idx < 0){
+                n.insertChild(-idx - 1, newLeaf(key, i, value));
+                size++;
+                modCount++;
+                return null;
+            }
+            Node<V> c = n.children[idx];
+            int j = 1;
+            while (j < c.length && i + j < len && c.charAt(j) == key.charAt(i + j))
+                j++;
+            if(j == c.length){
+                i += j;
+                n = c;
+                continue;
+            }
+
+            // key在标签的第j个字符处结束或者分叉：在这里分裂这条边
+            Node<V> head = c.splitAt(j);
+            n.children[idx] = head;
+            if(i + j == len){
+                head.value = value;
+                head.hasValue = true;
+            }else {
+                head.insertChild(key.charAt(i + j) < c.charAt(0) ? 0 : 1, newLeaf(key, i + j, value));
+            }
+            size++;
+            modCount++;
+            return null;
+        }
+    }
+
+    /**
+     * @throws ClassCastException 如果指定的键不是String
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public V remove(Object key){
+        final String k = (String) key;
+        final int len = k.length();
+        Node<V> parent = null;
+        int index = -1;
+        Node<V> n = root;
+        int i = 0;
+        while (i < len){
+            int idx = n.indexOfChild(k.charAt(i));
+            if(idx < 0)
+                return null;
+            Node<V> c = n.children[idx];
+            if(c.length > len - i)
+                return null;
+            for(int j = 1; j < c.length; j++){
+                if(c.charAt(j) != k.charAt(i + j))
+                    return null;
+            }
+            i += c.length;
+            parent = n;
+            index = idx;
+            n = c;
+        }
+        if(!n.hasValue)
+            return null;
+
+        V oldValue = n.value;
+        n.value = null;
+        n.hasValue = false;
+        size--;
+        modCount++;
+        if(n != root){
+            if(n.childCount == 0){
+                parent.removeChildAt(index);
+                if(parent != root && !parent.hasValue && parent.childCount == 1)
+                    parent.mergeWithChild();
+            }else if(n.childCount == 1){
+                n.mergeWithChild();
+            }
+        }
+        return oldValue;
+    }
+
+    public void clear(){
+        modCount++;
+        root = new Node<>(EMPTY_LABEL, 0, 0);
+        size = 0;
+    }
+
+    //Views
+
+    private transient Set<Map.Entry<String, V>> entrySet;
+
+    /**
+     * 返回此map包含的映射的set视图，按键的字典顺序迭代。此set受map支持，
+     * 支持元素的移除，但不支持add 或 addAll 操作
+     */
+    public Set<Map.Entry<String, V>> entrySet(){
+        Set<Map.Entry<String, V>> es = entrySet;
+        if(es == null){
+            es = new EntrySet("");
+            entrySet = es;
+        }
+        return es;
+    }
+
+    /**
+     * 返回此map中键以prefix开头的映射的视图。视图只记录前缀，查找直接在此map
+     * 的树上进行，迭代从前缀对应的节点开始，只遍历它的子树。对视图的修改会反映到
+     * 此map中，反之亦然。视图的size需要遍历子树。
+     *
+     * <p>向视图中put一个不以prefix开头的键会抛出IllegalArgumentException
+     *
+     * @throws NullPointerException 如果prefix为null
+     */
+    public Map<String, V> prefixMap(String prefix){
+        if(prefix.isEmpty())
+            return this;
+        return new PrefixMap(prefix);
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<String, V>> {
+        private final String prefix;
+
+        EntrySet(String prefix){
+            this.prefix = prefix;
+        }
+
+        public Iterator<Map.Entry<String, V>> iterator(){
+            return new EntryIterator(prefix);
+        }
+
+        public int size(){
+            if(prefix.isEmpty())
+                return size;
+            int n = 0;
+            for(Iterator<Map.Entry<String, V>> i = iterator(); i.hasNext(); i.next())
+                n++;
+            return n;
+        }
+
+        public boolean isEmpty(){
+            return !iterator().hasNext();
+        }
+
+        public boolean contains(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            Object k = e.getKey();
+            if(!(k instanceof String) || !((String) k).startsWith(prefix))
+                return false;
+            Node<V> n = findNode((String) k);
+            if(n == null || !n.hasValue)
+                return false;
+            Object v = e.getValue();
+            return v == null ? n.value == null : v.equals(n.value);
+        }
+
+        public boolean remove(Object o){
+            if(contains(o)){
+                RadixTreeMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+                return true;
+            }
+            return false;
+        }
+
+        public void clear(){
+            if(prefix.isEmpty()){
+                RadixTreeMap.this.clear();
+                return;
+            }
+            for(Iterator<Map.Entry<String, V>> i = iterator(); i.hasNext(); ){
+                i.next();
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * prefixMap返回的视图
+     */
+    final class PrefixMap extends AbstractMap<String, V> implements Map<String, V> {
+        private final String prefix;
+        private transient Set<Map.Entry<String, V>> entrySet;
+
+        PrefixMap(String prefix){
+            this.prefix = prefix;
+        }
+
+        private boolean inRange(Object key){
+            return ((String) key).startsWith(prefix);
+        }
+
+        public int size(){
+            return entrySet().size();
+        }
+
+        public boolean isEmpty(){
+            return entrySet().isEmpty();
+        }
+
+        public boolean containsKey(Object key){
+            return inRange(key) && RadixTreeMap.this.containsKey(key);
+        }
+
+        public V get(Object key){
+            return inRange(key) ? RadixTreeMap.this.get(key) : null;
+        }
+
+        public V put(String key, V value){
+            if(!inRange(key))
+                throw new IllegalArgumentException("key out of range");
+            return RadixTreeMap.this.put(key, value);
+        }
+
+        public V remove(Object key){
+            return inRange(key) ? RadixTreeMap.this.remove(key) : null;
+        }
+
+        public void clear(){
+            entrySet().clear();
+        }
+
+        public Set<Map.Entry<String, V>> entrySet(){
+            Set<Map.Entry<String, V>> es = entrySet;
+            if(es == null){
+                es = new EntrySet(prefix);
+                entrySet = es;
+            }
+            return es;
+        }
+    }
+
+    /**
+     * 按字典顺序遍历一个子树的迭代器。栈中保存从子树的根到当前节点的路径，
+     * 以及每个节点下一个要访问的子节点；path保存当前节点的键。
+     *
+     * <p>remove可能分裂或者合并节点，所以删除之后重新找到前缀对应的子树，
+     * 从刚删除的键开始向后定位，而不是继续使用原来的栈
+     */
+    abstract class RadixIterator<E> implements Iterator<E> {
+        private final String prefix;
+        private Node<V>[] nodes;
+        private int[] childIndex;
+        private int[] pathLength;
+        private int depth;
+        private char[] path = new char[16];
+        private int pathLen;
+
+        private Node<V> nextNode;
+        private String nextKey;
+        private Node<V> lastNode;
+        private String lastKey;
+        private int expectedModCount = modCount;
+
+        @SuppressWarnings("unchecked")
+        RadixIterator(String prefix){
+            this.prefix = prefix;
+            nodes = (Node<V>[]) new Node<?>[8];
+            childIndex = new int[8];
+            pathLength = new int[8];
+            Node<V> s = locate();
+            if(s != null){
+                push(s);
+                if(s.hasValue)
+                    setNext(s);
+                else
+                    advance();
+            }
+        }
+
+        /**
+         * 返回键以prefix开头的最浅的节点，并把它的键写入path；不存在时返回null
+         */
+        private Node<V> locate(){
+            final String p = prefix;
+            final int len = p.length();
+            pathLen = 0;
+            Node<V> n = root;
+            int i = 0;
+            while (i < len){
+                int idx = n.indexOfChild(p.charAt(i));
+                if(idx < 0)
+                    return null;
+                Node<V> c = n.children[idx];
+                int m = Math.min(c.length, len - i);
+                for(int j = 1; j < m; j++){
+                    if(c.charAt(j) != p.charAt(i + j))
+                        return null;
+                }
+                append(c);
+                i += c.length;
+                n = c;
+            }
+            return n;
+        }
+
+        private void append(Node<V> c){
+            int newLen = pathLen + c.length;
+            if(newLen > path.length)
+                path = java.util.Arrays.copyOf(path, Math.max(newLen, path.length << 1));
+            System.arraycopy(c.chars, c.offset, path, pathLen, c.length);
+            pathLen = newLen;
+        }
+
+        private void push(Node<V> n){
+            if(depth == nodes.length){
+                int newLength = depth << 1;
+                nodes = java.util.Arrays.copyOf(nodes, newLength);
+                childIndex = java.util.Arrays.copyOf(childIndex, newLength);
+                pathLength = java.util.Arrays.copyOf(pathLength, newLength);
+            }
+            nodes[depth] = n;
+            childIndex[depth] = 0;
+            pathLength[depth] = pathLen;
+            depth++;
+        }
+
+        private void setNext(Node<V> n){
+            nextNode = n;
+            nextKey = new String(path, 0, pathLen);
+        }
+
+        /**
+         * 按先序找到下一个有值的节点
+         */
+        private void advance(){
+            nextNode = null;
+            nextKey = null;
+            while (depth > 0){
+                int d = depth - 1;
+                Node<V> n = nodes[d];
+                if(childIndex[d] < n.childCount){
+                    Node<V> c = n.children[childIndex[d]++];
+                    pathLen = pathLength[d];
+                    append(c);
+                    push(c);
+                    if(c.hasValue){
+                        setNext(c);
+                        return;
+                    }
+                }else {
+                    nodes[d] = null;
+                    depth--;
+                }
+            }
+        }
+
+        /**
+         * 重新建立栈，使下一个返回的键是子树中大于key的最小的键
+         */
+        private void seekAfter(String key){
+            while (depth > 0)
+                nodes[--depth] = null;
+            nextNode = null;
+            nextKey = null;
+            Node<V> s = locate();
+            if(s == null)
+                return;
+            final int len = key.length();
+            final int pl = pathLen;
+            int j = 0;
+            while (j < pl && j < len && path[j] == key.charAt(j))
+                j++;
+            if(j < pl){
+                // 子树的根的键不是key的前缀：整个子树都在key之前或者之后
+                if(j == len || path[j] > key.charAt(j)){
+                    push(s);
+                    if(s.hasValue)
+                        setNext(s);
+                    else
+                        advance();
+                }
+                return;
+            }
+
+            push(s);
+            Node<V> n = s;
+            int i = pl;
+            while (i < len){
+                final int d = depth - 1;
+                int idx = n.indexOfChild(key.charAt(i));
+                if(idx < 0){
+                    childIndex[d] = -idx - 1;
+                    break;
+                }
+                Node<V> c = n.children[idx];
+                int k = 1;
+                while (k < c.length && i + k < len && c.charAt(k) == key.charAt(i + k))
+                    k++;
+                if(k == c.length){
+                    childIndex[d] = idx + 1;
+                    pathLen = pathLength[d];
+                    append(c);
+                    push(c);
+                    i += k;
+                    n = c;
+                }else {
+                    // key在这条边的中间结束，或者分叉处key的字符较小：c的子树都在key之后
+                    childIndex[d] = (i + k == len || c.charAt(k) > key.charAt(i + k)) ? idx : idx + 1;
+                    break;
+                }
+            }
+            advance();
+        }
+
+        public boolean hasNext(){
+            return nextNode != null;
+        }
+
+        final Node<V> nextNode(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(nextNode == null)
+                throw new NoSuchElementException();
+            lastNode = nextNode;
+            lastKey = nextKey;
+            advance();
+            return lastNode;
+        }
+
+        final String lastKey(){
+            return lastKey;
+        }
+
+        public void remove(){
+            if(lastNode == null)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            RadixTreeMap.this.remove(lastKey);
+            expectedModCount = modCount;
+            seekAfter(lastKey);
+            lastNode = null;
+            lastKey = null;
+        }
+    }
+
+    final class EntryIterator extends RadixIterator<Map.Entry<String, V>> {
+        EntryIterator(String prefix){
+            super(prefix);
+        }
+
+        public Map.Entry<String, V> next(){
+            Node<V> n = nextNode();
+            return new NodeEntry(lastKey(), n);
+        }
+    }
+
+    /**
+     * 由entrySet迭代器返回的entry，setValue直接写入节点。
+     * 与Map.Entry的规范一致，在map被结构性修改之后它的行为是不确定的
+     */
+    final class NodeEntry extends AbstractMap.SimpleEntry<String, V> {
+        private static final long serialVersionUID = 7207934728372650316L;
+
+        private final transient Node<V> node;
+
+        NodeEntry(String key, Node<V> node){
+            super(key, node.value);
+            this.node = node;
+        }
+
+        public V setValue(V value){
+            node.value = value;
+            return super.setValue(value);
+        }
+    }
+
+    //Serialization
+
+    /**
+     * 按字典顺序写出映射的数量以及每个映射的键和值
+     */
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        s.defaultWriteObject();
+        s.writeInt(size);
+        for(Iterator<Map.Entry<String, V>> i = entrySet().iterator(); i.hasNext(); ){
+            Map.Entry<String, V> e = i.next();
+            s.writeObject(e.getKey());
+            s.writeObject(e.getValue());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        s.defaultReadObject();
+        int mappings = s.readInt();
+        if(mappings < 0)
+            throw new java.io.InvalidObjectException("Illegal mappings count: " +
+                                                        mappings);
+        root = new Node<>(EMPTY_LABEL, 0, 0);
+        for(int i = 0; i < mappings; i++){
+            String key = (String) s.readObject();
+            V value = (V) s.readObject();
+            put(key, value);
+        }
+    }
+}
@@ -0,0 +1,1398 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * 压缩位图(Roaring bitmap)实现的int集合，对稀疏和稠密的数据都很紧凑。
+ *
+ * <p>32位的值按高16位分成最多65536个块，每个块的低16位保存在一个容器中，
+ * 容器有三种：
+ * <ul>
+ *     <li>数组容器：有序的char数组，用于不超过4096个元素的稀疏块，
+ *     每个元素2个字节</li>
+ *     <li>位图容器：1024个long，用于超过4096个元素的稠密块，固定8K字节</li>
+ *     <li>行程容器：若干个(起点, 长度)对，用于由连续区间组成的块</li>
+ * </ul>
+ * 数组容器在第4097个元素加入时转为位图容器，位图容器在元素减少到4096个时
+ * 转回数组容器；行程容器在行程太多、不再比另外两种表示更小时自动转换。
+ * {@link #addRange}和行程容器之间的交、并直接产生行程容器，
+ * {@link #runOptimize()}把每个容器转换为三种表示中最小的一种。
+ *
+ * <p>{@link #and}和{@link #or}按块的键归并两个位图，只对键相同的容器做运算，
+ * 运算根据两个容器的类型选择：数组之间归并，数组与位图之间逐个检查，位图之间
+ * 按字运算，行程之间按区间归并。当参数也是RoaringBitmap时，retainAll和addAll
+ * 使用这些运算。
+ *
+ * <p>{@link #serialize(ByteBuffer)}写出的格式是小端序的：一个头部，随后是每个容器
+ * 的目录项(键，类型，元素数量，数据的偏移量)，最后是各个容器的数据，位图容器
+ * 的数据按8字节对齐。有了目录，{@link #contains(ByteBuffer, int)}可以直接在
+ * 内存映射的文件上查找，而不需要先反序列化。
+ *
+ * <p>值按无符号数排序，所以迭代时负数排在所有非负数之后。此set不允许null元素。
+ * 注意此实现不是同步的。此类的迭代器是fail-fast的。
+ *
+ * @see BitIntSet
+ * Created by jianglei on 2017/4/22.
+ */
+public class RoaringBitmap extends AbstractSet<Integer>
+        implements Set<Integer>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = -3148530772911370621L;
+
+    /**
+     * 数组容器的最大元素数量，超过时转为位图容器
+     */
+    static final int ARRAY_MAX = 4096;
+
+    private static final int BITMAP_WORDS = 1024;
+
+    private static final int BITMAP_BYTES = BITMAP_WORDS * 8;
+
+    private static final int TYPE_ARRAY = 0;
+    private static final int TYPE_BITMAP = 1;
+    private static final int TYPE_RUN = 2;
+
+    /**
+     * 序列化格式的标记
+     */
+    private static final int SERIAL_COOKIE = 0x524F4152;
+
+    private static final int HEADER_BYTES = 8;
+
+    private static final int DIRECTORY_ENTRY_BYTES = 12;
+
+    /**
+     * 块的键(值的高16位)，升序
+     */
+    transient char[] keys;
+
+    /**
+     * 与keys一一对应的容器，都不为空
+     */
+    transient Container[] containers;
+
+    /**
+     * 容器的数量
+     */
+    transient int containerCount;
+
+    /**
+     * 元素的数量，最多2^32个
+     */
+    transient long cardinality;
+
+    transient int modCount;
+
+    /**
+     * 创建一个空的位图
+     */
+    public RoaringBitmap(){
+        keys = new char[4];
+        containers = new Container[4];
+    }
+
+    /**
+     * 创建一个包含指定集合中所有元素的位图
+     *
+     * @throws NullPointerException 如果指定的集合为null，或者包含null元素
+     */
+    public RoaringBitmap(Collection<? extends Integer> c){
+        this();
+        addAll(c);
+    }
+
+    /**
+     * 返回包含指定值的位图
+     */
+    public static RoaringBitmap of(int... values){
+        RoaringBitmap r = new RoaringBitmap();
+        for(int v : values)
+            r.add(v);
+        return r;
+    }
+
+    private static char highBits(int x){
+        return (char) (x >>> 16);
+    }
+
+    private static char lowBits(int x){
+        return (char) x;
+    }
+
+    private int indexOf(char key){
+        return Arrays.binarySearch(keys, 0, containerCount, key);
+    }
+
+    private void insertContainerAt(int i, char key, Container c){
+        if(containerCount == keys.length){
+            int newLength = Math.min(Math.max(containerCount * 2, 4), 1 << 16);
+            keys = Arrays.copyOf(keys, newLength);
+            containers = Arrays.copyOf(containers, newLength);
+        }
+        System.arraycopy(keys, i, keys, i + 1, containerCount - i);
+        System.arraycopy(containers, i, containers, i + 1, containerCount - i);
+        keys[i] = key;
+        containers[i] = c;
+        containerCount++;
+    }
+
+    private void removeContainerAt(int i){
+        int numMoved = containerCount - i - 1;
+        System.arraycopy(keys, i + 1, keys, i, numMoved);
+        System.arraycopy(containers, i + 1, containers, i, numMoved);
+        containers[--containerCount] = null;
+    }
+
+    //Query Operations
+
+    /**
+     * 返回元素的数量，超过Integer.MAX_VALUE时返回Integer.MAX_VALUE
+     */
+    public int size(){
+        return (int) Math.min(cardinality, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 返回元素的数量
+     */
+    public long longCardinality(){
+        return cardinality;
+    }
+
+    public boolean isEmpty(){
+        return cardinality == 0;
+    }
+
+    /**
+     * 如果此位图包含指定的值，返回true
+     */
+    public boolean contains(int x){
+        int i = indexOf(highBits(x));
+        return i >= 0 && containers[i].contains(lowBits(x));
+    }
+
+    public boolean contains(Object o){
+        return o instanceof Integer && contains(((Integer) o).intValue());
+    }
+
+    //Modification Operations
+
+    /**
+     * 把指定的值加入到此位图中
+     *
+     * @return true 如果此位图原来不包含该值
+     */
+    public boolean add(int x){
+        char hb = highBits(x);
+        int i = indexOf(hb);
+        if(i >= 0){
+            Container c = containers[i];
+            int before = c.cardinality();
+            c = c.add(lowBits(x));
+            containers[i] = c;
+            if(c.cardinality() == before)
+                return false;
+        }else {
+            insertContainerAt(-i - 1, hb, new ArrayContainer().add(lowBits(x)));
+        }
+        cardinality++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * @throws NullPointerException 如果e为null
+     */
+    public boolean add(Integer e){
+        return add(e.intValue());
+    }
+
+    /**
+     * 从此位图中删除指定的值，如果它存在的话
+     *
+     * @return true 如果此位图包含该值
+     */
+    public boolean remove(int x){
+        int i = indexOf(highBits(x));
+        if(i < 0)
+            return false;
+        Container c = containers[i];
+        int before = c.cardinality();
+        c = c.remove(lowBits(x));
+        if(c.cardinality() == before)
+            return false;
+        if(c.cardinality() == 0)
+            removeContainerAt(i);
+        else
+            containers[i] = c;
+        cardinality--;
+        modCount++;
+        return true;
+    }
+
+    public boolean remove(Object o){
+        return o instanceof Integer && remove(((Integer) o).intValue());
+    }
+
+    /**
+     * 把无符号区间[rangeStart, rangeEnd)中所有的值加入到此位图中。
+     * 完整覆盖的块和新建的块使用行程容器
+     *
+     * @param rangeStart 区间的起点(包含)，在[0, 2^32]范围内
+     * @param rangeEnd 区间的终点(不包含)，在[0, 2^32]范围内
+     * @throws IllegalArgumentException 如果区间不合法
+     */
+    public void addRange(long rangeStart, long rangeEnd){
+        if(rangeStart < 0 || rangeEnd > (1L << 32) || rangeStart > rangeEnd)
+            throw new IllegalArgumentException("Illegal range: [" + rangeStart +
+                                                ", " + rangeEnd + ")");
+        if(rangeStart == rangeEnd)
+            return;
+        long last = rangeEnd - 1;
+        int hbStart = (int) (rangeStart >>> 16);
+        int hbLast = (int) (last >>> 16);
+        for(int hb = hbStart; hb <= hbLast; hb++){
+            int lo = hb == hbStart ? (int) (rangeStart & 0xFFFF) : 0;
+            int hi = hb == hbLast ? (int) (last & 0xFFFF) : 0xFFFF;
+            RunContainer range = RunContainer.range(lo, hi);
+            int i = indexOf((char) hb);
+            if(i >= 0){
+                Container c = containers[i];
+                cardinality -= c.cardinality();
+                c = (lo == 0 && hi == 0xFFFF) ? range : or(c, range);
+                containers[i] = c;
+                cardinality += c.cardinality();
+            }else {
+                insertContainerAt(-i - 1, (char) hb, range);
+                cardinality += range.cardinality();
+            }
+        }
+        modCount++;
+    }
+
+    public void clear(){
+        Arrays.fill(containers, 0, containerCount, null);
+        containerCount = 0;
+        cardinality = 0;
+        modCount++;
+    }
+
+    /**
+     * 把每个容器转换为三种表示中最小的一种
+     *
+     * @return true 如果有容器被转换为行程容器
+     */
+    public boolean runOptimize(){
+        boolean changed = false;
+        for(int i = 0; i < containerCount; i++){
+            Container c = containers[i];
+            Container n = c.runOptimize();
+            if(n != c){
+                containers[i] = n;
+                changed |= n instanceof RunContainer;
+            }
+        }
+        return changed;
+    }
+
+    //Set Operations
+
+    /**
+     * 返回两个位图的交集，两个参数都不改变
+     */
+    public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b){
+        RoaringBitmap r = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < a.containerCount && j < b.containerCount){
+            char ka = a.keys[i], kb = b.keys[j];
+            if(ka < kb){
+                i++;
+            }else if(ka > kb){
+                j++;
+            }else {
+                Container c = and(a.containers[i], b.containers[j]);
+                if(c.cardinality() > 0)
+                    r.append(ka, c);
+                i++;
+                j++;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * 返回两个位图的并集，两个参数都不改变
+     */
+    public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b){
+        RoaringBitmap r = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < a.containerCount || j < b.containerCount){
+            if(j == b.containerCount || (i < a.containerCount && a.keys[i] < b.keys[j])){
+                r.append(a.keys[i], a.containers[i].copy());
+                i++;
+            }else if(i == a.containerCount || a.keys[i] > b.keys[j]){
+                r.append(b.keys[j], b.containers[j].copy());
+                j++;
+            }else {
+                r.append(a.keys[i], or(a.containers[i], b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * 在末尾追加一个键更大的容器
+     */
+    private void append(char key, Container c){
+        insertContainerAt(containerCount, key, c);
+        cardinality += c.cardinality();
+    }
+
+    /**
+     * 用r的内容替换此位图的内容
+     */
+    private void replaceWith(RoaringBitmap r){
+        keys = r.keys;
+        containers = r.containers;
+        containerCount = r.containerCount;
+        cardinality = r.cardinality;
+        modCount++;
+    }
+
+    public boolean addAll(Collection<? extends Integer> c){
+        if(c instanceof RoaringBitmap){
+            long before = cardinality;
+            replaceWith(or(this, (RoaringBitmap) c));
+            return cardinality != before;
+        }
+        return super.addAll(c);
+    }
+
+    public boolean retainAll(Collection<?> c){
+        Objects.requireNonNull(c);
+        if(c instanceof RoaringBitmap){
+            long before = cardinality;
+            replaceWith(and(this, (RoaringBitmap) c));
+            return cardinality != before;
+        }
+        return super.retainAll(c);
+    }
+
+    /**
+     * 按无符号的顺序对每一个元素执行指定的操作。不装箱。
+     * 不命名为forEach，是为了避免lambda参数与Iterable.forEach产生歧义
+     *
+     * @throws NullPointerException 如果action为null
+     */
+    public void forEachInt(IntConsumer action){
+        if(action == null)
+            throw new NullPointerException();
+        for(int i = 0; i < containerCount; i++)
+            containers[i].forEach(keys[i] << 16, action);
+    }
+
+    /**
+     * 返回按无符号的顺序迭代元素的迭代器，它的nextInt不装箱
+     */
+    public IntIterator iterator(){
+        return new BitmapIterator();
+    }
+
+    final class BitmapIterator implements IntIterator {
+        /**
+         * 下一个元素所在的容器，以及下一个元素的低16位，-1表示没有更多的元素
+         */
+        int index;
+        int nextLow;
+        int lastReturned;
+        boolean canRemove;
+        int expectedModCount = modCount;
+
+        BitmapIterator(){
+            nextLow = containerCount > 0 ? containers[0].nextValue(0) : -1;
+        }
+
+        public boolean hasNext(){
+            return nextLow >= 0;
+        }
+
+        public int nextInt(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(nextLow < 0)
+                throw new NoSuchElementException();
+            char key = keys[index];
+            lastReturned = (key << 16) | nextLow;
+            canRemove = true;
+            int n = nextLow < 0xFFFF ? containers[index].nextValue(nextLow + 1) : -1;
+            if(n < 0 && ++index < containerCount)
+                n = containers[index].nextValue(0);
+            nextLow = n;
+            return lastReturned;
+        }
+
+        public void remove(){
+            if(!canRemove)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            int before = containerCount;
+            char nextKey = nextLow >= 0 ? keys[index] : 0;
+            RoaringBitmap.this.remove(lastReturned);
+            // 删除可能使一个容器变空，下一个元素所在的容器随之前移
+            if(nextLow >= 0 && containerCount < before)
+                index = indexOf(nextKey);
+            expectedModCount = modCount;
+            canRemove = false;
+        }
+    }
+
+    //Comparison and hashing
+
+    public boolean equals(Object o){
+        if(o == this)
+            return true;
+        if(o instanceof RoaringBitmap){
+            RoaringBitmap r = (RoaringBitmap) o;
+            if(r.cardinality != cardinality || r.containerCount != containerCount)
+                return false;
+            for(int i = 0; i < containerCount; i++){
+                if(keys[i] != r.keys[i] || !containers[i].sameValues(r.containers[i]))
+                    return false;
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    /**
+     * 与Set&lt;Integer&gt;的哈希值一致：所有元素之和
+     */
+    public int hashCode(){
+        int[] h = new int[1];
+        forEachInt(x -> h[0] += x);
+        return h[0];
+    }
+
+    public RoaringBitmap clone(){
+        RoaringBitmap result;
+        try {
+            result = (RoaringBitmap) super.clone();
+        } catch (CloneNotSupportedException e){
+            throw new InternalError(e);
+        }
+        result.keys = keys.clone();
+        result.containers = containers.clone();
+        for(int i = 0; i < containerCount; i++)
+            result.containers[i] = containers[i].copy();
+        result.modCount = 0;
+        return result;
+    }
+
+    //Serialization
+
+    /**
+     * 返回serialize写出的字节数
+     */
+    public int serializedSizeInBytes(){
+        int offset = HEADER_BYTES + containerCount * DIRECTORY_ENTRY_BYTES;
+        for(int i = 0; i < containerCount; i++)
+            offset = payloadOffset(containers[i], offset) + containers[i].sizeInBytes();
+        return offset;
+    }
+
+    /**
+     * 位图容器的数据按8字节对齐，使映射之后的long读取是对齐的
+     */
+    private static int payloadOffset(Container c, int offset){
+        return c instanceof BitmapContainer ? (offset + 7) & ~7 : offset;
+    }
+
+    /**
+     * 从buf的position开始写出此位图，并把position移到写出的数据之后。
+     * 偏移量相对于写出的起点，所以数据可以被复制或者映射到任何位置
+     *
+     * @throws java.nio.BufferOverflowException 如果buf的剩余空间不够
+     */
+    public void serialize(ByteBuffer buf){
+        final int total = serializedSizeInBytes();
+        if(buf.remaining() < total)
+            throw new java.nio.BufferOverflowException();
+        final int base = buf.position();
+        final ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(base, SERIAL_COOKIE);
+        b.putInt(base + 4, containerCount);
+        int offset = HEADER_BYTES + containerCount * DIRECTORY_ENTRY_BYTES;
+        for(int i = 0; i < containerCount; i++){
+            Container c = containers[i];
+            offset = payloadOffset(c, offset);
+            int entry = base + HEADER_BYTES + i * DIRECTORY_ENTRY_BYTES;
+            b.putChar(entry, keys[i]);
+            b.putChar(entry + 2, (char) c.type());
+            b.putInt(entry + 4, c.cardinality());
+            b.putInt(entry + 8, offset);
+            c.writeTo(b, base + offset);
+            offset += c.sizeInBytes();
+        }
+        buf.position(base + total);
+    }
+
+    /**
+     * 从buf的position开始读取serialize写出的位图，并把position移到数据之后
+     *
+     * @throws IllegalArgumentException 如果数据不是合法的序列化格式
+     */
+    public static RoaringBitmap deserialize(ByteBuffer buf){
+        final int base = buf.position();
+        final ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if(b.getInt(base) != SERIAL_COOKIE)
+            throw new IllegalArgumentException("Not a serialized RoaringBitmap");
+        int n = b.getInt(base + 4);
+        if(n < 0 || n > (1 << 16))
+            throw new IllegalArgumentException("Illegal container count: " + n);
+        RoaringBitmap r = new RoaringBitmap();
+        int end = HEADER_BYTES + n * DIRECTORY_ENTRY_BYTES;
+        for(int i = 0; i < n; i++){
+            int entry = base + HEADER_BYTES + i * DIRECTORY_ENTRY_BYTES;
+            char key = b.getChar(entry);
+            int type = b.getChar(entry + 2);
+            int card = b.getInt(entry + 4);
+            int offset = b.getInt(entry + 8);
+            if(card <= 0 || card > (1 << 16) || (i > 0 && key <= r.keys[i - 1]))
+                throw new IllegalArgumentException("Corrupted container directory");
+            Container c;
+            switch (type){
+                case TYPE_ARRAY:
+                    c = ArrayContainer.readFrom(b, base + offset, card);
+                    break;
+                case TYPE_BITMAP:
+                    c = BitmapContainer.readFrom(b, base + offset, card);
+                    break;
+                case TYPE_RUN:
+                    c = RunContainer.readFrom(b, base + offset, card);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown container type: " + type);
+            }
+            r.append(key, c);
+            end = Math.max(end, offset + c.sizeInBytes());
+        }
+        buf.position(base + end);
+        return r;
+    }
+
+    /**
+     * 直接在serialize写出的数据上判断是否包含x，不反序列化，也不分配容器。
+     * 数据从buf的position开始，buf的状态不变。适合在内存映射的文件上查找
+     *
+     * @throws IllegalArgumentException 如果数据不是合法的序列化格式
+     */
+    public static boolean contains(ByteBuffer buf, int x){
+        final int base = buf.position();
+        final ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if(b.getInt(base) != SERIAL_COOKIE)
+            throw new IllegalArgumentException("Not a serialized RoaringBitmap");
+        final char hb = highBits(x);
+        final char lb = lowBits(x);
+        int lo = 0, hi = b.getInt(base + 4) - 1;
+        while (lo <= hi){
+            int mid = (lo + hi) >>> 1;
+            int entry = base + HEADER_BYTES + mid * DIRECTORY_ENTRY_BYTES;
+            char key = b.getChar(entry);
+            if(key < hb){
+                lo = mid + 1;
+            }else if(key > hb){
+                hi = mid - 1;
+            }else {
+                int type = b.getChar(entry + 2);
+                int card = b.getInt(entry + 4);
+                int offset = base + b.getInt(entry + 8);
+                switch (type){
+                    case TYPE_ARRAY:
+                        return ArrayContainer.contains(b, offset, card, lb);
+                    case TYPE_BITMAP:
+                        return (b.getLong(offset + (lb >>> 6) * 8) & (1L << lb)) != 0;
+                    case TYPE_RUN:
+                        return RunContainer.contains(b, offset, lb);
+                    default:
+                        throw new IllegalArgumentException("Unknown container type: " + type);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        s.defaultWriteObject();
+        ByteBuffer buf = ByteBuffer.allocate(serializedSizeInBytes());
+        serialize(buf);
+        s.writeInt(buf.capacity());
+        s.write(buf.array());
+    }
+
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        s.defaultReadObject();
+        int length = s.readInt();
+        if(length < HEADER_BYTES)
+            throw new java.io.InvalidObjectException("Illegal length: " + length);
+        byte[] bytes = new byte[length];
+        s.readFully(bytes);
+        RoaringBitmap r;
+        try {
+            r = deserialize(ByteBuffer.wrap(bytes));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e){
+            throw new java.io.InvalidObjectException(e.getMessage());
+        }
+        keys = r.keys;
+        containers = r.containers;
+        containerCount = r.containerCount;
+        cardinality = r.cardinality;
+    }
+
+    //Container operations
+
+    /**
+     * 返回两个容器的交集，两个参数都不改变
+     */
+    static Container and(Container a, Container b){
+        if(a instanceof ArrayContainer)
+            return ((ArrayContainer) a).and(b);
+        if(b instanceof ArrayContainer)
+            return ((ArrayContainer) b).and(a);
+        if(a instanceof RunContainer && b instanceof RunContainer)
+            return ((RunContainer) a).and((RunContainer) b);
+        // 至少一个是位图容器
+        long[] wa = a.bitmapWords();
+        long[] wb = b.bitmapWords();
+        long[] w = new long[BITMAP_WORDS];
+        int card = 0;
+        for(int i = 0; i < BITMAP_WORDS; i++){
+            w[i] = wa[i] & wb[i];
+            card += Long.bitCount(w[i]);
+        }
+        return new BitmapContainer(w, card).normalize();
+    }
+
+    /**
+     * 返回两个容器的并集，两个参数都不改变
+     */
+    static Container or(Container a, Container b){
+        if(a instanceof RunContainer && b instanceof RunContainer)
+            return ((RunContainer) a).or((RunContainer) b);
+        if(a.cardinality() == 1 << 16)
+            return a.copy();
+        if(b.cardinality() == 1 << 16)
+            return b.copy();
+        if(a instanceof ArrayContainer && b instanceof ArrayContainer)
+            return ((ArrayContainer) a).or((ArrayContainer) b);
+        long[] wa = a.bitmapWords();
+        long[] wb = b.bitmapWords();
+        long[] w = new long[BITMAP_WORDS];
+        int card = 0;
+        for(int i = 0; i < BITMAP_WORDS; i++){
+            w[i] = wa[i] | wb[i];
+            card += Long.bitCount(w[i]);
+        }
+        return new BitmapContainer(w, card).normalize();
+    }
+
+    /**
+     * 把位图中[start, end]范围内的位置为1
+     */
+    static void setBits(long[] words, int start, int end){
+        int first = start >>> 6;
+        int last = end >>> 6;
+        long firstMask = -1L << start;
+        long lastMask = -1L >>> (63 - (end & 63));
+        if(first == last){
+            words[first] |= firstMask & lastMask;
+            return;
+        }
+        words[first] |= firstMask;
+        for(int i = first + 1; i < last; i++)
+            words[i] = -1L;
+        words[last] |= lastMask;
+    }
+
+    /**
+     * 一个块中低16位的集合
+     */
+    abstract static class Container {
+
+        abstract int type();
+
+        abstract int cardinality();
+
+        abstract boolean contains(char x);
+
+        /**
+         * 加入x，返回加入之后的容器，它可能是转换之后的另一种容器
+         */
+        abstract Container add(char x);
+
+        /**
+         * 删除x，返回删除之后的容器，它可能是转换之后的另一种容器
+         */
+        abstract Container remove(char x);
+
+        /**
+         * 返回大于等于from的最小元素，不存在时返回-1
+         */
+        abstract int nextValue(int from);
+
+        /**
+         * 对每一个元素x执行action.accept(high | x)
+         */
+        abstract void forEach(int high, IntConsumer action);
+
+        /**
+         * 返回此容器的位图表示，位图容器返回自己的数组，调用者不能修改它
+         */
+        abstract long[] bitmapWords();
+
+        /**
+         * 返回三种表示中最小的一种，可能是此容器本身
+         */
+        abstract Container runOptimize();
+
+        abstract Container copy();
+
+        /**
+         * 序列化数据的字节数
+         */
+        abstract int sizeInBytes();
+
+        abstract void writeTo(ByteBuffer b, int offset);
+
+        /**
+         * 如果两个容器包含相同的元素，返回true，它们的表示可以不同
+         */
+        boolean sameValues(Container c){
+            return cardinality() == c.cardinality() &&
+                    Arrays.equals(bitmapWords(), c.bitmapWords());
+        }
+
+        /**
+         * 数组或位图中最小的表示对应的字节数
+         */
+        static int bestNonRunSize(int card){
+            return card <= ARRAY_MAX ? 2 * card : BITMAP_BYTES;
+        }
+    }
+
+    /**
+     * 有序char数组表示的稀疏容器
+     */
+    static final class ArrayContainer extends Container {
+        char[] content;
+        int card;
+
+        ArrayContainer(){
+            content = new char[4];
+        }
+
+        ArrayContainer(char[] content, int card){
+            this.content = content;
+            this.card = card;
+        }
+
+        int type(){
+            return TYPE_ARRAY;
+        }
+
+        int cardinality(){
+            return card;
+        }
+
+        boolean contains(char x){
+            return Arrays.binarySearch(content, 0, card, x) >= 0;
+        }
+
+        Container add(char x){
+            int i = Arrays.binarySearch(content, 0, card, x);
+            if(i >= 0)
+                return this;
+            if(card >= ARRAY_MAX)
+                return toBitmap().add(x);
+            i = -i - 1;
+            if(card == content.length)
+                content = Arrays.copyOf(content, Math.min(ARRAY_MAX, card < 64 ? card * 2 : card + (card >> 1)));
+            System.arraycopy(content, i, content, i + 1, card - i);
+            content[i] = x;
+            card++;
+            return this;
+        }
+
+        Container remove(char x){
+            int i = Arrays.binarySearch(content, 0, card, x);
+            if(i < 0)
+                return this;
+            System.arraycopy(content, i + 1, content, i, card - i - 1);
+            card--;
+            return this;
+        }
+
+        int nextValue(int from){
+            int i = Arrays.binarySearch(content, 0, card, (char) from);
+            if(i < 0)
+                i = -i - 1;
+            return i < card ? content[i] : -1;
+        }
+
+        void forEach(int high, IntConsumer action){
+            for(int i = 0; i < card; i++)
+                action.accept(high | content[i]);
+        }
+
+        long[] bitmapWords(){
+            long[] w = new long[BITMAP_WORDS];
+            for(int i = 0; i < card; i++)
+                w[content[i] >>> 6] |= 1L << content[i];
+            return w;
+        }
+
+        BitmapContainer toBitmap(){
+            return new BitmapContainer(bitmapWords(), card);
+        }
+
+        /**
+         * 与任意容器求交：结果不会多于此数组的元素，所以总是数组容器
+         */
+        ArrayContainer and(Container c){
+            char[] r = new char[Math.max(Math.min(card, c.cardinality()), 1)];
+            int n = 0;
+            if(c instanceof ArrayContainer){
+                ArrayContainer a = (ArrayContainer) c;
+                int i = 0, j = 0;
+                while (i < card && j < a.card){
+                    char x = content[i], y = a.content[j];
+                    if(x < y){
+                        i++;
+                    }else if(x > y){
+                        j++;
+                    }else {
+                        r[n++] = x;
+                        i++;
+                        j++;
+                    }
+                }
+            }else {
+                for(int i = 0; i < card; i++){
+                    if(c.contains(content[i]))
+                        r[n++] = content[i];
+                }
+            }
+            return new ArrayContainer(r, n);
+        }
+
+        Container or(ArrayContainer a){
+            if(card + a.card > ARRAY_MAX){
+                long[] w = bitmapWords();
+                for(int i = 0; i < a.card; i++)
+                    w[a.content[i] >>> 6] |= 1L << a.content[i];
+                int c = 0;
+                for(long x : w)
+                    c += Long.bitCount(x);
+                return new BitmapContainer(w, c).normalize();
+            }
+            char[] r = new char[Math.max(card + a.card, 1)];
+            int i = 0, j = 0, n = 0;
+            while (i < card && j < a.card){
+                char x = content[i], y = a.content[j];
+                if(x < y){
+                    r[n++] = x;
+                    i++;
+                }else if(x > y){
+                    r[n++] = y;
+                    j++;
+                }else {
+                    r[n++] = x;
+                    i++;
+                    j++;
+                }
+            }
+            while (i < card)
+                r[n++] = content[i++];
+            while (j < a.card)
+                r[n++] = a.content[j++];
+            return new ArrayContainer(r, n);
+        }
+
+        Container runOptimize(){
+            int runs = 0;
+            for(int i = 0; i < card; i++){
+                if(i == 0 || content[i] != content[i - 1] + 1)
+                    runs++;
+            }
+            if(RunContainer.sizeInBytes(runs) >= 2 * card)
+                return this;
+            RunContainer r = new RunContainer(new char[2 * runs], 0, 0);
+            for(int i = 0; i < card; i++)
+                r.appendValue(content[i]);
+            return r;
+        }
+
+        Container copy(){
+            return new ArrayContainer(Arrays.copyOf(content, Math.max(card, 1)), card);
+        }
+
+        boolean sameValues(Container c){
+            if(c instanceof ArrayContainer){
+                ArrayContainer a = (ArrayContainer) c;
+                if(a.card != card)
+                    return false;
+                for(int i = 0; i < card; i++)
+                    if(content[i] != a.content[i])
+                        return false;
+                return true;
+            }
+            return super.sameValues(c);
+        }
+
+        int sizeInBytes(){
+            return 2 * card;
+        }
+
+        void writeTo(ByteBuffer b, int offset){
+            for(int i = 0; i < card; i++)
+                b.putChar(offset + 2 * i, content[i]);
+        }
+
+        static ArrayContainer readFrom(ByteBuffer b, int offset, int card){
+            if(card > ARRAY_MAX)
+                throw new IllegalArgumentException("Array container too large: " + card);
+            char[] content = new char[card];
+            for(int i = 0; i < card; i++)
+                content[i] = b.getChar(offset + 2 * i);
+            return new ArrayContainer(content, card);
+        }
+
+        static boolean contains(ByteBuffer b, int offset, int card, char x){
+            int lo = 0, hi = card - 1;
+            while (lo <= hi){
+                int mid = (lo + hi) >>> 1;
+                char v = b.getChar(offset + 2 * mid);
+                if(v < x)
+                    lo = mid + 1;
+                else if(v > x)
+                    hi = mid - 1;
+                else
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 1024个long表示的稠密容器
+     */
+    static final class BitmapContainer extends Container {
+        final long[] words;
+        int card;
+
+        BitmapContainer(long[] words, int card){
+            this.words = words;
+            this.card = card;
+        }
+
+        int type(){
+            return TYPE_BITMAP;
+        }
+
+        int cardinality(){
+            return card;
+        }
+
+        boolean contains(char x){
+            return (words[x >>> 6] & (1L << x)) != 0;
+        }
+
+        Container add(char x){
+            long old = words[x >>> 6];
+            long w = old | (1L << x);
+            if(w != old){
+                words[x >>> 6] = w;
+                card++;
+            }
+            return this;
+        }
+
+        Container remove(char x){
+            long old = words[x >>> 6];
+            long w = old & ~(1L << x);
+            if(w == old)
+                return this;
+            words[x >>> 6] = w;
+            card--;
+            return card <= ARRAY_MAX ? toArray() : this;
+        }
+
+        int nextValue(int from){
+            int u = from >>> 6;
+            long word = words[u] & (-1L << from);
+            while (true){
+                if(word != 0)
+                    return (u << 6) + Long.numberOfTrailingZeros(word);
+                if(++u == BITMAP_WORDS)
+                    return -1;
+                word = words[u];
+            }
+        }
+
+        void forEach(int high, IntConsumer action){
+            for(int u = 0; u < BITMAP_WORDS; u++){
+                for(long w = words[u]; w != 0; w &= w - 1)
+                    action.accept(high | (u << 6) + Long.numberOfTrailingZeros(w));
+            }
+        }
+
+        long[] bitmapWords(){
+            return words;
+        }
+
+        ArrayContainer toArray(){
+            char[] content = new char[Math.max(card, 1)];
+            int n = 0;
+            for(int u = 0; u < BITMAP_WORDS; u++){
+                for(long w = words[u]; w != 0; w &= w - 1)
+                    content[n++] = (char) ((u << 6) + Long.numberOfTrailingZeros(w));
+            }
+            return new ArrayContainer(content, n);
+        }
+
+        /**
+         * 元素不多于ARRAY_MAX时转换为数组容器
+         */
+        Container normalize(){
+            return card <= ARRAY_MAX ? toArray() : this;
+        }
+
+        /**
+         * 行程的数量：每个前一位为0的1位开始一个行程
+         */
+        int numberOfRuns(){
+            int runs = 0;
+            long prevTop = 0;
+            for(long w : words){
+                runs += Long.bitCount(w & ~((w << 1) | prevTop));
+                prevTop = w >>> 63;
+            }
+            return runs;
+        }
+
+        Container runOptimize(){
+            int runs = numberOfRuns();
+            if(RunContainer.sizeInBytes(runs) >= bestNonRunSize(card))
+                return normalize();
+            RunContainer r = new RunContainer(new char[2 * runs], 0, 0);
+            for(int u = 0; u < BITMAP_WORDS; u++){
+                for(long w = words[u]; w != 0; w &= w - 1)
+                    r.appendValue((u << 6) + Long.numberOfTrailingZeros(w));
+            }
+            return r;
+        }
+
+        Container copy(){
+            return new BitmapContainer(words.clone(), card);
+        }
+
+        int sizeInBytes(){
+            return BITMAP_BYTES;
+        }
+
+        void writeTo(ByteBuffer b, int offset){
+            for(int i = 0; i < BITMAP_WORDS; i++)
+                b.putLong(offset + 8 * i, words[i]);
+        }
+
+        static BitmapContainer readFrom(ByteBuffer b, int offset, int card){
+            long[] words = new long[BITMAP_WORDS];
+            int c = 0;
+            for(int i = 0; i < BITMAP_WORDS; i++){
+                words[i] = b.getLong(offset + 8 * i);
+                c += Long.bitCount(words[i]);
+            }
+            if(c != card)
+                throw new IllegalArgumentException("Bitmap container cardinality mismatch");
+            return new BitmapContainer(words, card);
+        }
+    }
+
+    /**
+     * 行程表示的容器。runs[2i]是第i个行程的起点，runs[2i + 1]是它的长度减1，
+     * 行程按起点升序排列，互不重叠也不相邻
+     */
+    static final class RunContainer extends Container {
+        char[] runs;
+        int nruns;
+        int card;
+
+        RunContainer(char[] runs, int nruns, int card){
+            this.runs = runs;
+            this.nruns = nruns;
+            this.card = card;
+        }
+
+        /**
+         * 返回只包含[start, end]的行程容器
+         */
+        static RunContainer range(int start, int end){
+            return new RunContainer(new char[]{(char) start, (char) (end - start)}, 1, end - start + 1);
+        }
+
+        static int sizeInBytes(int nruns){
+            return 2 + 4 * nruns;
+        }
+
+        private int start(int i){
+            return runs[2 * i];
+        }
+
+        private int end(int i){
+            return runs[2 * i] + runs[2 * i + 1];
+        }
+
+        /**
+         * 返回起点小于等于x的最后一个行程，不存在时返回-1
+         */
+        private int findRun(int x){
+            int lo = 0, hi = nruns - 1;
+            while (lo <= hi){
+                int mid = (lo + hi) >>> 1;
+                if(start(mid) <= x)
+                    lo = mid + 1;
+                else
+                    hi = mid - 1;
+            }
+            return hi;
+        }
+
+        private void insertRun(int i, int start, int end){
+            if(2 * nruns + 2 > runs.length)
+                runs = Arrays.copyOf(runs, Math.max(4, runs.length * 2));
+            System.arraycopy(runs, 2 * i, runs, 2 * i + 2, 2 * (nruns - i));
+            runs[2 * i] = (char) start;
+            runs[2 * i + 1] = (char) (end - start);
+            nruns++;
+        }
+
+        private void deleteRun(int i){
+            System.arraycopy(runs, 2 * i + 2, runs, 2 * i, 2 * (nruns - i - 1));
+            nruns--;
+        }
+
+        /**
+         * 追加一个大于所有已有元素的值
+         */
+        void appendValue(int x){
+            if(nruns > 0 && end(nruns - 1) + 1 == x)
+                runs[2 * nruns - 1]++;
+            else
+                insertRun(nruns, x, x);
+            card++;
+        }
+
+        /**
+         * 追加一个起点大于所有已有元素的区间，与最后一个行程相邻或重叠时合并
+         */
+        private void appendRun(int start, int end){
+            if(nruns > 0){
+                int last = end(nruns - 1);
+                if(start <= last + 1){
+                    if(end > last){
+                        runs[2 * nruns - 1] = (char) (end - start(nruns - 1));
+                        card += end - last;
+                    }
+                    return;
+                }
+            }
+            insertRun(nruns, start, end);
+            card += end - start + 1;
+        }
+
+        int type(){
+            return TYPE_RUN;
+        }
+
+        int cardinality(){
+            return card;
+        }
+
+        boolean contains(char x){
+            int i = findRun(x);
+            return i >= 0 && x <= end(i);
+        }
+
+        Container add(char x){
+            int i = findRun(x);
+            if(i >= 0 && x <= end(i))
+                return this;
+            boolean mergeLeft = i >= 0 && end(i) + 1 == x;
+            boolean mergeRight = i + 1 < nruns && start(i + 1) == x + 1;
+            if(mergeLeft && mergeRight){
+                runs[2 * i + 1] = (char) (end(i + 1) - start(i));
+                deleteRun(i + 1);
+            }else if(mergeLeft){
+                runs[2 * i + 1]++;
+            }else if(mergeRight){
+                runs[2 * i + 2] = x;
+                runs[2 * i + 3]++;
+            }else {
+                insertRun(i + 1, x, x);
+            }
+            card++;
+            return convertIfLarge();
+        }
+
+        Container remove(char x){
+            int i = findRun(x);
+            if(i < 0 || x > end(i))
+                return this;
+            int s = start(i), e = end(i);
+            if(s == e){
+                deleteRun(i);
+            }else if(x == s){
+                runs[2 * i]++;
+                runs[2 * i + 1]--;
+            }else if(x == e){
+                runs[2 * i + 1]--;
+            }else {
+                runs[2 * i + 1] = (char) (x - 1 - s);
+                insertRun(i + 1, x + 1, e);
+            }
+            card--;
+            return card == 0 ? this : convertIfLarge();
+        }
+
+        /**
+         * 行程太多、比数组或位图表示更大时转换
+         */
+        private Container convertIfLarge(){
+            if(sizeInBytes(nruns) <= bestNonRunSize(card))
+                return this;
+            return toNonRun();
+        }
+
+        private Container toNonRun(){
+            return new BitmapContainer(bitmapWords(), card).normalize();
+        }
+
+        int nextValue(int from){
+            int i = findRun(from);
+            if(i >= 0 && from <= end(i))
+                return from;
+            return i + 1 < nruns ? start(i + 1) : -1;
+        }
+
+        void forEach(int high, IntConsumer action){
+            for(int i = 0; i < nruns; i++){
+                for(int x = start(i), e = end(i); x <= e; x++)
+                    action.accept(high | x);
+            }
+        }
+
+        long[] bitmapWords(){
+            long[] w = new long[BITMAP_WORDS];
+            for(int i = 0; i < nruns; i++)
+                setBits(w, start(i), end(i));
+            return w;
+        }
+
+        /**
+         * 按区间归并求交集
+         */
+        Container and(RunContainer o){
+            RunContainer r = new RunContainer(new char[Math.max(2 * (nruns + o.nruns), 2)], 0, 0);
+            int i = 0, j = 0;
+            while (i < nruns && j < o.nruns){
+                int s = Math.max(start(i), o.start(j));
+                int e = Math.min(end(i), o.end(j));
+                if(s <= e)
+                    r.appendRun(s, e);
+                if(end(i) < o.end(j))
+                    i++;
+                else
+                    j++;
+            }
+            return r.convertIfLarge();
+        }
+
+        /**
+         * 按区间归并求并集
+         */
+        Container or(RunContainer o){
+            RunContainer r = new RunContainer(new char[Math.max(2 * (nruns + o.nruns), 2)], 0, 0);
+            int i = 0, j = 0;
+            while (i < nruns || j < o.nruns){
+                if(j == o.nruns || (i < nruns && start(i) <= o.start(j))){
+                    r.appendRun(start(i), end(i));
+                    i++;
+                }else {
+                    r.appendRun(o.start(j), o.end(j));
+                    j++;
+                }
+            }
+            return r.convertIfLarge();
+        }
+
+        Container runOptimize(){
+            return convertIfLarge();
+        }
+
+        Container copy(){
+            return new RunContainer(Arrays.copyOf(runs, Math.max(2 * nruns, 2)), nruns, card);
+        }
+
+        int sizeInBytes(){
+            return sizeInBytes(nruns);
+        }
+
+        void writeTo(ByteBuffer b, int offset){
+            b.putChar(offset, (char) nruns);
+            for(int i = 0; i < 2 * nruns; i++)
+                b.putChar(offset + 2 + 2 * i, runs[i]);
+        }
+
+        static RunContainer readFrom(ByteBuffer b, int offset, int card){
+            int nruns = b.getChar(offset);
+            RunContainer r = new RunContainer(new char[Math.max(2 * nruns, 2)], 0, 0);
+            for(int i = 0; i < nruns; i++){
+                int s = b.getChar(offset + 2 + 4 * i);
+                int len = b.getChar(offset + 4 + 4 * i);
+                if(s + len > 0xFFFF || (r.nruns > 0 && s <= r.end(r.nruns - 1) + 1))
+                    throw new IllegalArgumentException("Corrupted run container");
+                r.appendRun(s, s + len);
+            }
+            if(r.card != card)
+                throw new IllegalArgumentException("Run container cardinality mismatch");
+            return r;
+        }
+
+        static boolean contains(ByteBuffer b, int offset, char x){
+            int lo = 0, hi = b.getChar(offset) - 1;
+            while (lo <= hi){
+                int mid = (lo + hi) >>> 1;
+                if(b.getChar(offset + 2 + 4 * mid) <= x)
+                    lo = mid + 1;
+                else
+                    hi = mid - 1;
+            }
+            if(hi < 0)
+                return false;
+            int s = b.getChar(offset + 2 + 4 * hi);
+            return x <= s + b.getChar(offset + 4 + 4 * hi);
+        }
+    }
+}
@@ -0,0 +1,689 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * 把键按顺序保存在一个连续数组中的Map接口实现，值保存在与之平行的另一个数组中。
+ * 键按自然顺序或者创建时提供的Comparator排序，迭代的顺序就是这个顺序。
+ * 此类不允许null键，允许null值。
+ *
+ * <p>此类适合一次构建、之后主要用于查找的小map：get 和 containsKey 是在
+ * 键数组上的二分查找，开销是log(n)。与TreeMap相比没有每个映射一个的节点对象，
+ * 查找时只在一个连续的数组上跳转。插入新的键和移除键需要移动数组中后面的映射，
+ * 开销是线性的；批量加入映射应当使用putAll，它只排序一次指定map的映射，
+ * 再与已有的映射做一次线性的归并。
+ *
+ * <p>与TreeMap一样，判断两个键是否相同使用的是比较的结果而不是equals方法。
+ *
+ * <p>注意此实现不是同步的。所有集合视图的迭代器都是fail-fast的。
+ *
+ * <p>这个类是Java Collections Framework 中的一员
+ *
+ * @param <K> 此map维护的键的类型
+ * @param <V> 映射的值的类型
+ * @see SortedArraySet
+ * @see TreeMap
+ * Created by jianglei on 2017/4/22.
+ */
+public class SortedArrayMap<K, V> extends AbstractMap<K, V>
+        implements Map<K, V>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = -6123506542371845823L;
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private static final Object[] EMPTY_ELEMENTDATA = {};
+
+    /**
+     * 用于排序的comparator，null表示使用键的自然顺序
+     */
+    private final Comparator<? super K> comparator;
+
+    /**
+     * 按顺序保存键的数组，前size个槽位有效
+     */
+    transient Object[] keys;
+
+    /**
+     * 与keys平行的值数组
+     */
+    transient Object[] vals;
+
+    private transient int size;
+
+    /**
+     * 结构性修改的次数，用于迭代器的fail-fast
+     */
+    transient int modCount;
+
+    /**
+     * 创建一个空的map，键按自然顺序排序
+     */
+    public SortedArrayMap(){
+        this(null, 0);
+    }
+
+    /**
+     * 创建一个空的map，键按自然顺序排序
+     *
+     * @param initialCapacity 初始容量
+     * @throws IllegalArgumentException 如果初始容量为负数
+     */
+    public SortedArrayMap(int initialCapacity){
+        this(null, initialCapacity);
+    }
+
+    /**
+     * 创建一个空的map，键按指定的comparator排序
+     *
+     * @param comparator 用于排序的comparator，null表示使用键的自然顺序
+     */
+    public SortedArrayMap(Comparator<? super K> comparator){
+        this(comparator, 0);
+    }
+
+    /**
+     * 创建一个空的map，键按指定的comparator排序
+     *
+     * @param comparator 用于排序的comparator，null表示使用键的自然顺序
+     * @param initialCapacity 初始容量
+     * @throws IllegalArgumentException 如果初始容量为负数
+     */
+    public SortedArrayMap(Comparator<? super K> comparator, int initialCapacity){
+        if(initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
+        this.comparator = comparator;
+        if(initialCapacity == 0){
+            keys = EMPTY_ELEMENTDATA;
+            vals = EMPTY_ELEMENTDATA;
+        }else {
+            keys = new Object[initialCapacity];
+            vals = new Object[initialCapacity];
+        }
+    }
+
+    /**
+     * 创建一个包含指定map中所有映射的map，键按自然顺序排序
+     *
+     * @throws ClassCastException 如果m中的键没有实现Comparable，或者不能相互比较
+     * @throws NullPointerException 如果指定的map或者其中的某个键为null
+     */
+    public SortedArrayMap(Map<? extends K, ? extends V> m){
+        this(null, 0);
+        putAll(m);
+    }
+
+    /**
+     * 返回用于排序的comparator，如果使用键的自然顺序，返回null
+     */
+    public Comparator<? super K> comparator(){
+        return comparator;
+    }
+
+    @SuppressWarnings("unchecked")
+    final int compare(Object k1, Object k2){
+        return comparator == null ? ((Comparable<Object>) k1).compareTo(k2)
+                : ((Comparator<Object>) comparator).compare(k1, k2);
+    }
+
+    /**
+     * 在前size个键中二分查找key。找到时返回它的下标，否则返回
+     * (-(插入点) - 1)，与Arrays.binarySearch的约定相同
+     */
+    final int indexOf(Object key){
+        Objects.requireNonNull(key);
+        final Object[] ks = keys;
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi){
+            int mid = (lo + hi) >>> 1;
+            int cmp = compare(ks[mid], key);
+            if(cmp < 0)
+                lo = mid + 1;
+            else if(cmp > 0)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -(lo + 1);
+    }
+
+    //Query Operations
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null
+     */
+    public boolean containsKey(Object key){
+        return indexOf(key) >= 0;
+    }
+
+    public boolean containsValue(Object value){
+        final Object[] vs = vals;
+        for(int i = 0; i < size; i++){
+            if(Objects.equals(value, vs[i]))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key){
+        int i = indexOf(key);
+        return i >= 0 ? (V) vals[i] : null;
+    }
+
+    /**
+     * 返回最小的键
+     *
+     * @throws NoSuchElementException 如果此map为空
+     */
+    @SuppressWarnings("unchecked")
+    public K firstKey(){
+        if(size == 0)
+            throw new NoSuchElementException();
+        return (K) keys[0];
+    }
+
+    /**
+     * 返回最大的键
+     *
+     * @throws NoSuchElementException 如果此map为空
+     */
+    @SuppressWarnings("unchecked")
+    public K lastKey(){
+        if(size == 0)
+            throw new NoSuchElementException();
+        return (K) keys[size - 1];
+    }
+
+    //Modification Operations
+
+    /**
+     * 建立key到value的映射。key已经存在时只替换值；否则需要移动插入点之后的
+     * 映射，开销是线性的
+     *
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value){
+        int i = indexOf(key);
+        if(i >= 0){
+            V oldValue = (V) vals[i];
+            vals[i] = value;
+            return oldValue;
+        }
+        i = -(i + 1);
+        modCount++;
+        if(size == keys.length)
+            grow(size + 1);
+        int numMoved = size - i;
+        System.arraycopy(keys, i, keys, i + 1, numMoved);
+        System.arraycopy(vals, i, vals, i + 1, numMoved);
+        keys[i] = key;
+        vals[i] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(Object key){
+        int i = indexOf(key);
+        if(i < 0)
+            return null;
+        V oldValue = (V) vals[i];
+        removeAt(i);
+        return oldValue;
+    }
+
+    final void removeAt(int i){
+        modCount++;
+        int numMoved = size - i - 1;
+        if(numMoved > 0){
+            System.arraycopy(keys, i + 1, keys, i, numMoved);
+            System.arraycopy(vals, i + 1, vals, i, numMoved);
+        }
+        size--;
+        keys[size] = null;
+        vals[size] = null;
+    }
+
+    public void clear(){
+        modCount++;
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(vals, 0, size, null);
+        size = 0;
+    }
+
+    private void grow(int minCapacity){
+        int oldCapacity = keys.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if(newCapacity < DEFAULT_CAPACITY)
+            newCapacity = DEFAULT_CAPACITY;
+        if(newCapacity - minCapacity < 0)
+            newCapacity = minCapacity;
+        if(newCapacity - (Integer.MAX_VALUE - 8) > 0)
+            newCapacity = ArrayList.hugeCapacity(minCapacity);
+        keys = Arrays.copyOf(keys, newCapacity);
+        vals = Arrays.copyOf(vals, newCapacity);
+    }
+
+    /**
+     * 把数组的容量缩小到当前的大小。适合在构建完成之后调用
+     */
+    public void trimToSize(){
+        if(size < keys.length){
+            modCount++;
+            if(size == 0){
+                keys = EMPTY_ELEMENTDATA;
+                vals = EMPTY_ELEMENTDATA;
+            }else {
+                keys = Arrays.copyOf(keys, size);
+                vals = Arrays.copyOf(vals, size);
+            }
+        }
+    }
+
+    //Bulk Operations
+
+    /**
+     * 把指定map中的所有映射复制到此map中。指定map的映射先被复制并按键排序一次
+     * (如果它是使用相同顺序的SortedArrayMap则不需要排序)，再与此map已有的
+     * 映射做一次线性的归并，总的开销是O(m log m + n)，而不是逐个插入的O(m * n)。
+     * 与逐个调用put的结果一致：相同的键使用指定map中的值
+     *
+     * @throws ClassCastException 如果m中的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的map或者其中的某个键为null
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(Map<? extends K, ? extends V> m){
+        Object[] ks;
+        Object[] vs;
+        int n;
+        if(m instanceof SortedArrayMap &&
+                Objects.equals(((SortedArrayMap<?, ?>) m).comparator, comparator)){
+            SortedArrayMap<?, ?> other = (SortedArrayMap<?, ?>) m;
+            ks = other.keys;
+            vs = other.vals;
+            n = other.size;
+        }else {
+            Object[] es = m.entrySet().toArray();
+            n = es.length;
+            for(int i = 0; i < n; i++){
+                Map.Entry<?, ?> e = (Map.Entry<?, ?>) es[i];
+                es[i] = new AbstractMap.SimpleImmutableEntry<Object, Object>(
+                        Objects.requireNonNull(e.getKey()), e.getValue());
+            }
+            // 稳定的排序，相同的键保持原来的相对顺序，后面的值覆盖前面的值
+            Arrays.sort(es, 0, n, (Comparator<Object>) (x, y) ->
+                    compare(((Map.Entry<?, ?>) x).getKey(), ((Map.Entry<?, ?>) y).getKey()));
+            ks = new Object[n];
+            vs = new Object[n];
+            int w = 0;
+            for(int r = 0; r < n; r++){
+                Map.Entry<?, ?> e = (Map.Entry<?, ?>) es[r];
+                if(w > 0 && compare(ks[w - 1], e.getKey()) == 0){
+                    vs[w - 1] = e.getValue();
+                }else {
+                    ks[w] = e.getKey();
+                    vs[w++] = e.getValue();
+                }
+            }
+            n = w;
+        }
+        if(n > 0)
+            mergeFrom(ks, vs, n);
+    }
+
+    /**
+     * 把按键排序且没有重复键的映射归并到此map中，相同的键使用新的值
+     */
+    private void mergeFrom(Object[] ks, Object[] vs, int m){
+        final Object[] oks = keys;
+        final Object[] ovs = vals;
+        final int n = size;
+        int capacity = Math.max(n + m, oks.length);
+        Object[] nks = new Object[capacity];
+        Object[] nvs = new Object[capacity];
+        int i = 0, j = 0, k = 0;
+        while (i < n && j < m){
+            int cmp = compare(oks[i], ks[j]);
+            if(cmp < 0){
+                nks[k] = oks[i];
+                nvs[k++] = ovs[i++];
+            }else if(cmp > 0){
+                nks[k] = ks[j];
+                nvs[k++] = vs[j++];
+            }else {
+                nks[k] = oks[i++];
+                nvs[k++] = vs[j++];
+            }
+        }
+        for(; i < n; i++){
+            nks[k] = oks[i];
+            nvs[k++] = ovs[i];
+        }
+        for(; j < m; j++){
+            nks[k] = ks[j];
+            nvs[k++] = vs[j];
+        }
+        if(k != n)
+            modCount++;
+        keys = nks;
+        vals = nvs;
+        size = k;
+    }
+
+    //Views
+
+    /**
+     * 持有缓存的entrySet()视图
+     */
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * 返回此map包含的键的set视图，按键的顺序迭代。此set受map支持，
+     * 所以对map的改变会反映在此set中，反之亦然。此set支持元素的移除，
+     * 但不支持add 或 addAll 操作
+     */
+    public Set<K> keySet(){
+        Set<K> ks = keySet;
+        if(ks == null){
+            ks = new KeySet();
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            SortedArrayMap.this.clear();
+        }
+
+        public Iterator<K> iterator(){
+            return new KeyIterator();
+        }
+
+        public boolean contains(Object o){
+            return containsKey(o);
+        }
+
+        public boolean remove(Object o){
+            int i = indexOf(o);
+            if(i < 0)
+                return false;
+            removeAt(i);
+            return true;
+        }
+    }
+
+    /**
+     * 返回此map包含的值的集合视图，按键的顺序迭代。此集合受map支持，
+     * 所以对map的改变会反映在此集合中，反之亦然。此集合支持元素的移除，
+     * 但不支持add 或 addAll 操作
+     */
+    public Collection<V> values(){
+        Collection<V> vs = values;
+        if(vs == null){
+            vs = new Values();
+            values = vs;
+        }
+        return vs;
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            SortedArrayMap.this.clear();
+        }
+
+        public Iterator<V> iterator(){
+            return new ValueIterator();
+        }
+
+        public boolean contains(Object o){
+            return containsValue(o);
+        }
+    }
+
+    /**
+     * 返回此map包含的映射的set视图，按键的顺序迭代。此set受map支持，
+     * 所以对map的改变会反映在此set中，反之亦然。此set支持元素的移除，
+     * 但不支持add 或 addAll 操作
+     */
+    public Set<Map.Entry<K, V>> entrySet(){
+        Set<Map.Entry<K, V>> es = entrySet;
+        if(es == null){
+            es = new EntrySet();
+            entrySet = es;
+        }
+        return es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            SortedArrayMap.this.clear();
+        }
+
+        public Iterator<Map.Entry<K, V>> iterator(){
+            return new EntryIterator();
+        }
+
+        public boolean contains(Object o){
+            return indexOfEntry(o) >= 0;
+        }
+
+        public boolean remove(Object o){
+            int i = indexOfEntry(o);
+            if(i < 0)
+                return false;
+            removeAt(i);
+            return true;
+        }
+    }
+
+    /**
+     * 如果o是一个与此map中某个映射相等的Map.Entry，返回该映射的下标，否则返回-1
+     */
+    final int indexOfEntry(Object o){
+        if(!(o instanceof Map.Entry))
+            return -1;
+        Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+        Object k = e.getKey();
+        if(k == null)
+            return -1;
+        int i = indexOf(k);
+        if(i < 0)
+            return -1;
+        return Objects.equals(vals[i], e.getValue()) ? i : -1;
+    }
+
+    /**
+     * 集合视图迭代器的基类，按下标顺序扫描数组
+     */
+    abstract class ArrayIterator<E> implements Iterator<E> {
+        int cursor;
+        int lastReturned = -1;
+        int expectedModCount = modCount;
+
+        public boolean hasNext(){
+            return cursor < size;
+        }
+
+        final int nextIndex(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            int i = cursor;
+            if(i >= size)
+                throw new NoSuchElementException();
+            cursor = i + 1;
+            return lastReturned = i;
+        }
+
+        public void remove(){
+            if(lastReturned < 0)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeAt(lastReturned);
+            cursor = lastReturned;
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    final class KeyIterator extends ArrayIterator<K> {
+        @SuppressWarnings("unchecked")
+        public K next(){
+            return (K) keys[nextIndex()];
+        }
+    }
+
+    final class ValueIterator extends ArrayIterator<V> {
+        @SuppressWarnings("unchecked")
+        public V next(){
+            return (V) vals[nextIndex()];
+        }
+    }
+
+    final class EntryIterator extends ArrayIterator<Map.Entry<K, V>> {
+        public Map.Entry<K, V> next(){
+            return new IndexEntry(nextIndex());
+        }
+    }
+
+    /**
+     * 由entrySet迭代器返回的entry，直接读写数组中的一个下标。
+     * 与Map.Entry的规范一致，在map被结构性修改之后它的行为是不确定的
+     */
+    final class IndexEntry implements Map.Entry<K, V> {
+        private final int index;
+
+        IndexEntry(int index){
+            this.index = index;
+        }
+
+        @SuppressWarnings("unchecked")
+        public K getKey(){
+            return (K) keys[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        public V getValue(){
+            return (V) vals[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        public V setValue(V value){
+            V oldValue = (V) vals[index];
+            vals[index] = value;
+            return oldValue;
+        }
+
+        public boolean equals(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(getKey(), e.getKey()) &&
+                    Objects.equals(getValue(), e.getValue());
+        }
+
+        public int hashCode(){
+            Object k = getKey();
+            Object v = getValue();
+            return (k == null ? 0 : k.hashCode()) ^
+                    (v == null ? 0 : v.hashCode());
+        }
+
+        public String toString(){
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    /**
+     * 返回此map的浅拷贝：键和值本身不被克隆
+     */
+    @SuppressWarnings("unchecked")
+    public Object clone(){
+        SortedArrayMap<K, V> result;
+        try {
+            result = (SortedArrayMap<K, V>) super.clone();
+        } catch (CloneNotSupportedException e){
+            throw new InternalError(e);
+        }
+        result.keys = Arrays.copyOf(keys, size);
+        result.vals = Arrays.copyOf(vals, size);
+        result.modCount = 0;
+        result.keySet = null;
+        result.values = null;
+        result.entrySet = null;
+        return result;
+    }
+
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        s.defaultWriteObject();
+
+        s.writeInt(size);
+        for(int i = 0; i < size; i++){
+            s.writeObject(keys[i]);
+            s.writeObject(vals[i]);
+        }
+    }
+
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        s.defaultReadObject();
+
+        int mappings = s.readInt();
+        if(mappings < 0)
+            throw new java.io.InvalidObjectException("Illegal mappings count: " +
+                                                        mappings);
+        Object[] ks = mappings == 0 ? EMPTY_ELEMENTDATA : new Object[mappings];
+        Object[] vs = mappings == 0 ? EMPTY_ELEMENTDATA : new Object[mappings];
+        for(int i = 0; i < mappings; i++){
+            Object k = s.readObject();
+            if(k == null || (i > 0 && compare(ks[i - 1], k) >= 0))
+                throw new java.io.InvalidObjectException("Keys out of order");
+            ks[i] = k;
+            vs[i] = s.readObject();
+        }
+        keys = ks;
+        vals = vs;
+        size = mappings;
+    }
+}
@@ -0,0 +1,490 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * 把元素按顺序保存在一个连续数组中的Set接口实现。元素按自然顺序或者创建时
+ * 提供的Comparator排序，迭代的顺序就是这个顺序。此类不允许null元素。
+ *
+ * <p>此类适合一次构建、之后主要用于查找的小集合：contains 是在数组上的
+ * 二分查找，开销是log(n)，没有树节点或者哈希桶，每个元素只占数组的一个槽位。
+ * 单个元素的add 和 remove 需要移动数组中后面的元素，开销是线性的；
+ * 批量加入元素应当使用addAll，它只排序一次指定集合的元素，再与已有的元素
+ * 做一次线性的归并。当指定的集合也是使用相同顺序的SortedArraySet时，
+ * 排序被省略，containsAll(也就是equals)同样只做一次归并扫描。
+ *
+ * <p>与TreeSet一样，判断两个元素是否相同使用的是比较的结果而不是equals方法。
+ *
+ * <p>注意此实现不是同步的。此类的迭代器是fail-fast的：如果在迭代器创建之后，
+ * 用迭代器自身remove方法以外的任何方式修改了set，迭代器会抛出
+ * ConcurrentModificationException。
+ *
+ * <p>这个类是Java Collections Framework 中的一员
+ *
+ * @param <E> 此set维护的元素的类型
+ * @see SortedArrayMap
+ * @see TreeSet
+ * Created by jianglei on 2017/4/22.
+ */
+public class SortedArraySet<E> extends AbstractSet<E>
+        implements Set<E>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = 3871635217594640307L;
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private static final Object[] EMPTY_ELEMENTDATA = {};
+
+    /**
+     * 用于排序的comparator，null表示使用元素的自然顺序
+     */
+    private final Comparator<? super E> comparator;
+
+    /**
+     * 按顺序保存元素的数组，前size个槽位有效
+     */
+    transient Object[] elementData;
+
+    private transient int size;
+
+    /**
+     * 结构性修改的次数，用于迭代器的fail-fast
+     */
+    transient int modCount;
+
+    /**
+     * 创建一个空的set，元素按自然顺序排序
+     */
+    public SortedArraySet(){
+        this(null, 0);
+    }
+
+    /**
+     * 创建一个空的set，元素按自然顺序排序
+     *
+     * @param initialCapacity 初始容量
+     * @throws IllegalArgumentException 如果初始容量为负数
+     */
+    public SortedArraySet(int initialCapacity){
+        this(null, initialCapacity);
+    }
+
+    /**
+     * 创建一个空的set，元素按指定的comparator排序
+     *
+     * @param comparator 用于排序的comparator，null表示使用元素的自然顺序
+     */
+    public SortedArraySet(Comparator<? super E> comparator){
+        this(comparator, 0);
+    }
+
+    /**
+     * 创建一个空的set，元素按指定的comparator排序
+     *
+     * @param comparator 用于排序的comparator，null表示使用元素的自然顺序
+     * @param initialCapacity 初始容量
+     * @throws IllegalArgumentException 如果初始容量为负数
+     */
+    public SortedArraySet(Comparator<? super E> comparator, int initialCapacity){
+        if(initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
+        this.comparator = comparator;
+        this.elementData = initialCapacity == 0 ? EMPTY_ELEMENTDATA : new Object[initialCapacity];
+    }
+
+    /**
+     * 创建一个包含指定集合中所有元素的set，元素按自然顺序排序
+     *
+     * @throws ClassCastException 如果c中的元素没有实现Comparable，或者不能相互比较
+     * @throws NullPointerException 如果指定的集合或者其中的某个元素为null
+     */
+    public SortedArraySet(Collection<? extends E> c){
+        this(null, 0);
+        addAll(c);
+    }
+
+    /**
+     * 返回用于排序的comparator，如果使用元素的自然顺序，返回null
+     */
+    public Comparator<? super E> comparator(){
+        return comparator;
+    }
+
+    @SuppressWarnings("unchecked")
+    final int compare(Object k1, Object k2){
+        return comparator == null ? ((Comparable<Object>) k1).compareTo(k2)
+                : ((Comparator<Object>) comparator).compare(k1, k2);
+    }
+
+    /**
+     * 在前size个元素中二分查找o。找到时返回它的下标，否则返回
+     * (-(插入点) - 1)，与Arrays.binarySearch的约定相同
+     */
+    final int indexOf(Object o){
+        Objects.requireNonNull(o);
+        final Object[] es = elementData;
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi){
+            int mid = (lo + hi) >>> 1;
+            int cmp = compare(es[mid], o);
+            if(cmp < 0)
+                lo = mid + 1;
+            else if(cmp > 0)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -(lo + 1);
+    }
+
+    //Query Operations
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * @throws ClassCastException 如果指定的对象不能与set中的元素比较
+     * @throws NullPointerException 如果指定的元素为null
+     */
+    public boolean contains(Object o){
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * 返回最小的元素
+     *
+     * @throws NoSuchElementException 如果此set为空
+     */
+    @SuppressWarnings("unchecked")
+    public E first(){
+        if(size == 0)
+            throw new NoSuchElementException();
+        return (E) elementData[0];
+    }
+
+    /**
+     * 返回最大的元素
+     *
+     * @throws NoSuchElementException 如果此set为空
+     */
+    @SuppressWarnings("unchecked")
+    public E last(){
+        if(size == 0)
+            throw new NoSuchElementException();
+        return (E) elementData[size - 1];
+    }
+
+    public Object[] toArray(){
+        return Arrays.copyOf(elementData, size);
+    }
+
+    //Modification Operations
+
+    /**
+     * 加入指定的元素。需要移动插入点之后的元素，开销是线性的
+     *
+     * @throws ClassCastException 如果指定的对象不能与set中的元素比较
+     * @throws NullPointerException 如果指定的元素为null
+     */
+    public boolean add(E e){
+        int i = indexOf(e);
+        if(i >= 0)
+            return false;
+        i = -(i + 1);
+        modCount++;
+        if(size == elementData.length)
+            grow(size + 1);
+        System.arraycopy(elementData, i, elementData, i + 1, size - i);
+        elementData[i] = e;
+        size++;
+        return true;
+    }
+
+    /**
+     * 移除指定的元素。需要移动它之后的元素，开销是线性的
+     *
+     * @throws ClassCastException 如果指定的对象不能与set中的元素比较
+     * @throws NullPointerException 如果指定的元素为null
+     */
+    public boolean remove(Object o){
+        int i = indexOf(o);
+        if(i < 0)
+            return false;
+        removeAt(i);
+        return true;
+    }
+
+    final void removeAt(int i){
+        modCount++;
+        int numMoved = size - i - 1;
+        if(numMoved > 0)
+            System.arraycopy(elementData, i + 1, elementData, i, numMoved);
+        elementData[--size] = null;
+    }
+
+    public void clear(){
+        modCount++;
+        Arrays.fill(elementData, 0, size, null);
+        size = 0;
+    }
+
+    private void grow(int minCapacity){
+        int oldCapacity = elementData.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if(newCapacity < DEFAULT_CAPACITY)
+            newCapacity = DEFAULT_CAPACITY;
+        if(newCapacity - minCapacity < 0)
+            newCapacity = minCapacity;
+        if(newCapacity - (Integer.MAX_VALUE - 8) > 0)
+            newCapacity = ArrayList.hugeCapacity(minCapacity);
+        elementData = Arrays.copyOf(elementData, newCapacity);
+    }
+
+    /**
+     * 把数组的容量缩小到当前的大小。适合在构建完成之后调用
+     */
+    public void trimToSize(){
+        if(size < elementData.length){
+            modCount++;
+            elementData = size == 0 ? EMPTY_ELEMENTDATA : Arrays.copyOf(elementData, size);
+        }
+    }
+
+    //Bulk Operations
+
+    /**
+     * 把指定集合中的所有元素加入到此set中。指定集合的元素先被复制并排序一次
+     * (如果它是使用相同顺序的SortedArraySet则不需要排序)，再与此set已有的
+     * 元素做一次线性的归并，总的开销是O(m log m + n)，而不是逐个插入的O(m * n)。
+     * 与add一致，相同的元素保留已经在此set中的那一个；指定集合中相同的元素
+     * 保留迭代顺序中的第一个
+     *
+     * @throws ClassCastException 如果c中的元素不能与set中的元素比较
+     * @throws NullPointerException 如果指定的集合或者其中的某个元素为null
+     */
+    @SuppressWarnings("unchecked")
+    public boolean addAll(Collection<? extends E> c){
+        Object[] a;
+        int m;
+        if(c instanceof SortedArraySet &&
+                Objects.equals(((SortedArraySet<?>) c).comparator, comparator)){
+            SortedArraySet<?> other = (SortedArraySet<?>) c;
+            a = other.elementData;
+            m = other.size;
+        }else {
+            a = c.toArray();
+            m = a.length;
+            for(int i = 0; i < m; i++)
+                Objects.requireNonNull(a[i]);
+            // 稳定的排序，相同的元素保持原来的相对顺序
+            Arrays.sort(a, 0, m, (Comparator<Object>) (x, y) -> compare(x, y));
+            m = dedup(a, m);
+        }
+        if(m == 0)
+            return false;
+        return mergeFrom(a, m);
+    }
+
+    /**
+     * 去掉已排序的数组前m个元素中相同的元素，保留每组中的第一个，返回剩下的个数
+     */
+    private int dedup(Object[] a, int m){
+        if(m == 0)
+            return 0;
+        int w = 1;
+        for(int r = 1; r < m; r++){
+            if(compare(a[w - 1], a[r]) != 0)
+                a[w++] = a[r];
+        }
+        return w;
+    }
+
+    /**
+     * 把已排序且没有重复的a的前m个元素归并到此set中
+     */
+    private boolean mergeFrom(Object[] a, int m){
+        final Object[] es = elementData;
+        final int n = size;
+        Object[] dst = new Object[Math.max(n + m, es.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < n && j < m){
+            int cmp = compare(es[i], a[j]);
+            if(cmp < 0){
+                dst[k++] = es[i++];
+            }else if(cmp > 0){
+                dst[k++] = a[j++];
+            }else {
+                dst[k++] = es[i++];
+                j++;
+            }
+        }
+        while (i < n)
+            dst[k++] = es[i++];
+        while (j < m)
+            dst[k++] = a[j++];
+        if(k == n)
+            return false;
+        modCount++;
+        elementData = dst;
+        size = k;
+        return true;
+    }
+
+    /**
+     * 如果c是使用相同顺序的SortedArraySet，对两个数组做一次归并扫描；
+     * 否则对c的每个元素做一次二分查找
+     */
+    public boolean containsAll(Collection<?> c){
+        if(c instanceof SortedArraySet &&
+                Objects.equals(((SortedArraySet<?>) c).comparator, comparator)){
+            SortedArraySet<?> other = (SortedArraySet<?>) c;
+            final Object[] es = elementData;
+            final Object[] os = other.elementData;
+            final int n = size;
+            final int m = other.size;
+            if(m > n)
+                return false;
+            int i = 0;
+            for(int j = 0; j < m; j++){
+                int cmp;
+                while ((cmp = (i < n ? compare(es[i], os[j]) : 1)) < 0)
+                    i++;
+                if(cmp != 0)
+                    return false;
+                i++;
+            }
+            return true;
+        }
+        return super.containsAll(c);
+    }
+
+    public boolean removeAll(Collection<?> c){
+        Objects.requireNonNull(c);
+        return batchRemove(c, false);
+    }
+
+    public boolean retainAll(Collection<?> c){
+        Objects.requireNonNull(c);
+        return batchRemove(c, true);
+    }
+
+    /**
+     * 一次扫描压缩数组，避免逐个移除时反复移动后面的元素
+     */
+    private boolean batchRemove(Collection<?> c, boolean complement){
+        final Object[] es = elementData;
+        int r = 0, w = 0;
+        boolean modified = false;
+        try {
+            for(; r < size; r++){
+                if(c.contains(es[r]) == complement)
+                    es[w++] = es[r];
+            }
+        } finally {
+            // c.contains()抛出异常时，保留还没有扫描的元素，数组仍然有序
+            if(r != size){
+                System.arraycopy(es, r, es, w, size - r);
+                w += size - r;
+            }
+            if(w != size){
+                Arrays.fill(es, w, size, null);
+                modCount++;
+                size = w;
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+    //Iterators
+
+    public Iterator<E> iterator(){
+        return new Itr();
+    }
+
+    private class Itr implements Iterator<E> {
+        int cursor;
+        int lastRet = -1;
+        int expectedModCount = modCount;
+
+        public boolean hasNext(){
+            return cursor < size;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            int i = cursor;
+            if(i >= size)
+                throw new NoSuchElementException();
+            cursor = i + 1;
+            return (E) elementData[lastRet = i];
+        }
+
+        public void remove(){
+            if(lastRet < 0)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeAt(lastRet);
+            cursor = lastRet;
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * 返回此set的浅拷贝：元素本身不被克隆
+     */
+    @SuppressWarnings("unchecked")
+    public Object clone(){
+        try {
+            SortedArraySet<E> clone = (SortedArraySet<E>) super.clone();
+            clone.elementData = Arrays.copyOf(elementData, size);
+            clone.modCount = 0;
+            return clone;
+        } catch (CloneNotSupportedException e){
+            throw new InternalError(e);
+        }
+    }
+
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        s.defaultWriteObject();
+
+        s.writeInt(size);
+        for(int i = 0; i < size; i++)
+            s.writeObject(elementData[i]);
+    }
+
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        s.defaultReadObject();
+
+        int elements = s.readInt();
+        if(elements < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + elements);
+        Object[] es = elements == 0 ? EMPTY_ELEMENTDATA : new Object[elements];
+        for(int i = 0; i < elements; i++){
+            Object e = s.readObject();
+            if(e == null || (i > 0 && compare(es[i - 1], e) >= 0))
+                throw new java.io.InvalidObjectException("Elements out of order");
+            es[i] = e;
+        }
+        elementData = es;
+        size = elements;
+    }
+}
@@ -0,0 +1,88 @@
+package com.jianglei.util;
+
+import java.util.Comparator;
+
+/**
+ * 进一步提供键的全序的Map。map根据键的自然顺序，或者根据创建时提供的Comparator
+ * 排序。遍历sorted map的集合视图(由entrySet，keySet 和 values方法返回)时，
+ * 反映了这个顺序。
+ *
+ * 插入sorted map的所有键都必须实现Comparable接口(或者被指定的comparator接受)，
+ * 并且所有的键必须是可以相互比较的：k1.compareTo(k2)(或comparator.compare(k1, k2))
+ * 不能对map中的任何k1和k2抛出ClassCastException。
+ *
+ * 注意，sorted map维护的顺序必须与equals一致，才能正确地实现Map接口。这是因为
+ * Map接口是按照equals操作定义的，而sorted map使用compareTo(或compare)方法执行
+ * 所有的键比较，所以从sorted map的角度来看，此方法认为相等的两个键就是相等的。
+ *
+ * 所有返回子map的方法(subMap，headMap，tailMap)返回的都是此map的视图，而不是
+ * 拷贝：对视图的修改会反映到此map中，反之亦然。子map的范围是半开区间，包含低端点，
+ * 不包含高端点。试图在子map中插入范围之外的键会抛出IllegalArgumentException。
+ *
+ * 这个接口是 Java Collections Framework中的一员
+ *
+ * @param <K> 此map维护的键的类型
+ * @param <V> 映射值的类型
+ * @see Map
+ * @see TreeMap
+ * Created by jianglei on 2017/4/17.
+ */
+public interface SortedMap<K, V> extends Map<K, V> {
+
+    /**
+     * 返回对此map中的键排序所使用的comparator，如果使用键的自然顺序，返回null
+     *
+     * @return 对此map中的键排序所使用的comparator
+     */
+    Comparator<? super K> comparator();
+
+    /**
+     * 返回此map中键的范围从fromKey(包含)到toKey(不包含)的部分的视图。
+     * 如果fromKey和toKey相等，返回的map为空
+     *
+     * @param fromKey 返回的map中键的低端点(包含)
+     * @param toKey 返回的map中键的高端点(不包含)
+     * @return 此map中键的范围从fromKey(包含)到toKey(不包含)的部分的视图
+     * @throws ClassCastException 如果fromKey和toKey不能相互比较
+     * @throws NullPointerException 如果fromKey或toKey为null，而此map不允许null键
+     * @throws IllegalArgumentException 如果fromKey大于toKey，或者此map本身
+     *         有范围限制，而fromKey或toKey在范围之外
+     */
+    SortedMap<K, V> subMap(K fromKey, K toKey);
+
+    /**
+     * 返回此map中键严格小于toKey的部分的视图
+     *
+     * @param toKey 返回的map中键的高端点(不包含)
+     * @return 此map中键严格小于toKey的部分的视图
+     * @throws ClassCastException 如果toKey与此map的comparator不兼容
+     * @throws NullPointerException 如果toKey为null，而此map不允许null键
+     * @throws IllegalArgumentException 如果此map本身有范围限制，而toKey在范围之外
+     */
+    SortedMap<K, V> headMap(K toKey);
+
+    /**
+     * 返回此map中键大于等于fromKey的部分的视图
+     *
+     * @param fromKey 返回的map中键的低端点(包含)
+     * @return 此map中键大于等于fromKey的部分的视图
+     * @throws ClassCastException 如果fromKey与此map的comparator不兼容
+     * @throws NullPointerException 如果fromKey为null，而此map不允许null键
+     * @throws IllegalArgumentException 如果此map本身有范围限制，而fromKey在范围之外
+     */
+    SortedMap<K, V> tailMap(K fromKey);
+
+    /**
+     * 返回此map中当前第一个(最小的)键
+     *
+     * @throws java.util.NoSuchElementException 如果此map为空
+     */
+    K firstKey();
+
+    /**
+     * 返回此map中当前最后一个(最大的)键
+     *
+     * @throws java.util.NoSuchElementException 如果此map为空
+     */
+    K lastKey();
+}
@@ -0,0 +1,76 @@
+package com.jianglei.util;
+
+import java.util.Comparator;
+
+/**
+ * 进一步提供元素的全序的Set。set根据元素的自然顺序，或者根据创建时提供的
+ * Comparator排序。set的迭代器按元素的升序遍历。
+ *
+ * 插入sorted set的所有元素都必须实现Comparable接口(或者被指定的comparator接受)，
+ * 并且所有的元素必须是可以相互比较的。
+ *
+ * 注意，sorted set维护的顺序必须与equals一致，才能正确地实现Set接口，因为
+ * sorted set使用compareTo(或compare)方法执行所有的元素比较。
+ *
+ * 所有返回子set的方法(subSet，headSet，tailSet)返回的都是此set的视图，而不是
+ * 拷贝：对视图的修改会反映到此set中，反之亦然。子set的范围是半开区间，包含低端点，
+ * 不包含高端点。试图在子set中插入范围之外的元素会抛出IllegalArgumentException。
+ *
+ * 这个接口是 Java Collections Framework中的一员
+ *
+ * @param <E> 此set维护的元素的类型
+ * @see Set
+ * @see TreeSet
+ * @see SortedMap
+ * Created by jianglei on 2017/4/22.
+ */
+public interface SortedSet<E> extends Set<E> {
+
+    /**
+     * 返回对此set中的元素排序所使用的comparator，如果使用元素的自然顺序，返回null
+     */
+    Comparator<? super E> comparator();
+
+    /**
+     * 返回此set中元素的范围从fromElement(包含)到toElement(不包含)的部分的视图
+     *
+     * @throws ClassCastException 如果fromElement和toElement不能相互比较
+     * @throws NullPointerException 如果fromElement或toElement为null，
+     *         而此set不允许null元素
+     * @throws IllegalArgumentException 如果fromElement大于toElement，或者此set
+     *         本身有范围限制，而fromElement或toElement在范围之外
+     */
+    SortedSet<E> subSet(E fromElement, E toElement);
+
+    /**
+     * 返回此set中元素严格小于toElement的部分的视图
+     *
+     * @throws ClassCastException 如果toElement与此set的comparator不兼容
+     * @throws NullPointerException 如果toElement为null，而此set不允许null元素
+     * @throws IllegalArgumentException 如果此set本身有范围限制，而toElement在范围之外
+     */
+    SortedSet<E> headSet(E toElement);
+
+    /**
+     * 返回此set中元素大于等于fromElement的部分的视图
+     *
+     * @throws ClassCastException 如果fromElement与此set的comparator不兼容
+     * @throws NullPointerException 如果fromElement为null，而此set不允许null元素
+     * @throws IllegalArgumentException 如果此set本身有范围限制，而fromElement在范围之外
+     */
+    SortedSet<E> tailSet(E fromElement);
+
+    /**
+     * 返回此set中最小的元素
+     *
+     * @throws java.util.NoSuchElementException 如果此set为空
+     */
+    E first();
+
+    /**
+     * 返回此set中最大的元素
+     *
+     * @throws java.util.NoSuchElementException 如果此set为空
+     */
+    E last();
+}
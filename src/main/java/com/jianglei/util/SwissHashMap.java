@@ -0,0 +1,666 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * 基于"控制字节"分组探测的Map接口实现（SwissTable风格）。允许null键和null值，
+ * 不保证映射的顺序。
+ *
+ * <p>除了平行的键数组keys和值数组vals之外，此实现还为每个槽位维护一个控制字节：
+ * <ul>
+ *     <li>EMPTY (0x80)：槽位从未被使用过，探测到它可以终止</li>
+ *     <li>DELETED (0xFE)：槽位上的映射已被删除（墓碑），探测要越过它继续</li>
+ *     <li>FULL (0x00 - 0x7F)：槽位被占用，低7位保存键的哈希值的高7位(h2)</li>
+ * </ul>
+ * 8个槽位组成一组，一组的8个控制字节打包在一个long中(ctrl数组)。查找时先用
+ * 哈希值的其余部分(h1)选择一个组，再用SWAR(SIMD within a register)技巧一次
+ * 比较8个控制字节，只有h2相同的槽位才需要读取键数组并调用equals。因为h2有7位，
+ * 一次不命中的查找平均只有 8/128 个槽位需要比较键，绝大多数不命中的查找根本
+ * 不会访问键数组。如果一组中有EMPTY槽位，探测就在该组结束；否则按照三角数
+ * 序列探测下一个组，在组数为2的幂时这保证访问到所有的组。
+ *
+ * <p>表中最多使用 7/8 的槽位（包括墓碑），以保证总有空槽来终止探测。
+ * 当可用空间耗尽时，如果墓碑较多表会以相同的容量重建，否则容量加倍。
+ *
+ * <p>注意此实现不是同步的。此类所有"集合视图方法"返回的迭代器是fail-fast的。
+ *
+ * @param <K> 此map维护的键的类型
+ * @param <V> 映射值的类型
+ * @see HashMap
+ * Created by jianglei on 2017/4/10.
+ */
+public class SwissHashMap<K, V> extends AbstractMap<K, V>
+        implements Map<K, V>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = -2957374405125848342L;
+
+    /**
+     * 一组包含的槽位数，正好是一个long中字节的数量
+     */
+    static final int GROUP_WIDTH = 8;
+
+    /**
+     * 最大的组数，一定是2的幂
+     */
+    static final int MAXIMUM_GROUPS = 1 << 27;
+
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    static final long EMPTY = 0x80L;
+    static final long DELETED = 0xFEL;
+
+    private static final long LSBS = 0x0101010101010101L;
+    private static final long MSBS = 0x8080808080808080L;
+
+    /**
+     * 所有槽位都是EMPTY的组
+     */
+    private static final long EMPTY_GROUP = EMPTY * LSBS;
+
+    /**
+     * 控制字节，每个long保存一组8个槽位的控制字节，槽位i的控制字节位于
+     * ctrl[i >>> 3]的第 (i &amp; 7) * 8 位开始的字节中
+     */
+    transient long[] ctrl;
+
+    transient Object[] keys;
+
+    transient Object[] vals;
+
+    transient int size;
+
+    /**
+     * 墓碑(DELETED)的数量
+     */
+    transient int tombstones;
+
+    /**
+     * 在需要重建表之前还可以占用的EMPTY槽位的数量
+     */
+    transient int growthLeft;
+
+    transient int modCount;
+
+    /**
+     * 创建一个能容纳指定数量映射而不需要扩容的空SwissHashMap
+     *
+     * @param expectedSize 预期的映射数量
+     * @throws IllegalArgumentException 如果expectedSize是负数
+     */
+    public SwissHashMap(int expectedSize){
+        if(expectedSize < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                                expectedSize);
+        allocate(groupsFor(expectedSize));
+    }
+
+    /**
+     * 创建一个具有默认初始容量(16)的空SwissHashMap
+     */
+    public SwissHashMap(){
+        allocate(DEFAULT_INITIAL_CAPACITY / GROUP_WIDTH);
+    }
+
+    /**
+     * 创建一个与指定map具有相同映射关系的SwissHashMap
+     *
+     * @param m 映射要放进此map中的map
+     * @throws NullPointerException 如果指定的map为null
+     */
+    public SwissHashMap(Map<? extends K, ? extends V> m){
+        this(m.size());
+        putAll(m);
+    }
+
+    /**
+     * 返回容纳expectedSize个映射所需的最小组数（2的幂）
+     */
+    private static int groupsFor(int expectedSize){
+        long slots = (long) expectedSize * 8 / 7 + 1;
+        long groups = (slots + GROUP_WIDTH - 1) / GROUP_WIDTH;
+        if(groups >= MAXIMUM_GROUPS)
+            return MAXIMUM_GROUPS;
+        int n = Math.max((int) groups, 1);
+        int g = Integer.highestOneBit(n);
+        return g == n ? g : g << 1;
+    }
+
+    /**
+     * 指定容量的表最多可以使用的槽位数(7/8)
+     */
+    private static int capacityToGrowth(int capacity){
+        return capacity - capacity / 8;
+    }
+
+    private void allocate(int groups){
+        int capacity = groups * GROUP_WIDTH;
+        ctrl = new long[groups];
+        Arrays.fill(ctrl, EMPTY_GROUP);
+        keys = new Object[capacity];
+        vals = new Object[capacity];
+        tombstones = 0;
+        growthLeft = capacityToGrowth(capacity) - size;
+    }
+
+    //SWAR helpers
+
+    /**
+     * 返回一个掩码，group中控制字节等于h2的字节的最高位被置位。
+     * 在一个真正匹配的字节之上的字节可能被误报，调用者总是要比较键
+     */
+    private static long match(long group, int h2){
+        long x = group ^ (LSBS * h2);
+        return (x - LSBS) & ~x & MSBS;
+    }
+
+    /**
+     * 返回一个掩码，group中EMPTY字节的最高位被置位
+     */
+    private static long matchEmpty(long group){
+        // EMPTY是唯一一个最高位为1且第1位为0的控制字节
+        return group & (~group << 6) & MSBS;
+    }
+
+    /**
+     * 返回一个掩码，group中EMPTY或者DELETED字节的最高位被置位
+     */
+    private static long matchEmptyOrDeleted(long group){
+        // EMPTY和DELETED是仅有的最高位为1且最低位为0的控制字节
+        return group & (~group << 7) & MSBS;
+    }
+
+    /**
+     * 返回一个掩码，group中FULL字节的最高位被置位
+     */
+    private static long matchFull(long group){
+        return ~group & MSBS;
+    }
+
+    /**
+     * 掩码中最低的被置位的字节在组内的下标
+     */
+    private static int lowestSlot(long mask){
+        return Long.numberOfTrailingZeros(mask) >>> 3;
+    }
+
+    private void setCtrl(int slot, long b){
+        int g = slot >>> 3;
+        int shift = (slot & 7) << 3;
+        ctrl[g] = (ctrl[g] & ~(0xFFL << shift)) | (b << shift);
+    }
+
+    private long ctrlAt(int slot){
+        return (ctrl[slot >>> 3] >>> ((slot & 7) << 3)) & 0xFFL;
+    }
+
+    /**
+     * h2 是哈希值的高7位，h1 (其余的位)用于选择组
+     */
+    private static int h2(int h){
+        return h >>> 25;
+    }
+
+    /**
+     * 返回已经masked的键k所在的槽位，如果此map不包含该键返回-1
+     */
+    final int indexOf(Object k){
+        final long[] c = ctrl;
+        final Object[] tab = keys;
+        final int groupMask = c.length - 1;
+        final int h = HashMap.hash(k);
+        final int h2 = h2(h);
+        int g = h & groupMask;
+        for(int step = 1; ; step++){
+            long group = c[g];
+            for(long m = match(group, h2); m != 0; m &= m - 1){
+                int slot = (g << 3) + lowestSlot(m);
+                Object item = tab[slot];
+                if(item != null && (item == k || item.equals(k)))
+                    return slot;
+            }
+            if(matchEmpty(group) != 0)
+                return -1;
+            g = (g + step) & groupMask;
+        }
+    }
+
+    /**
+     * 沿着哈希值h的探测序列返回第一个EMPTY或者DELETED的槽位
+     */
+    private int findInsertSlot(int h){
+        final long[] c = ctrl;
+        final int groupMask = c.length - 1;
+        int g = h & groupMask;
+        for(int step = 1; ; step++){
+            long m = matchEmptyOrDeleted(c[g]);
+            if(m != 0)
+                return (g << 3) + lowestSlot(m);
+            g = (g + step) & groupMask;
+        }
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key){
+        int i = indexOf(HashMap.maskNull(key));
+        return i < 0 ? null : (V) vals[i];
+    }
+
+    public boolean containsKey(Object key){
+        return indexOf(HashMap.maskNull(key)) >= 0;
+    }
+
+    /**
+     * 如果此map把一个或多个键映射到指定值，返回true。
+     * 此实现直接扫描控制字节和值表
+     */
+    public boolean containsValue(Object value){
+        final long[] c = ctrl;
+        final Object[] vs = vals;
+        for(int g = 0; g < c.length; g++){
+            for(long m = matchFull(c[g]); m != 0; m &= m - 1){
+                Object v = vs[(g << 3) + lowestSlot(m)];
+                if(value == null ? v == null : value.equals(v))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 把指定值与此map中的指定键关联。如果此map以前包含该键的映射，
+     * 则旧值被替换
+     *
+     * @throws IllegalStateException 如果表已经达到最大容量并且
+     *         没有空间容纳新的映射
+     */
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value){
+        final Object k = HashMap.maskNull(key);
+        int i = indexOf(k);
+        if(i >= 0){
+            V oldValue = (V) vals[i];
+            vals[i] = value;
+            return oldValue;
+        }
+
+        final int h = HashMap.hash(k);
+        int slot = findInsertSlot(h);
+        if(growthLeft == 0 && ctrlAt(slot) == EMPTY){
+            rehashForInsert();
+            slot = findInsertSlot(h);
+        }
+        modCount++;
+        if(ctrlAt(slot) == DELETED)
+            tombstones--;
+        else
+            growthLeft--;
+        setCtrl(slot, h2(h));
+        keys[slot] = k;
+        vals[slot] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * 可用的EMPTY槽位耗尽时重建表。如果存活的映射不到可用空间的一半，
+     * 说明空间主要被墓碑占据，以相同的容量重建；否则容量加倍
+     */
+    private void rehashForInsert(){
+        int groups = ctrl.length;
+        if((long) (size + 1) * 2 > capacityToGrowth(groups * GROUP_WIDTH)){
+            if(groups == MAXIMUM_GROUPS)
+                throw new IllegalStateException("Capacity exhausted.");
+            groups <<= 1;
+        }
+        resize(groups);
+    }
+
+    private void resize(int groups){
+        final long[] oldCtrl = ctrl;
+        final Object[] oldKeys = keys;
+        final Object[] oldVals = vals;
+        allocate(groups);
+        for(int g = 0; g < oldCtrl.length; g++){
+            for(long m = matchFull(oldCtrl[g]); m != 0; m &= m - 1){
+                int from = (g << 3) + lowestSlot(m);
+                Object k = oldKeys[from];
+                int h = HashMap.hash(k);
+                int to = findInsertSlot(h);
+                setCtrl(to, h2(h));
+                keys[to] = k;
+                vals[to] = oldVals[from];
+            }
+        }
+    }
+
+    public void putAll(Map<? extends K, ? extends V> m){
+        int n = m.size();
+        if(n == 0)
+            return;
+        int groups = groupsFor(size + n);
+        if(groups > ctrl.length)
+            resize(groups);
+        for(Iterator<? extends Map.Entry<? extends K, ? extends V>> i = m.entrySet().iterator(); i.hasNext(); ){
+            Map.Entry<? extends K, ? extends V> e = i.next();
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(Object key){
+        int i = indexOf(HashMap.maskNull(key));
+        if(i < 0)
+            return null;
+        V oldValue = (V) vals[i];
+        removeAt(i);
+        return oldValue;
+    }
+
+    /**
+     * 删除槽位slot上的映射。如果所在的组中还有EMPTY槽位，说明没有探测
+     * 序列经过这个组，槽位可以直接标记为EMPTY；否则一定要留下墓碑
+     */
+    final void removeAt(int slot){
+        modCount++;
+        size--;
+        keys[slot] = null;
+        vals[slot] = null;
+        if(matchEmpty(ctrl[slot >>> 3]) != 0){
+            setCtrl(slot, EMPTY);
+            growthLeft++;
+        }else {
+            setCtrl(slot, DELETED);
+            tombstones++;
+        }
+    }
+
+    public void clear(){
+        modCount++;
+        Arrays.fill(ctrl, EMPTY_GROUP);
+        Arrays.fill(keys, null);
+        Arrays.fill(vals, null);
+        size = 0;
+        tombstones = 0;
+        growthLeft = capacityToGrowth(keys.length);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Object clone(){
+        SwissHashMap<K, V> result;
+        try {
+            result = (SwissHashMap<K, V>) super.clone();
+        } catch (CloneNotSupportedException e){
+            throw new InternalError(e);
+        }
+        result.ctrl = ctrl.clone();
+        result.keys = keys.clone();
+        result.vals = vals.clone();
+        result.entrySet = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    //Views
+
+    transient Set<Map.Entry<K, V>> entrySet;
+
+    public Set<K> keySet(){
+        Set<K> ks = keySet;
+        if(ks == null){
+            ks = new KeySet();
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            SwissHashMap.this.clear();
+        }
+
+        public Iterator<K> iterator(){
+            return new KeyIterator();
+        }
+
+        public boolean contains(Object o){
+            return containsKey(o);
+        }
+
+        public boolean remove(Object o){
+            int i = indexOf(HashMap.maskNull(o));
+            if(i < 0)
+                return false;
+            removeAt(i);
+            return true;
+        }
+    }
+
+    public Collection<V> values(){
+        Collection<V> vs = values;
+        if(vs == null){
+            vs = new Values();
+            values = vs;
+        }
+        return vs;
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            SwissHashMap.this.clear();
+        }
+
+        public Iterator<V> iterator(){
+            return new ValueIterator();
+        }
+
+        public boolean contains(Object o){
+            return containsValue(o);
+        }
+    }
+
+    public Set<Map.Entry<K, V>> entrySet(){
+        Set<Map.Entry<K, V>> es = entrySet;
+        if(es == null){
+            es = new EntrySet();
+            entrySet = es;
+        }
+        return es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            SwissHashMap.this.clear();
+        }
+
+        public Iterator<Map.Entry<K, V>> iterator(){
+            return new EntryIterator();
+        }
+
+        public boolean contains(Object o){
+            return indexOfEntry(o) >= 0;
+        }
+
+        public boolean remove(Object o){
+            int i = indexOfEntry(o);
+            if(i < 0)
+                return false;
+            removeAt(i);
+            return true;
+        }
+    }
+
+    final int indexOfEntry(Object o){
+        if(!(o instanceof Map.Entry))
+            return -1;
+        Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+        int i = indexOf(HashMap.maskNull(e.getKey()));
+        if(i < 0)
+            return -1;
+        Object v = vals[i];
+        Object ev = e.getValue();
+        return (v == ev || (v != null && v.equals(ev))) ? i : -1;
+    }
+
+    /**
+     * 按组扫描控制字节的迭代器。删除只改写控制字节，不会移动其他映射，
+     * 所以迭代器的remove方法不需要调整迭代的位置
+     */
+    abstract class SwissIterator<E> implements Iterator<E> {
+        int group = -1;
+        long fullMask;
+        int lastReturned = -1;
+        int expectedModCount = modCount;
+
+        public boolean hasNext(){
+            final long[] c = ctrl;
+            while (fullMask == 0){
+                if(group + 1 >= c.length)
+                    return false;
+                fullMask = matchFull(c[++group]);
+            }
+            return true;
+        }
+
+        final int nextIndex(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(!hasNext())
+                throw new NoSuchElementException();
+            lastReturned = (group << 3) + lowestSlot(fullMask);
+            fullMask &= fullMask - 1;
+            return lastReturned;
+        }
+
+        public void remove(){
+            if(lastReturned < 0)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeAt(lastReturned);
+            expectedModCount = modCount;
+            lastReturned = -1;
+        }
+    }
+
+    final class KeyIterator extends SwissIterator<K> {
+        public K next(){
+            return HashMap.unmaskNull(keys[nextIndex()]);
+        }
+    }
+
+    final class ValueIterator extends SwissIterator<V> {
+        @SuppressWarnings("unchecked")
+        public V next(){
+            return (V) vals[nextIndex()];
+        }
+    }
+
+    final class EntryIterator extends SwissIterator<Map.Entry<K, V>> {
+        public Map.Entry<K, V> next(){
+            return new SlotEntry(nextIndex());
+        }
+    }
+
+    final class SlotEntry implements Map.Entry<K, V> {
+        private final int index;
+
+        SlotEntry(int index){
+            this.index = index;
+        }
+
+        public K getKey(){
+            return HashMap.unmaskNull(keys[index]);
+        }
+
+        @SuppressWarnings("unchecked")
+        public V getValue(){
+            return (V) vals[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        public V setValue(V value){
+            V oldValue = (V) vals[index];
+            vals[index] = value;
+            return oldValue;
+        }
+
+        public boolean equals(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            Object k = getKey();
+            Object v = getValue();
+            return (k == null ? e.getKey() == null : k.equals(e.getKey())) &&
+                    (v == null ? e.getValue() == null : v.equals(e.getValue()));
+        }
+
+        public int hashCode(){
+            Object k = getKey();
+            Object v = getValue();
+            return (k == null ? 0 : k.hashCode()) ^
+                    (v == null ? 0 : v.hashCode());
+        }
+
+        public String toString(){
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        s.defaultWriteObject();
+
+        s.writeInt(size);
+
+        final long[] c = ctrl;
+        for(int g = 0; g < c.length; g++){
+            for(long m = matchFull(c[g]); m != 0; m &= m - 1){
+                int i = (g << 3) + lowestSlot(m);
+                s.writeObject(HashMap.unmaskNull(keys[i]));
+                s.writeObject(vals[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        s.defaultReadObject();
+
+        int mappings = s.readInt();
+        if(mappings < 0)
+            throw new java.io.InvalidObjectException("Illegal mappings count: " +
+                                                        mappings);
+        allocate(groupsFor(mappings));
+
+        for(int i = 0; i < mappings; i++){
+            K key = (K) s.readObject();
+            V value = (V) s.readObject();
+            put(key, value);
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package com.jianglei.util;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * 使用W-TinyLFU策略的有界缓存，实现了Map接口。当映射的数量超过最大容量时，
+ * 缓存自动删除被认为最不可能再次被访问的映射。
+ *
+ * <p>纯LRU在扫描型的流量下命中率会崩溃：一次性访问的键把热点挤出了缓存。
+ * W-TinyLFU把缓存分成两个区域：
+ * <ul>
+ *     <li>准入窗口(window)：一个很小的LRU(约占容量的1%)，新的映射总是先进入
+ *     这里，使突发的新热点有机会积累频率</li>
+ *     <li>主区域(main)：一个分段LRU(SLRU)，由试用段(probation)和保护段
+ *     (protected, 约占主区域的80%)组成。试用段中被再次访问的映射晋升到保护段，
+ *     保护段溢出时把最近最少访问的映射降回试用段</li>
+ * </ul>
+ * 从窗口中淘汰的映射成为候选者，它要与试用段中最近最少访问的映射(受害者)比较
+ * 近期的访问频率，频率较高的留下，另一个被淘汰。频率由一个4位的Count-Min
+ * Sketch估计(见FrequencySketch)，它记录包括不命中在内的每一次访问，并定期
+ * 把所有计数器减半，使频率反映近期的流行度。
+ *
+ * <p>get方法是一次"访问"：它会更新频率和LRU顺序，并计入命中/不命中的统计；
+ * containsKey 和集合视图不是访问。hitCount、missCount 和 evictionCount
+ * 可以用来在录制的访问记录上比较不同策略的命中率。
+ *
+ * <p>此缓存不允许null键和null值。注意此实现不是同步的。
+ *
+ * @param <K> 此缓存维护的键的类型
+ * @param <V> 映射值的类型
+ * @see LinkedHashMap#removeEldestEntry(Map.Entry)
+ * Created by jianglei on 2017/4/15.
+ */
+public class TinyLfuCache<K, V> extends AbstractMap<K, V> implements Map<K, V> {
+
+    /**
+     * 准入窗口占最大容量的百分比
+     */
+    static final int WINDOW_PERCENT = 1;
+
+    /**
+     * 保护段占主区域的百分比
+     */
+    static final int PROTECTED_PERCENT = 80;
+
+    static final int WINDOW = 0;
+    static final int PROBATION = 1;
+    static final int PROTECTED = 2;
+
+    /**
+     * 缓存中的一个映射，同时也是所在LRU队列的双向链表节点
+     */
+    static final class Node<K, V> implements Map.Entry<K, V> {
+        final K key;
+        V value;
+        int queue;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value, int queue){
+            this.key = key;
+            this.value = value;
+            this.queue = queue;
+        }
+
+        public K getKey(){
+            return key;
+        }
+
+        public V getValue(){
+            return value;
+        }
+
+        public V setValue(V value){
+            if(value == null)
+                throw new NullPointerException();
+            V oldValue = this.value;
+            this.value = value;
+            return oldValue;
+        }
+
+        public boolean equals(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return key.equals(e.getKey()) && value.equals(e.getValue());
+        }
+
+        public int hashCode(){
+            return key.hashCode() ^ value.hashCode();
+        }
+
+        public String toString(){
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * 一个带哨兵的LRU队列：sentinel.next是最近最少访问的节点，
+     * sentinel.prev是最近访问的节点
+     */
+    static final class AccessQueue<K, V> {
+        final Node<K, V> sentinel = new Node<>(null, null, -1);
+        int size;
+
+        AccessQueue(){
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+        }
+
+        Node<K, V> peekFirst(){
+            return size == 0 ? null : sentinel.next;
+        }
+
+        void addLast(Node<K, V> node){
+            Node<K, V> last = sentinel.prev;
+            node.prev = last;
+            node.next = sentinel;
+            last.next = node;
+            sentinel.prev = node;
+            size++;
+        }
+
+        void remove(Node<K, V> node){
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToBack(Node<K, V> node){
+            remove(node);
+            addLast(node);
+        }
+
+        void clear(){
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            size = 0;
+        }
+    }
+
+    private final HashMap<K, Node<K, V>> data;
+    private final FrequencySketch sketch;
+    private final AccessQueue<K, V> window = new AccessQueue<>();
+    private final AccessQueue<K, V> probation = new AccessQueue<>();
+    private final AccessQueue<K, V> protectedQueue = new AccessQueue<>();
+
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    transient int modCount;
+
+    /**
+     * 创建一个最多容纳maximumSize个映射的空缓存
+     *
+     * @param maximumSize 最大容量
+     * @throws IllegalArgumentException 如果maximumSize不是正数
+     */
+    public TinyLfuCache(int maximumSize){
+        if(maximumSize <= 0)
+            throw new IllegalArgumentException("Illegal maximum size: " +
+                                                maximumSize);
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, (int) ((long) maximumSize * WINDOW_PERCENT / 100));
+        int mainMaximum = maximumSize - windowMaximum;
+        this.protectedMaximum = (int) ((long) mainMaximum * PROTECTED_PERCENT / 100);
+        this.data = new HashMap<>(Math.min(maximumSize, 1 << 16));
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * 返回此缓存的最大容量
+     */
+    public int maximumSize(){
+        return maximumSize;
+    }
+
+    public int size(){
+        return data.size();
+    }
+
+    public boolean isEmpty(){
+        return data.isEmpty();
+    }
+
+    /**
+     * 如果此缓存包含指定键的映射，返回true。此方法不是一次访问，
+     * 不影响统计、频率和淘汰顺序
+     */
+    public boolean containsKey(Object key){
+        return data.containsKey(key);
+    }
+
+    /**
+     * 返回指定键映射到的值，如果缓存中没有该键返回null。
+     * 此方法是一次访问：记录键的频率，命中时更新淘汰顺序，
+     * 并把结果计入命中或不命中的统计
+     *
+     * @throws NullPointerException 如果key为null
+     */
+    public V get(Object key){
+        if(key == null)
+            throw new NullPointerException();
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+        if(node == null){
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        onAccess(node);
+        return node.value;
+    }
+
+    /**
+     * 把指定值与指定键关联。新的映射进入准入窗口，如果缓存因此超过了最大容量，
+     * 在返回之前淘汰一个映射
+     *
+     * @throws NullPointerException 如果key或者value为null
+     */
+    public V put(K key, V value){
+        if(key == null || value == null)
+            throw new NullPointerException();
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+        if(node != null){
+            V oldValue = node.value;
+            node.value = value;
+            onAccess(node);
+            return oldValue;
+        }
+
+        modCount++;
+        node = new Node<>(key, value, WINDOW);
+        data.put(key, node);
+        window.addLast(node);
+        evict();
+        return null;
+    }
+
+    /**
+     * 从此缓存中删除指定键的映射。显式的删除不计入淘汰的统计
+     */
+    public V remove(Object key){
+        Node<K, V> node = data.remove(key);
+        if(node == null)
+            return null;
+        modCount++;
+        queueOf(node).remove(node);
+        return node.value;
+    }
+
+    public void clear(){
+        modCount++;
+        data.clear();
+        window.clear();
+        probation.clear();
+        protectedQueue.clear();
+    }
+
+    private AccessQueue<K, V> queueOf(Node<K, V> node){
+        switch (node.queue){
+            case WINDOW:
+                return window;
+            case PROBATION:
+                return probation;
+            default:
+                return protectedQueue;
+        }
+    }
+
+    /**
+     * 命中时调整节点的位置：窗口和保护段中的节点移到队尾，
+     * 试用段中的节点晋升到保护段。与访问顺序的LinkedHashMap一样，
+     * 这是一次结构修改
+     */
+    private void onAccess(Node<K, V> node){
+        modCount++;
+        switch (node.queue){
+            case WINDOW:
+                window.moveToBack(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protectedQueue.addLast(node);
+                demoteFromProtected();
+                break;
+            default:
+                protectedQueue.moveToBack(node);
+        }
+    }
+
+    /**
+     * 保护段溢出时，把最近最少访问的节点降回试用段
+     */
+    private void demoteFromProtected(){
+        while (protectedQueue.size > protectedMaximum){
+            Node<K, V> demoted = protectedQueue.peekFirst();
+            protectedQueue.remove(demoted);
+            demoted.queue = PROBATION;
+            probation.addLast(demoted);
+        }
+    }
+
+    /**
+     * 把超出窗口容量的节点移到试用段作为候选者，然后在缓存超过最大容量时，
+     * 让候选者与试用段的受害者比较频率，淘汰输掉的一方
+     */
+    private void evict(){
+        int candidates = 0;
+        while (window.size > windowMaximum){
+            Node<K, V> node = window.peekFirst();
+            window.remove(node);
+            node.queue = PROBATION;
+            probation.addLast(node);
+            candidates++;
+        }
+
+        while (data.size() > maximumSize){
+            Node<K, V> victim = probation.peekFirst();
+            if(victim == null){
+                // 试用段为空（只有在最大容量很小时才会发生）
+                victim = protectedQueue.size > 0 ? protectedQueue.peekFirst() : window.peekFirst();
+                evictNode(victim);
+                continue;
+            }
+            Node<K, V> candidate = probation.sentinel.prev;
+            if(candidates == 0 || candidate == victim){
+                evictNode(victim);
+                continue;
+            }
+            candidates--;
+            if(admit(candidate.key, victim.key))
+                evictNode(victim);
+            else
+                evictNode(candidate);
+        }
+    }
+
+    /**
+     * 如果候选者近期的访问频率高于受害者，返回true
+     */
+    private boolean admit(K candidateKey, K victimKey){
+        return sketch.frequency(candidateKey) > sketch.frequency(victimKey);
+    }
+
+    private void evictNode(Node<K, V> node){
+        queueOf(node).remove(node);
+        data.remove(node.key);
+        evictionCount++;
+    }
+
+    //Statistics
+
+    /**
+     * 返回get命中的次数
+     */
+    public long hitCount(){
+        return hitCount;
+    }
+
+    /**
+     * 返回get没有命中的次数
+     */
+    public long missCount(){
+        return missCount;
+    }
+
+    /**
+     * 返回因为容量限制而被淘汰的映射的数量
+     */
+    public long evictionCount(){
+        return evictionCount;
+    }
+
+    /**
+     * 返回命中次数与get调用次数的比值，如果没有调用过get返回1.0
+     */
+    public double hitRate(){
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    /**
+     * 把命中、不命中和淘汰的计数清零
+     */
+    public void resetStatistics(){
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
+    //Views
+
+    transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * 返回此缓存包含的映射的set视图。迭代不是访问，不影响淘汰顺序
+     */
+    public Set<Map.Entry<K, V>> entrySet(){
+        Set<Map.Entry<K, V>> es = entrySet;
+        if(es == null){
+            es = new AbstractSet<Map.Entry<K, V>>() {
+                public Iterator<Map.Entry<K, V>> iterator(){
+                    return new EntryIterator();
+                }
+
+                public int size(){
+                    return data.size();
+                }
+
+                public void clear(){
+                    TinyLfuCache.this.clear();
+                }
+
+                public boolean contains(Object o){
+                    if(!(o instanceof Map.Entry))
+                        return false;
+                    Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+                    Node<K, V> node = data.get(e.getKey());
+                    return node != null && node.value.equals(e.getValue());
+                }
+
+                public boolean remove(Object o){
+                    if(!contains(o))
+                        return false;
+                    TinyLfuCache.this.remove(((Map.Entry<?, ?>) o).getKey());
+                    return true;
+                }
+            };
+            entrySet = es;
+        }
+        return es;
+    }
+
+    /**
+     * 依次迭代窗口、试用段和保护段，每段从最近最少访问的节点开始
+     */
+    final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private int queue = WINDOW;
+        private Node<K, V> next = firstOf(WINDOW);
+        private Node<K, V> lastReturned;
+        private int expectedModCount = modCount;
+
+        private Node<K, V> firstOf(int q){
+            AccessQueue<K, V> aq = q == WINDOW ? window : q == PROBATION ? probation : protectedQueue;
+            return aq.sentinel.next;
+        }
+
+        private boolean isSentinel(Node<K, V> node){
+            return node.queue < 0;
+        }
+
+        public boolean hasNext(){
+            while (isSentinel(next)){
+                if(queue == PROTECTED)
+                    return false;
+                next = firstOf(++queue);
+            }
+            return true;
+        }
+
+        public Map.Entry<K, V> next(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(!hasNext())
+                throw new NoSuchElementException();
+            lastReturned = next;
+            next = next.next;
+            return lastReturned;
+        }
+
+        public void remove(){
+            if(lastReturned == null)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            TinyLfuCache.this.remove(lastReturned.key);
+            expectedModCount = modCount;
+            lastReturned = null;
+        }
+    }
+}
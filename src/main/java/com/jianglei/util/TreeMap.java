@@ -0,0 +1,1460 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * 基于红黑树的NavigableMap实现。map根据键的自然顺序，或者根据创建时提供的
+ * Comparator排序，这取决于使用的构造器。
+ *
+ * <p>此实现为containsKey，get，put 和 remove操作，以及floorKey，ceilingKey
+ * 等导航操作提供了保证的log(n)时间开销。算法是Cormen，Leiserson和Rivest的
+ * 《算法导论》中的算法的改编。
+ *
+ * <p>subMap，headMap 和 tailMap 返回的是此map的视图，而不是拷贝：视图只记录
+ * 范围的端点，所有的查找都直接在原来的树上进行，在视图上的迭代从范围内的第一个
+ * 节点开始，沿着后继节点前进，直到遇到范围之外的第一个节点(fence)为止，不复制
+ * 任何entry。对视图的修改会反映到此map中，反之亦然。
+ *
+ * <p>注意此实现不是同步的。如果多个线程并发地访问一个map，并且至少有一个线程
+ * 从结构上修改了map，那么必须在外部同步。此类所有"集合视图方法"返回的迭代器
+ * 是fail-fast的。
+ *
+ * <p>此类及其视图的导航方法返回的Map.Entry是调用时映射的快照，不支持setValue
+ * 方法(但是可以通过put改变关联的值)。
+ *
+ * <p>这个类是Java Collections Framework 中的一员
+ *
+ * @param <K> 此map维护的键的类型
+ * @param <V> 映射值的类型
+ * @see Map
+ * @see HashMap
+ * Created by jianglei on 2017/4/17.
+ */
+public class TreeMap<K, V> extends AbstractMap<K, V>
+        implements NavigableMap<K, V>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = 919286545866124006L;
+
+    /**
+     * 用于维护顺序的comparator，如果使用键的自然顺序，为null
+     */
+    private final Comparator<? super K> comparator;
+
+    private transient Entry<K, V> root;
+
+    /**
+     * 树中entry的数量
+     */
+    private transient int size = 0;
+
+    /**
+     * 此map被结构性修改的次数
+     */
+    private transient int modCount = 0;
+
+    /**
+     * 创建一个使用键的自然顺序的空的TreeMap。插入map的所有键都必须实现
+     * Comparable接口，并且是可以相互比较的
+     */
+    public TreeMap(){
+        comparator = null;
+    }
+
+    /**
+     * 创建一个根据指定的comparator排序的空的TreeMap
+     *
+     * @param comparator 用于排序此map的comparator。如果为null，使用键的自然顺序
+     */
+    public TreeMap(Comparator<? super K> comparator){
+        this.comparator = comparator;
+    }
+
+    /**
+     * 创建一个与指定map具有相同映射关系，根据键的自然顺序排序的TreeMap。
+     * 此方法的运行时间是n*log(n)
+     *
+     * @param m 映射要放进此map中的map
+     * @throws ClassCastException 如果m中的键不是Comparable，或者不能相互比较
+     * @throws NullPointerException 如果指定的map为null
+     */
+    public TreeMap(Map<? extends K, ? extends V> m){
+        comparator = null;
+        putAll(m);
+    }
+
+    /**
+     * 创建一个与指定的sorted map具有相同映射关系和相同顺序的TreeMap。
+     * 此方法在线性时间内运行
+     *
+     * @param m 映射要放进此map中的sorted map
+     * @throws NullPointerException 如果指定的map为null
+     */
+    public TreeMap(SortedMap<K, ? extends V> m){
+        comparator = m.comparator();
+        try {
+            buildFromSorted(m.size(), m.entrySet().iterator(), null, null);
+        } catch (IOException | ClassNotFoundException cannotHappen){
+            throw new InternalError(cannotHappen);
+        }
+    }
+
+    //Query Operations
+
+    public int size(){
+        return size;
+    }
+
+    /**
+     * 如果此map包含指定键的映射，返回true
+     *
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null，而此map使用自然顺序，
+     *         或者它的comparator不允许null键
+     */
+    public boolean containsKey(Object key){
+        return getEntry(key) != null;
+    }
+
+    /**
+     * 如果此map把一个或多个键映射到指定值，返回true。此方法所需的时间与
+     * map的大小成线性关系
+     */
+    public boolean containsValue(Object value){
+        for(Entry<K, V> e = getFirstEntry(); e != null; e = successor(e))
+            if(valEquals(value, e.value))
+                return true;
+        return false;
+    }
+
+    /**
+     * 返回指定键映射到的值，如果此map不包含该键的映射，返回null
+     *
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null，而此map使用自然顺序，
+     *         或者它的comparator不允许null键
+     */
+    public V get(Object key){
+        Entry<K, V> p = getEntry(key);
+        return (p == null ? null : p.value);
+    }
+
+    public Comparator<? super K> comparator(){
+        return comparator;
+    }
+
+    /**
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public K firstKey(){
+        return key(getFirstEntry());
+    }
+
+    /**
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public K lastKey(){
+        return key(getLastEntry());
+    }
+
+    /**
+     * 返回指定键的entry，如果不存在，返回null
+     */
+    final Entry<K, V> getEntry(Object key){
+        if(comparator == null && key == null)
+            throw new NullPointerException();
+        Entry<K, V> p = root;
+        while (p != null){
+            int cmp = compare(key, p.key);
+            if(cmp < 0)
+                p = p.left;
+            else if(cmp > 0)
+                p = p.right;
+            else
+                return p;
+        }
+        return null;
+    }
+
+    /**
+     * 返回键大于等于key的最小的entry，如果不存在，返回null
+     */
+    final Entry<K, V> getCeilingEntry(Object key){
+        Entry<K, V> p = root;
+        Entry<K, V> best = null;
+        while (p != null){
+            int cmp = compare(key, p.key);
+            if(cmp < 0){
+                best = p;
+                p = p.left;
+            }else if(cmp > 0){
+                p = p.right;
+            }else
+                return p;
+        }
+        return best;
+    }
+
+    /**
+     * 返回键小于等于key的最大的entry，如果不存在，返回null
+     */
+    final Entry<K, V> getFloorEntry(Object key){
+        Entry<K, V> p = root;
+        Entry<K, V> best = null;
+        while (p != null){
+            int cmp = compare(key, p.key);
+            if(cmp > 0){
+                best = p;
+                p = p.right;
+            }else if(cmp < 0){
+                p = p.left;
+            }else
+                return p;
+        }
+        return best;
+    }
+
+    /**
+     * 返回键严格大于key的最小的entry，如果不存在，返回null
+     */
+    final Entry<K, V> getHigherEntry(Object key){
+        Entry<K, V> p = root;
+        Entry<K, V> best = null;
+        while (p != null){
+            if(compare(key, p.key) < 0){
+                best = p;
+                p = p.left;
+            }else
+                p = p.right;
+        }
+        return best;
+    }
+
+    /**
+     * 返回键严格小于key的最大的entry，如果不存在，返回null
+     */
+    final Entry<K, V> getLowerEntry(Object key){
+        Entry<K, V> p = root;
+        Entry<K, V> best = null;
+        while (p != null){
+            if(compare(key, p.key) > 0){
+                best = p;
+                p = p.right;
+            }else
+                p = p.left;
+        }
+        return best;
+    }
+
+    //Modification Operations
+
+    /**
+     * 把指定值与此map中的指定键关联。如果map之前包含该键的映射，替换旧值
+     *
+     * @return 与key关联的旧值，如果key没有映射返回null
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null，而此map使用自然顺序，
+     *         或者它的comparator不允许null键
+     */
+    public V put(K key, V value){
+        Entry<K, V> t = root;
+        if(t == null){
+            compare(key, key);              // 类型(和null)检查
+
+            root = new Entry<>(key, value, null);
+            size = 1;
+            modCount++;
+            return null;
+        }
+        int cmp;
+        Entry<K, V> parent;
+        if(comparator == null && key == null)
+            throw new NullPointerException();
+        do {
+            parent = t;
+            cmp = compare(key, t.key);
+            if(cmp < 0)
+                t = t.left;
+            else if(cmp > 0)
+                t = t.right;
+            else
+                return t.setValue(value);
+        } while (t != null);
+        Entry<K, V> e = new Entry<>(key, value, parent);
+        if(cmp < 0)
+            parent.left = e;
+        else
+            parent.right = e;
+        fixAfterInsertion(e);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * 从此map中删除指定键的映射，如果它存在的话
+     *
+     * @return 与key关联的旧值，如果key没有映射返回null
+     * @throws ClassCastException 如果指定的键不能与map中的键比较
+     * @throws NullPointerException 如果指定的键为null，而此map使用自然顺序，
+     *         或者它的comparator不允许null键
+     */
+    public V remove(Object key){
+        Entry<K, V> p = getEntry(key);
+        if(p == null)
+            return null;
+
+        V oldValue = p.value;
+        deleteEntry(p);
+        return oldValue;
+    }
+
+    public void clear(){
+        modCount++;
+        size = 0;
+        root = null;
+    }
+
+    /**
+     * 返回此TreeMap实例的浅拷贝：键和值本身不被克隆。此方法在线性时间内运行
+     *
+     * @return 此map的浅拷贝
+     */
+    @SuppressWarnings("unchecked")
+    public Object clone(){
+        TreeMap<K, V> clone;
+        try {
+            clone = (TreeMap<K, V>) super.clone();
+        } catch (CloneNotSupportedException e){
+            throw new InternalError(e);
+        }
+
+        clone.root = null;
+        clone.size = 0;
+        clone.modCount = 0;
+        clone.entrySet = null;
+        try {
+            clone.buildFromSorted(size, entrySet().iterator(), null, null);
+        } catch (IOException | ClassNotFoundException cannotHappen){
+            throw new InternalError(cannotHappen);
+        }
+        return clone;
+    }
+
+    //NavigableMap API methods
+
+    public Map.Entry<K, V> firstEntry(){
+        return exportEntry(getFirstEntry());
+    }
+
+    public Map.Entry<K, V> lastEntry(){
+        return exportEntry(getLastEntry());
+    }
+
+    public Map.Entry<K, V> pollFirstEntry(){
+        Entry<K, V> p = getFirstEntry();
+        Map.Entry<K, V> result = exportEntry(p);
+        if(p != null)
+            deleteEntry(p);
+        return result;
+    }
+
+    public Map.Entry<K, V> pollLastEntry(){
+        Entry<K, V> p = getLastEntry();
+        Map.Entry<K, V> result = exportEntry(p);
+        if(p != null)
+            deleteEntry(p);
+        return result;
+    }
+
+    public Map.Entry<K, V> lowerEntry(K key){
+        return exportEntry(getLowerEntry(key));
+    }
+
+    public K lowerKey(K key){
+        return keyOrNull(getLowerEntry(key));
+    }
+
+    public Map.Entry<K, V> floorEntry(K key){
+        return exportEntry(getFloorEntry(key));
+    }
+
+    public K floorKey(K key){
+        return keyOrNull(getFloorEntry(key));
+    }
+
+    public Map.Entry<K, V> ceilingEntry(K key){
+        return exportEntry(getCeilingEntry(key));
+    }
+
+    public K ceilingKey(K key){
+        return keyOrNull(getCeilingEntry(key));
+    }
+
+    public Map.Entry<K, V> higherEntry(K key){
+        return exportEntry(getHigherEntry(key));
+    }
+
+    public K higherKey(K key){
+        return keyOrNull(getHigherEntry(key));
+    }
+
+    //Views
+
+    /**
+     * 持有缓存的entrySet()视图
+     */
+    private transient EntrySet entrySet;
+
+    /**
+     * 返回此map包含的键的set视图，其迭代器按升序返回键。此set支持元素的
+     * 移除，但不支持add 或 addAll 操作
+     */
+    public Set<K> keySet(){
+        Set<K> ks = keySet;
+        if(ks == null){
+            ks = new KeySet();
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    /**
+     * 返回此map包含的值的集合视图，其迭代器按相应键的升序返回值
+     */
+    public Collection<V> values(){
+        Collection<V> vs = values;
+        if(vs == null){
+            vs = new Values();
+            values = vs;
+        }
+        return vs;
+    }
+
+    /**
+     * 返回此map包含的映射的set视图，其迭代器按键的升序返回映射
+     */
+    public Set<Map.Entry<K, V>> entrySet(){
+        EntrySet es = entrySet;
+        return (es != null) ? es : (entrySet = new EntrySet());
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException 如果fromKey或toKey为null，而此map使用自然
+     *         顺序，或者它的comparator不允许null键
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive,
+                                     K toKey, boolean toInclusive){
+        return new SubMap(false, fromKey, fromInclusive,
+                          false, toKey, toInclusive);
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException 如果toKey为null，而此map使用自然顺序，
+     *         或者它的comparator不允许null键
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive){
+        return new SubMap(true, null, true,
+                          false, toKey, inclusive);
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException 如果fromKey为null，而此map使用自然顺序，
+     *         或者它的comparator不允许null键
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive){
+        return new SubMap(false, fromKey, inclusive,
+                          true, null, true);
+    }
+
+    public SortedMap<K, V> subMap(K fromKey, K toKey){
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    public SortedMap<K, V> headMap(K toKey){
+        return headMap(toKey, false);
+    }
+
+    public SortedMap<K, V> tailMap(K fromKey){
+        return tailMap(fromKey, true);
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        public Iterator<K> iterator(){
+            return new KeyIterator(getFirstEntry(), null);
+        }
+
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            TreeMap.this.clear();
+        }
+
+        public boolean contains(Object o){
+            return containsKey(o);
+        }
+
+        public boolean remove(Object o){
+            Entry<K, V> p = getEntry(o);
+            if(p == null)
+                return false;
+            deleteEntry(p);
+            return true;
+        }
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public Iterator<V> iterator(){
+            return new ValueIterator(getFirstEntry(), null);
+        }
+
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            TreeMap.this.clear();
+        }
+
+        public boolean contains(Object o){
+            return containsValue(o);
+        }
+
+        public boolean remove(Object o){
+            for(Entry<K, V> e = getFirstEntry(); e != null; e = successor(e)){
+                if(valEquals(e.getValue(), o)){
+                    deleteEntry(e);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        public Iterator<Map.Entry<K, V>> iterator(){
+            return new EntryIterator(getFirstEntry(), null);
+        }
+
+        public int size(){
+            return size;
+        }
+
+        public void clear(){
+            TreeMap.this.clear();
+        }
+
+        public boolean contains(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            Entry<K, V> p = getEntry(entry.getKey());
+            return p != null && valEquals(p.getValue(), entry.getValue());
+        }
+
+        public boolean remove(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            Entry<K, V> p = getEntry(entry.getKey());
+            if(p != null && valEquals(p.getValue(), entry.getValue())){
+                deleteEntry(p);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    //Iterators
+
+    /**
+     * 迭代器的基类。从first开始沿着后继节点前进，遇到fence(不包含)时停止，
+     * fence为null表示一直迭代到树的末尾
+     */
+    abstract class PrivateEntryIterator<T> implements Iterator<T> {
+        Entry<K, V> next;
+        Entry<K, V> lastReturned;
+        int expectedModCount;
+        final Object fenceKey;
+
+        PrivateEntryIterator(Entry<K, V> first, Entry<K, V> fence){
+            expectedModCount = modCount;
+            lastReturned = null;
+            next = first;
+            fenceKey = fence == null ? UNBOUNDED : fence.key;
+        }
+
+        public final boolean hasNext(){
+            return next != null && next.key != fenceKey;
+        }
+
+        final Entry<K, V> nextEntry(){
+            Entry<K, V> e = next;
+            if(e == null || e.key == fenceKey)
+                throw new NoSuchElementException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            next = successor(e);
+            lastReturned = e;
+            return e;
+        }
+
+        public void remove(){
+            if(lastReturned == null)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            // 有两个子节点的节点在删除时被后继节点的内容替换，next就是它自己
+            if(lastReturned.left != null && lastReturned.right != null)
+                next = lastReturned;
+            deleteEntry(lastReturned);
+            expectedModCount = modCount;
+            lastReturned = null;
+        }
+    }
+
+    final class EntryIterator extends PrivateEntryIterator<Map.Entry<K, V>> {
+        EntryIterator(Entry<K, V> first, Entry<K, V> fence){
+            super(first, fence);
+        }
+
+        public Map.Entry<K, V> next(){
+            return nextEntry();
+        }
+    }
+
+    final class ValueIterator extends PrivateEntryIterator<V> {
+        ValueIterator(Entry<K, V> first, Entry<K, V> fence){
+            super(first, fence);
+        }
+
+        public V next(){
+            return nextEntry().value;
+        }
+    }
+
+    final class KeyIterator extends PrivateEntryIterator<K> {
+        KeyIterator(Entry<K, V> first, Entry<K, V> fence){
+            super(first, fence);
+        }
+
+        public K next(){
+            return nextEntry().key;
+        }
+    }
+
+    /**
+     * 用于表示没有fence的哑对象
+     */
+    private static final Object UNBOUNDED = new Object();
+
+    //SubMaps
+
+    /**
+     * subMap，headMap 和 tailMap 返回的视图。视图只保存范围的端点，
+     * fromStart(toEnd)为true时表示没有低(高)端点。所有的操作都先检查范围，
+     * 然后在外部的树上进行
+     */
+    final class SubMap extends AbstractMap<K, V> implements NavigableMap<K, V> {
+
+        final K lo, hi;
+        final boolean fromStart, toEnd;
+        final boolean loInclusive, hiInclusive;
+
+        SubMap(boolean fromStart, K lo, boolean loInclusive,
+               boolean toEnd, K hi, boolean hiInclusive){
+            if(!fromStart && !toEnd){
+                if(compare(lo, hi) > 0)
+                    throw new IllegalArgumentException("fromKey > toKey");
+            }else {
+                if(!fromStart)              // 类型检查
+                    compare(lo, lo);
+                if(!toEnd)
+                    compare(hi, hi);
+            }
+
+            this.fromStart = fromStart;
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.toEnd = toEnd;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+        }
+
+        //range checks
+
+        final boolean tooLow(Object key){
+            if(!fromStart){
+                int c = compare(key, lo);
+                if(c < 0 || (c == 0 && !loInclusive))
+                    return true;
+            }
+            return false;
+        }
+
+        final boolean tooHigh(Object key){
+            if(!toEnd){
+                int c = compare(key, hi);
+                if(c > 0 || (c == 0 && !hiInclusive))
+                    return true;
+            }
+            return false;
+        }
+
+        final boolean inRange(Object key){
+            return !tooLow(key) && !tooHigh(key);
+        }
+
+        final boolean inClosedRange(Object key){
+            return (fromStart || compare(key, lo) >= 0)
+                    && (toEnd || compare(hi, key) >= 0);
+        }
+
+        final boolean inRange(Object key, boolean inclusive){
+            return inclusive ? inRange(key) : inClosedRange(key);
+        }
+
+        //absolute versions of relation operations
+
+        final TreeMap.Entry<K, V> absLowest(){
+            TreeMap.Entry<K, V> e = (fromStart ? getFirstEntry() :
+                    (loInclusive ? getCeilingEntry(lo) :
+                                   getHigherEntry(lo)));
+            return (e == null || tooHigh(e.key)) ? null : e;
+        }
+
+        final TreeMap.Entry<K, V> absHighest(){
+            TreeMap.Entry<K, V> e = (toEnd ? getLastEntry() :
+                    (hiInclusive ? getFloorEntry(hi) :
+                                   getLowerEntry(hi)));
+            return (e == null || tooLow(e.key)) ? null : e;
+        }
+
+        final TreeMap.Entry<K, V> absCeiling(K key){
+            if(tooLow(key))
+                return absLowest();
+            TreeMap.Entry<K, V> e = getCeilingEntry(key);
+            return (e == null || tooHigh(e.key)) ? null : e;
+        }
+
+        final TreeMap.Entry<K, V> absHigher(K key){
+            if(tooLow(key))
+                return absLowest();
+            TreeMap.Entry<K, V> e = getHigherEntry(key);
+            return (e == null || tooHigh(e.key)) ? null : e;
+        }
+
+        final TreeMap.Entry<K, V> absFloor(K key){
+            if(tooHigh(key))
+                return absHighest();
+            TreeMap.Entry<K, V> e = getFloorEntry(key);
+            return (e == null || tooLow(e.key)) ? null : e;
+        }
+
+        final TreeMap.Entry<K, V> absLower(K key){
+            if(tooHigh(key))
+                return absHighest();
+            TreeMap.Entry<K, V> e = getLowerEntry(key);
+            return (e == null || tooLow(e.key)) ? null : e;
+        }
+
+        /**
+         * 返回范围之外的第一个entry，作为升序迭代的fence
+         */
+        final TreeMap.Entry<K, V> absHighFence(){
+            return (toEnd ? null : (hiInclusive ?
+                    getHigherEntry(hi) :
+                    getCeilingEntry(hi)));
+        }
+
+        //public methods
+
+        public boolean isEmpty(){
+            return (fromStart && toEnd) ? TreeMap.this.isEmpty() : entrySet().isEmpty();
+        }
+
+        public int size(){
+            return (fromStart && toEnd) ? TreeMap.this.size() : entrySet().size();
+        }
+
+        public final boolean containsKey(Object key){
+            return inRange(key) && TreeMap.this.containsKey(key);
+        }
+
+        public final V put(K key, V value){
+            if(!inRange(key))
+                throw new IllegalArgumentException("key out of range");
+            return TreeMap.this.put(key, value);
+        }
+
+        public final V get(Object key){
+            return !inRange(key) ? null : TreeMap.this.get(key);
+        }
+
+        public final V remove(Object key){
+            return !inRange(key) ? null : TreeMap.this.remove(key);
+        }
+
+        public Comparator<? super K> comparator(){
+            return comparator;
+        }
+
+        public final K firstKey(){
+            return key(absLowest());
+        }
+
+        public final K lastKey(){
+            return key(absHighest());
+        }
+
+        public final Map.Entry<K, V> firstEntry(){
+            return exportEntry(absLowest());
+        }
+
+        public final Map.Entry<K, V> lastEntry(){
+            return exportEntry(absHighest());
+        }
+
+        public final Map.Entry<K, V> pollFirstEntry(){
+            TreeMap.Entry<K, V> e = absLowest();
+            Map.Entry<K, V> result = exportEntry(e);
+            if(e != null)
+                deleteEntry(e);
+            return result;
+        }
+
+        public final Map.Entry<K, V> pollLastEntry(){
+            TreeMap.Entry<K, V> e = absHighest();
+            Map.Entry<K, V> result = exportEntry(e);
+            if(e != null)
+                deleteEntry(e);
+            return result;
+        }
+
+        public final Map.Entry<K, V> ceilingEntry(K key){
+            return exportEntry(absCeiling(key));
+        }
+
+        public final K ceilingKey(K key){
+            return keyOrNull(absCeiling(key));
+        }
+
+        public final Map.Entry<K, V> higherEntry(K key){
+            return exportEntry(absHigher(key));
+        }
+
+        public final K higherKey(K key){
+            return keyOrNull(absHigher(key));
+        }
+
+        public final Map.Entry<K, V> floorEntry(K key){
+            return exportEntry(absFloor(key));
+        }
+
+        public final K floorKey(K key){
+            return keyOrNull(absFloor(key));
+        }
+
+        public final Map.Entry<K, V> lowerEntry(K key){
+            return exportEntry(absLower(key));
+        }
+
+        public final K lowerKey(K key){
+            return keyOrNull(absLower(key));
+        }
+
+        public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive,
+                                         K toKey, boolean toInclusive){
+            if(!inRange(fromKey, fromInclusive))
+                throw new IllegalArgumentException("fromKey out of range");
+            if(!inRange(toKey, toInclusive))
+                throw new IllegalArgumentException("toKey out of range");
+            return new SubMap(false, fromKey, fromInclusive,
+                              false, toKey, toInclusive);
+        }
+
+        public NavigableMap<K, V> headMap(K toKey, boolean inclusive){
+            if(!inRange(toKey, inclusive))
+                throw new IllegalArgumentException("toKey out of range");
+            return new SubMap(fromStart, lo, loInclusive,
+                              false, toKey, inclusive);
+        }
+
+        public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive){
+            if(!inRange(fromKey, inclusive))
+                throw new IllegalArgumentException("fromKey out of range");
+            return new SubMap(false, fromKey, inclusive,
+                              toEnd, hi, hiInclusive);
+        }
+
+        public SortedMap<K, V> subMap(K fromKey, K toKey){
+            return subMap(fromKey, true, toKey, false);
+        }
+
+        public SortedMap<K, V> headMap(K toKey){
+            return headMap(toKey, false);
+        }
+
+        public SortedMap<K, V> tailMap(K fromKey){
+            return tailMap(fromKey, true);
+        }
+
+        //Views
+
+        transient EntrySetView entrySetView;
+
+        public Set<Map.Entry<K, V>> entrySet(){
+            EntrySetView es = entrySetView;
+            return (es != null) ? es : (entrySetView = new EntrySetView());
+        }
+
+        final class EntrySetView extends AbstractSet<Map.Entry<K, V>> {
+            /**
+             * 缓存的大小，在外部map被修改之后重新计算
+             */
+            private transient int size = -1, sizeModCount;
+
+            public int size(){
+                if(fromStart && toEnd)
+                    return TreeMap.this.size;
+                if(size == -1 || sizeModCount != modCount){
+                    sizeModCount = modCount;
+                    size = 0;
+                    Iterator<?> i = iterator();
+                    while (i.hasNext()){
+                        size++;
+                        i.next();
+                    }
+                }
+                return size;
+            }
+
+            public boolean isEmpty(){
+                TreeMap.Entry<K, V> n = absLowest();
+                return n == null || tooHigh(n.key);
+            }
+
+            public boolean contains(Object o){
+                if(!(o instanceof Map.Entry))
+                    return false;
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                Object key = entry.getKey();
+                if(!inRange(key))
+                    return false;
+                TreeMap.Entry<K, V> node = getEntry(key);
+                return node != null &&
+                        valEquals(node.getValue(), entry.getValue());
+            }
+
+            public boolean remove(Object o){
+                if(!(o instanceof Map.Entry))
+                    return false;
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                Object key = entry.getKey();
+                if(!inRange(key))
+                    return false;
+                TreeMap.Entry<K, V> node = getEntry(key);
+                if(node != null && valEquals(node.getValue(), entry.getValue())){
+                    deleteEntry(node);
+                    return true;
+                }
+                return false;
+            }
+
+            public Iterator<Map.Entry<K, V>> iterator(){
+                return new EntryIterator(absLowest(), absHighFence());
+            }
+        }
+    }
+
+    //Red-black mechanics
+
+    private static final boolean RED = false;
+    private static final boolean BLACK = true;
+
+    /**
+     * 树中的节点，同时作为外部可见的Map.Entry
+     */
+    static final class Entry<K, V> implements Map.Entry<K, V> {
+        K key;
+        V value;
+        Entry<K, V> left;
+        Entry<K, V> right;
+        Entry<K, V> parent;
+        boolean color = BLACK;
+
+        Entry(K key, V value, Entry<K, V> parent){
+            this.key = key;
+            this.value = value;
+            this.parent = parent;
+        }
+
+        public K getKey(){
+            return key;
+        }
+
+        public V getValue(){
+            return value;
+        }
+
+        public V setValue(V value){
+            V oldValue = this.value;
+            this.value = value;
+            return oldValue;
+        }
+
+        public boolean equals(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+
+            return valEquals(key, e.getKey()) && valEquals(value, e.getValue());
+        }
+
+        public int hashCode(){
+            int keyHash = (key == null ? 0 : key.hashCode());
+            int valueHash = (value == null ? 0 : value.hashCode());
+            return keyHash ^ valueHash;
+        }
+
+        public String toString(){
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * 返回树中的第一个entry，如果树为空，返回null
+     */
+    final Entry<K, V> getFirstEntry(){
+        Entry<K, V> p = root;
+        if(p != null)
+            while (p.left != null)
+                p = p.left;
+        return p;
+    }
+
+    /**
+     * 返回树中的最后一个entry，如果树为空，返回null
+     */
+    final Entry<K, V> getLastEntry(){
+        Entry<K, V> p = root;
+        if(p != null)
+            while (p.right != null)
+                p = p.right;
+        return p;
+    }
+
+    /**
+     * 返回指定entry的后继，如果没有，返回null
+     */
+    static <K, V> Entry<K, V> successor(Entry<K, V> t){
+        if(t == null)
+            return null;
+        else if(t.right != null){
+            Entry<K, V> p = t.right;
+            while (p.left != null)
+                p = p.left;
+            return p;
+        }else {
+            Entry<K, V> p = t.parent;
+            Entry<K, V> ch = t;
+            while (p != null && ch == p.right){
+                ch = p;
+                p = p.parent;
+            }
+            return p;
+        }
+    }
+
+    /**
+     * 返回指定entry的前驱，如果没有，返回null
+     */
+    static <K, V> Entry<K, V> predecessor(Entry<K, V> t){
+        if(t == null)
+            return null;
+        else if(t.left != null){
+            Entry<K, V> p = t.left;
+            while (p.right != null)
+                p = p.right;
+            return p;
+        }else {
+            Entry<K, V> p = t.parent;
+            Entry<K, V> ch = t;
+            while (p != null && ch == p.left){
+                ch = p;
+                p = p.parent;
+            }
+            return p;
+        }
+    }
+
+    /*
+     * 以下的访问方法在null上也能工作，避免了在主算法中到处检查null
+     */
+
+    private static <K, V> boolean colorOf(Entry<K, V> p){
+        return (p == null ? BLACK : p.color);
+    }
+
+    private static <K, V> Entry<K, V> parentOf(Entry<K, V> p){
+        return (p == null ? null : p.parent);
+    }
+
+    private static <K, V> void setColor(Entry<K, V> p, boolean c){
+        if(p != null)
+            p.color = c;
+    }
+
+    private static <K, V> Entry<K, V> leftOf(Entry<K, V> p){
+        return (p == null) ? null : p.left;
+    }
+
+    private static <K, V> Entry<K, V> rightOf(Entry<K, V> p){
+        return (p == null) ? null : p.right;
+    }
+
+    private void rotateLeft(Entry<K, V> p){
+        if(p != null){
+            Entry<K, V> r = p.right;
+            p.right = r.left;
+            if(r.left != null)
+                r.left.parent = p;
+            r.parent = p.parent;
+            if(p.parent == null)
+                root = r;
+            else if(p.parent.left == p)
+                p.parent.left = r;
+            else
+                p.parent.right = r;
+            r.left = p;
+            p.parent = r;
+        }
+    }
+
+    private void rotateRight(Entry<K, V> p){
+        if(p != null){
+            Entry<K, V> l = p.left;
+            p.left = l.right;
+            if(l.right != null)
+                l.right.parent = p;
+            l.parent = p.parent;
+            if(p.parent == null)
+                root = l;
+            else if(p.parent.right == p)
+                p.parent.right = l;
+            else
+                p.parent.left = l;
+            l.right = p;
+            p.parent = l;
+        }
+    }
+
+    private void fixAfterInsertion(Entry<K, V> x){
+        x.color = RED;
+
+        while (x != null && x != root && x.parent.color == RED){
+            if(parentOf(x) == leftOf(parentOf(parentOf(x)))){
+                Entry<K, V> y = rightOf(parentOf(parentOf(x)));
+                if(colorOf(y) == RED){
+                    setColor(parentOf(x), BLACK);
+                    setColor(y, BLACK);
+                    setColor(parentOf(parentOf(x)), RED);
+                    x = parentOf(parentOf(x));
+                }else {
+                    if(x == rightOf(parentOf(x))){
+                        x = parentOf(x);
+                        rotateLeft(x);
+                    }
+                    setColor(parentOf(x), BLACK);
+                    setColor(parentOf(parentOf(x)), RED);
+                    rotateRight(parentOf(parentOf(x)));
+                }
+            }else {
+                Entry<K, V> y = leftOf(parentOf(parentOf(x)));
+                if(colorOf(y) == RED){
+                    setColor(parentOf(x), BLACK);
+                    setColor(y, BLACK);
+                    setColor(parentOf(parentOf(x)), RED);
+                    x = parentOf(parentOf(x));
+                }else {
+                    if(x == leftOf(parentOf(x))){
+                        x = parentOf(x);
+                        rotateRight(x);
+                    }
+                    setColor(parentOf(x), BLACK);
+                    setColor(parentOf(parentOf(x)), RED);
+                    rotateLeft(parentOf(parentOf(x)));
+                }
+            }
+        }
+        root.color = BLACK;
+    }
+
+    /**
+     * 删除节点p，然后重新平衡树
+     */
+    private void deleteEntry(Entry<K, V> p){
+        modCount++;
+        size--;
+
+        // 如果p有两个子节点，把后继节点的内容复制到p中，然后删除后继节点
+        if(p.left != null && p.right != null){
+            Entry<K, V> s = successor(p);
+            p.key = s.key;
+            p.value = s.value;
+            p = s;
+        }
+
+        // 现在p至多有一个子节点
+        Entry<K, V> replacement = (p.left != null ? p.left : p.right);
+
+        if(replacement != null){
+            replacement.parent = p.parent;
+            if(p.parent == null)
+                root = replacement;
+            else if(p == p.parent.left)
+                p.parent.left = replacement;
+            else
+                p.parent.right = replacement;
+
+            p.left = p.right = p.parent = null;
+
+            if(p.color == BLACK)
+                fixAfterDeletion(replacement);
+        }else if(p.parent == null){
+            root = null;
+        }else {
+            // 没有子节点，用p自己作为幻影替换节点，然后解除链接
+            if(p.color == BLACK)
+                fixAfterDeletion(p);
+
+            if(p.parent != null){
+                if(p == p.parent.left)
+                    p.parent.left = null;
+                else if(p == p.parent.right)
+                    p.parent.right = null;
+                p.parent = null;
+            }
+        }
+    }
+
+    private void fixAfterDeletion(Entry<K, V> x){
+        while (x != root && colorOf(x) == BLACK){
+            if(x == leftOf(parentOf(x))){
+                Entry<K, V> sib = rightOf(parentOf(x));
+
+                if(colorOf(sib) == RED){
+                    setColor(sib, BLACK);
+                    setColor(parentOf(x), RED);
+                    rotateLeft(parentOf(x));
+                    sib = rightOf(parentOf(x));
+                }
+
+                if(colorOf(leftOf(sib)) == BLACK &&
+                        colorOf(rightOf(sib)) == BLACK){
+                    setColor(sib, RED);
+                    x = parentOf(x);
+                }else {
+                    if(colorOf(rightOf(sib)) == BLACK){
+                        setColor(leftOf(sib), BLACK);
+                        setColor(sib, RED);
+                        rotateRight(sib);
+                        sib = rightOf(parentOf(x));
+                    }
+                    setColor(sib, colorOf(parentOf(x)));
+                    setColor(parentOf(x), BLACK);
+                    setColor(rightOf(sib), BLACK);
+                    rotateLeft(parentOf(x));
+                    x = root;
+                }
+            }else {
+                Entry<K, V> sib = leftOf(parentOf(x));
+
+                if(colorOf(sib) == RED){
+                    setColor(sib, BLACK);
+                    setColor(parentOf(x), RED);
+                    rotateRight(parentOf(x));
+                    sib = leftOf(parentOf(x));
+                }
+
+                if(colorOf(rightOf(sib)) == BLACK &&
+                        colorOf(leftOf(sib)) == BLACK){
+                    setColor(sib, RED);
+                    x = parentOf(x);
+                }else {
+                    if(colorOf(leftOf(sib)) == BLACK){
+                        setColor(rightOf(sib), BLACK);
+                        setColor(sib, RED);
+                        rotateLeft(sib);
+                        sib = leftOf(parentOf(x));
+                    }
+                    setColor(sib, colorOf(parentOf(x)));
+                    setColor(parentOf(x), BLACK);
+                    setColor(leftOf(sib), BLACK);
+                    rotateRight(parentOf(x));
+                    x = root;
+                }
+            }
+        }
+
+        setColor(x, BLACK);
+    }
+
+    //Construction from sorted data
+
+    /**
+     * 从有序的数据在线性时间内建立一棵平衡的树。数据来自迭代器或者流，两者只能
+     * 有一个不为null。defaultVal为null时，迭代器的元素是Map.Entry，流中是交替的
+     * 键和值；否则迭代器和流中都只有键，所有的值都是defaultVal
+     */
+    private void buildFromSorted(int size, Iterator<?> it, ObjectInputStream str, V defaultVal)
+            throws IOException, ClassNotFoundException{
+        this.size = size;
+        root = buildFromSorted(0, 0, size - 1, computeRedLevel(size), it, str, defaultVal);
+    }
+
+    /**
+     * 供TreeSet.addAll使用：此map为空时，在线性时间内插入有序set中所有的元素
+     */
+    void addAllForTreeSet(SortedSet<? extends K> set, V defaultVal){
+        modCount++;
+        try {
+            buildFromSorted(set.size(), set.iterator(), null, defaultVal);
+        } catch (IOException | ClassNotFoundException cannotHappen){
+            throw new InternalError(cannotHappen);
+        }
+    }
+
+    /**
+     * 供TreeSet的反序列化使用：从流中读取size个有序的键
+     */
+    void readTreeSet(int size, ObjectInputStream s, V defaultVal)
+            throws IOException, ClassNotFoundException{
+        buildFromSorted(size, null, s, defaultVal);
+    }
+
+    /**
+     * 递归地建立[lo, hi]范围内的子树。除了最底下一层不满的节点染成红色之外，
+     * 所有节点都是黑色的，这样得到的树满足红黑树的性质
+     */
+    @SuppressWarnings("unchecked")
+    private Entry<K, V> buildFromSorted(int level, int lo, int hi, int redLevel,
+                                        Iterator<?> it, ObjectInputStream str, V defaultVal)
+            throws IOException, ClassNotFoundException{
+        if(hi < lo)
+            return null;
+
+        int mid = (lo + hi) >>> 1;
+
+        Entry<K, V> left = null;
+        if(lo < mid)
+            left = buildFromSorted(level + 1, lo, mid - 1, redLevel, it, str, defaultVal);
+
+        K key;
+        V value;
+        if(it != null){
+            if(defaultVal == null){
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) it.next();
+                key = (K) entry.getKey();
+                value = (V) entry.getValue();
+            }else {
+                key = (K) it.next();
+                value = defaultVal;
+            }
+        }else {
+            key = (K) str.readObject();
+            value = (defaultVal != null ? defaultVal : (V) str.readObject());
+        }
+
+        Entry<K, V> middle = new Entry<>(key, value, null);
+
+        if(level == redLevel)
+            middle.color = RED;
+
+        if(left != null){
+            middle.left = left;
+            left.parent = middle;
+        }
+
+        if(mid < hi){
+            Entry<K, V> right = buildFromSorted(level + 1, mid + 1, hi, redLevel, it, str, defaultVal);
+            middle.right = right;
+            right.parent = middle;
+        }
+
+        return middle;
+    }
+
+    /**
+     * 返回完全二叉树中最底下一层(不满的一层)的层数，这一层的节点染成红色
+     */
+    private static int computeRedLevel(int size){
+        int level = 0;
+        for(int m = size - 1; m >= 0; m = m / 2 - 1)
+            level++;
+        return level;
+    }
+
+    //Serialization
+
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        s.defaultWriteObject();
+
+        s.writeInt(size);
+
+        for(Entry<K, V> e = getFirstEntry(); e != null; e = successor(e)){
+            s.writeObject(e.key);
+            s.writeObject(e.value);
+        }
+    }
+
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        s.defaultReadObject();
+
+        int size = s.readInt();
+        if(size < 0)
+            throw new java.io.InvalidObjectException("Illegal mappings count: " +
+                                                        size);
+        buildFromSorted(size, null, s, null);
+    }
+
+    //Utilities
+
+    @SuppressWarnings("unchecked")
+    final int compare(Object k1, Object k2){
+        return comparator == null ? ((Comparable<? super K>) k1).compareTo((K) k2)
+                : comparator.compare((K) k1, (K) k2);
+    }
+
+    static boolean valEquals(Object o1, Object o2){
+        return (o1 == null ? o2 == null : o1.equals(o2));
+    }
+
+    static <K, V> Map.Entry<K, V> exportEntry(Entry<K, V> e){
+        return (e == null) ? null :
+                new AbstractMap.SimpleImmutableEntry<>(e);
+    }
+
+    static <K, V> K keyOrNull(Entry<K, V> e){
+        return (e == null) ? null : e.key;
+    }
+
+    static <K> K key(Entry<K, ?> e){
+        if(e == null)
+            throw new NoSuchElementException();
+        return e.key;
+    }
+}
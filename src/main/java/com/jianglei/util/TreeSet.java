@@ -0,0 +1,269 @@
+package com.jianglei.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * 基于TreeMap的NavigableSet实现。元素按自然顺序或者创建时提供的Comparator排序，
+ * 元素就是背后的map的键，值是一个共享的占位对象。
+ *
+ * <p>此实现为基本操作(add，remove 和 contains)提供了保证的log(n)时间开销。
+ * subSet，headSet 和 tailSet 返回的视图只是背后的map的子map视图加上范围
+ * 检查，创建的开销是O(1)，不复制任何元素，在视图上的查找和导航也是log(n)的。
+ *
+ * <p>注意此实现不是同步的。此类的iterator方法返回的迭代器是fail-fast的。
+ *
+ * <p>这个类是Java Collections Framework 中的一员
+ *
+ * @param <E> 此set维护的元素的类型
+ * @see TreeMap
+ * @see NavigableSet
+ * Created by jianglei on 2017/4/22.
+ */
+public class TreeSet<E> extends AbstractSet<E>
+        implements NavigableSet<E>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = -2479143000061671589L;
+
+    /**
+     * 背后的map
+     */
+    private transient NavigableMap<E, Object> m;
+
+    /**
+     * 背后的map中与所有元素关联的值
+     */
+    private static final Object PRESENT = new Object();
+
+    /**
+     * 创建一个由指定的navigable map支持的set
+     */
+    TreeSet(NavigableMap<E, Object> m){
+        this.m = m;
+    }
+
+    /**
+     * 创建一个空的set，元素按自然顺序排序。插入的所有元素都必须实现
+     * Comparable接口，并且可以相互比较
+     */
+    public TreeSet(){
+        this(new TreeMap<E, Object>());
+    }
+
+    /**
+     * 创建一个空的set，元素按指定的comparator排序
+     *
+     * @param comparator 用于排序的comparator，null表示使用元素的自然顺序
+     */
+    public TreeSet(Comparator<? super E> comparator){
+        this(new TreeMap<>(comparator));
+    }
+
+    /**
+     * 创建一个包含指定集合中所有元素的set，元素按自然顺序排序
+     *
+     * @throws ClassCastException 如果c中的元素没有实现Comparable，或者不能相互比较
+     * @throws NullPointerException 如果指定的集合为null
+     */
+    public TreeSet(Collection<? extends E> c){
+        this();
+        addAll(c);
+    }
+
+    /**
+     * 创建一个包含指定sorted set中所有元素的set，使用相同的顺序。
+     * 此构造器在线性时间内运行
+     *
+     * @throws NullPointerException 如果指定的set为null
+     */
+    public TreeSet(SortedSet<E> s){
+        this(s.comparator());
+        addAll(s);
+    }
+
+    //Query Operations
+
+    public Iterator<E> iterator(){
+        return m.keySet().iterator();
+    }
+
+    public int size(){
+        return m.size();
+    }
+
+    public boolean isEmpty(){
+        return m.isEmpty();
+    }
+
+    /**
+     * @throws ClassCastException 如果指定的对象不能与set中的元素比较
+     * @throws NullPointerException 如果指定的元素为null，而此set使用自然顺序，
+     *         或者comparator不允许null元素
+     */
+    public boolean contains(Object o){
+        return m.containsKey(o);
+    }
+
+    //Modification Operations
+
+    /**
+     * @throws ClassCastException 如果指定的对象不能与set中的元素比较
+     * @throws NullPointerException 如果指定的元素为null，而此set使用自然顺序，
+     *         或者comparator不允许null元素
+     */
+    public boolean add(E e){
+        return m.put(e, PRESENT) == null;
+    }
+
+    /**
+     * @throws ClassCastException 如果指定的对象不能与set中的元素比较
+     * @throws NullPointerException 如果指定的元素为null，而此set使用自然顺序，
+     *         或者comparator不允许null元素
+     */
+    public boolean remove(Object o){
+        return m.remove(o) == PRESENT;
+    }
+
+    public void clear(){
+        m.clear();
+    }
+
+    /**
+     * 把指定集合中的所有元素加入到此set中。如果此set为空，而c是使用相同
+     * comparator的sorted set，直接在线性时间内建立平衡的树
+     *
+     * @throws ClassCastException 如果c中的元素不能与set中的元素比较
+     * @throws NullPointerException 如果指定的集合为null
+     */
+    public boolean addAll(Collection<? extends E> c){
+        if(m.size() == 0 && c.size() > 0 && c instanceof SortedSet && m instanceof TreeMap){
+            SortedSet<? extends E> set = (SortedSet<? extends E>) c;
+            TreeMap<E, Object> map = (TreeMap<E, Object>) m;
+            if(valEquals(set.comparator(), map.comparator())){
+                map.addAllForTreeSet(set, PRESENT);
+                return true;
+            }
+        }
+        return super.addAll(c);
+    }
+
+    //Navigation
+
+    public E lower(E e){
+        return m.lowerKey(e);
+    }
+
+    public E floor(E e){
+        return m.floorKey(e);
+    }
+
+    public E ceiling(E e){
+        return m.ceilingKey(e);
+    }
+
+    public E higher(E e){
+        return m.higherKey(e);
+    }
+
+    public E pollFirst(){
+        Map.Entry<E, ?> e = m.pollFirstEntry();
+        return e == null ? null : e.getKey();
+    }
+
+    public E pollLast(){
+        Map.Entry<E, ?> e = m.pollLastEntry();
+        return e == null ? null : e.getKey();
+    }
+
+    public Comparator<? super E> comparator(){
+        return m.comparator();
+    }
+
+    /**
+     * @throws NoSuchElementException 如果此set为空
+     */
+    public E first(){
+        return m.firstKey();
+    }
+
+    /**
+     * @throws NoSuchElementException 如果此set为空
+     */
+    public E last(){
+        return m.lastKey();
+    }
+
+    //Views
+
+    public NavigableSet<E> subSet(E fromElement, boolean fromInclusive,
+                                  E toElement, boolean toInclusive){
+        return new TreeSet<>(m.subMap(fromElement, fromInclusive,
+                                        toElement, toInclusive));
+    }
+
+    public NavigableSet<E> headSet(E toElement, boolean inclusive){
+        return new TreeSet<>(m.headMap(toElement, inclusive));
+    }
+
+    public NavigableSet<E> tailSet(E fromElement, boolean inclusive){
+        return new TreeSet<>(m.tailMap(fromElement, inclusive));
+    }
+
+    public SortedSet<E> subSet(E fromElement, E toElement){
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    public SortedSet<E> headSet(E toElement){
+        return headSet(toElement, false);
+    }
+
+    public SortedSet<E> tailSet(E fromElement){
+        return tailSet(fromElement, true);
+    }
+
+    /**
+     * 返回此set的浅拷贝：元素本身不被克隆
+     */
+    @SuppressWarnings("unchecked")
+    public Object clone(){
+        TreeSet<E> clone;
+        try {
+            clone = (TreeSet<E>) super.clone();
+        } catch (CloneNotSupportedException e){
+            throw new InternalError(e);
+        }
+        clone.m = new TreeMap<>(m);
+        return clone;
+    }
+
+    private static boolean valEquals(Object o1, Object o2){
+        return (o1 == null ? o2 == null : o1.equals(o2));
+    }
+
+    private void writeObject(ObjectOutputStream s) throws IOException{
+        s.defaultWriteObject();
+
+        s.writeObject(m.comparator());
+        s.writeInt(m.size());
+        for(E e : m.keySet())
+            s.writeObject(e);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException{
+        s.defaultReadObject();
+
+        Comparator<? super E> c = (Comparator<? super E>) s.readObject();
+        TreeMap<E, Object> tm = new TreeMap<>(c);
+        m = tm;
+
+        int size = s.readInt();
+        if(size < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + size);
+        tm.readTreeSet(size, s, PRESENT);
+    }
+}
@@ -0,0 +1,637 @@
+package com.jianglei.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * 键是弱引用的Map接口实现。当一个键除了此map之外不再被引用时，它可以被垃圾
+ * 回收器回收，回收之后它的映射会从此map中被删除。适合在不由自己管理生命周期的
+ * 对象上附加数据：用普通的map会使这些对象和附加的数据一直无法被回收。
+ *
+ * <p>每个映射是一个以键为referent的WeakReference，注册在此map的ReferenceQueue上。
+ * 键被回收之后，垃圾回收器把它的映射放进队列，此map在后续的操作中从队列中取出
+ * 这些失效的映射，并把它们从所在的桶中摘除，不需要扫描整个表。get、put 和
+ * remove每次最多处理EXPUNGE_BATCH个失效的映射，所以即使一次垃圾回收清除了
+ * 大量的键，单次操作的开销也是有上限的，清理的工作被分摊到之后的多次操作中；
+ * size、扩容和集合视图的迭代器则一次清空整个队列。
+ *
+ * <p>因为每个映射本来就需要一个引用对象，此实现使用链式哈希表，引用对象本身就是
+ * 链表的节点，删除一个失效的映射只需要在它所在的桶中摘除它。与HashMap不同，
+ * 默认的加载因子是0.75。
+ *
+ * <p>键的相等性由equals决定。此类允许null键和null值，null键永远不会被回收。
+ * 值是强引用的，所以值不应该直接或者间接地引用它的键，否则键永远不会被回收。
+ *
+ * <p>由于垃圾回收器随时可能清除键，此map的行为就像有一个线程在不断地删除映射：
+ * size的返回值可能随时间减小，get可能对刚才还存在的键返回null。
+ *
+ * <p>注意此实现不是同步的。此类所有"集合视图方法"返回的迭代器是fail-fast的。
+ * 迭代器在返回一个键之前持有它的强引用，所以hasNext返回true之后next一定能
+ * 返回一个映射。
+ *
+ * <p>这个类是Java Collections Framework 中的一员
+ *
+ * @param <K> 此map维护的键的类型
+ * @param <V> 映射值的类型
+ * @see WeakValueHashMap
+ * @see IdentityHashMap
+ * Created by jianglei on 2017/4/22.
+ */
+public class WeakHashMap<K, V> extends AbstractMap<K, V> implements Map<K, V> {
+
+    /**
+     * 默认的初始容量，一定是2的幂
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * 最大容量，一定是2的幂且不大于 1 << 30
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * 构造器中没有指定加载因子时使用的加载因子
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * get、put 和 remove每次最多从队列中取出的失效映射的个数
+     */
+    static final int EXPUNGE_BATCH = 32;
+
+    /**
+     * 桶的数组，长度总是2的幂
+     */
+    private Entry<K, V>[] table;
+
+    private int size;
+
+    private int threshold;
+
+    private final float loadFactor;
+
+    /**
+     * 键被回收的映射由垃圾回收器放进此队列
+     */
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    int modCount;
+
+    /**
+     * 创建一个具有指定初始容量和加载因子的空WeakHashMap
+     *
+     * @param initialCapacity 初始容量
+     * @param loadFactor 加载因子
+     * @throws IllegalArgumentException 如果初始容量是负数，或者加载因子不是正数
+     */
+    public WeakHashMap(int initialCapacity, float loadFactor){
+        if(initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                                initialCapacity);
+        if(!(loadFactor > 0))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                                loadFactor);
+        this.loadFactor = loadFactor;
+        int capacity = 1;
+        while (capacity < initialCapacity && capacity < MAXIMUM_CAPACITY)
+            capacity <<= 1;
+        table = newTable(capacity);
+        threshold = (int) (capacity * loadFactor);
+    }
+
+    /**
+     * 创建一个具有指定初始容量和默认加载因子(0.75)的空WeakHashMap
+     *
+     * @param initialCapacity 初始容量
+     * @throws IllegalArgumentException 如果初始容量是负数
+     */
+    public WeakHashMap(int initialCapacity){
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * 创建一个具有默认初始容量(16)和默认加载因子(0.75)的空WeakHashMap
+     */
+    public WeakHashMap(){
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * 创建一个包含指定map中的映射的WeakHashMap
+     *
+     * @throws NullPointerException 如果指定的map为null
+     */
+    public WeakHashMap(Map<? extends K, ? extends V> m){
+        this(Math.max((int) (m.size() / DEFAULT_LOAD_FACTOR) + 1, DEFAULT_INITIAL_CAPACITY),
+                DEFAULT_LOAD_FACTOR);
+        putAll(m);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Entry<K, V>[] newTable(int n){
+        return (Entry<K, V>[]) new Entry<?, ?>[n];
+    }
+
+    /**
+     * 此map中的一个映射，同时也是桶中链表的节点。referent是masked的键
+     */
+    private static final class Entry<K, V> extends WeakReference<Object> implements Map.Entry<K, V> {
+        V value;
+        final int hash;
+        Entry<K, V> next;
+
+        Entry(Object key, V value, ReferenceQueue<Object> queue, int hash, Entry<K, V> next){
+            super(key, queue);
+            this.value = value;
+            this.hash = hash;
+            this.next = next;
+        }
+
+        public K getKey(){
+            return HashMap.unmaskNull(get());
+        }
+
+        public V getValue(){
+            return value;
+        }
+
+        public V setValue(V newValue){
+            V oldValue = value;
+            value = newValue;
+            return oldValue;
+        }
+
+        public boolean equals(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            K k1 = getKey();
+            Object k2 = e.getKey();
+            if(k1 == k2 || (k1 != null && k1.equals(k2))){
+                V v1 = getValue();
+                Object v2 = e.getValue();
+                return v1 == v2 || (v1 != null && v1.equals(v2));
+            }
+            return false;
+        }
+
+        public int hashCode(){
+            K k = getKey();
+            V v = getValue();
+            return (k == null ? 0 : k.hashCode()) ^ (v == null ? 0 : v.hashCode());
+        }
+
+        public String toString(){
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    private static int indexFor(int h, int length){
+        return h & (length - 1);
+    }
+
+    /**
+     * 从队列中取出最多max个失效的映射，把它们从所在的桶中摘除。
+     * 每个映射只需要遍历它所在的一个桶
+     */
+    @SuppressWarnings("unchecked")
+    private void expungeStaleEntries(int max){
+        for(Object x; max > 0 && (x = queue.poll()) != null; max--){
+            Entry<K, V> e = (Entry<K, V>) x;
+            final Entry<K, V>[] tab = table;
+            int i = indexFor(e.hash, tab.length);
+            Entry<K, V> prev = null;
+            for(Entry<K, V> p = tab[i]; p != null; prev = p, p = p.next){
+                if(p == e){
+                    if(prev == null)
+                        tab[i] = e.next;
+                    else
+                        prev.next = e.next;
+                    e.value = null;     // 帮助GC
+                    size--;
+                    break;
+                }
+            }
+            // 没有找到说明它已经在扩容时被丢弃了
+        }
+    }
+
+    /**
+     * 清空队列中所有失效的映射
+     */
+    private void expungeAllStaleEntries(){
+        expungeStaleEntries(Integer.MAX_VALUE);
+    }
+
+    //Query Operations
+
+    /**
+     * 返回此map包含的映射的数量。此方法先删除所有已经进入队列的失效映射，
+     * 但是返回的结果仍然可能包含随后被回收的键
+     */
+    public int size(){
+        if(size == 0)
+            return 0;
+        expungeAllStaleEntries();
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size() == 0;
+    }
+
+    public V get(Object key){
+        expungeStaleEntries(EXPUNGE_BATCH);
+        Entry<K, V> e = getEntry(key);
+        return e == null ? null : e.value;
+    }
+
+    public boolean containsKey(Object key){
+        expungeStaleEntries(EXPUNGE_BATCH);
+        return getEntry(key) != null;
+    }
+
+    /**
+     * 返回指定键的映射，不存在时返回null。键已经被回收的映射的referent是null，
+     * 不会与任何masked的键相等
+     */
+    private Entry<K, V> getEntry(Object key){
+        final Object k = HashMap.maskNull(key);
+        final int h = HashMap.hash(k);
+        final Entry<K, V>[] tab = table;
+        for(Entry<K, V> e = tab[indexFor(h, tab.length)]; e != null; e = e.next){
+            Object q;
+            if(e.hash == h && ((q = e.get()) == k || k.equals(q)))
+                return e;
+        }
+        return null;
+    }
+
+    /**
+     * 如果此map把某个键映射到指定的值，返回true。此操作需要扫描整个表
+     */
+    public boolean containsValue(Object value){
+        final Entry<K, V>[] tab = table;
+        for(int i = tab.length; i-- > 0; ){
+            for(Entry<K, V> e = tab[i]; e != null; e = e.next){
+                if(e.get() != null && (value == null ? e.value == null : value.equals(e.value)))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    //Modification Operations
+
+    public V put(K key, V value){
+        expungeStaleEntries(EXPUNGE_BATCH);
+        final Object k = HashMap.maskNull(key);
+        final int h = HashMap.hash(k);
+        final Entry<K, V>[] tab = table;
+        final int i = indexFor(h, tab.length);
+        for(Entry<K, V> e = tab[i]; e != null; e = e.next){
+            Object q;
+            if(e.hash == h && ((q = e.get()) == k || k.equals(q))){
+                V oldValue = e.value;
+                e.value = value;
+                return oldValue;
+            }
+        }
+
+        modCount++;
+        tab[i] = new Entry<>(k, value, queue, h, tab[i]);
+        if(++size >= threshold)
+            resize(tab.length << 1);
+        return null;
+    }
+
+    /**
+     * 把表扩容到newCapacity。扩容之前先清空队列；如果清除失效的映射之后
+     * 映射的数量已经降到阈值的一半以下，就不扩容，避免因为已经被回收的键
+     * 使表无限增长
+     */
+    private void resize(int newCapacity){
+        expungeAllStaleEntries();
+        final Entry<K, V>[] oldTable = table;
+        if(oldTable.length == MAXIMUM_CAPACITY){
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+        if(size < threshold >>> 1 && newCapacity <= oldTable.length << 1)
+            return;
+
+        final Entry<K, V>[] tab = newTable(newCapacity);
+        for(int j = 0; j < oldTable.length; j++){
+            Entry<K, V> e = oldTable[j];
+            oldTable[j] = null;
+            while (e != null){
+                Entry<K, V> next = e.next;
+                if(e.get() == null){
+                    // 键已经被回收，但还没有进入队列：在这里丢弃它
+                    e.next = null;
+                    e.value = null;
+                    size--;
+                }else {
+                    int i = indexFor(e.hash, newCapacity);
+                    e.next = tab[i];
+                    tab[i] = e;
+                }
+                e = next;
+            }
+        }
+        table = tab;
+        threshold = (int) Math.min(newCapacity * loadFactor, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 把指定map中所有的映射拷贝到此map中
+     *
+     * @throws NullPointerException 如果指定的map为null
+     */
+    public void putAll(Map<? extends K, ? extends V> m){
+        int n = m.size();
+        if(n == 0)
+            return;
+        if(n > threshold){
+            int target = (int) Math.min(n / loadFactor + 1, MAXIMUM_CAPACITY);
+            int capacity = table.length;
+            while (capacity < target)
+                capacity <<= 1;
+            if(capacity > table.length)
+                resize(capacity);
+        }
+        for(Iterator<? extends Map.Entry<? extends K, ? extends V>> i = m.entrySet().iterator(); i.hasNext(); ){
+            Map.Entry<? extends K, ? extends V> e = i.next();
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    public V remove(Object key){
+        expungeStaleEntries(EXPUNGE_BATCH);
+        final Object k = HashMap.maskNull(key);
+        final int h = HashMap.hash(k);
+        final Entry<K, V>[] tab = table;
+        final int i = indexFor(h, tab.length);
+        Entry<K, V> prev = null;
+        for(Entry<K, V> e = tab[i]; e != null; prev = e, e = e.next){
+            Object q;
+            if(e.hash == h && ((q = e.get()) == k || k.equals(q))){
+                unlink(i, prev, e);
+                return e.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 从桶i中摘除映射e，prev是它在链表中的前驱。摘除之后清除e的referent，
+     * 使它不会再被放进队列
+     */
+    private void unlink(int i, Entry<K, V> prev, Entry<K, V> e){
+        modCount++;
+        size--;
+        if(prev == null)
+            table[i] = e.next;
+        else
+            prev.next = e.next;
+        e.clear();
+    }
+
+    /**
+     * 删除与o相等的映射，如果它存在的话
+     */
+    boolean removeMapping(Object o){
+        if(!(o instanceof Map.Entry))
+            return false;
+        Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+        final Object k = HashMap.maskNull(entry.getKey());
+        final int h = HashMap.hash(k);
+        final Entry<K, V>[] tab = table;
+        final int i = indexFor(h, tab.length);
+        Entry<K, V> prev = null;
+        for(Entry<K, V> e = tab[i]; e != null; prev = e, e = e.next){
+            Object q;
+            if(e.hash == h && ((q = e.get()) == k || k.equals(q))){
+                Object v = entry.getValue();
+                if(v == e.value || (v != null && v.equals(e.value))){
+                    unlink(i, prev, e);
+                    return true;
+                }
+                return false;
+            }
+        }
+        return false;
+    }
+
+    public void clear(){
+        // 先清空队列，避免之后处理已经不在表中的映射
+        while (queue.poll() != null)
+            ;
+        modCount++;
+        java.util.Arrays.fill(table, null);
+        size = 0;
+        while (queue.poll() != null)
+            ;
+    }
+
+    //Views
+
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * 返回此map包含的键的set视图。此set受map支持，支持元素的移除，
+     * 但不支持add 或 addAll 操作
+     */
+    public Set<K> keySet(){
+        Set<K> ks = keySet;
+        if(ks == null){
+            ks = new KeySet();
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        public int size(){
+            return WeakHashMap.this.size();
+        }
+
+        public void clear(){
+            WeakHashMap.this.clear();
+        }
+
+        public Iterator<K> iterator(){
+            return new KeyIterator();
+        }
+
+        public boolean contains(Object o){
+            return containsKey(o);
+        }
+
+        public boolean remove(Object o){
+            if(containsKey(o)){
+                WeakHashMap.this.remove(o);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 返回此map包含的值的集合视图。此集合受map支持，支持元素的移除，
+     * 但不支持add 或 addAll 操作
+     */
+    public Collection<V> values(){
+        Collection<V> vs = values;
+        if(vs == null){
+            vs = new Values();
+            values = vs;
+        }
+        return vs;
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public int size(){
+            return WeakHashMap.this.size();
+        }
+
+        public void clear(){
+            WeakHashMap.this.clear();
+        }
+
+        public Iterator<V> iterator(){
+            return new ValueIterator();
+        }
+
+        public boolean contains(Object o){
+            return containsValue(o);
+        }
+    }
+
+    /**
+     * 返回此map包含的映射的set视图。此set受map支持，支持元素的移除，
+     * 但不支持add 或 addAll 操作
+     */
+    public Set<Map.Entry<K, V>> entrySet(){
+        Set<Map.Entry<K, V>> es = entrySet;
+        if(es == null){
+            es = new EntrySet();
+            entrySet = es;
+        }
+        return es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        public int size(){
+            return WeakHashMap.this.size();
+        }
+
+        public void clear(){
+            WeakHashMap.this.clear();
+        }
+
+        public Iterator<Map.Entry<K, V>> iterator(){
+            return new EntryIterator();
+        }
+
+        public boolean contains(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            Entry<K, V> candidate = getEntry(e.getKey());
+            return candidate != null && candidate.equals(e);
+        }
+
+        public boolean remove(Object o){
+            return removeMapping(o);
+        }
+    }
+
+    /**
+     * 集合视图迭代器的基类。从表的末尾向前遍历各个桶，跳过键已经被回收的映射。
+     * hasNext找到下一个映射时持有它的键的强引用，直到next返回它
+     */
+    abstract class WeakIterator<E> implements Iterator<E> {
+        private int index;
+        private Entry<K, V> entry;
+        private Entry<K, V> lastReturned;
+        private int expectedModCount = modCount;
+
+        /**
+         * 下一个映射的键(masked)，非null表示entry是下一个要返回的映射
+         */
+        private Object nextKey;
+
+        /**
+         * 最近返回的映射的键，在remove之前防止它被回收
+         */
+        private Object currentKey;
+
+        WeakIterator(){
+            index = isEmpty() ? 0 : table.length;
+        }
+
+        public boolean hasNext(){
+            final Entry<K, V>[] tab = table;
+            while (nextKey == null){
+                Entry<K, V> e = entry;
+                int i = index;
+                while (e == null && i > 0)
+                    e = tab[--i];
+                entry = e;
+                index = i;
+                if(e == null){
+                    currentKey = null;
+                    return false;
+                }
+                nextKey = e.get();
+                if(nextKey == null)
+                    entry = entry.next;
+            }
+            return true;
+        }
+
+        final Entry<K, V> nextEntry(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(nextKey == null && !hasNext())
+                throw new NoSuchElementException();
+            lastReturned = entry;
+            entry = entry.next;
+            currentKey = nextKey;
+            nextKey = null;
+            return lastReturned;
+        }
+
+        public void remove(){
+            if(lastReturned == null)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            WeakHashMap.this.remove(HashMap.unmaskNull(currentKey));
+            expectedModCount = modCount;
+            lastReturned = null;
+            currentKey = null;
+        }
+    }
+
+    final class KeyIterator extends WeakIterator<K> {
+        public K next(){
+            return nextEntry().getKey();
+        }
+    }
+
+    final class ValueIterator extends WeakIterator<V> {
+        public V next(){
+            return nextEntry().value;
+        }
+    }
+
+    final class EntryIterator extends WeakIterator<Map.Entry<K, V>> {
+        public Map.Entry<K, V> next(){
+            return nextEntry();
+        }
+    }
+}
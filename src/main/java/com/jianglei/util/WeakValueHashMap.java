@@ -0,0 +1,428 @@
+package com.jianglei.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * 值是弱引用的Map接口实现，用于规范化(canonicalization)缓存：把一个键映射到
+ * 该值唯一的实例，只要程序的其他地方还在使用这个实例，就总能通过键找到它；
+ * 实例不再被使用时可以被垃圾回收器回收，它的映射随后会从此map中被删除。
+ *
+ * <p>结构与WeakHashMap相同：链式哈希表的节点是以值为referent的WeakReference，
+ * 它同时保存键和键的哈希值，注册在此map的ReferenceQueue上。get、put 和 remove
+ * 每次最多从队列中处理WeakHashMap.EXPUNGE_BATCH个失效的映射，size、扩容和集合
+ * 视图的迭代器一次清空整个队列，删除一个失效的映射只需要遍历它所在的桶。
+ * 一个值被替换或者删除时它的引用被清除，不会再进入队列。
+ *
+ * <p>{@link #putIfAbsent(Object, Object)}是规范化缓存的基本操作：如果键已经映射到
+ * 一个存活的值就返回它，否则把指定的值作为规范的实例放进去。
+ *
+ * <p>此类允许null键，但不允许null值：弱引用的referent为null与值已经被回收无法
+ * 区分。值不应该只被它的键引用，否则它随时可能被回收。
+ *
+ * <p>由于垃圾回收器随时可能清除值，size的返回值可能随时间减小，get可能对刚才
+ * 还存在的键返回null。注意此实现不是同步的。此类所有"集合视图方法"返回的
+ * 迭代器是fail-fast的，并且在返回一个映射之前持有它的值的强引用。
+ *
+ * @param <K> 此map维护的键的类型
+ * @param <V> 映射值的类型
+ * @see WeakHashMap
+ * Created by jianglei on 2017/4/22.
+ */
+public class WeakValueHashMap<K, V> extends AbstractMap<K, V> implements Map<K, V> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private Entry<K, V>[] table;
+
+    private int size;
+
+    private int threshold;
+
+    /**
+     * 值被回收的映射由垃圾回收器放进此队列
+     */
+    private final ReferenceQueue<V> queue = new ReferenceQueue<>();
+
+    int modCount;
+
+    /**
+     * 创建一个空的WeakValueHashMap
+     */
+    public WeakValueHashMap(){
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * 创建一个具有指定初始容量的空WeakValueHashMap
+     *
+     * @throws IllegalArgumentException 如果初始容量是负数
+     */
+    public WeakValueHashMap(int initialCapacity){
+        if(initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                                initialCapacity);
+        int capacity = 1;
+        while (capacity < initialCapacity && capacity < MAXIMUM_CAPACITY)
+            capacity <<= 1;
+        table = newTable(capacity);
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Entry<K, V>[] newTable(int n){
+        return (Entry<K, V>[]) new Entry<?, ?>[n];
+    }
+
+    /**
+     * 此map中的一个映射，同时也是桶中链表的节点。referent是值
+     */
+    private static final class Entry<K, V> extends WeakReference<V> {
+        final K key;
+        final int hash;
+        Entry<K, V> next;
+
+        Entry(K key, V value, ReferenceQueue<V> queue, int hash, Entry<K, V> next){
+            super(value, queue);
+            this.key = key;
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    private static int hash(Object key){
+        return key == null ? 0 : HashMap.hash(key);
+    }
+
+    private static int indexFor(int h, int length){
+        return h & (length - 1);
+    }
+
+    private static boolean eq(Object k, Object q){
+        return k == q || (k != null && k.equals(q));
+    }
+
+    /**
+     * 从队列中取出最多max个失效的映射，把它们从所在的桶中摘除
+     */
+    @SuppressWarnings("unchecked")
+    private void expungeStaleEntries(int max){
+        for(Object x; max > 0 && (x = queue.poll()) != null; max--){
+            Entry<K, V> e = (Entry<K, V>) x;
+            final Entry<K, V>[] tab = table;
+            int i = indexFor(e.hash, tab.length);
+            Entry<K, V> prev = null;
+            for(Entry<K, V> p = tab[i]; p != null; prev = p, p = p.next){
+                if(p == e){
+                    if(prev == null)
+                        tab[i] = e.next;
+                    else
+                        prev.next = e.next;
+                    size--;
+                    break;
+                }
+            }
+        }
+    }
+
+    //Query Operations
+
+    /**
+     * 返回此map包含的映射的数量。此方法先删除所有已经进入队列的失效映射，
+     * 但是返回的结果仍然可能包含随后被回收的值
+     */
+    public int size(){
+        if(size == 0)
+            return 0;
+        expungeStaleEntries(Integer.MAX_VALUE);
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size() == 0;
+    }
+
+    public V get(Object key){
+        expungeStaleEntries(WeakHashMap.EXPUNGE_BATCH);
+        final int h = hash(key);
+        final Entry<K, V>[] tab = table;
+        for(Entry<K, V> e = tab[indexFor(h, tab.length)]; e != null; e = e.next){
+            if(e.hash == h && eq(key, e.key))
+                return e.get();
+        }
+        return null;
+    }
+
+    public boolean containsKey(Object key){
+        return get(key) != null;
+    }
+
+    /**
+     * 如果此map把某个键映射到指定的值，返回true。此操作需要扫描整个表
+     */
+    public boolean containsValue(Object value){
+        if(value == null)
+            return false;
+        final Entry<K, V>[] tab = table;
+        for(int i = tab.length; i-- > 0; ){
+            for(Entry<K, V> e = tab[i]; e != null; e = e.next){
+                if(value.equals(e.get()))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    //Modification Operations
+
+    /**
+     * 把指定值与指定的键关联
+     *
+     * @return 之前与键关联的存活的值，如果没有返回null
+     * @throws NullPointerException 如果指定的值为null
+     */
+    public V put(K key, V value){
+        return putVal(key, value, false);
+    }
+
+    /**
+     * 如果指定的键没有映射到存活的值，把它与指定的值关联
+     *
+     * @return 键已经映射到的存活的值；如果没有，返回null，此时value成为该键的值
+     * @throws NullPointerException 如果指定的值为null
+     */
+    public V putIfAbsent(K key, V value){
+        return putVal(key, value, true);
+    }
+
+    private V putVal(K key, V value, boolean onlyIfAbsent){
+        if(value == null)
+            throw new NullPointerException();
+        expungeStaleEntries(WeakHashMap.EXPUNGE_BATCH);
+        final int h = hash(key);
+        final Entry<K, V>[] tab = table;
+        final int i = indexFor(h, tab.length);
+        Entry<K, V> prev = null;
+        for(Entry<K, V> e = tab[i]; e != null; prev = e, e = e.next){
+            if(e.hash == h && eq(key, e.key)){
+                V oldValue = e.get();
+                if(onlyIfAbsent && oldValue != null)
+                    return oldValue;
+                // 值不能原地替换：用新的引用代替这个节点
+                Entry<K, V> replacement = new Entry<>(e.key, value, queue, h, e.next);
+                if(prev == null)
+                    tab[i] = replacement;
+                else
+                    prev.next = replacement;
+                e.clear();
+                return oldValue;
+            }
+        }
+
+        modCount++;
+        tab[i] = new Entry<>(key, value, queue, h, tab[i]);
+        if(++size >= threshold)
+            resize();
+        return null;
+    }
+
+    /**
+     * 把表的容量加倍。与WeakHashMap相同，先清空队列，如果映射的数量已经降到
+     * 阈值的一半以下就不扩容
+     */
+    private void resize(){
+        expungeStaleEntries(Integer.MAX_VALUE);
+        final Entry<K, V>[] oldTable = table;
+        if(oldTable.length == MAXIMUM_CAPACITY){
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+        if(size < threshold >>> 1)
+            return;
+
+        final int newCapacity = oldTable.length << 1;
+        final Entry<K, V>[] tab = newTable(newCapacity);
+        for(int j = 0; j < oldTable.length; j++){
+            Entry<K, V> e = oldTable[j];
+            oldTable[j] = null;
+            while (e != null){
+                Entry<K, V> next = e.next;
+                if(e.get() == null){
+                    e.next = null;
+                    size--;
+                }else {
+                    int i = indexFor(e.hash, newCapacity);
+                    e.next = tab[i];
+                    tab[i] = e;
+                }
+                e = next;
+            }
+        }
+        table = tab;
+        threshold = (int) (newCapacity * LOAD_FACTOR);
+    }
+
+    public V remove(Object key){
+        expungeStaleEntries(WeakHashMap.EXPUNGE_BATCH);
+        final int h = hash(key);
+        final Entry<K, V>[] tab = table;
+        final int i = indexFor(h, tab.length);
+        Entry<K, V> prev = null;
+        for(Entry<K, V> e = tab[i]; e != null; prev = e, e = e.next){
+            if(e.hash == h && eq(key, e.key)){
+                modCount++;
+                size--;
+                if(prev == null)
+                    tab[i] = e.next;
+                else
+                    prev.next = e.next;
+                V oldValue = e.get();
+                e.clear();
+                return oldValue;
+            }
+        }
+        return null;
+    }
+
+    public void clear(){
+        while (queue.poll() != null)
+            ;
+        modCount++;
+        java.util.Arrays.fill(table, null);
+        size = 0;
+        while (queue.poll() != null)
+            ;
+    }
+
+    //Views
+
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * 返回此map包含的映射的set视图。此set受map支持，支持元素的移除，
+     * 但不支持add 或 addAll 操作。迭代器跳过值已经被回收的映射，返回的entry
+     * 持有值的强引用，它的setValue会写回此map
+     */
+    public Set<Map.Entry<K, V>> entrySet(){
+        Set<Map.Entry<K, V>> es = entrySet;
+        if(es == null){
+            es = new EntrySet();
+            entrySet = es;
+        }
+        return es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        public int size(){
+            return WeakValueHashMap.this.size();
+        }
+
+        public void clear(){
+            WeakValueHashMap.this.clear();
+        }
+
+        public Iterator<Map.Entry<K, V>> iterator(){
+            return new EntryIterator();
+        }
+
+        public boolean contains(Object o){
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            V v = get(e.getKey());
+            return v != null && v.equals(e.getValue());
+        }
+
+        public boolean remove(Object o){
+            if(contains(o)){
+                WeakValueHashMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 从表的末尾向前遍历各个桶，跳过值已经被回收的映射。hasNext找到下一个
+     * 映射时持有它的值的强引用，直到next返回它
+     */
+    final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private int index;
+        private Entry<K, V> entry;
+        private V nextValue;
+        private K lastKey;
+        private boolean canRemove;
+        private int expectedModCount = modCount;
+
+        EntryIterator(){
+            index = isEmpty() ? 0 : table.length;
+        }
+
+        public boolean hasNext(){
+            final Entry<K, V>[] tab = table;
+            while (nextValue == null){
+                Entry<K, V> e = entry;
+                int i = index;
+                while (e == null && i > 0)
+                    e = tab[--i];
+                entry = e;
+                index = i;
+                if(e == null)
+                    return false;
+                nextValue = e.get();
+                if(nextValue == null)
+                    entry = e.next;
+            }
+            return true;
+        }
+
+        public Map.Entry<K, V> next(){
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if(nextValue == null && !hasNext())
+                throw new NoSuchElementException();
+            Map.Entry<K, V> e = new WriteThroughEntry(entry.key, nextValue);
+            lastKey = entry.key;
+            entry = entry.next;
+            nextValue = null;
+            canRemove = true;
+            return e;
+        }
+
+        public void remove(){
+            if(!canRemove)
+                throw new IllegalStateException();
+            if(modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            WeakValueHashMap.this.remove(lastKey);
+            expectedModCount = modCount;
+            canRemove = false;
+            lastKey = null;
+        }
+    }
+
+    /**
+     * 迭代器返回的entry，持有值的强引用，setValue时同时更新此map
+     */
+    final class WriteThroughEntry extends AbstractMap.SimpleEntry<K, V> {
+        private static final long serialVersionUID = 3270389466393016396L;
+
+        WriteThroughEntry(K key, V value){
+            super(key, value);
+        }
+
+        public V setValue(V value){
+            if(value == null)
+                throw new NullPointerException();
+            V oldValue = super.setValue(value);
+            WeakValueHashMap.this.put(getKey(), value);
+            return oldValue;
+        }
+    }
+}